@@ -15,6 +15,7 @@ dependencies {
     implementation(libs.dokka)
     implementation(libs.gradle.test.retry)
     implementation(libs.gradle.versions)
+    implementation(libs.jmh.plugin)
     implementation(libs.protobuf.plugin)
     implementation(libs.publish.vanniktech)
     implementation(libs.kotlin.gradle)
@@ -0,0 +1,16 @@
+package buildlogic.test
+
+import buildlogic.withVersionCatalog
+
+plugins {
+    id("buildlogic.java-core")
+    id("me.champeau.jmh")
+}
+
+withVersionCatalog {
+    jmh {
+        jmhVersion = libs.versions.jmh.get()
+        profilers.add("gc")
+        jvmArgsAppend.add("--enable-native-access=ALL-UNNAMED")
+    }
+}
@@ -0,0 +1,126 @@
+package io.github.iamnicknack.pjs.device.spi.impl;
+
+import io.github.iamnicknack.pjs.device.spi.Spi;
+import io.github.iamnicknack.pjs.device.spi.SpiConfig;
+import io.github.iamnicknack.pjs.device.spi.SpiTransfer;
+import io.github.iamnicknack.pjs.model.device.DeviceConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the pooled packing workspace of {@link CompositeMessageTransfer} with the previous approach of allocating
+ * a {@link CompositeMessage.Builder} with maximum length buffers for every transfer.
+ * <p>
+ * Each transfer packs a command and address write followed by a payload read, as for an EEPROM read, onto a
+ * {@link Spi} which does no I/O. Run with {@code ./gradlew :pjs-core:jmh} and compare the {@code gc.alloc.rate.norm}
+ * of each benchmark.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompositeMessageTransferBenchmark {
+
+    /**
+     * Number of bytes read after the command
+     */
+    @Param({"16", "256"})
+    public int payload;
+
+    private final Spi spi = new Spi() {
+        private final SpiConfig config = SpiConfig.builder().id("benchmark").build();
+
+        @Override
+        public int transfer(byte[] write, int writeOffset, byte[] read, int readOffset, int length) {
+            return length;
+        }
+
+        @Override
+        public DeviceConfig<Spi> getConfig() {
+            return config;
+        }
+    };
+
+    private CompositeMessageTransfer pooled;
+    private SpiTransfer.Message[] messages;
+
+    @Setup
+    public void setup() {
+        pooled = new CompositeMessageTransfer(spi);
+        messages = new SpiTransfer.Message[] {
+                new SpiTransfer.DefaultMessage(new byte[] { 0x03, 0x00, 0x10 }, 0, new byte[3], 0, 3),
+                new SpiTransfer.DefaultMessage(new byte[payload], 0, new byte[payload], 0, payload)
+        };
+    }
+
+    @Benchmark
+    public int allocating() {
+        var builder = new AllocatingBuilder();
+        for (var message : messages) {
+            builder.message(message);
+        }
+        spi.transfer(builder.writeBuffer, 0, builder.readBuffer, 0, builder.offset);
+        builder.unpack();
+        return builder.offset;
+    }
+
+    @Benchmark
+    public int pooled() {
+        return pooled.transfer(messages);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int pooledContended() {
+        return pooled.transfer(messages);
+    }
+
+    /**
+     * The packing performed by {@link CompositeMessage.Builder} before it was made reusable
+     */
+    private static class AllocatingBuilder {
+        private final List<MessagePair> messages = new ArrayList<>();
+        private final byte[] writeBuffer = new byte[CompositeMessageTransfer.MAX_COMPOSITE_MESSAGE_LENGTH];
+        private final byte[] readBuffer = new byte[CompositeMessageTransfer.MAX_COMPOSITE_MESSAGE_LENGTH];
+        private int offset;
+
+        void message(SpiTransfer.Message message) {
+            System.arraycopy(message.write(), message.writeOffset(), writeBuffer, offset, message.length());
+            var msg = new SpiTransfer.DefaultMessage(
+                    writeBuffer, offset, readBuffer, offset, message.length(), message.delayUs(), message.csChange()
+            );
+            messages.add(new MessagePair(message, msg));
+            offset += message.length();
+        }
+
+        void unpack() {
+            messages.forEach(pair -> System.arraycopy(
+                    pair.composite.read(),
+                    pair.composite.readOffset(),
+                    pair.original.read(),
+                    0,
+                    pair.composite.length()
+            ));
+        }
+
+        private record MessagePair(SpiTransfer.Message original, SpiTransfer.Message composite) {
+        }
+    }
+}
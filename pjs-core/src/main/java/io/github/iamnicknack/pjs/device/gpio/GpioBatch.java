@@ -0,0 +1,99 @@
+package io.github.iamnicknack.pjs.device.gpio;
+
+import io.github.iamnicknack.pjs.model.device.DeviceProvider;
+import io.github.iamnicknack.pjs.model.device.DeviceRegistry;
+
+import java.util.List;
+
+/**
+ * Reads and writes a fixed list of ports together, for example once per iteration of a control loop.
+ * <p>
+ * Values are exchanged as primitive arrays indexed in the order of {@link #ports()}, so a batch can be reused
+ * without allocating. Providers implement batches with as few hardware or network operations as they can, and ports
+ * held by the same hardware request are read from a single snapshot. The {@link #of(List) sequential} batch reads and
+ * writes each port in turn.
+ * </p>
+ */
+public interface GpioBatch {
+
+    /**
+     * The ports in the batch, in the order of their values
+     * @return the ports
+     */
+    List<GpioPort> ports();
+
+    /**
+     * Read all ports
+     * @param values receives the value of each port at the index of the port
+     * @throws IllegalArgumentException if the array is shorter than the number of ports
+     */
+    void readInto(int[] values);
+
+    /**
+     * Read all ports
+     * @return the value of each port at the index of the port
+     */
+    default int[] read() {
+        var values = new int[ports().size()];
+        readInto(values);
+        return values;
+    }
+
+    /**
+     * Write all ports
+     * @param values the value of each port at the index of the port
+     * @throws IllegalArgumentException if the array is shorter than the number of ports
+     */
+    void write(int[] values);
+
+    /**
+     * Create a batch which reads and writes each port in turn
+     * @param ports the ports
+     * @return the batch
+     */
+    static GpioBatch of(List<GpioPort> ports) {
+        return new Sequential(List.copyOf(ports));
+    }
+
+    /**
+     * Create a batch using the GPIO provider of a registry, which may combine the operations on its own ports.
+     * A sequential batch is created when the provider does not support batches.
+     * @param registry the registry which created the ports
+     * @param ports the ports
+     * @return the batch
+     * @see GpioPortProvider#batch(List)
+     */
+    static GpioBatch of(DeviceRegistry registry, List<GpioPort> ports) {
+        DeviceProvider<GpioPort, GpioPortConfig> provider = registry.getProvider(GpioPortConfig.class);
+        return (provider instanceof GpioPortProvider gpioPortProvider)
+                ? gpioPortProvider.batch(ports)
+                : of(ports);
+    }
+
+    /**
+     * Batch which reads and writes each port in turn
+     * @param ports the ports
+     */
+    record Sequential(List<GpioPort> ports) implements GpioBatch {
+
+        @Override
+        public void readInto(int[] values) {
+            if (values.length < ports.size()) {
+                throw new IllegalArgumentException("Expected " + ports.size() + " values but got " + values.length);
+            }
+            for (int index = 0; index < ports.size(); index++) {
+                values[index] = ports.get(index).readInt();
+            }
+        }
+
+        @Override
+        public void write(int[] values) {
+            if (values.length < ports.size()) {
+                throw new IllegalArgumentException("Expected " + ports.size() + " values but got " + values.length);
+            }
+            for (int index = 0; index < ports.size(); index++) {
+                ports.get(index).writeInt(values[index]);
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package io.github.iamnicknack.pjs.device.gpio;
+
+/**
+ * Clock used to timestamp GPIO events.
+ */
+public enum GpioEventClock {
+    /**
+     * Monotonic system clock. Timestamps are comparable with {@link System#nanoTime()} only on the same host.
+     */
+    MONOTONIC,
+    /**
+     * Realtime (wall-clock) system clock. Timestamps may jump when the system time is adjusted.
+     */
+    REALTIME,
+    /**
+     * Hardware timestamping engine, where supported by the platform.
+     */
+    HTE
+}
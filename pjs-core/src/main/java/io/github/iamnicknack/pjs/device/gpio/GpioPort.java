@@ -19,6 +19,34 @@ public interface GpioPort extends Port<Integer>, GpioEventEmitter<GpioPort>, Dev
      */
     default void setDirection(GpioPortMode direction) {}
 
+    /**
+     * Read the port value as a primitive. Implementations which can avoid boxing should override this method.
+     * @return the port value.
+     */
+    default int readInt() {
+        return read();
+    }
+
+    /**
+     * Write the port value as a primitive. Implementations which can avoid boxing should override this method.
+     * @param value the new port value.
+     */
+    default void writeInt(int value) {
+        write(value);
+    }
+
+    /**
+     * Write only the bits identified by a mask, leaving the remaining bits of the port unchanged.
+     * <p>
+     * The default implementation performs a read-modify-write.
+     * </p>
+     * @param bits the bit values to write.
+     * @param mask the bits to be updated.
+     */
+    default void writeMasked(int bits, int mask) {
+        writeInt((readInt() & ~mask) | (bits & mask));
+    }
+
     /**
      * Returns a pin which when high sets all pins in the port to high.
      * @return the pin.
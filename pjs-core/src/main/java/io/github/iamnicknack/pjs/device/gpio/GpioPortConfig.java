@@ -13,6 +13,7 @@ import java.util.Objects;
  * @param portMode initial portMode of the port
  * @param debounceDelay debounce delay in microseconds
  * @param id unique identifier for the port
+ * @param eventClock clock used to timestamp events
  */
 public record GpioPortConfig(
         int[] pinNumber,
@@ -20,7 +21,8 @@ public record GpioPortConfig(
         GpioEventMode eventMode,
         int defaultValue,
         int debounceDelay,
-        String id
+        String id,
+        GpioEventClock eventClock
 ) implements DeviceConfig<GpioPort> {
 
     public static Builder builder() {
@@ -41,7 +43,8 @@ public record GpioPortConfig(
                 && eventMode == that.eventMode
                 && defaultValue == that.defaultValue
                 && debounceDelay == that.debounceDelay
-                && Objects.equals(id, that.id);
+                && Objects.equals(id, that.id)
+                && eventClock == that.eventClock;
     }
 
     @Override
@@ -55,6 +58,7 @@ public record GpioPortConfig(
         private GpioEventMode eventMode = GpioEventMode.NONE;
         private int defaultValue = -1;
         private int debounceDelay = 0;
+        private GpioEventClock eventClock = GpioEventClock.MONOTONIC;
         @Nullable
         private String id;
 
@@ -88,6 +92,11 @@ public record GpioPortConfig(
             return this;
         }
 
+        public Builder eventClock(GpioEventClock eventClock) {
+            this.eventClock = eventClock;
+            return this;
+        }
+
         public Builder id(String id) {
             this.id = id;
             return this;
@@ -96,7 +105,7 @@ public record GpioPortConfig(
         public GpioPortConfig build() {
             int[] pinNumber = this.pinNumber.stream().mapToInt(Integer::intValue).toArray();
             var id = (this.id != null) ? this.id : String.format("GPIO-%s-%s", this.portMode, Arrays.toString(pinNumber));
-            return new GpioPortConfig(pinNumber, portMode, eventMode, defaultValue, debounceDelay, id);
+            return new GpioPortConfig(pinNumber, portMode, eventMode, defaultValue, debounceDelay, id, eventClock);
         }
     }
 }
@@ -2,10 +2,38 @@ package io.github.iamnicknack.pjs.device.gpio;
 
 import io.github.iamnicknack.pjs.model.device.DeviceProvider;
 
+import java.util.List;
+
 /**
  * Factory interface for creating {@link GpioPort} instances.
  */
 public interface GpioPortProvider extends DeviceProvider<GpioPort, GpioPortConfig> {
+
+    /**
+     * Create a port for each of the provided configurations. Providers may merge compatible configurations into a
+     * single hardware request, while still returning a separate port for each configuration.
+     * <p>
+     * The default implementation creates each port individually.
+     * </p>
+     * @param configs the port configurations
+     * @return the created ports, in the same order as the configurations
+     */
+    default List<GpioPort> createGroup(List<GpioPortConfig> configs) {
+        return configs.stream().map(this::create).toList();
+    }
+
+    /**
+     * Create a batch for reading and writing ports created by this provider together.
+     * <p>
+     * The default implementation reads and writes each port in turn.
+     * </p>
+     * @param ports the ports, in the order of the values exchanged with the batch
+     * @return the batch
+     */
+    default GpioBatch batch(List<GpioPort> ports) {
+        return GpioBatch.of(ports);
+    }
+
     /**
      * {@inheritDoc}
      */
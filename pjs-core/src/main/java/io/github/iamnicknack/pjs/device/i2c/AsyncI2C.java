@@ -0,0 +1,152 @@
+package io.github.iamnicknack.pjs.device.i2c;
+
+import io.github.iamnicknack.pjs.model.device.DeviceProvider;
+import io.github.iamnicknack.pjs.model.device.DeviceRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking access to an {@link I2C} bus.
+ * <p>
+ * Transfers return immediately with a future which completes once the messages have been transferred, so devices on
+ * different buses, or on different hosts, can be read concurrently. Operations on a single bus are inherently serial:
+ * the {@link #of(I2C) worker} implementation runs them in submission order on a thread dedicated to the bus, while
+ * remote providers send each transfer as soon as it is submitted and leave ordering to the server.
+ * </p>
+ */
+public interface AsyncI2C extends AutoCloseable {
+
+    /**
+     * The bus transfers are made on
+     * @return the bus
+     */
+    I2C i2c();
+
+    /**
+     * Transfer messages without blocking. Buffers of the messages must not be used until the transfer completes.
+     * @param messages the messages to transfer
+     * @return completes with the same messages once they have been transferred, with read buffers filled
+     * @see I2C#transfer(I2C.Message...)
+     */
+    CompletableFuture<I2C.Message[]> transfer(I2C.Message... messages);
+
+    /**
+     * Publish the result of a transfer made at a fixed interval, for example to sample a sensor.
+     * <p>
+     * Each subscriber is polled on its own schedule, starting one interval after it subscribes. A poll is only made
+     * while the subscriber has outstanding demand and the previous poll has completed, so slow subscribers and slow
+     * buses skip samples rather than queueing them. A failed transfer completes the subscription with the error.
+     * </p>
+     * @param interval the interval between polls
+     * @param messages creates the messages of each poll, which should use new buffers if results are retained
+     * @param result maps the transferred messages to the published value
+     * @return the publisher
+     * @param <T> the type of the published value
+     */
+    default <T> Flow.Publisher<T> poll(
+            Duration interval,
+            Supplier<I2C.Message[]> messages,
+            Function<I2C.Message[], T> result
+    ) {
+        return new I2CPollPublisher<>(this, interval, messages, result);
+    }
+
+    /**
+     * Release any resources held for asynchronous transfers. The bus itself is not closed.
+     */
+    @Override
+    default void close() {}
+
+    /**
+     * Create an asynchronous bus which transfers on a worker thread of its own
+     * @param i2c the bus
+     * @return the asynchronous bus
+     */
+    static AsyncI2C of(I2C i2c) {
+        return new Worker(i2c);
+    }
+
+    /**
+     * Create an asynchronous bus using the I2C provider of a registry, which may transfer without a worker thread.
+     * A {@link Worker} is created when the provider is not an {@link I2CProvider}.
+     * @param registry the registry which created the bus
+     * @param i2c the bus
+     * @return the asynchronous bus
+     * @see I2CProvider#async(I2C)
+     */
+    static AsyncI2C of(DeviceRegistry registry, I2C i2c) {
+        DeviceProvider<I2C, I2CConfig> provider = registry.getProvider(I2CConfig.class);
+        return (provider instanceof I2CProvider i2cProvider)
+                ? i2cProvider.async(i2c)
+                : of(i2c);
+    }
+
+    /**
+     * Asynchronous bus which runs the blocking transfers of a bus, in submission order, on a single worker thread
+     */
+    final class Worker implements AsyncI2C {
+
+        private final I2C i2c;
+        private final ExecutorService executor;
+        private final boolean ownsExecutor;
+
+        /**
+         * Create a worker running on a daemon platform thread of its own
+         * @param i2c the bus
+         */
+        public Worker(I2C i2c) {
+            this(
+                    i2c,
+                    Executors.newSingleThreadExecutor(
+                            Thread.ofPlatform().name("i2c-" + i2c.getConfig().getId()).daemon(true).factory()
+                    ),
+                    true
+            );
+        }
+
+        /**
+         * Create a worker running on the provided executor, which should run tasks one at a time in submission order.
+         * The executor is not shut down when the worker is closed.
+         * @param i2c the bus
+         * @param executor the executor running transfers
+         */
+        public Worker(I2C i2c, ExecutorService executor) {
+            this(i2c, executor, false);
+        }
+
+        private Worker(I2C i2c, ExecutorService executor, boolean ownsExecutor) {
+            this.i2c = i2c;
+            this.executor = executor;
+            this.ownsExecutor = ownsExecutor;
+        }
+
+        @Override
+        public I2C i2c() {
+            return i2c;
+        }
+
+        @Override
+        public CompletableFuture<I2C.Message[]> transfer(I2C.Message... messages) {
+            return CompletableFuture.supplyAsync(() -> {
+                i2c.transfer(messages);
+                return messages;
+            }, executor);
+        }
+
+        /**
+         * Stop the worker thread once queued transfers have completed, if it is owned by the worker
+         */
+        @Override
+        public void close() {
+            if (ownsExecutor) {
+                executor.shutdown();
+            }
+        }
+    }
+}
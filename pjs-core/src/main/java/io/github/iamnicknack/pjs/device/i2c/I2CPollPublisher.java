@@ -0,0 +1,195 @@
+package io.github.iamnicknack.pjs.device.i2c;
+
+import org.jspecify.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Publisher for {@link AsyncI2C#poll(Duration, Supplier, Function)}.
+ * <p>
+ * Polls are timed by a single shared daemon thread, which only starts transfers; the transfers themselves complete
+ * on the threads of the {@link AsyncI2C}, where values are published.
+ * </p>
+ */
+class I2CPollPublisher<T> implements Flow.Publisher<T> {
+
+    private final AsyncI2C i2c;
+    private final long intervalNanos;
+    private final Supplier<I2C.Message[]> messages;
+    private final Function<I2C.Message[], T> result;
+    private final ScheduledExecutorService timer;
+
+    I2CPollPublisher(
+            AsyncI2C i2c,
+            Duration interval,
+            Supplier<I2C.Message[]> messages,
+            Function<I2C.Message[], T> result
+    ) {
+        this(i2c, interval, messages, result, Timer.INSTANCE);
+    }
+
+    I2CPollPublisher(
+            AsyncI2C i2c,
+            Duration interval,
+            Supplier<I2C.Message[]> messages,
+            Function<I2C.Message[], T> result,
+            ScheduledExecutorService timer
+    ) {
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("Interval must be positive: " + interval);
+        }
+        this.i2c = i2c;
+        this.intervalNanos = interval.toNanos();
+        this.messages = messages;
+        this.result = result;
+        this.timer = timer;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        var subscription = new PollSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        subscription.start();
+    }
+
+    private final class PollSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super T> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        /**
+         * Held while a poll is in flight or a signal is being sent, which serialises all signals to the subscriber.
+         * It is kept once {@code onError} has been sent.
+         */
+        private final AtomicBoolean polling = new AtomicBoolean();
+        /**
+         * The first error raised, waiting to be sent by whichever thread next holds {@link #polling}
+         */
+        private final AtomicReference<@Nullable Throwable> error = new AtomicReference<>();
+        private volatile boolean cancelled;
+        private volatile @Nullable ScheduledFuture<?> ticker;
+
+        private PollSubscription(Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        private void start() {
+            ticker = timer.scheduleAtFixedRate(this::tick, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+            // cancelled or failed while subscribing
+            if (cancelled || error.get() != null) {
+                stopTicker();
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                fail(new IllegalArgumentException("Requested items must be positive: " + n));
+                return;
+            }
+            demand.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            stopTicker();
+        }
+
+        private void tick() {
+            if (cancelled || error.get() != null || demand.get() == 0 || !polling.compareAndSet(false, true)) {
+                return;
+            }
+
+            try {
+                i2c.transfer(messages.get()).whenComplete(this::complete);
+            } catch (RuntimeException e) {
+                error.compareAndSet(null, e);
+                release();
+            }
+        }
+
+        private void complete(I2C.Message @Nullable [] transferred, @Nullable Throwable transferError) {
+            try {
+                if (cancelled) {
+                    return;
+                }
+                if (transferError != null) {
+                    error.compareAndSet(null, transferError instanceof CompletionException && transferError.getCause() != null
+                            ? transferError.getCause()
+                            : transferError);
+                    return;
+                }
+
+                T value;
+                try {
+                    value = result.apply(transferred);
+                } catch (RuntimeException e) {
+                    error.compareAndSet(null, e);
+                    return;
+                }
+
+                demand.getAndUpdate(current -> current == Long.MAX_VALUE ? current : current - 1);
+                try {
+                    subscriber.onNext(value);
+                } catch (RuntimeException e) {
+                    // a subscriber which throws from onNext is treated as having cancelled
+                    cancel();
+                }
+            } finally {
+                release();
+            }
+        }
+
+        /**
+         * Raise an error from outside a poll. It is sent now if no poll is in flight, otherwise when the poll ends.
+         */
+        private void fail(Throwable failure) {
+            error.compareAndSet(null, failure);
+            stopTicker();
+            sendError();
+        }
+
+        /**
+         * End a poll, sending any error raised while it was in flight
+         */
+        private void release() {
+            polling.set(false);
+            sendError();
+        }
+
+        private void sendError() {
+            var failure = error.get();
+            if (failure != null && !cancelled && polling.compareAndSet(false, true)) {
+                cancel();
+                subscriber.onError(failure);
+            }
+        }
+
+        private void stopTicker() {
+            var ticker = this.ticker;
+            if (ticker != null) {
+                ticker.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Holder for the shared timing thread, which is started on first use
+     */
+    private static final class Timer {
+        private static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("i2c-poll").daemon(true).factory()
+        );
+    }
+}
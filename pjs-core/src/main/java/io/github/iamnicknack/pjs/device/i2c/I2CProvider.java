@@ -6,6 +6,19 @@ import io.github.iamnicknack.pjs.model.device.DeviceProvider;
  * Factory for I2C devices.
  */
 public interface I2CProvider extends DeviceProvider<I2C, I2CConfig> {
+
+    /**
+     * Create an asynchronous view of a bus created by this provider.
+     * <p>
+     * The default implementation runs transfers on a {@link AsyncI2C.Worker worker thread} of its own.
+     * </p>
+     * @param i2c the bus
+     * @return the asynchronous bus
+     */
+    default AsyncI2C async(I2C i2c) {
+        return AsyncI2C.of(i2c);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,81 @@
+package io.github.iamnicknack.pjs.device.pwm;
+
+/**
+ * Duty ratio of a PWM channel as a function of progress through a waveform.
+ * <p>
+ * Profiles are played on a {@link PwmWaveformEngine}, which maps the elapsed time of a waveform to a progress
+ * between 0 and 1.
+ * </p>
+ */
+@FunctionalInterface
+public interface PwmProfile {
+
+    /**
+     * Get the duty ratio at a point in the waveform.
+     * @param progress the elapsed fraction of the waveform, from 0 to 1
+     * @return the duty ratio, from 0 to 1
+     */
+    double dutyRatio(double progress);
+
+    /**
+     * A fixed duty ratio
+     * @param dutyRatio the duty ratio
+     */
+    static PwmProfile constant(double dutyRatio) {
+        checkRatio(dutyRatio);
+        return _ -> dutyRatio;
+    }
+
+    /**
+     * Linear transition between two duty ratios
+     * @param from the duty ratio at the start of the waveform
+     * @param to the duty ratio at the end of the waveform
+     */
+    static PwmProfile linear(double from, double to) {
+        checkRatio(from);
+        checkRatio(to);
+        return progress -> from + (to - from) * progress;
+    }
+
+    /**
+     * Transition between two duty ratios which accelerates from the start and decelerates into the end, following
+     * half a cosine wave.
+     * @param from the duty ratio at the start of the waveform
+     * @param to the duty ratio at the end of the waveform
+     */
+    static PwmProfile eased(double from, double to) {
+        checkRatio(from);
+        checkRatio(to);
+        return progress -> from + (to - from) * (1 - Math.cos(Math.PI * progress)) / 2;
+    }
+
+    /**
+     * Waveform defined by evenly spaced samples, with linear interpolation between them. The first sample is at the
+     * start of the waveform and the last sample is at the end.
+     * @param dutyRatios the samples
+     */
+    static PwmProfile table(double... dutyRatios) {
+        if (dutyRatios.length == 0) {
+            throw new IllegalArgumentException("At least one sample is required");
+        }
+        for (var dutyRatio : dutyRatios) {
+            checkRatio(dutyRatio);
+        }
+        var samples = dutyRatios.clone();
+        if (samples.length == 1) {
+            return _ -> samples[0];
+        }
+        return progress -> {
+            var position = progress * (samples.length - 1);
+            var index = Math.clamp((long) position, 0, samples.length - 2);
+            var fraction = position - index;
+            return samples[index] + (samples[index + 1] - samples[index]) * fraction;
+        };
+    }
+
+    private static void checkRatio(double dutyRatio) {
+        if (!(dutyRatio >= 0 && dutyRatio <= 1)) {
+            throw new IllegalArgumentException("Duty ratio must be between 0 and 1: " + dutyRatio);
+        }
+    }
+}
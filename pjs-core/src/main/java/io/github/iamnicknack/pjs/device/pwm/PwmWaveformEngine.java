@@ -0,0 +1,348 @@
+package io.github.iamnicknack.pjs.device.pwm;
+
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Plays {@link PwmProfile} waveforms on PWM channels from a single timing thread.
+ * <p>
+ * Each tick evaluates the waveform of every active channel and writes the resulting duty cycle. A write is skipped
+ * when the duty cycle is unchanged since the last tick, so slow ramps and the flat parts of a waveform do not reach
+ * the device. The timing thread only ticks while at least one waveform is active.
+ * </p>
+ * <p>
+ * A channel plays one waveform at a time. Starting a waveform on a channel replaces the current one, which is
+ * cancelled. Duty cycles are derived from the period of the channel at each tick.
+ * </p>
+ */
+public class PwmWaveformEngine implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(PwmWaveformEngine.class);
+
+    /**
+     * Default tick, giving 100 updates per second
+     */
+    public static final Duration DEFAULT_TICK = Duration.ofMillis(10);
+
+    private final long tickNanos;
+    private final ScheduledExecutorService executor;
+    private final boolean ownsExecutor;
+    private final LongSupplier clock;
+    private final Map<Pwm, Waveform> waveforms = new ConcurrentHashMap<>();
+
+    /**
+     * Guarded by this
+     */
+    private @Nullable ScheduledFuture<?> ticker;
+    private boolean closed;
+
+    // written by the timing thread only
+    private volatile long ticks;
+    private volatile long lateTicks;
+    private volatile long updates;
+    private volatile long coalesced;
+    private volatile long windowStartNanos;
+    private volatile long windowTicks;
+    private volatile long lastTickNanos;
+
+    /**
+     * Create an engine with the default tick, running on a daemon platform thread
+     */
+    public PwmWaveformEngine() {
+        this(DEFAULT_TICK);
+    }
+
+    /**
+     * Create an engine running on a daemon platform thread
+     * @param tick the interval between updates
+     */
+    public PwmWaveformEngine(Duration tick) {
+        this(
+                tick,
+                Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("pwm-waveform").daemon(true).factory()),
+                true,
+                System::nanoTime
+        );
+    }
+
+    /**
+     * Create an engine which ticks on the provided executor. The executor is not shut down when the engine is closed.
+     * @param tick the interval between updates
+     * @param executor the executor running the ticks
+     */
+    public PwmWaveformEngine(Duration tick, ScheduledExecutorService executor) {
+        this(tick, executor, false, System::nanoTime);
+    }
+
+    PwmWaveformEngine(Duration tick, ScheduledExecutorService executor, boolean ownsExecutor, LongSupplier clock) {
+        if (tick.isNegative() || tick.isZero()) {
+            throw new IllegalArgumentException("Tick must be positive: " + tick);
+        }
+        this.tickNanos = tick.toNanos();
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+        this.clock = clock;
+    }
+
+    /**
+     * Play a waveform once. The channel is left at the duty ratio at the end of the waveform.
+     * @param pwm the channel
+     * @param profile the waveform
+     * @param duration the duration of the waveform
+     * @return a handle to the waveform
+     */
+    public Waveform play(Pwm pwm, PwmProfile profile, Duration duration) {
+        return start(pwm, profile, duration, false);
+    }
+
+    /**
+     * Play a waveform repeatedly until it is cancelled or replaced.
+     * @param pwm the channel
+     * @param profile the waveform
+     * @param period the duration of one repetition
+     * @return a handle to the waveform
+     */
+    public Waveform loop(Pwm pwm, PwmProfile profile, Duration period) {
+        if (period.isNegative() || period.isZero()) {
+            throw new IllegalArgumentException("Period must be positive: " + period);
+        }
+        return start(pwm, profile, period, true);
+    }
+
+    /**
+     * Linear ramp from the current duty ratio of a channel
+     * @param pwm the channel
+     * @param dutyRatio the target duty ratio
+     * @param duration the duration of the ramp
+     * @return a handle to the ramp
+     */
+    public Waveform rampTo(Pwm pwm, double dutyRatio, Duration duration) {
+        var from = Math.clamp(pwm.getDutyRatio(), 0.0, 1.0);
+        return play(pwm, PwmProfile.linear(from, dutyRatio), duration);
+    }
+
+    /**
+     * Get the waveform currently playing on a channel
+     * @param pwm the channel
+     * @return the waveform, or null if none is playing
+     */
+    public @Nullable Waveform waveform(Pwm pwm) {
+        return waveforms.get(pwm);
+    }
+
+    /**
+     * The number of channels with an active waveform
+     */
+    public int active() {
+        return waveforms.size();
+    }
+
+    /**
+     * Snapshot of the update metrics
+     */
+    public Metrics metrics() {
+        var windowTicks = this.windowTicks;
+        var elapsed = lastTickNanos - windowStartNanos;
+        var achievedRate = (windowTicks > 1 && elapsed > 0)
+                ? (windowTicks - 1) * 1e9 / elapsed
+                : 0.0;
+        return new Metrics(1e9 / tickNanos, achievedRate, ticks, lateTicks, updates, coalesced);
+    }
+
+    /**
+     * Cancel all waveforms and stop the timing thread. Channels are left at their current duty cycle.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            stopTicker();
+        }
+        waveforms.values().forEach(Waveform::cancel);
+        if (ownsExecutor) {
+            executor.shutdownNow();
+        }
+    }
+
+    private Waveform start(Pwm pwm, PwmProfile profile, Duration duration, boolean repeat) {
+        if (duration.isNegative()) {
+            throw new IllegalArgumentException("Duration must not be negative: " + duration);
+        }
+        var waveform = new Waveform(pwm, profile, duration.toNanos(), repeat, clock.getAsLong());
+        Waveform replaced;
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Waveform engine is closed");
+            }
+            replaced = waveforms.put(pwm, waveform);
+            if (ticker == null) {
+                windowTicks = 0;
+                ticker = executor.scheduleAtFixedRate(this::tick, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        if (replaced != null) {
+            replaced.completion.cancel(false);
+        }
+        return waveform;
+    }
+
+    /**
+     * Update all active channels. Called from the timing thread.
+     */
+    void tick() {
+        var now = clock.getAsLong();
+        if (windowTicks == 0) {
+            windowStartNanos = now;
+        } else if (now - lastTickNanos > tickNanos + tickNanos / 2) {
+            lateTicks++;
+        }
+        windowTicks++;
+        ticks++;
+        lastTickNanos = now;
+
+        for (var waveform : waveforms.values()) {
+            try {
+                waveform.update(now);
+            } catch (RuntimeException e) {
+                logger.error("Failed to update PWM waveform, cancelling", e);
+                remove(waveform);
+                waveform.completion.completeExceptionally(e);
+            }
+        }
+
+        if (waveforms.isEmpty()) {
+            synchronized (this) {
+                // a waveform may have been started since the check
+                if (waveforms.isEmpty()) {
+                    stopTicker();
+                }
+            }
+        }
+    }
+
+    private void remove(Waveform waveform) {
+        waveforms.remove(waveform.pwm, waveform);
+    }
+
+    /**
+     * Guarded by this
+     */
+    private void stopTicker() {
+        if (ticker != null) {
+            ticker.cancel(false);
+            ticker = null;
+        }
+    }
+
+    /**
+     * Update rate metrics.
+     * @param requestedRate the configured number of ticks per second
+     * @param achievedRate the measured number of ticks per second since the timing thread last started
+     * @param ticks the total number of ticks
+     * @param lateTicks the number of ticks which started more than half a tick late
+     * @param updates the number of duty cycle writes
+     * @param coalesced the number of writes skipped because the duty cycle was unchanged
+     */
+    public record Metrics(
+            double requestedRate,
+            double achievedRate,
+            long ticks,
+            long lateTicks,
+            long updates,
+            long coalesced
+    ) {}
+
+    /**
+     * Handle to a waveform playing on a channel
+     */
+    public final class Waveform {
+
+        private final Pwm pwm;
+        private final PwmProfile profile;
+        private final long durationNanos;
+        private final boolean repeat;
+        private final long startNanos;
+        private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+        // owned by the timing thread
+        private long lastDutyCycle = -1;
+
+        private Waveform(Pwm pwm, PwmProfile profile, long durationNanos, boolean repeat, long startNanos) {
+            this.pwm = pwm;
+            this.profile = profile;
+            this.durationNanos = durationNanos;
+            this.repeat = repeat;
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * The channel playing the waveform
+         */
+        public Pwm pwm() {
+            return pwm;
+        }
+
+        /**
+         * Stop the waveform, leaving the channel at its current duty cycle
+         */
+        public void cancel() {
+            remove(this);
+            completion.cancel(false);
+        }
+
+        /**
+         * Check whether the waveform has finished, been cancelled or failed
+         */
+        public boolean isDone() {
+            return completion.isDone();
+        }
+
+        /**
+         * Completes when a single waveform has been played to the end. Cancelled when the waveform is cancelled or
+         * replaced.
+         */
+        public CompletionStage<Void> completion() {
+            return completion.minimalCompletionStage();
+        }
+
+        private void update(long now) {
+            var elapsed = Math.max(0, now - startNanos);
+            double progress;
+            boolean finished;
+            if (repeat) {
+                progress = (double) (elapsed % durationNanos) / durationNanos;
+                finished = false;
+            } else {
+                finished = elapsed >= durationNanos;
+                progress = finished ? 1.0 : (double) elapsed / durationNanos;
+            }
+
+            var dutyRatio = Math.clamp(profile.dutyRatio(progress), 0.0, 1.0);
+            var dutyCycle = Pwm.dutyCycleFromRatio(dutyRatio, pwm.getPeriod());
+            if (dutyCycle == lastDutyCycle) {
+                coalesced++;
+            } else {
+                pwm.setDutyCycle(dutyCycle);
+                lastDutyCycle = dutyCycle;
+                updates++;
+            }
+
+            if (finished) {
+                remove(this);
+                completion.complete(null);
+            }
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package io.github.iamnicknack.pjs.device.spi;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An SPI transaction compiled once from a {@link Template} and executed repeatedly.
+ * <p>
+ * A template declares each message of the transaction up front: fixed bytes such as a command, variable fields such
+ * as an address, and payload slots which are written from, or read into, caller buffers. Values are bound with
+ * {@link #field(int, long)} and {@link #payload(int, byte[], int, int)} and stay bound across executions, so a driver
+ * only rebinds what has changed before calling {@link #execute()}.
+ * </p>
+ * <p>
+ * Providers compile the template into their own representation. The native provider builds the
+ * {@code spi_ioc_transfer} array once and patches fields and payload lengths for each execution, while network
+ * providers register the template with the server and send only the bound values.
+ * </p>
+ * <p>
+ * Instances are not thread-safe; bindings and execution must be confined to one thread at a time.
+ * </p>
+ */
+public interface PreparedSpiTransaction extends AutoCloseable {
+
+    /**
+     * The template this transaction was prepared from
+     */
+    Template template();
+
+    /**
+     * Bind the value of a field, which is written big-endian into the bytes of the field.
+     * @param index the index of the field among the {@link Kind#FIELD} parts of the template.
+     * @param value the value of the field.
+     * @return this transaction.
+     */
+    PreparedSpiTransaction field(int index, long value);
+
+    /**
+     * Bind the buffer of a payload slot. {@link Kind#WRITE} slots are written from the buffer and {@link Kind#READ}
+     * slots are read into it. The buffer is referenced, not copied, until it is rebound.
+     * @param index the index of the slot among the {@link Kind#WRITE} and {@link Kind#READ} parts of the template.
+     * @param buffer the buffer to write from or read into.
+     * @param offset the offset of the payload in the buffer.
+     * @param length the number of bytes to transfer, at most the length declared for the slot.
+     * @return this transaction.
+     */
+    PreparedSpiTransaction payload(int index, byte[] buffer, int offset, int length);
+
+    /**
+     * Bind the whole of a buffer to a payload slot.
+     * @see #payload(int, byte[], int, int)
+     */
+    default PreparedSpiTransaction payload(int index, byte[] buffer) {
+        return payload(index, buffer, 0, buffer.length);
+    }
+
+    /**
+     * Execute the transaction with the currently bound values.
+     * @return the number of bytes transferred.
+     */
+    int execute();
+
+    /**
+     * Release any resources held for the transaction.
+     */
+    @Override
+    default void close() {}
+
+    /**
+     * Start declaring a transaction template
+     */
+    static Template.Builder template() {
+        return new Template.Builder();
+    }
+
+    /**
+     * The role of a message in a transaction template
+     */
+    enum Kind {
+        /**
+         * Constant bytes written on every execution
+         */
+        FIXED,
+        /**
+         * A big-endian value of up to 8 bytes, bound with {@link #field(int, long)}
+         */
+        FIELD,
+        /**
+         * Bytes written from a bound payload buffer
+         */
+        WRITE,
+        /**
+         * Bytes read into a bound payload buffer
+         */
+        READ
+    }
+
+    /**
+     * A message of a transaction template.
+     * @param kind the role of the message.
+     * @param bytes the constant bytes of a {@link Kind#FIXED} message, otherwise empty.
+     * @param length the length of the message, or the maximum length of a payload slot.
+     * @param delayUs delay between words within one transfer, in microseconds.
+     * @param csChange True to deselect the device before starting the next transfer message.
+     */
+    record Part(Kind kind, byte[] bytes, int length, int delayUs, boolean csChange) {
+        public Part {
+            if (kind == Kind.FIXED && bytes.length != length) {
+                throw new IllegalArgumentException("Fixed part length must match its bytes");
+            }
+            if (kind == Kind.FIELD && (length < 1 || length > Long.BYTES)) {
+                throw new IllegalArgumentException("Field length must be between 1 and " + Long.BYTES + ": " + length);
+            }
+            if (length < 0) {
+                throw new IllegalArgumentException("Part length must not be negative: " + length);
+            }
+        }
+
+        /**
+         * Whether the part is a payload slot
+         */
+        public boolean isPayload() {
+            return kind == Kind.WRITE || kind == Kind.READ;
+        }
+
+        Part withDelayUs(int delayUs) {
+            return new Part(kind, bytes, length, delayUs, csChange);
+        }
+
+        Part withCsChange() {
+            return new Part(kind, bytes, length, delayUs, true);
+        }
+    }
+
+    /**
+     * The declared messages of a transaction, in transfer order.
+     * @param parts the messages of the transaction.
+     */
+    record Template(List<Part> parts) {
+        public Template {
+            parts = List.copyOf(parts);
+        }
+
+        /**
+         * The number of {@link Kind#FIELD} parts
+         */
+        public int fieldCount() {
+            return (int) parts.stream().filter(part -> part.kind() == Kind.FIELD).count();
+        }
+
+        /**
+         * The number of {@link Kind#WRITE} and {@link Kind#READ} parts
+         */
+        public int payloadCount() {
+            return (int) parts.stream().filter(Part::isPayload).count();
+        }
+
+        public static class Builder {
+            private final List<Part> parts = new ArrayList<>();
+
+            /**
+             * Add a message of constant bytes
+             */
+            public Builder fixed(byte... bytes) {
+                parts.add(new Part(Kind.FIXED, bytes.clone(), bytes.length, 0, false));
+                return this;
+            }
+
+            /**
+             * Add a message holding a variable big-endian field
+             * @param length the number of bytes in the field, from 1 to 8.
+             */
+            public Builder field(int length) {
+                parts.add(new Part(Kind.FIELD, new byte[0], length, 0, false));
+                return this;
+            }
+
+            /**
+             * Add a payload slot written from a bound buffer
+             * @param maxLength the largest payload which can be bound.
+             */
+            public Builder write(int maxLength) {
+                parts.add(new Part(Kind.WRITE, new byte[0], maxLength, 0, false));
+                return this;
+            }
+
+            /**
+             * Add a payload slot read into a bound buffer
+             * @param maxLength the largest payload which can be bound.
+             */
+            public Builder read(int maxLength) {
+                parts.add(new Part(Kind.READ, new byte[0], maxLength, 0, false));
+                return this;
+            }
+
+            /**
+             * Set the word delay of the last message added
+             */
+            public Builder delayUs(int delayUs) {
+                parts.add(removeLast().withDelayUs(delayUs));
+                return this;
+            }
+
+            /**
+             * Deselect the device after the last message added
+             */
+            public Builder csChange() {
+                parts.add(removeLast().withCsChange());
+                return this;
+            }
+
+            public Template build() {
+                return new Template(parts);
+            }
+
+            private Part removeLast() {
+                if (parts.isEmpty()) {
+                    throw new IllegalStateException("No message has been added");
+                }
+                return parts.removeLast();
+            }
+        }
+    }
+}
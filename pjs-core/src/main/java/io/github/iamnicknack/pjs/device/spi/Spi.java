@@ -4,6 +4,8 @@ import io.github.iamnicknack.pjs.model.device.Device;
 import io.github.iamnicknack.pjs.model.port.Port;
 import io.github.iamnicknack.pjs.model.port.SerialPort;
 
+import java.lang.foreign.MemorySegment;
+
 /**
  * SPI contract for devices implementing the SPI protocol.
  */
@@ -20,6 +22,21 @@ public interface Spi extends SerialPort, Port<Integer>, Device<Spi> {
      */
     int transfer(byte[] write, int writeOffset, byte[] read, int readOffset, int length);
 
+    /**
+     * Perform a single SPI transfer between segments.
+     * <p>
+     * The default implementation stages segments which are not backed by a byte array through heap arrays.
+     * Implementations able to address native memory should override this to avoid the copies.
+     * </p>
+     * @param write the data to write, or {@link MemorySegment#NULL} to shift out zeroes.
+     * @param read the segment to read into, or {@link MemorySegment#NULL} to discard received data.
+     * @param length the number of bytes to transfer.
+     * @return the number of bytes transferred.
+     */
+    default int transfer(MemorySegment write, MemorySegment read, int length) {
+        return SpiBufferMessage.transfer(this, write, read, length);
+    }
+
     /**
      * Perform an SPI transfer.
      * @param write the data to write.
@@ -0,0 +1,213 @@
+package io.github.iamnicknack.pjs.device.spi;
+
+import org.jspecify.annotations.Nullable;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link SpiTransfer.Message} backed by {@link MemorySegment}s, which may wrap heap arrays, {@link ByteBuffer}s or
+ * native memory.
+ * <p>
+ * Either side may be {@link MemorySegment#NULL}, making the message half-duplex: a write-only message discards the
+ * bytes received and a read-only message shifts out zeroes, without a buffer for the unused direction. Transfers which
+ * understand segments, such as those of the native provider, hand native segments and absent buffers straight to the
+ * device.
+ * </p>
+ * <p>
+ * The array accessors of {@link SpiTransfer.Message} return the backing array of heap segments. Otherwise
+ * {@link #write()} returns a copy and {@link #read()} returns a scratch array for an absent buffer, or throws
+ * {@link IllegalStateException} for native memory, which can only be read into through {@link #readSegment()}.
+ * </p>
+ */
+public final class SpiBufferMessage implements SpiTransfer.Message {
+
+    private final MemorySegment write;
+    private final MemorySegment read;
+    private final int length;
+    private final int delayUs;
+    private final boolean csChange;
+    private final byte @Nullable [] writeArray;
+    private final byte @Nullable [] readArray;
+
+    /**
+     * @param write the data to write, or {@link MemorySegment#NULL} to shift out zeroes.
+     * @param read the segment to read into, or {@link MemorySegment#NULL} to discard received data.
+     * @param length the number of bytes to transfer.
+     * @param delayUs delay between words within one transfer, in microseconds.
+     * @param csChange True to deselect the device before starting the next transfer message.
+     */
+    public SpiBufferMessage(MemorySegment write, MemorySegment read, int length, int delayUs, boolean csChange) {
+        if (length < 0) {
+            throw new IllegalArgumentException("Message length must not be negative: " + length);
+        }
+        this.write = slice(write, length);
+        this.read = slice(read, length);
+        this.length = length;
+        this.delayUs = delayUs;
+        this.csChange = csChange;
+        this.writeArray = byteArray(this.write);
+        this.readArray = byteArray(this.read);
+    }
+
+    /**
+     * Alternative constructor with default delay (0 us) and csChange (false).
+     */
+    public SpiBufferMessage(MemorySegment write, MemorySegment read, int length) {
+        this(write, read, length, 0, false);
+    }
+
+    /**
+     * Create a write-only message.
+     * @param write the bytes to write.
+     * @return the message.
+     */
+    public static SpiBufferMessage write(MemorySegment write) {
+        return new SpiBufferMessage(write, MemorySegment.NULL, Math.toIntExact(write.byteSize()));
+    }
+
+    /**
+     * Create a write-only message from the remaining bytes of a buffer. The buffer position is not changed.
+     * @param write the bytes to write.
+     * @return the message.
+     */
+    public static SpiBufferMessage write(ByteBuffer write) {
+        return write(MemorySegment.ofBuffer(write));
+    }
+
+    /**
+     * Create a read-only message.
+     * @param read the segment to read into.
+     * @return the message.
+     */
+    public static SpiBufferMessage read(MemorySegment read) {
+        return new SpiBufferMessage(MemorySegment.NULL, read, Math.toIntExact(read.byteSize()));
+    }
+
+    /**
+     * Create a read-only message into the remaining bytes of a buffer. The buffer position is not changed.
+     * @param read the buffer to read into.
+     * @return the message.
+     */
+    public static SpiBufferMessage read(ByteBuffer read) {
+        return read(MemorySegment.ofBuffer(read));
+    }
+
+    /**
+     * Create a full-duplex message over the whole of both segments.
+     * @param write the bytes to write.
+     * @param read the segment to read into.
+     * @return the message.
+     */
+    public static SpiBufferMessage duplex(MemorySegment write, MemorySegment read) {
+        return new SpiBufferMessage(write, read, Math.toIntExact(Math.min(write.byteSize(), read.byteSize())));
+    }
+
+    @Override
+    public MemorySegment writeSegment() {
+        return write;
+    }
+
+    @Override
+    public MemorySegment readSegment() {
+        return read;
+    }
+
+    @Override
+    public byte[] write() {
+        if (writeArray != null) {
+            return writeArray;
+        }
+        return isNull(write) ? new byte[length] : write.toArray(ValueLayout.JAVA_BYTE);
+    }
+
+    @Override
+    public int writeOffset() {
+        return writeArray != null ? (int) write.address() : 0;
+    }
+
+    @Override
+    public byte[] read() {
+        if (readArray != null) {
+            return readArray;
+        }
+        if (isNull(read)) {
+            return new byte[length];
+        }
+        throw new IllegalStateException("Read buffer is not backed by a byte array, use readSegment()");
+    }
+
+    @Override
+    public int readOffset() {
+        return readArray != null ? (int) read.address() : 0;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public int delayUs() {
+        return delayUs;
+    }
+
+    @Override
+    public boolean csChange() {
+        return csChange;
+    }
+
+    @Override
+    public String toString() {
+        return "SpiBufferMessage[write=" + write + ", read=" + read + ", length=" + length
+                + ", delayUs=" + delayUs + ", csChange=" + csChange + "]";
+    }
+
+    /**
+     * Transfer between two segments using the array-based transfer of an {@link Spi}, staging any buffer which is
+     * not backed by a byte array.
+     */
+    static int transfer(Spi spi, MemorySegment write, MemorySegment read, int length) {
+        var message = new SpiBufferMessage(write, read, length);
+        if (message.readArray != null || isNull(message.read)) {
+            return spi.transfer(message.write(), message.writeOffset(), message.read(), message.readOffset(), length);
+        }
+        var buffer = new byte[length];
+        var result = spi.transfer(message.write(), message.writeOffset(), buffer, 0, length);
+        MemorySegment.copy(buffer, 0, message.read, ValueLayout.JAVA_BYTE, 0, length);
+        return result;
+    }
+
+    /**
+     * Whether a segment represents an absent buffer
+     */
+    static boolean isNull(MemorySegment segment) {
+        return segment.equals(MemorySegment.NULL);
+    }
+
+    private static MemorySegment slice(MemorySegment segment, int length) {
+        if (isNull(segment)) {
+            return MemorySegment.NULL;
+        }
+        if (segment.byteSize() < length) {
+            throw new IllegalArgumentException(
+                    "Segment of " + segment.byteSize() + " bytes is too small for a " + length + " byte transfer"
+            );
+        }
+        return segment.byteSize() == length ? segment : segment.asSlice(0, length);
+    }
+
+    /**
+     * The byte array backing a heap segment, if any
+     */
+    private static byte @Nullable [] byteArray(MemorySegment segment) {
+        if (segment.isNative()) {
+            return null;
+        }
+        return segment.heapBase()
+                .filter(byte[].class::isInstance)
+                .map(byte[].class::cast)
+                .orElse(null);
+    }
+}
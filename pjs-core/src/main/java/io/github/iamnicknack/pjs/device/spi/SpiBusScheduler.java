@@ -0,0 +1,399 @@
+package io.github.iamnicknack.pjs.device.spi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.LongSupplier;
+
+/**
+ * Orders the transfers of several devices sharing one SPI bus through a single queue.
+ * <p>
+ * Submissions are queued by {@link Priority}, and in submission order within a priority, then executed one batch at a
+ * time on the scheduler thread. Consecutive submissions at the head of the queue which target the same
+ * {@link SpiTransfer} are coalesced into a single {@link SpiTransfer#transfer(SpiTransfer.Message...)} call, which the
+ * native provider issues as one {@code SPI_IOC_MESSAGE(n)} ioctl. The device is deselected between coalesced
+ * submissions, so each still sees its own chip select cycle.
+ * </p>
+ * <p>
+ * A submission whose last message sets {@link SpiTransfer.Message#csChange()}, keeping the device selected after the
+ * transfer, always ends a batch. Submissions cancelled before they are executed are skipped.
+ * </p>
+ * <p>
+ * The scheduler thread only runs while submissions are queued. Scheduling is opt-in: transfers made directly on a
+ * device bypass the queue.
+ * </p>
+ */
+public class SpiBusScheduler implements AutoCloseable {
+
+    /**
+     * Default largest number of messages coalesced into a single transfer
+     */
+    public static final int DEFAULT_MAX_BATCH_MESSAGES = 32;
+
+    private final ExecutorService executor;
+    private final boolean ownsExecutor;
+    private final int maxBatchMessages;
+    private final LongSupplier clock;
+
+    /**
+     * Guarded by this
+     */
+    private final PriorityQueue<Submission> queue = new PriorityQueue<>();
+    private long sequence;
+    private boolean draining;
+    private boolean closed;
+    private int maxQueueDepth;
+
+    // written by the scheduler thread only
+    private volatile long batches;
+    private volatile long completed;
+    private volatile long coalesced;
+    private volatile long totalWaitNanos;
+    private volatile long maxWaitNanos;
+
+    /**
+     * Create a scheduler with the default batch size, running on a daemon platform thread
+     */
+    public SpiBusScheduler() {
+        this(DEFAULT_MAX_BATCH_MESSAGES);
+    }
+
+    /**
+     * Create a scheduler running on a daemon platform thread
+     * @param maxBatchMessages the largest number of messages coalesced into a single transfer
+     */
+    public SpiBusScheduler(int maxBatchMessages) {
+        this(
+                Executors.newSingleThreadExecutor(Thread.ofPlatform().name("spi-bus").daemon(true).factory()),
+                true,
+                maxBatchMessages,
+                System::nanoTime
+        );
+    }
+
+    /**
+     * Create a scheduler which executes batches on the provided executor. The executor is not shut down when the
+     * scheduler is closed.
+     * @param executor the executor running the queue
+     * @param maxBatchMessages the largest number of messages coalesced into a single transfer
+     */
+    public SpiBusScheduler(ExecutorService executor, int maxBatchMessages) {
+        this(executor, false, maxBatchMessages, System::nanoTime);
+    }
+
+    SpiBusScheduler(ExecutorService executor, boolean ownsExecutor, int maxBatchMessages, LongSupplier clock) {
+        if (maxBatchMessages < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + maxBatchMessages);
+        }
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+        this.maxBatchMessages = maxBatchMessages;
+        this.clock = clock;
+    }
+
+    /**
+     * Queue a transfer at {@link Priority#NORMAL} priority
+     * @see #submit(SpiTransfer, Priority, SpiTransfer.Message...)
+     */
+    public CompletableFuture<Integer> submit(SpiTransfer target, SpiTransfer.Message... messages) {
+        return submit(target, Priority.NORMAL, messages);
+    }
+
+    /**
+     * Queue a transfer. The messages and their buffers must not be modified until the transfer completes.
+     * @param target the device transfer to execute the messages on
+     * @param priority the priority of the transfer
+     * @param messages the messages to transfer
+     * @return completes with the number of bytes transferred once the messages have been executed
+     */
+    public CompletableFuture<Integer> submit(SpiTransfer target, Priority priority, SpiTransfer.Message... messages) {
+        var future = new CompletableFuture<Integer>();
+        boolean startDrain;
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("SPI bus scheduler is closed");
+            }
+            queue.add(new Submission(target, priority, messages, sequence++, clock.getAsLong(), future));
+            maxQueueDepth = Math.max(maxQueueDepth, queue.size());
+            startDrain = !draining;
+            draining = true;
+        }
+        if (startDrain) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // closed since the submission was queued, which cancels it
+                synchronized (this) {
+                    draining = false;
+                }
+                future.completeExceptionally(e);
+            }
+        }
+        return future;
+    }
+
+    /**
+     * A view of a device transfer whose transfers are queued on this scheduler. Each transfer blocks until it has been
+     * executed, allowing existing drivers to share the bus through the scheduler.
+     * @param target the device transfer
+     * @param priority the priority of transfers made through the view
+     * @return the scheduled transfer
+     */
+    public SpiTransfer scheduled(SpiTransfer target, Priority priority) {
+        return messages -> {
+            try {
+                return submit(target, priority, messages).join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        };
+    }
+
+    /**
+     * Snapshot of the queue metrics
+     */
+    public Metrics metrics() {
+        int queueDepth;
+        int maxQueueDepth;
+        synchronized (this) {
+            queueDepth = queue.size();
+            maxQueueDepth = this.maxQueueDepth;
+        }
+        var completed = this.completed;
+        return new Metrics(
+                queueDepth,
+                maxQueueDepth,
+                batches,
+                completed,
+                coalesced,
+                completed > 0 ? totalWaitNanos / completed : 0,
+                maxWaitNanos
+        );
+    }
+
+    /**
+     * Stop accepting submissions and cancel those still queued. A batch already executing is allowed to complete.
+     */
+    @Override
+    public void close() {
+        List<Submission> cancelled;
+        synchronized (this) {
+            closed = true;
+            cancelled = new ArrayList<>(queue);
+            queue.clear();
+        }
+        cancelled.forEach(submission -> submission.future.cancel(false));
+        if (ownsExecutor) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Execute batches until the queue is empty. Called from the scheduler thread. If a batch fails with an
+     * {@link Error} the drain stops, leaving the remaining submissions queued for the next one.
+     */
+    void drain() {
+        var batch = new ArrayList<Submission>();
+        var idle = false;
+        try {
+            while (true) {
+                synchronized (this) {
+                    nextBatch(batch);
+                    if (batch.isEmpty()) {
+                        // cleared under the same lock as the empty check, so a concurrent submit starts a new drain
+                        draining = false;
+                        idle = true;
+                        return;
+                    }
+                }
+                execute(batch);
+                batch.clear();
+            }
+        } finally {
+            if (!idle) {
+                synchronized (this) {
+                    draining = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Take the next batch from the head of the queue. Guarded by this.
+     */
+    private void nextBatch(List<Submission> batch) {
+        var messageCount = 0;
+        Submission head;
+        while ((head = queue.peek()) != null) {
+            if (head.future.isDone()) {
+                queue.poll();
+                continue;
+            }
+            if (!batch.isEmpty()) {
+                var last = batch.getLast();
+                if (head.target != last.target
+                        || last.keepsSelected()
+                        || messageCount + head.messages.length > maxBatchMessages) {
+                    break;
+                }
+            }
+            batch.add(queue.poll());
+            messageCount += head.messages.length;
+        }
+    }
+
+    private void execute(List<Submission> batch) {
+        var now = clock.getAsLong();
+        for (var submission : batch) {
+            var wait = now - submission.queuedNanos;
+            totalWaitNanos += wait;
+            maxWaitNanos = Math.max(maxWaitNanos, wait);
+        }
+
+        try {
+            if (batch.size() == 1) {
+                var submission = batch.getFirst();
+                submission.future.complete(submission.target.transfer(submission.messages));
+            } else {
+                batch.getFirst().target.transfer(coalesce(batch));
+                for (var submission : batch) {
+                    submission.future.complete(submission.length());
+                }
+                coalesced += batch.size() - 1;
+            }
+        } catch (Throwable e) {
+            for (var submission : batch) {
+                submission.future.completeExceptionally(e);
+            }
+            if (e instanceof Error error) {
+                throw error;
+            }
+        } finally {
+            batches++;
+            completed += batch.size();
+        }
+    }
+
+    /**
+     * Join the messages of several submissions, deselecting the device after each submission but the last
+     */
+    private static SpiTransfer.Message[] coalesce(List<Submission> batch) {
+        var count = 0;
+        for (var submission : batch) {
+            count += submission.messages.length;
+        }
+
+        var messages = new SpiTransfer.Message[count];
+        var index = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            var submitted = batch.get(i).messages;
+            System.arraycopy(submitted, 0, messages, index, submitted.length);
+            index += submitted.length;
+            if (i < batch.size() - 1 && submitted.length > 0) {
+                messages[index - 1] = deselecting(submitted[submitted.length - 1]);
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * A copy of a message which deselects the device after it is transferred
+     */
+    private static SpiTransfer.Message deselecting(SpiTransfer.Message message) {
+        if (message instanceof SpiBufferMessage) {
+            return new SpiBufferMessage(
+                    message.writeSegment(),
+                    message.readSegment(),
+                    message.length(),
+                    message.delayUs(),
+                    true
+            );
+        }
+        return new SpiTransfer.DefaultMessage(
+                message.write(),
+                message.writeOffset(),
+                message.read(),
+                message.readOffset(),
+                message.length(),
+                message.delayUs(),
+                true
+        );
+    }
+
+    /**
+     * The priority of a submission. Higher priority submissions are executed first.
+     */
+    public enum Priority {
+        /**
+         * Latency-sensitive transfers, such as sensor reads
+         */
+        HIGH,
+        /**
+         * The default priority
+         */
+        NORMAL,
+        /**
+         * Bulk transfers, such as display updates
+         */
+        LOW
+    }
+
+    /**
+     * Queue metrics.
+     * @param queueDepth the number of submissions currently queued
+     * @param maxQueueDepth the largest number of submissions queued at once
+     * @param batches the number of transfers executed on devices
+     * @param completed the number of submissions executed
+     * @param coalesced the number of submissions joined onto a preceding submission in the same transfer
+     * @param averageWaitNanos the mean time a submission spent queued before execution
+     * @param maxWaitNanos the longest time a submission spent queued before execution
+     */
+    public record Metrics(
+            int queueDepth,
+            int maxQueueDepth,
+            long batches,
+            long completed,
+            long coalesced,
+            long averageWaitNanos,
+            long maxWaitNanos
+    ) {}
+
+    private record Submission(
+            SpiTransfer target,
+            Priority priority,
+            SpiTransfer.Message[] messages,
+            long sequence,
+            long queuedNanos,
+            CompletableFuture<Integer> future
+    ) implements Comparable<Submission> {
+
+        @Override
+        public int compareTo(Submission other) {
+            var result = priority.compareTo(other.priority);
+            return result != 0 ? result : Long.compare(sequence, other.sequence);
+        }
+
+        /**
+         * Whether the device is left selected after the submission
+         */
+        boolean keepsSelected() {
+            return messages.length > 0 && messages[messages.length - 1].csChange();
+        }
+
+        int length() {
+            var length = 0;
+            for (var message : messages) {
+                length += message.length();
+            }
+            return length;
+        }
+    }
+}
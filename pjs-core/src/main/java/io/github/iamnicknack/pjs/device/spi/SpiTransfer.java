@@ -1,7 +1,10 @@
 package io.github.iamnicknack.pjs.device.spi;
 
+import io.github.iamnicknack.pjs.device.spi.impl.DefaultPreparedSpiTransaction;
 import io.github.iamnicknack.pjs.model.port.SerialPort;
 
+import java.lang.foreign.MemorySegment;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 /**
@@ -33,6 +36,19 @@ public interface SpiTransfer extends SerialPort {
      */
     int transfer(Message... messages);
 
+    /**
+     * Compile a transaction template for repeated execution.
+     * <p>
+     * The default implementation executes the template as messages through {@link #transfer(Message...)}.
+     * Providers may override this to compile the template into their own representation.
+     * </p>
+     * @param template the messages of the transaction.
+     * @return the prepared transaction.
+     */
+    default PreparedSpiTransaction prepare(PreparedSpiTransaction.Template template) {
+        return new DefaultPreparedSpiTransaction(this, template);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -88,13 +104,29 @@ public interface SpiTransfer extends SerialPort {
          */
         boolean csChange();
 
+        /**
+         * The data to write as a segment of {@link #length()} bytes, or {@link MemorySegment#NULL} if the message
+         * only reads, in which case zeroes are shifted out.
+         */
+        default MemorySegment writeSegment() {
+            return MemorySegment.ofArray(write()).asSlice(writeOffset(), length());
+        }
+
+        /**
+         * The segment of {@link #length()} bytes to read into, or {@link MemorySegment#NULL} if the message only
+         * writes, in which case received data is discarded.
+         */
+        default MemorySegment readSegment() {
+            return MemorySegment.ofArray(read()).asSlice(readOffset(), length());
+        }
+
         /**
          * Create a write-only message.
          * @param bytes the bytes to write.
          * @return the message.
          */
         static Message write(byte[] bytes) {
-            return new DefaultMessage(bytes, 0, new byte[bytes.length], 0, bytes.length);
+            return SpiBufferMessage.write(MemorySegment.ofArray(bytes));
         }
 
         /**
@@ -105,7 +137,16 @@ public interface SpiTransfer extends SerialPort {
          * @return the message.
          */
         static Message write(byte[] bytes, int offset, int length) {
-            return new DefaultMessage(bytes, offset, new byte[length], 0, length);
+            return SpiBufferMessage.write(MemorySegment.ofArray(bytes).asSlice(offset, length));
+        }
+
+        /**
+         * Create a write-only message from the remaining bytes of a buffer.
+         * @param buffer the bytes to write.
+         * @return the message.
+         */
+        static Message write(ByteBuffer buffer) {
+            return SpiBufferMessage.write(buffer);
         }
 
         /**
@@ -114,7 +155,7 @@ public interface SpiTransfer extends SerialPort {
          * @return the message.
          */
         static Message read(byte[] bytes) {
-            return new DefaultMessage(new byte[bytes.length], 0, bytes, 0, bytes.length);
+            return SpiBufferMessage.read(MemorySegment.ofArray(bytes));
         }
 
         /**
@@ -125,7 +166,16 @@ public interface SpiTransfer extends SerialPort {
          * @return the message.
          */
         static Message read(byte[] bytes, int offset, int length) {
-            return new DefaultMessage(new byte[length], 0, bytes, offset, length);
+            return SpiBufferMessage.read(MemorySegment.ofArray(bytes).asSlice(offset, length));
+        }
+
+        /**
+         * Create a read-only message into the remaining bytes of a buffer.
+         * @param buffer the buffer to read into.
+         * @return the message.
+         */
+        static Message read(ByteBuffer buffer) {
+            return SpiBufferMessage.read(buffer);
         }
 
         /**
@@ -0,0 +1,117 @@
+package io.github.iamnicknack.pjs.device.spi.impl;
+
+import io.github.iamnicknack.pjs.device.spi.PreparedSpiTransaction;
+
+import java.util.Objects;
+
+/**
+ * Holds the bindings of a {@link PreparedSpiTransaction}, leaving providers to implement {@link #execute()}.
+ * <p>
+ * Fields and payload slots are indexed separately, in template order. {@link #fieldPart(int)} and
+ * {@link #payloadPart(int)} map these to the index of the part in the template. Unbound payload slots transfer
+ * zero bytes.
+ * </p>
+ */
+public abstract class AbstractPreparedSpiTransaction implements PreparedSpiTransaction {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    protected final Template template;
+    protected final long[] fields;
+    protected final byte[][] payloads;
+    protected final int[] payloadOffsets;
+    protected final int[] payloadLengths;
+
+    private final int[] fieldParts;
+    private final int[] payloadParts;
+    private final int headerLength;
+
+    protected AbstractPreparedSpiTransaction(Template template) {
+        this.template = template;
+        this.fieldParts = new int[template.fieldCount()];
+        this.payloadParts = new int[template.payloadCount()];
+        this.fields = new long[fieldParts.length];
+        this.payloads = new byte[payloadParts.length][];
+        this.payloadOffsets = new int[payloadParts.length];
+        this.payloadLengths = new int[payloadParts.length];
+
+        var field = 0;
+        var payload = 0;
+        var length = 0;
+        for (int i = 0; i < template.parts().size(); i++) {
+            var part = template.parts().get(i);
+            if (part.isPayload()) {
+                payloads[payload] = EMPTY;
+                payloadParts[payload++] = i;
+            } else {
+                if (part.kind() == Kind.FIELD) {
+                    fieldParts[field++] = i;
+                }
+                length += part.length();
+            }
+        }
+        this.headerLength = length;
+    }
+
+    @Override
+    public Template template() {
+        return template;
+    }
+
+    @Override
+    public PreparedSpiTransaction field(int index, long value) {
+        Objects.checkIndex(index, fields.length);
+        fields[index] = value;
+        return this;
+    }
+
+    @Override
+    public PreparedSpiTransaction payload(int index, byte[] buffer, int offset, int length) {
+        Objects.checkIndex(index, payloads.length);
+        Objects.checkFromIndexSize(offset, length, buffer.length);
+        var maxLength = template.parts().get(payloadParts[index]).length();
+        if (length > maxLength) {
+            throw new IllegalArgumentException(
+                    "Payload of " + length + " bytes exceeds the " + maxLength + " bytes declared for slot " + index
+            );
+        }
+        payloads[index] = buffer;
+        payloadOffsets[index] = offset;
+        payloadLengths[index] = length;
+        return this;
+    }
+
+    /**
+     * The index in the template of a field
+     */
+    protected int fieldPart(int index) {
+        return fieldParts[index];
+    }
+
+    /**
+     * The index in the template of a payload slot
+     */
+    protected int payloadPart(int index) {
+        return payloadParts[index];
+    }
+
+    /**
+     * The number of bytes transferred by an execution with the current bindings
+     */
+    protected int transferLength() {
+        var length = headerLength;
+        for (var payloadLength : payloadLengths) {
+            length += payloadLength;
+        }
+        return length;
+    }
+
+    /**
+     * Write the low {@code length} bytes of a value big-endian into an array
+     */
+    protected static void putField(byte[] buffer, int offset, int length, long value) {
+        for (int i = 0; i < length; i++) {
+            buffer[offset + i] = (byte) (value >>> (8 * (length - 1 - i)));
+        }
+    }
+}
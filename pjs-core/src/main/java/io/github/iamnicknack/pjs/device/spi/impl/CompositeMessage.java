@@ -1,24 +1,26 @@
 package io.github.iamnicknack.pjs.device.spi.impl;
 
+import io.github.iamnicknack.pjs.device.spi.SpiBufferMessage;
 import io.github.iamnicknack.pjs.device.spi.SpiTransfer;
 import org.jspecify.annotations.NonNull;
 
-import java.util.ArrayList;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.List;
 
 /**
  * A {@link SpiTransfer.Message} implementation which can be composed of multiple {@link SpiTransfer.Message}s.
  */
 public class CompositeMessage implements SpiTransfer.Message, Iterable<SpiTransfer.Message> {
 
-    private final List<MessagePair> messages;
+    private final SpiTransfer.Message[] messages;
     private final byte[] writeBuffer;
     private final byte[] readBuffer;
     private final int length;
     private final int delayUs;
 
-    private CompositeMessage(List<MessagePair> messages, byte[] writeBuffer, byte[] readBuffer, int length, int delayUs) {
+    private CompositeMessage(SpiTransfer.Message[] messages, byte[] writeBuffer, byte[] readBuffer, int length, int delayUs) {
         this.messages = messages;
         this.writeBuffer = writeBuffer;
         this.readBuffer = readBuffer;
@@ -27,7 +29,7 @@ public class CompositeMessage implements SpiTransfer.Message, Iterable<SpiTransf
     }
 
     public int messageCount() {
-        return messages.size();
+        return messages.length;
     }
 
     @Override
@@ -69,15 +71,28 @@ public class CompositeMessage implements SpiTransfer.Message, Iterable<SpiTransf
      * Unpack the composite message's read-buffer into the original message buffers.
      */
     public void unpack() {
-        messages.forEach(pair ->
-                System.arraycopy(
-                        pair.composite.read(),
-                        pair.composite.readOffset(),
-                        pair.original.read(),
-                        0,
-                        pair.composite.length()
-                )
-        );
+        unpack(messages, messages.length, readBuffer);
+    }
+
+    /**
+     * Copy consecutive slices of a packed read-buffer into the read buffers of the messages it was packed from,
+     * starting at each message's {@link SpiTransfer.Message#readOffset()}. Write-only {@link SpiBufferMessage}s are
+     * skipped.
+     */
+    private static void unpack(SpiTransfer.Message[] messages, int count, byte[] readBuffer) {
+        var offset = 0;
+        for (int i = 0; i < count; i++) {
+            var message = messages[i];
+            if (message instanceof SpiBufferMessage buffer) {
+                var read = buffer.readSegment();
+                if (!read.equals(MemorySegment.NULL)) {
+                    MemorySegment.copy(readBuffer, offset, read, ValueLayout.JAVA_BYTE, 0, buffer.length());
+                }
+            } else {
+                System.arraycopy(readBuffer, offset, message.read(), message.readOffset(), message.length());
+            }
+            offset += message.length();
+        }
     }
 
     /**
@@ -96,41 +111,122 @@ public class CompositeMessage implements SpiTransfer.Message, Iterable<SpiTransf
     @Override
     @NonNull
     public Iterator<SpiTransfer.Message> iterator() {
-        return messages.stream()
-                .map(MessagePair::original)
-                .iterator();
+        return Arrays.asList(messages).iterator();
     }
 
     public static Builder builder() {
         return new Builder();
     }
 
+    /**
+     * Packs messages into a pair of write and read buffers.
+     * <p>
+     * The buffers grow to the largest composite packed, up to
+     * {@link CompositeMessageTransfer#MAX_COMPOSITE_MESSAGE_LENGTH} bytes, and are kept across {@link #reset()}, so
+     * a builder can be reused as a packing workspace without allocating. A {@link CompositeMessage} returned by
+     * {@link #build()} shares these buffers and should not be used once the builder has been reset.
+     * </p>
+     */
     public static class Builder {
-        private final List<MessagePair> messages = new ArrayList<>();
+        private static final int INITIAL_CAPACITY = 64;
+        private static final int INITIAL_MESSAGES = 4;
+
+        private SpiTransfer.Message[] messages = new SpiTransfer.Message[INITIAL_MESSAGES];
+        private int count = 0;
         private int offset = 0;
         private int delayUs = 0;
-        private final byte[] writeBuffer = new byte[CompositeMessageTransfer.MAX_COMPOSITE_MESSAGE_LENGTH];
-        private final byte[] readBuffer = new byte[CompositeMessageTransfer.MAX_COMPOSITE_MESSAGE_LENGTH];
+        private byte[] writeBuffer = new byte[INITIAL_CAPACITY];
+        private byte[] readBuffer = new byte[INITIAL_CAPACITY];
 
         public Builder message(SpiTransfer.Message message) {
-            System.arraycopy(message.write(), message.writeOffset(), writeBuffer, offset, message.length());
+            ensureCapacity(offset + message.length());
+            if (count == messages.length) {
+                messages = Arrays.copyOf(messages, count * 2);
+            }
+            if (message instanceof SpiBufferMessage buffer) {
+                var write = buffer.writeSegment();
+                if (write.equals(MemorySegment.NULL)) {
+                    Arrays.fill(writeBuffer, offset, offset + buffer.length(), (byte) 0);
+                } else {
+                    MemorySegment.copy(write, ValueLayout.JAVA_BYTE, 0, writeBuffer, offset, buffer.length());
+                }
+            } else {
+                System.arraycopy(message.write(), message.writeOffset(), writeBuffer, offset, message.length());
+            }
             delayUs = Math.max(delayUs, message.delayUs());
-            var msg = new SpiTransfer.DefaultMessage(
-                    writeBuffer, offset, readBuffer, offset, message.length(), message.delayUs(), message.csChange()
-            );
-            messages.add(new MessagePair(message, msg));
+            messages[count++] = message;
             offset += message.length();
             return this;
         }
 
+        /**
+         * The number of messages packed since the last reset
+         */
+        public int messageCount() {
+            return count;
+        }
+
+        /**
+         * The number of bytes packed since the last reset
+         */
+        public int length() {
+            return offset;
+        }
+
+        /**
+         * The packed write buffer, valid for the first {@link #length()} bytes
+         */
+        public byte[] write() {
+            return writeBuffer;
+        }
+
+        /**
+         * The read buffer to transfer into, valid for the first {@link #length()} bytes
+         */
+        public byte[] read() {
+            return readBuffer;
+        }
+
+        /**
+         * Unpack the read buffer into the read buffers of the packed messages.
+         */
+        public void unpack() {
+            CompositeMessage.unpack(messages, count, readBuffer);
+        }
+
+        /**
+         * Discard the packed messages, keeping the buffers for reuse.
+         */
+        public Builder reset() {
+            Arrays.fill(messages, 0, count, null);
+            count = 0;
+            offset = 0;
+            delayUs = 0;
+            return this;
+        }
+
         public CompositeMessage build() {
-            return new CompositeMessage(messages, writeBuffer, readBuffer, offset, delayUs);
+            return new CompositeMessage(Arrays.copyOf(messages, count), writeBuffer, readBuffer, offset, delayUs);
         }
-    }
 
-    record MessagePair(
-            SpiTransfer.Message original,
-            SpiTransfer.Message composite
-    ) {
+        /**
+         * Grow the buffers if they cannot hold the requested number of bytes, keeping any bytes already packed
+         */
+        private void ensureCapacity(int length) {
+            if (length > CompositeMessageTransfer.MAX_COMPOSITE_MESSAGE_LENGTH) {
+                throw new IllegalArgumentException(
+                        "Composite message length " + length + " exceeds maximum of "
+                                + CompositeMessageTransfer.MAX_COMPOSITE_MESSAGE_LENGTH
+                );
+            }
+            if (writeBuffer.length < length) {
+                var capacity = Math.min(
+                        Math.max(writeBuffer.length * 2, length),
+                        CompositeMessageTransfer.MAX_COMPOSITE_MESSAGE_LENGTH
+                );
+                writeBuffer = Arrays.copyOf(writeBuffer, capacity);
+                readBuffer = new byte[capacity];
+            }
+        }
     }
 }
@@ -3,18 +3,28 @@ package io.github.iamnicknack.pjs.device.spi.impl;
 import io.github.iamnicknack.pjs.device.spi.Spi;
 import io.github.iamnicknack.pjs.device.spi.SpiTransfer;
 
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
 /**
  * A {@link SpiTransfer} implementation which can emulate multiple {@link Message}s which may have
  * {@link Message#csChange()} set.
  * <p>
  * The maximum total message length is 4096 bytes.
  * </p>
+ * <p>
+ * Messages are packed into {@link CompositeMessage.Builder} workspaces which are reset and returned to a small pool
+ * after each transfer, so repeated transfers do not allocate once the workspace buffers have grown to fit. Concurrent
+ * transfers each take their own workspace, creating one when the pool is empty.
+ * </p>
  */
 public class CompositeMessageTransfer implements SpiTransfer {
 
     public static final int MAX_COMPOSITE_MESSAGE_LENGTH = 4096;
 
+    private static final int POOL_SIZE = 4;
+
     private final Spi delegate;
+    private final AtomicReferenceArray<CompositeMessage.Builder> pool = new AtomicReferenceArray<>(POOL_SIZE);
 
     public CompositeMessageTransfer(Spi delegate) {
         this.delegate = delegate;
@@ -23,25 +33,56 @@ public class CompositeMessageTransfer implements SpiTransfer {
     @Override
     public int transfer(Message... messages) {
         var length = 0;
-        var builder = CompositeMessage.builder();
-        for (Message message : messages) {
-            length += message.length();
-            builder.message(message);
-            if (message.csChange()) {
-                var compositeMessage = builder.build();
-                delegate.transfer(compositeMessage.write(), 0, compositeMessage.read(), 0, compositeMessage.length());
-                compositeMessage.unpack();
-                builder = CompositeMessage.builder();
+        var builder = acquire();
+        try {
+            for (Message message : messages) {
+                length += message.length();
+                builder.message(message);
+                if (message.csChange()) {
+                    flush(builder);
+                }
             }
-        }
 
-        var compositeMessage = builder.build();
-        if (compositeMessage.messageCount() > 0) {
-            delegate.transfer(compositeMessage.write(), 0, compositeMessage.read(), 0, compositeMessage.length());
-            compositeMessage.unpack();
+            if (builder.messageCount() > 0) {
+                flush(builder);
+            }
+        } finally {
+            release(builder.reset());
         }
 
         return length;
     }
 
+    /**
+     * Transfer the packed messages as a single message, unpack the result and reset the builder
+     */
+    private void flush(CompositeMessage.Builder builder) {
+        delegate.transfer(builder.write(), 0, builder.read(), 0, builder.length());
+        builder.unpack();
+        builder.reset();
+    }
+
+    /**
+     * Take a workspace from the pool, or create one if none are free
+     */
+    private CompositeMessage.Builder acquire() {
+        for (int i = 0; i < POOL_SIZE; i++) {
+            var builder = pool.getAndSet(i, null);
+            if (builder != null) {
+                return builder;
+            }
+        }
+        return CompositeMessage.builder();
+    }
+
+    /**
+     * Return a workspace to the pool, discarding it if the pool is full
+     */
+    private void release(CompositeMessage.Builder builder) {
+        for (int i = 0; i < POOL_SIZE; i++) {
+            if (pool.compareAndSet(i, null, builder)) {
+                return;
+            }
+        }
+    }
 }
@@ -0,0 +1,76 @@
+package io.github.iamnicknack.pjs.device.spi.impl;
+
+import io.github.iamnicknack.pjs.device.spi.PreparedSpiTransaction;
+import io.github.iamnicknack.pjs.device.spi.SpiBufferMessage;
+import io.github.iamnicknack.pjs.device.spi.SpiTransfer;
+
+import java.lang.foreign.MemorySegment;
+
+/**
+ * A {@link PreparedSpiTransaction} executed as messages on any {@link SpiTransfer}.
+ * <p>
+ * The constant and field bytes share one array, with their messages created once, so an execution only patches the
+ * fields and wraps the bound payload buffers before calling {@link SpiTransfer#transfer(SpiTransfer.Message...)}.
+ * </p>
+ */
+public class DefaultPreparedSpiTransaction extends AbstractPreparedSpiTransaction {
+
+    private final SpiTransfer delegate;
+    private final byte[] headerBuffer;
+    private final int[] offsets;
+    private final SpiTransfer.Message[] messages;
+
+    public DefaultPreparedSpiTransaction(SpiTransfer delegate, Template template) {
+        super(template);
+        this.delegate = delegate;
+
+        var parts = template.parts();
+        this.offsets = new int[parts.size()];
+        this.messages = new SpiTransfer.Message[parts.size()];
+
+        var length = 0;
+        for (int i = 0; i < parts.size(); i++) {
+            if (!parts.get(i).isPayload()) {
+                offsets[i] = length;
+                length += parts.get(i).length();
+            }
+        }
+        this.headerBuffer = new byte[length];
+
+        for (int i = 0; i < parts.size(); i++) {
+            var part = parts.get(i);
+            if (!part.isPayload()) {
+                System.arraycopy(part.bytes(), 0, headerBuffer, offsets[i], part.bytes().length);
+                messages[i] = new SpiBufferMessage(
+                        MemorySegment.ofArray(headerBuffer).asSlice(offsets[i], part.length()),
+                        MemorySegment.NULL,
+                        part.length(),
+                        part.delayUs(),
+                        part.csChange()
+                );
+            }
+        }
+    }
+
+    @Override
+    public int execute() {
+        for (int i = 0; i < fields.length; i++) {
+            var part = fieldPart(i);
+            putField(headerBuffer, offsets[part], template.parts().get(part).length(), fields[i]);
+        }
+
+        for (int i = 0; i < payloads.length; i++) {
+            var part = template.parts().get(payloadPart(i));
+            var buffer = MemorySegment.ofArray(payloads[i]).asSlice(payloadOffsets[i], payloadLengths[i]);
+            messages[payloadPart(i)] = new SpiBufferMessage(
+                    part.kind() == Kind.WRITE ? buffer : MemorySegment.NULL,
+                    part.kind() == Kind.READ ? buffer : MemorySegment.NULL,
+                    payloadLengths[i],
+                    part.delayUs(),
+                    part.csChange()
+            );
+        }
+
+        return delegate.transfer(messages);
+    }
+}
@@ -1,12 +1,16 @@
 package io.github.iamnicknack.pjs.device.spi.impl;
 
 import io.github.iamnicknack.pjs.device.spi.Spi;
+import io.github.iamnicknack.pjs.device.spi.SpiBufferMessage;
 import io.github.iamnicknack.pjs.device.spi.SpiTransfer;
 
 import java.util.Arrays;
 
 /**
  * A {@link SpiTransfer} implementation that transfers {@link Message}s one by one.
+ * <p>
+ * {@link SpiBufferMessage}s are passed to the segment transfer of the delegate, other messages to its array transfer.
+ * </p>
  */
 public class SingleMessageTransfer implements SpiTransfer {
 
@@ -19,8 +23,9 @@ public class SingleMessageTransfer implements SpiTransfer {
     @Override
     public int transfer(Message... messages) {
         return Arrays.stream(messages)
-                .mapToInt(message ->
-                        delegate.transfer(
+                .mapToInt(message -> (message instanceof SpiBufferMessage buffer)
+                        ? delegate.transfer(buffer.writeSegment(), buffer.readSegment(), buffer.length())
+                        : delegate.transfer(
                                 message.write(),
                                 message.writeOffset(),
                                 message.read(),
@@ -55,6 +55,31 @@ public class LoggingGpioPort implements GpioPort, WithDelegateDevice<GpioPort> {
         delegate.write(value);
     }
 
+    @Override
+    public int readInt() {
+        int value = delegate.readInt();
+        if (logger.isDebugEnabled()) {
+            logger.debug("Reading port value: {}, {}", pinsMask.getMaskString(value), value);
+        }
+        return value;
+    }
+
+    @Override
+    public void writeInt(int value) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Writing port value: {}, {}", pinsMask.getMaskString(value), value);
+        }
+        delegate.writeInt(value);
+    }
+
+    @Override
+    public void writeMasked(int bits, int mask) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Writing port value: {}, mask: {}", pinsMask.getMaskString(bits), pinsMask.getMaskString(mask));
+        }
+        delegate.writeMasked(bits, mask);
+    }
+
     @Override
     public void setDirection(GpioPortMode direction) {
         logger.debug("Asserting port direction: {}", direction);
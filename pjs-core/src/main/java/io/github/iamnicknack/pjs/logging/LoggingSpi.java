@@ -6,7 +6,10 @@ import io.github.iamnicknack.pjs.model.device.WithDelegateDevice;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.foreign.MemorySegment;
+
 import static io.github.iamnicknack.pjs.logging.LoggingUtils.byteArrayAsHexString;
+import static io.github.iamnicknack.pjs.logging.LoggingUtils.segmentAsHexString;
 
 public class LoggingSpi implements Spi, WithDelegateDevice<Spi> {
 
@@ -30,6 +33,18 @@ public class LoggingSpi implements Spi, WithDelegateDevice<Spi> {
         return result;
     }
 
+    @Override
+    public int transfer(MemorySegment write, MemorySegment read, int length) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Sending : {} bytes: {}", length, segmentAsHexString(write, length));
+        }
+        var result = delegate.transfer(write, read, length);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Received: {} bytes: {}", length, segmentAsHexString(read, length));
+        }
+        return result;
+    }
+
     @Override
     public DeviceConfig<Spi> getConfig() {
         return delegate.getConfig();
@@ -6,7 +6,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Arrays;
 
-import static io.github.iamnicknack.pjs.logging.LoggingUtils.byteArrayAsHexString;
+import static io.github.iamnicknack.pjs.logging.LoggingUtils.segmentAsHexString;
 
 public class LoggingSpiTransfer implements SpiTransfer {
 
@@ -22,7 +22,7 @@ public class LoggingSpiTransfer implements SpiTransfer {
     public int transfer(Message... messages) {
         if (logger.isDebugEnabled()) {
             var str = Arrays.stream(messages)
-                    .map(msg -> ">" + byteArrayAsHexString(msg.write(), 0, 32))
+                    .map(msg -> ">" + segmentAsHexString(msg.writeSegment(), 32))
                     .toList();
             logger.debug(String.valueOf(str));
         }
@@ -31,7 +31,7 @@ public class LoggingSpiTransfer implements SpiTransfer {
 
         if (logger.isDebugEnabled()) {
             var str = Arrays.stream(messages)
-                    .map(msg -> "<" + byteArrayAsHexString(msg.read(), 0, 32))
+                    .map(msg -> "<" + segmentAsHexString(msg.readSegment(), 32))
                     .toList();
             logger.debug(String.valueOf(str));
         }
@@ -1,5 +1,8 @@
 package io.github.iamnicknack.pjs.logging;
 
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
 public class LoggingUtils {
 
     private LoggingUtils() {}
@@ -20,4 +23,17 @@ public class LoggingUtils {
         }
         return sb.toString().trim() + ']';
     }
+
+    /**
+     * Format up to {@code limit} bytes of a segment, or {@code [-]} for {@link MemorySegment#NULL}
+     */
+    public static String segmentAsHexString(MemorySegment segment, int limit) {
+        if (segment.equals(MemorySegment.NULL)) {
+            return "[-]";
+        }
+        var length = (int) Math.min(segment.byteSize(), limit);
+        var bytes = segment.asSlice(0, length).toArray(ValueLayout.JAVA_BYTE);
+        var str = byteArrayAsHexString(bytes);
+        return (segment.byteSize() > limit) ? str.substring(0, str.length() - 1) + " ...]" : str;
+    }
 }
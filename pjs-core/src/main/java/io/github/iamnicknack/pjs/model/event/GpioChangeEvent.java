@@ -2,11 +2,32 @@ package io.github.iamnicknack.pjs.model.event;
 
 /**
  * An event triggered when a GPIO pin changes state.
+ * <p>
+ * Providers which receive events from the kernel populate the timestamp, line offset and sequence numbers from the
+ * kernel event, so consumers can measure edge timing and detect dropped events without reading the port again.
+ * A sequence number of zero indicates that the source does not provide sequence numbers.
+ * </p>
  * @param port the GPIO port that changed state
  * @param eventType the type of event that triggered this change
+ * @param timestampNanos the event timestamp in nanoseconds, from the clock selected for the port
+ * @param lineOffset the offset of the line which triggered the event
+ * @param seqno the sequence number of the event across all lines of the port
+ * @param lineSeqno the sequence number of the event on its line
  */
 public record GpioChangeEvent<T extends GpioEventEmitter<T>>(
         T port,
-        GpioChangeEventType eventType
+        GpioChangeEventType eventType,
+        long timestampNanos,
+        int lineOffset,
+        int seqno,
+        int lineSeqno
 ) {
+    /**
+     * Create an event timestamped with {@link System#nanoTime()} and without line or sequence information
+     * @param port the GPIO port that changed state
+     * @param eventType the type of event that triggered this change
+     */
+    public GpioChangeEvent(T port, GpioChangeEventType eventType) {
+        this(port, eventType, System.nanoTime(), 0, 0, 0);
+    }
 }
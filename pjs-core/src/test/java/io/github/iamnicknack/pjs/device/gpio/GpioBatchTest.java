@@ -0,0 +1,44 @@
+package io.github.iamnicknack.pjs.device.gpio;
+
+import io.github.iamnicknack.pjs.mock.MockGpioPort;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GpioBatchTest {
+
+    private final MockGpioPort first = new MockGpioPort(GpioPortConfig.builder().id("first").pin(0, 1).build());
+    private final MockGpioPort second = new MockGpioPort(GpioPortConfig.builder().id("second").pin(2).build());
+
+    @Test
+    void sequentialBatchReadsPortsInOrder() {
+        first.writeInt(0b10);
+        second.writeInt(1);
+
+        var batch = GpioBatch.of(List.of(second, first));
+        assertThat(batch.read()).containsExactly(1, 0b10);
+
+        var values = new int[] { -1, -1, -1 };
+        batch.readInto(values);
+        assertThat(values).containsExactly(1, 0b10, -1);
+    }
+
+    @Test
+    void sequentialBatchWritesPortsInOrder() {
+        GpioBatch.of(List.of(first, second)).write(new int[] { 0b11, 0 });
+
+        assertThat(first.readInt()).isEqualTo(0b11);
+        assertThat(second.readInt()).isZero();
+    }
+
+    @Test
+    void rejectsShortArrays() {
+        var batch = GpioBatch.of(List.of(first, second));
+
+        assertThatThrownBy(() -> batch.readInto(new int[1])).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> batch.write(new int[1])).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -15,4 +15,13 @@ class GpioPortTest {
         Assertions.assertThat(port.read()).isEqualTo(0b11);
     }
 
+    @Test
+    void writeMaskedPreservesUnmaskedBits() {
+        var port = new MockGpioPort(GpioPortConfig.builder().pin(0, 1, 2, 3).build());
+        port.writeInt(0b1010);
+
+        port.writeMasked(0b0101, 0b0011);
+        Assertions.assertThat(port.readInt()).isEqualTo(0b1001);
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,185 @@
+package io.github.iamnicknack.pjs.device.i2c;
+
+import io.github.iamnicknack.pjs.mock.MockI2C;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AsyncI2CTest {
+
+    private static final int ADDRESS = 0x20;
+    private static final Duration INTERVAL = Duration.ofMillis(5);
+
+    private final MockI2C mock = new MockI2C(I2CConfig.builder().id("bus").bus(1).build(), 16);
+    private final AsyncI2C i2c = AsyncI2C.of(mock);
+
+    @AfterEach
+    void tearDown() {
+        i2c.close();
+    }
+
+    @Test
+    void transferCompletesWithReadBuffersFilled() throws Exception {
+        mock.getBuffer(1).put(new byte[] { 42, 84 }).flip();
+
+        var read = new byte[3];
+        var messages = i2c.transfer(
+                I2C.Message.write(ADDRESS, new byte[] { 1 }, 0, 1),
+                I2C.Message.read(ADDRESS, read, 1, 2)
+        ).get(1, TimeUnit.SECONDS);
+
+        assertThat(messages).hasSize(2);
+        assertThat(messages[1].data()).isSameAs(read);
+        assertThat(read).containsExactly(0, 42, 84);
+    }
+
+    @Test
+    void failedTransferCompletesExceptionally() {
+        var future = i2c.transfer(readMessage(), readMessage(), readMessage());
+
+        assertThatThrownBy(() -> future.get(1, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void pollPublishesOnlyWhileDemanded() throws Exception {
+        mock.getDeviceBuffer().put(new byte[] { 1, 2, 3, 4 }).flip();
+        var subscriber = new QueueSubscriber<Byte>();
+
+        i2c.poll(INTERVAL, () -> new I2C.Message[] { readMessage() }, messages -> messages[0].data()[0])
+                .subscribe(subscriber);
+        subscriber.subscription.request(2);
+
+        assertThat(subscriber.next()).isEqualTo((byte) 1);
+        assertThat(subscriber.next()).isEqualTo((byte) 2);
+        assertThat(subscriber.values.poll(INTERVAL.toMillis() * 10, TimeUnit.MILLISECONDS)).isNull();
+
+        subscriber.subscription.request(1);
+        assertThat(subscriber.next()).isEqualTo((byte) 3);
+
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(1);
+        assertThat(subscriber.values.poll(INTERVAL.toMillis() * 10, TimeUnit.MILLISECONDS)).isNull();
+        assertThat(subscriber.errors).isEmpty();
+    }
+
+    @Test
+    void failedPollCompletesSubscriptionWithError() throws Exception {
+        var subscriber = new QueueSubscriber<I2C.Message[]>();
+
+        i2c.poll(INTERVAL, () -> new I2C.Message[] { readMessage(), readMessage(), readMessage() }, messages -> messages)
+                .subscribe(subscriber);
+        subscriber.subscription.request(1);
+
+        assertThat(subscriber.errors.poll(1, TimeUnit.SECONDS)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(subscriber.values).isEmpty();
+    }
+
+    @Test
+    void rejectsInvalidPolling() throws Exception {
+        assertThatThrownBy(() -> i2c.poll(Duration.ZERO, () -> new I2C.Message[0], messages -> messages))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        var subscriber = new QueueSubscriber<I2C.Message[]>();
+        i2c.poll(INTERVAL, () -> new I2C.Message[0], messages -> messages).subscribe(subscriber);
+        subscriber.subscription.request(0);
+
+        assertThat(subscriber.errors.poll(1, TimeUnit.SECONDS)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void invalidRequestDuringPollIsSignalledAfterOnNext() throws Exception {
+        mock.getDeviceBuffer().put(new byte[] { 1, 2, 3, 4 }).flip();
+        var inOnNext = new CountDownLatch(1);
+        var releaseOnNext = new CountDownLatch(1);
+        QueueSubscriber<Byte> subscriber = new QueueSubscriber<>() {
+            @Override
+            public void onNext(Byte item) {
+                inOnNext.countDown();
+                try {
+                    releaseOnNext.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.onNext(item);
+            }
+        };
+
+        i2c.poll(INTERVAL, () -> new I2C.Message[] { readMessage() }, messages -> messages[0].data()[0])
+                .subscribe(subscriber);
+        subscriber.subscription.request(1);
+        assertThat(inOnNext.await(1, TimeUnit.SECONDS)).isTrue();
+
+        subscriber.subscription.request(0);
+        assertThat(subscriber.errors.poll(INTERVAL.toMillis() * 10, TimeUnit.MILLISECONDS)).isNull();
+
+        releaseOnNext.countDown();
+        assertThat(subscriber.errors.poll(1, TimeUnit.SECONDS)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(subscriber.values).containsExactly((byte) 1);
+    }
+
+    @Test
+    void throwingSubscriberIsCancelled() throws Exception {
+        mock.getDeviceBuffer().put(new byte[] { 1, 2, 3, 4 }).flip();
+        var calls = new AtomicInteger();
+        QueueSubscriber<Byte> subscriber = new QueueSubscriber<>() {
+            @Override
+            public void onNext(Byte item) {
+                calls.incrementAndGet();
+                throw new IllegalStateException("subscriber failed");
+            }
+        };
+
+        i2c.poll(INTERVAL, () -> new I2C.Message[] { readMessage() }, messages -> messages[0].data()[0])
+                .subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        Thread.sleep(INTERVAL.toMillis() * 10);
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(subscriber.errors).isEmpty();
+    }
+
+    private static I2C.Message readMessage() {
+        return I2C.Message.read(ADDRESS, new byte[1], 0, 1);
+    }
+
+    private static class QueueSubscriber<T> implements Flow.Subscriber<T> {
+
+        private final BlockingQueue<T> values = new LinkedBlockingQueue<>();
+        private final BlockingQueue<Throwable> errors = new LinkedBlockingQueue<>();
+        private volatile Flow.Subscription subscription;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(T item) {
+            values.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            errors.add(throwable);
+        }
+
+        @Override
+        public void onComplete() {}
+
+        T next() throws InterruptedException {
+            var value = values.poll(1, TimeUnit.SECONDS);
+            assertThat(value).isNotNull();
+            return value;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package io.github.iamnicknack.pjs.device.pwm;
+
+import io.github.iamnicknack.pjs.mock.MockPwm;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class PwmWaveformEngineTest {
+
+    private static final long PERIOD = 1000;
+
+    private final AtomicLong clock = new AtomicLong();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+    /**
+     * Engine whose timing thread does not tick during a test, so that ticks are driven by the test
+     */
+    private final PwmWaveformEngine engine = new PwmWaveformEngine(Duration.ofHours(1), executor, false, clock::get);
+
+    @AfterEach
+    void tearDown() {
+        engine.close();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void linearRampWritesEachTick() {
+        var pwm = new RecordingPwm();
+        var waveform = engine.play(pwm, PwmProfile.linear(0, 1), Duration.ofNanos(100));
+
+        for (int i = 0; i <= 4; i++) {
+            clock.set(i * 25L);
+            engine.tick();
+        }
+
+        assertThat(pwm.writes).containsExactly(0L, 250L, 500L, 750L, 1000L);
+        assertThat(waveform.isDone()).isTrue();
+        assertThat(engine.active()).isZero();
+    }
+
+    @Test
+    void coalescesUnchangedDutyCycle() {
+        var pwm = new RecordingPwm();
+        engine.loop(pwm, PwmProfile.constant(0.5), Duration.ofNanos(100));
+
+        for (int i = 0; i < 5; i++) {
+            clock.addAndGet(10);
+            engine.tick();
+        }
+
+        assertThat(pwm.writes).containsExactly(500L);
+        assertThat(engine.metrics().updates()).isEqualTo(1);
+        assertThat(engine.metrics().coalesced()).isEqualTo(4);
+    }
+
+    @Test
+    void updatesAllChannelsEachTick() {
+        var first = new RecordingPwm();
+        var second = new RecordingPwm();
+        engine.play(first, PwmProfile.linear(0, 1), Duration.ofNanos(100));
+        engine.play(second, PwmProfile.linear(1, 0), Duration.ofNanos(100));
+
+        clock.set(50);
+        engine.tick();
+
+        assertThat(first.writes).containsExactly(500L);
+        assertThat(second.writes).containsExactly(500L);
+        assertThat(engine.metrics().ticks()).isEqualTo(1);
+    }
+
+    @Test
+    void startingWaveformReplacesCurrent() {
+        var pwm = new RecordingPwm();
+        var first = engine.loop(pwm, PwmProfile.constant(0.25), Duration.ofNanos(100));
+        var second = engine.play(pwm, PwmProfile.constant(0.75), Duration.ofNanos(100));
+
+        assertThat(first.isDone()).isTrue();
+        assertThat(engine.waveform(pwm)).isSameAs(second);
+
+        engine.tick();
+        assertThat(pwm.writes).containsExactly(750L);
+    }
+
+    @Test
+    void cancelLeavesCurrentDutyCycle() {
+        var pwm = new RecordingPwm();
+        var waveform = engine.play(pwm, PwmProfile.linear(0, 1), Duration.ofNanos(100));
+
+        clock.set(50);
+        engine.tick();
+        waveform.cancel();
+        clock.set(100);
+        engine.tick();
+
+        assertThat(pwm.writes).containsExactly(500L);
+        assertThat(pwm.getDutyCycle()).isEqualTo(500);
+        assertThat(waveform.isDone()).isTrue();
+    }
+
+    @Test
+    void loopRepeatsTable() {
+        var pwm = new RecordingPwm();
+        engine.loop(pwm, PwmProfile.table(0, 1, 0), Duration.ofNanos(100));
+
+        for (long time : new long[] {0, 25, 50, 75, 100, 125}) {
+            clock.set(time);
+            engine.tick();
+        }
+
+        assertThat(pwm.writes).containsExactly(0L, 500L, 1000L, 500L, 0L, 500L);
+    }
+
+    @Test
+    void reportsLateTicksAndAchievedRate() {
+        engine.loop(new RecordingPwm(), PwmProfile.constant(0), Duration.ofSeconds(1));
+        var tick = TimeUnit.HOURS.toNanos(1);
+
+        for (long time : new long[] {0, tick, 3 * tick, 4 * tick}) {
+            clock.set(time);
+            engine.tick();
+        }
+
+        var metrics = engine.metrics();
+        assertThat(metrics.requestedRate()).isCloseTo(1.0 / 3600, within(1e-9));
+        assertThat(metrics.achievedRate()).isCloseTo(3.0 / (4 * 3600), within(1e-9));
+        assertThat(metrics.ticks()).isEqualTo(4);
+        assertThat(metrics.lateTicks()).isEqualTo(1);
+    }
+
+    @Test
+    void profilesMapProgressToDutyRatio() {
+        assertThat(PwmProfile.linear(0.2, 0.6).dutyRatio(0.5)).isCloseTo(0.4, within(1e-9));
+        assertThat(PwmProfile.eased(0, 1).dutyRatio(0.25)).isLessThan(0.25);
+        assertThat(PwmProfile.eased(0, 1).dutyRatio(0.5)).isCloseTo(0.5, within(1e-9));
+        assertThat(PwmProfile.eased(0, 1).dutyRatio(1)).isCloseTo(1, within(1e-9));
+        assertThat(PwmProfile.table(0, 1, 0.5).dutyRatio(0.75)).isCloseTo(0.75, within(1e-9));
+        assertThat(PwmProfile.table(0, 1, 0.5).dutyRatio(1)).isCloseTo(0.5, within(1e-9));
+    }
+
+    @Test
+    void rampsOnTimingThread() throws Exception {
+        var pwm = new MockPwm(PwmConfig.builder().period(PERIOD).build());
+
+        try (var threadEngine = new PwmWaveformEngine(Duration.ofMillis(1))) {
+            var waveform = threadEngine.rampTo(pwm, 1, Duration.ofMillis(20));
+            waveform.completion().toCompletableFuture().get(5, TimeUnit.SECONDS);
+
+            assertThat(pwm.getDutyCycle()).isEqualTo(PERIOD);
+            var metrics = threadEngine.metrics();
+            assertThat(metrics.requestedRate()).isEqualTo(1000);
+            assertThat(metrics.achievedRate()).isPositive();
+            assertThat(metrics.updates()).isGreaterThan(1);
+        }
+    }
+
+    /**
+     * Records the duty cycles written to a mock channel
+     */
+    private static class RecordingPwm extends MockPwm {
+        private final List<Long> writes = new ArrayList<>();
+
+        RecordingPwm() {
+            super(PwmConfig.builder().period(PERIOD).build());
+        }
+
+        @Override
+        public void setDutyCycle(long dutyCycle) {
+            writes.add(dutyCycle);
+            super.setDutyCycle(dutyCycle);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package io.github.iamnicknack.pjs.device.spi;
+
+import io.github.iamnicknack.pjs.device.spi.impl.DefaultSpiTransfer;
+import io.github.iamnicknack.pjs.mock.MockSpi;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PreparedSpiTransactionTest {
+
+    private final MockSpi spi = new MockSpi(SpiConfig.builder().id("test-spi").build());
+    private final SpiTransfer transfer = new DefaultSpiTransfer(spi);
+
+    @Test
+    void templateRecordsPartsInOrder() {
+        var template = PreparedSpiTransaction.template()
+                .fixed((byte) 0x03)
+                .field(2).delayUs(10)
+                .read(8).csChange()
+                .build();
+
+        assertThat(template.parts()).extracting(PreparedSpiTransaction.Part::kind).containsExactly(
+                PreparedSpiTransaction.Kind.FIXED,
+                PreparedSpiTransaction.Kind.FIELD,
+                PreparedSpiTransaction.Kind.READ
+        );
+        assertThat(template.parts().get(1).delayUs()).isEqualTo(10);
+        assertThat(template.parts().get(2).csChange()).isTrue();
+        assertThat(template.fieldCount()).isEqualTo(1);
+        assertThat(template.payloadCount()).isEqualTo(1);
+    }
+
+    @Test
+    void templateRejectsInvalidParts() {
+        assertThatThrownBy(() -> PreparedSpiTransaction.template().field(9))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PreparedSpiTransaction.template().read(-1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PreparedSpiTransaction.template().csChange())
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void writesFixedBytesFieldsAndPayload() {
+        var transaction = transfer.prepare(PreparedSpiTransaction.template()
+                .fixed((byte) 0x02)
+                .field(2)
+                .write(4)
+                .build());
+
+        var length = transaction.field(0, 0x1234)
+                .payload(0, new byte[] { 0, 7, 8, 9 }, 1, 3)
+                .execute();
+
+        assertThat(length).isEqualTo(6);
+        assertThat(outBytes()).containsExactly(0x02, 0x12, 0x34, 7, 8, 9);
+    }
+
+    @Test
+    void readsIntoBoundPayload() {
+        spi.writeBytes(new byte[] { 0, 0, 0, 5, 6 });
+        spi.swapBuffers();
+
+        var transaction = transfer.prepare(PreparedSpiTransaction.template()
+                .fixed((byte) 0x03)
+                .field(2)
+                .read(4)
+                .build());
+
+        var buffer = new byte[] { -1, -1, -1 };
+        transaction.field(0, 0x0100).payload(0, buffer, 1, 2).execute();
+
+        assertThat(buffer).containsExactly(-1, 5, 6);
+        assertThat(outBytes()).containsExactly(0x03, 0x01, 0x00, 0, 0);
+    }
+
+    @Test
+    void bindingsPersistAcrossExecutions() {
+        var transaction = transfer.prepare(PreparedSpiTransaction.template()
+                .field(1)
+                .write(2)
+                .build());
+
+        transaction.field(0, 1).payload(0, new byte[] { 2, 3 });
+        transaction.execute();
+        transaction.field(0, 4).execute();
+
+        assertThat(outBytes()).containsExactly(1, 2, 3, 4, 2, 3);
+    }
+
+    @Test
+    void rejectsPayloadLongerThanSlot() {
+        var transaction = transfer.prepare(PreparedSpiTransaction.template().write(2).build());
+
+        assertThatThrownBy(() -> transaction.payload(0, new byte[3]))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> transaction.payload(1, new byte[1]))
+                .isInstanceOf(IndexOutOfBoundsException.class);
+    }
+
+    private byte[] outBytes() {
+        var buffer = spi.getOutBuffer();
+        var bytes = new byte[buffer.position()];
+        buffer.get(0, bytes, 0, bytes.length);
+        return bytes;
+    }
+}
@@ -0,0 +1,98 @@
+package io.github.iamnicknack.pjs.device.spi;
+
+import io.github.iamnicknack.pjs.device.spi.impl.DefaultSpiTransfer;
+import io.github.iamnicknack.pjs.mock.MockSpi;
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SpiBufferMessageTest {
+
+    private final MockSpi spi = new MockSpi(SpiConfig.builder().id("test-spi").build());
+
+    @Test
+    void heapSegmentsExposeBackingArrays() {
+        var write = new byte[] { 0, 1, 2, 3 };
+        var read = new byte[4];
+        var message = new SpiBufferMessage(
+                MemorySegment.ofArray(write).asSlice(1),
+                MemorySegment.ofArray(read).asSlice(2),
+                2
+        );
+
+        assertThat(message.write()).isSameAs(write);
+        assertThat(message.writeOffset()).isEqualTo(1);
+        assertThat(message.read()).isSameAs(read);
+        assertThat(message.readOffset()).isEqualTo(2);
+        assertThat(message.writeSegment().byteSize()).isEqualTo(2);
+    }
+
+    @Test
+    void halfDuplexMessagesHaveNoOppositeBuffer() {
+        var write = SpiTransfer.Message.write(new byte[] { 1, 2 });
+        var read = SpiTransfer.Message.read(new byte[3]);
+
+        assertThat(write.readSegment()).isEqualTo(MemorySegment.NULL);
+        assertThat(read.writeSegment()).isEqualTo(MemorySegment.NULL);
+        assertThat(read.write()).containsExactly(0, 0, 0);
+    }
+
+    @Test
+    void nativeReadBufferIsOnlyAvailableAsSegment() {
+        try (var arena = Arena.ofConfined()) {
+            var message = SpiBufferMessage.read(arena.allocate(2));
+
+            assertThatThrownBy(message::read).isInstanceOf(IllegalStateException.class);
+            assertThat(message.readSegment().isNative()).isTrue();
+        }
+    }
+
+    @Test
+    void rejectsSegmentsShorterThanLength() {
+        assertThatThrownBy(() -> new SpiBufferMessage(MemorySegment.ofArray(new byte[1]), MemorySegment.NULL, 2))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void transfersNativeAndBufferMessagesThroughArraySpi() {
+        spi.writeBytes(new byte[] { 0, 0, 7, 8 });
+        spi.swapBuffers();
+
+        try (var arena = Arena.ofConfined()) {
+            var read = arena.allocate(2);
+            var transfer = new DefaultSpiTransfer(spi);
+
+            var length = transfer.transfer(
+                    SpiTransfer.Message.write(ByteBuffer.wrap(new byte[] { 1, 2 })),
+                    SpiBufferMessage.read(read)
+            );
+
+            assertThat(length).isEqualTo(4);
+            assertThat(read.toArray(ValueLayout.JAVA_BYTE)).containsExactly(7, 8);
+        }
+
+        var bytes = new byte[4];
+        spi.getOutBuffer().get(0, bytes, 0, 4);
+        assertThat(bytes).containsExactly(1, 2, 0, 0);
+    }
+
+    @Test
+    void segmentTransferStagesNativeMemory() {
+        spi.writeBytes(new byte[] { 5, 6 });
+        spi.swapBuffers();
+
+        try (var arena = Arena.ofConfined()) {
+            var write = arena.allocate(2).fill((byte) 9);
+            var read = arena.allocate(2);
+
+            assertThat(spi.transfer(write, read, 2)).isEqualTo(2);
+            assertThat(read.toArray(ValueLayout.JAVA_BYTE)).containsExactly(5, 6);
+        }
+    }
+}
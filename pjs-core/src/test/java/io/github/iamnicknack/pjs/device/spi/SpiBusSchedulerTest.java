@@ -0,0 +1,208 @@
+package io.github.iamnicknack.pjs.device.spi;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SpiBusSchedulerTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final SpiBusScheduler scheduler = new SpiBusScheduler(executor, false, 4, clock::get);
+
+    /**
+     * Transfers in execution order, labelled with the device
+     */
+    private final List<Transfer> transfers = new CopyOnWriteArrayList<>();
+    private final CountDownLatch gateEntered = new CountDownLatch(1);
+    private final CountDownLatch gateReleased = new CountDownLatch(1);
+
+    private final SpiTransfer gate = messages -> {
+        gateEntered.countDown();
+        try {
+            gateReleased.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+        return 0;
+    };
+    private final SpiTransfer display = recording("display");
+    private final SpiTransfer adc = recording("adc");
+
+    @AfterEach
+    void tearDown() {
+        scheduler.close();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void coalescesConsecutiveSubmissionsToSameDevice() throws Exception {
+        holdBus();
+        var first = scheduler.submit(display, message(1), message(2));
+        var second = scheduler.submit(display, message(3));
+        releaseBus();
+
+        assertThat(first.get(1, TimeUnit.SECONDS)).isEqualTo(2);
+        assertThat(second.get(1, TimeUnit.SECONDS)).isEqualTo(1);
+        assertThat(transfers).hasSize(1);
+
+        var messages = transfers.getFirst().messages();
+        assertThat(messages).extracting(SpiTransfer.Message::length).containsExactly(1, 2, 3);
+        assertThat(messages).extracting(SpiTransfer.Message::csChange).containsExactly(false, true, false);
+        assertThat(scheduler.metrics().coalesced()).isEqualTo(1);
+    }
+
+    @Test
+    void doesNotCoalesceAcrossDevicesOrBeyondBatchSize() throws Exception {
+        holdBus();
+        scheduler.submit(display, message(1));
+        scheduler.submit(adc, message(2));
+        scheduler.submit(display, message(3), message(4), message(5));
+        scheduler.submit(display, message(6), message(7));
+        releaseBus();
+        awaitIdle();
+
+        assertThat(transfers).extracting(Transfer::device).containsExactly("display", "adc", "display", "display");
+    }
+
+    @Test
+    void submissionKeepingDeviceSelectedEndsBatch() throws Exception {
+        holdBus();
+        scheduler.submit(display, new SpiTransfer.DefaultMessage(new byte[1], 0, new byte[1], 0, 1, 0, true));
+        scheduler.submit(display, message(1));
+        releaseBus();
+        awaitIdle();
+
+        assertThat(transfers).hasSize(2);
+    }
+
+    @Test
+    void higherPriorityJumpsQueue() throws Exception {
+        holdBus();
+        scheduler.submit(display, SpiBusScheduler.Priority.LOW, message(1));
+        scheduler.submit(adc, SpiBusScheduler.Priority.HIGH, message(1));
+        scheduler.submit(display, SpiBusScheduler.Priority.NORMAL, message(2));
+        releaseBus();
+        awaitIdle();
+
+        assertThat(transfers).extracting(Transfer::device).containsExactly("adc", "display");
+        assertThat(transfers.getLast().messages()).extracting(SpiTransfer.Message::length).containsExactly(2, 1);
+    }
+
+    @Test
+    void recordsQueueDepthAndWaitTime() throws Exception {
+        holdBus();
+        scheduler.submit(display, message(1));
+        clock.set(100);
+        scheduler.submit(adc, message(1));
+        assertThat(scheduler.metrics().queueDepth()).isEqualTo(2);
+
+        clock.set(300);
+        releaseBus();
+        awaitIdle();
+
+        var metrics = scheduler.metrics();
+        assertThat(metrics.queueDepth()).isZero();
+        assertThat(metrics.maxQueueDepth()).isEqualTo(2);
+        assertThat(metrics.batches()).isEqualTo(3);
+        assertThat(metrics.completed()).isEqualTo(3);
+        assertThat(metrics.maxWaitNanos()).isEqualTo(300);
+        assertThat(metrics.averageWaitNanos()).isEqualTo((0 + 300 + 200) / 3);
+    }
+
+    @Test
+    void failedTransferCompletesSubmissionsExceptionally() {
+        var failure = new IllegalStateException("bus error");
+        SpiTransfer failing = _ -> { throw failure; };
+
+        var future = scheduler.submit(failing, message(1));
+        assertThatThrownBy(() -> future.get(1, TimeUnit.SECONDS)).hasCause(failure);
+        assertThatThrownBy(() -> scheduler.scheduled(failing, SpiBusScheduler.Priority.NORMAL).transfer(message(1)))
+                .isSameAs(failure);
+    }
+
+    @Test
+    void transferFailingWithErrorCompletesBatchAndKeepsDraining() throws Exception {
+        var failure = new AssertionError("driver fault");
+        SpiTransfer failing = _ -> { throw failure; };
+
+        holdBus();
+        var first = scheduler.submit(failing, message(1));
+        var second = scheduler.submit(failing, message(2));
+        releaseBus();
+
+        assertThatThrownBy(() -> first.get(1, TimeUnit.SECONDS)).hasCause(failure);
+        assertThatThrownBy(() -> second.get(1, TimeUnit.SECONDS)).hasCause(failure);
+        assertThat(scheduler.submit(adc, message(3)).get(1, TimeUnit.SECONDS)).isEqualTo(3);
+        awaitIdle();
+        assertThat(scheduler.metrics().completed()).isEqualTo(4);
+    }
+
+    @Test
+    void scheduledTransferBlocksUntilExecuted() {
+        var transfer = scheduler.scheduled(adc, SpiBusScheduler.Priority.HIGH);
+
+        assertThat(transfer.transfer(message(2))).isEqualTo(2);
+        assertThat(transfers).extracting(Transfer::device).containsExactly("adc");
+    }
+
+    @Test
+    void closeCancelsQueuedSubmissions() throws Exception {
+        holdBus();
+        var queued = scheduler.submit(display, message(1));
+        scheduler.close();
+        releaseBus();
+
+        assertThat(queued).isCancelled();
+        assertThatThrownBy(() -> scheduler.submit(display, message(1))).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(queued::join).isInstanceOf(CancellationException.class);
+    }
+
+    /**
+     * Occupy the scheduler thread until {@link #releaseBus()} is called
+     */
+    private void holdBus() throws InterruptedException {
+        scheduler.submit(gate, message(1));
+        assertThat(gateEntered.await(1, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private void releaseBus() {
+        gateReleased.countDown();
+    }
+
+    /**
+     * Wait for the scheduler thread to drain the queue
+     */
+    private void awaitIdle() throws Exception {
+        CompletableFuture.runAsync(() -> {}, executor).get(1, TimeUnit.SECONDS);
+    }
+
+    private SpiTransfer recording(String device) {
+        return messages -> {
+            transfers.add(new Transfer(device, messages));
+            var length = 0;
+            for (var message : messages) {
+                length += message.length();
+            }
+            return length;
+        };
+    }
+
+    private static SpiTransfer.Message message(int length) {
+        return SpiTransfer.Message.write(new byte[length]);
+    }
+
+    private record Transfer(String device, SpiTransfer.Message[] messages) {}
+}
@@ -9,10 +9,12 @@ import org.junit.jupiter.api.DynamicTest;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestFactory;
 
+import java.util.ArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -137,6 +139,65 @@ class DefaultSpiTransferTest {
         assertThat(bytes).containsExactly(1, 2, 3, 0, 0, 0, 4, 5, 6);
     }
 
+    @Test
+    void compositeMessageTransferHonoursReadOffsets() {
+        var spi = new MockSpi(SpiConfig.builder().id("test-spi").build());
+        spi.writeBytes(new byte[] { 0, 7, 8, 9 });
+        spi.swapBuffers();
+
+        var read = new byte[] { -1, -1, -1, -1, -1 };
+        new CompositeMessageTransfer(spi).transfer(
+                SpiTransfer.Message.write(new byte[] { 1 }),
+                SpiTransfer.Message.read(read, 2, 3)
+        );
+
+        assertThat(read).containsExactly(-1, -1, 7, 8, 9);
+    }
+
+    @Test
+    void compositeMessageTransferReusesWorkspace() {
+        var buffers = new ArrayList<byte[]>();
+        Spi spi = new CountingSpi(new MockSpi(SpiConfig.builder().id("test-spi").build())) {
+            @Override
+            public int transfer(byte[] write, int writeOffset, byte[] read, int readOffset, int length) {
+                buffers.add(write);
+                buffers.add(read);
+                return length;
+            }
+        };
+        var transfer = new CompositeMessageTransfer(spi);
+
+        for (int i = 0; i < 3; i++) {
+            transfer.transfer(
+                    SpiTransfer.Message.write(new byte[] { (byte) i }),
+                    SpiTransfer.Message.read(new byte[2])
+            );
+        }
+
+        assertThat(buffers).hasSize(6);
+        assertThat(buffers.get(2)).isSameAs(buffers.get(0));
+        assertThat(buffers.get(3)).isSameAs(buffers.get(1));
+        assertThat(buffers.get(4)).isSameAs(buffers.get(0));
+        assertThat(buffers.get(4)[0]).isEqualTo((byte) 2);
+    }
+
+    @Test
+    void compositeMessageBuilderGrowsToMaximumLength() {
+        var builder = CompositeMessage.builder()
+                .message(SpiTransfer.Message.write(new byte[] { 1, 2, 3 }))
+                .message(SpiTransfer.Message.write(new byte[1000]));
+        assertThat(builder.length()).isEqualTo(1003);
+        assertThat(builder.write()).startsWith(1, 2, 3);
+
+        builder.reset();
+        assertThat(builder.messageCount()).isZero();
+        assertThat(builder.write().length).isGreaterThanOrEqualTo(1003);
+
+        builder.message(SpiTransfer.Message.write(new byte[CompositeMessageTransfer.MAX_COMPOSITE_MESSAGE_LENGTH]));
+        assertThatThrownBy(() -> builder.message(SpiTransfer.Message.write(new byte[1])))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
     private static class InvocationCheckTransfer implements SpiTransfer {
         private final AtomicBoolean invoked = new AtomicBoolean(false);
 
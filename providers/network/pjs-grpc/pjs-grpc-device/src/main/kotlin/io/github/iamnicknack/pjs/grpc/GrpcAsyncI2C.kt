@@ -0,0 +1,41 @@
+package io.github.iamnicknack.pjs.grpc
+
+import io.github.iamnicknack.pjs.device.i2c.AsyncI2C
+import io.github.iamnicknack.pjs.device.i2c.I2C
+import io.github.iamnicknack.pjs.grpc.gen.v1.i2c.bus.I2CBusServiceGrpc
+import io.github.iamnicknack.pjs.grpc.gen.v1.i2c.bus.TransferResponse
+import io.grpc.stub.StreamObserver
+import java.util.concurrent.CompletableFuture
+
+/**
+ * [AsyncI2C] which sends each transfer as soon as it is submitted using the asynchronous stub.
+ * Transfers to any number of buses are in flight on the channel together, and are ordered on each bus by the server.
+ */
+class GrpcAsyncI2C(
+    private val i2c: I2C,
+    private val stub: I2CBusServiceGrpc.I2CBusServiceStub
+) : AsyncI2C {
+
+    override fun i2c(): I2C = i2c
+
+    override fun transfer(vararg messages: I2C.Message): CompletableFuture<Array<out I2C.Message>> {
+        val future = CompletableFuture<Array<out I2C.Message>>()
+        stub.transfer(
+            asTransferRequest(i2c.config.id, messages),
+            object : StreamObserver<TransferResponse> {
+                override fun onNext(value: TransferResponse) {
+                    value.copyReadsTo(messages)
+                }
+
+                override fun onError(t: Throwable) {
+                    future.completeExceptionally(t)
+                }
+
+                override fun onCompleted() {
+                    future.complete(messages)
+                }
+            }
+        )
+        return future
+    }
+}
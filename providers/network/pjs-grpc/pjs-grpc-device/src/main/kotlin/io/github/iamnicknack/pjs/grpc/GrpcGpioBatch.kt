@@ -0,0 +1,44 @@
+package io.github.iamnicknack.pjs.grpc
+
+import io.github.iamnicknack.pjs.device.gpio.GpioBatch
+import io.github.iamnicknack.pjs.device.gpio.GpioPort
+import io.github.iamnicknack.pjs.grpc.gen.v1.port.BatchRequest
+import io.github.iamnicknack.pjs.grpc.gen.v1.port.PortServiceGrpc
+
+/**
+ * [GpioBatch] which reads or writes all ports with a single call to the remote device service.
+ * The remote service uses a batch from its own provider, so ports sharing a hardware request are read from one
+ * snapshot.
+ */
+class GrpcGpioBatch(
+    ports: List<GpioPort>,
+    private val stub: PortServiceGrpc.PortServiceBlockingStub
+) : GpioBatch {
+
+    private val portList: List<GpioPort> = ports.toList()
+
+    /**
+     * Read request, built once and reused for every read
+     */
+    private val readRequest: BatchRequest = BatchRequest.newBuilder()
+        .addAllDeviceId(portList.map { it.config.id })
+        .build()
+
+    override fun ports(): List<GpioPort> = portList
+
+    override fun readInto(values: IntArray) {
+        require(values.size >= portList.size) { "Expected ${portList.size} values but got ${values.size}" }
+        stub.readBatch(readRequest)
+            .valueList
+            .forEachIndexed { index, value -> values[index] = value }
+    }
+
+    override fun write(values: IntArray) {
+        require(values.size >= portList.size) { "Expected ${portList.size} values but got ${values.size}" }
+        stub.writeBatch(
+            readRequest.toBuilder()
+                .addAllValue(values.take(portList.size))
+                .build()
+        )
+    }
+}
@@ -144,8 +144,7 @@ class GrpcGpioPort(
                 listenerId = value.listenerId
                 connectionRendezvous.trySend(Unit)
             } else {
-                val event = GpioChangeEvent(device, value.eventMode.asGpioChangeEventType())
-                eventListener.onEvent(event)
+                eventListener.onEvent(value.asGpioChangeEvent())
             }
         }
 
@@ -161,6 +160,18 @@ class GrpcGpioPort(
             logger.info("Event stream completed on device: {}", device.config.id)
         }
 
+        /**
+         * Map the remote event, keeping the timestamp and sequence numbers of the source.
+         * Servers which do not send a timestamp are timestamped on receipt.
+         */
+        private fun StateChangeEvent.asGpioChangeEvent(): GpioChangeEvent<GpioPort> {
+            return if (timestampNanos == 0L) {
+                GpioChangeEvent(device, eventMode.asGpioChangeEventType())
+            } else {
+                GpioChangeEvent(device, eventMode.asGpioChangeEventType(), timestampNanos, lineOffset, seqno, lineSeqno)
+            }
+        }
+
         private fun EventMode.asGpioChangeEventType(): GpioChangeEventType {
             return when(this) {
                 EventMode.RISING -> GpioChangeEventType.RISING
@@ -1,5 +1,6 @@
 package io.github.iamnicknack.pjs.grpc
 
+import io.github.iamnicknack.pjs.device.gpio.GpioBatch
 import io.github.iamnicknack.pjs.device.gpio.GpioPort
 import io.github.iamnicknack.pjs.device.gpio.GpioPortConfig
 import io.github.iamnicknack.pjs.device.gpio.GpioPortProvider
@@ -16,4 +17,15 @@ class GrpcGpioPortProvider(channel: Channel) : GpioPortProvider {
         val created = configStub.create(config.asPortConfigPayload())
         return GrpcGpioPort(created.asGpioPortConfig(), portStub, configStub)
     }
+
+    /**
+     * Ports of this provider are read and written in a single round trip
+     */
+    override fun batch(ports: List<GpioPort>): GpioBatch {
+        return if (ports.all { it is GrpcGpioPort }) {
+            GrpcGpioBatch(ports, portStub)
+        } else {
+            GpioBatch.of(ports)
+        }
+    }
 }
@@ -8,6 +8,7 @@ import io.github.iamnicknack.pjs.grpc.gen.v1.i2c.bus.I2CBusMessage
 import io.github.iamnicknack.pjs.grpc.gen.v1.i2c.bus.I2CBusServiceGrpc
 import io.github.iamnicknack.pjs.grpc.gen.v1.i2c.bus.MessageType
 import io.github.iamnicknack.pjs.grpc.gen.v1.i2c.bus.TransferRequest
+import io.github.iamnicknack.pjs.grpc.gen.v1.i2c.bus.TransferResponse
 import io.github.iamnicknack.pjs.model.device.DeviceConfig
 
 class GrpcI2C(
@@ -19,38 +20,48 @@ class GrpcI2C(
     override fun getConfig(): DeviceConfig<I2C> = this.config
 
     override fun transfer(messages: Array<out I2C.Message>) {
-        val response = stub.transfer(this.config.asTransferRequest(messages))
-        response.messageList
-            .mapIndexed { index, i2CBusMessage ->
-                if (messages[index].type == I2C.Message.Type.READ) {
-                    i2CBusMessage.data.copyTo(messages[index].data, 0)
-                }
-            }
+        stub.transfer(asTransferRequest(config.id, messages))
+            .copyReadsTo(messages)
     }
 
     override fun close() {
         configStub.remove(config.asDeviceRequest())
     }
+}
 
-    private fun DeviceConfig<*>.asTransferRequest(messages: Array<out I2C.Message>): TransferRequest {
-        return TransferRequest.newBuilder()
-            .setDeviceId(this.id)
-            .addAllMessage(
-                messages.map {
-                    I2CBusMessage.newBuilder()
-                        .setAddress(it.address)
-                        .setType(it.type.asMessageType())
-                        .setData(ByteString.copyFrom(it.data))
-                        .build()
-                }
-            )
-            .build()
-    }
+/**
+ * Create a transfer request holding the bytes of each message between its offset and length
+ */
+internal fun asTransferRequest(deviceId: String, messages: Array<out I2C.Message>): TransferRequest {
+    return TransferRequest.newBuilder()
+        .setDeviceId(deviceId)
+        .addAllMessage(
+            messages.map {
+                I2CBusMessage.newBuilder()
+                    .setAddress(it.address)
+                    .setType(it.type.asMessageType())
+                    .setData(ByteString.copyFrom(it.data, it.offset, it.length))
+                    .build()
+            }
+        )
+        .build()
+}
 
-    private fun I2C.Message.Type.asMessageType(): MessageType {
-        return when (this) {
-            I2C.Message.Type.READ -> MessageType.READ
-            I2C.Message.Type.WRITE -> MessageType.WRITE
+/**
+ * Copy the bytes read by each read message into the buffer of the message, at its offset
+ */
+internal fun TransferResponse.copyReadsTo(messages: Array<out I2C.Message>) {
+    messageList.forEachIndexed { index, i2CBusMessage ->
+        val message = messages[index]
+        if (message.type == I2C.Message.Type.READ) {
+            i2CBusMessage.data.copyTo(message.data, message.offset)
         }
     }
-}
\ No newline at end of file
+}
+
+private fun I2C.Message.Type.asMessageType(): MessageType {
+    return when (this) {
+        I2C.Message.Type.READ -> MessageType.READ
+        I2C.Message.Type.WRITE -> MessageType.WRITE
+    }
+}
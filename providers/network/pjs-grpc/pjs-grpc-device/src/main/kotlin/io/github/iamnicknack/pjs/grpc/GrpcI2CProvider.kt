@@ -1,5 +1,6 @@
 package io.github.iamnicknack.pjs.grpc
 
+import io.github.iamnicknack.pjs.device.i2c.AsyncI2C
 import io.github.iamnicknack.pjs.device.i2c.I2C
 import io.github.iamnicknack.pjs.device.i2c.I2CConfig
 import io.github.iamnicknack.pjs.device.i2c.I2CProvider
@@ -11,10 +12,19 @@ class GrpcI2CProvider(
     channel: Channel
 ) : I2CProvider {
     private val stub = I2CBusServiceGrpc.newBlockingStub(channel)
+    private val asyncStub = I2CBusServiceGrpc.newStub(channel)
     private val configStub = I2CBusConfigServiceGrpc.newBlockingStub(channel)
 
     override fun create(config: I2CConfig): I2C {
         val created = configStub.create(config.asI2CBusConfigPayload())
         return GrpcI2C(created.asI2CBusConfig(), stub, configStub)
     }
-}
\ No newline at end of file
+
+    override fun async(i2c: I2C): AsyncI2C {
+        return if (i2c is GrpcI2C) {
+            GrpcAsyncI2C(i2c, asyncStub)
+        } else {
+            AsyncI2C.of(i2c)
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package io.github.iamnicknack.pjs.grpc
+
+import com.google.protobuf.ByteString
+import io.github.iamnicknack.pjs.device.spi.PreparedSpiTransaction
+import io.github.iamnicknack.pjs.device.spi.impl.AbstractPreparedSpiTransaction
+import io.github.iamnicknack.pjs.grpc.gen.v1.spi.SpiTransactionExecution
+import io.github.iamnicknack.pjs.grpc.gen.v1.spi.SpiTransactionHandle
+import io.github.iamnicknack.pjs.grpc.gen.v1.spi.SpiTransferServiceGrpc
+
+/**
+ * [PreparedSpiTransaction] registered with the remote transfer service.
+ * Each execution sends only the field values, written payloads and read lengths. The transaction is released on
+ * the server when closed.
+ */
+class GrpcPreparedSpiTransaction(
+    template: PreparedSpiTransaction.Template,
+    private val handle: SpiTransactionHandle,
+    private val stub: SpiTransferServiceGrpc.SpiTransferServiceBlockingStub
+) : AbstractPreparedSpiTransaction(template) {
+
+    override fun execute(): Int {
+        val request = SpiTransactionExecution.newBuilder()
+            .setDeviceId(handle.deviceId)
+            .setId(handle.id)
+            .addAllField(fields.asList())
+
+        for (index in payloads.indices) {
+            if (isWrite(index)) {
+                request.addWrite(ByteString.copyFrom(payloads[index], payloadOffsets[index], payloadLengths[index]))
+            } else {
+                request.addReadLength(payloadLengths[index])
+            }
+        }
+
+        val result = stub.execute(request.build())
+
+        var read = 0
+        for (index in payloads.indices) {
+            if (!isWrite(index)) {
+                result.getRead(read++).copyTo(payloads[index], payloadOffsets[index])
+            }
+        }
+
+        return result.length
+    }
+
+    override fun close() {
+        stub.release(handle)
+    }
+
+    private fun isWrite(index: Int): Boolean =
+        template.parts()[payloadPart(index)].kind() == PreparedSpiTransaction.Kind.WRITE
+}
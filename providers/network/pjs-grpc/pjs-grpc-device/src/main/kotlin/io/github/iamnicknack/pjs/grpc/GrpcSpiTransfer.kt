@@ -1,11 +1,13 @@
 package io.github.iamnicknack.pjs.grpc
 
 import com.google.protobuf.ByteString
+import io.github.iamnicknack.pjs.device.spi.PreparedSpiTransaction
 import io.github.iamnicknack.pjs.device.spi.SpiConfig
 import io.github.iamnicknack.pjs.device.spi.SpiTransfer
 import io.github.iamnicknack.pjs.grpc.gen.v1.spi.SpiTransferMessage
 import io.github.iamnicknack.pjs.grpc.gen.v1.spi.SpiTransferMessageList
 import io.github.iamnicknack.pjs.grpc.gen.v1.spi.SpiTransferServiceGrpc
+import java.lang.foreign.MemorySegment
 
 class GrpcSpiTransfer(
     private val config: SpiConfig,
@@ -15,11 +17,13 @@ class GrpcSpiTransfer(
     override fun transfer(vararg messages: SpiTransfer.Message): Int {
         val grpcMessages = messages
             .map {
+                val write = it.writeSegment()
                 SpiTransferMessage.newBuilder()
-                    .setPayload(ByteString.copyFrom(it.write()))
+                    .setPayload(if (write == MemorySegment.NULL) ByteString.EMPTY else ByteString.copyFrom(write.asByteBuffer()))
                     .setLength(it.length())
                     .setDelayUs(it.delayUs())
                     .setCsChange(it.csChange())
+                    .setWriteOnly(it.readSegment() == MemorySegment.NULL)
                     .build()
             }
 
@@ -32,15 +36,23 @@ class GrpcSpiTransfer(
 
         result.messageList
             .forEachIndexed { index, message ->
-                System.arraycopy(
-                    message.payload.toByteArray(),
-                    0,
-                    messages[index].read(),
-                    messages[index].readOffset(),
-                    message.length
-                )
+                val read = messages[index].readSegment()
+                if (read != MemorySegment.NULL) {
+                    MemorySegment.copy(
+                        MemorySegment.ofBuffer(message.payload.asReadOnlyByteBuffer()),
+                        0,
+                        read,
+                        0,
+                        minOf(message.payload.size().toLong(), read.byteSize())
+                    )
+                }
             }
 
         return result.messageList.fold(0) { acc, message -> acc + message.length }
     }
-}
\ No newline at end of file
+
+    override fun prepare(template: PreparedSpiTransaction.Template): PreparedSpiTransaction {
+        val handle = stub.prepare(template.asSpiTransactionTemplate(config.id))
+        return GrpcPreparedSpiTransaction(template, handle, stub)
+    }
+}
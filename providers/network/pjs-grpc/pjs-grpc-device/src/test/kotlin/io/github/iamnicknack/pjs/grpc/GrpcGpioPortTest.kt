@@ -2,12 +2,17 @@ package io.github.iamnicknack.pjs.grpc
 
 import assertk.assertThat
 import assertk.assertions.isEqualTo
+import assertk.assertions.isInstanceOf
+import io.github.iamnicknack.pjs.device.gpio.GpioBatch
+import io.github.iamnicknack.pjs.device.gpio.GpioEventClock
 import io.github.iamnicknack.pjs.device.gpio.GpioEventMode
 import io.github.iamnicknack.pjs.device.gpio.GpioPort
 import io.github.iamnicknack.pjs.device.gpio.GpioPortConfig
 import io.github.iamnicknack.pjs.device.gpio.GpioPortMode
 import io.github.iamnicknack.pjs.mock.MockGpioPort
 import io.github.iamnicknack.pjs.model.device.DeviceRegistry
+import io.github.iamnicknack.pjs.model.event.GpioChangeEvent
+import io.github.iamnicknack.pjs.model.event.GpioChangeEventType
 import io.grpc.StatusRuntimeException
 import org.junit.jupiter.api.Assertions.fail
 import org.junit.jupiter.api.Test
@@ -16,6 +21,7 @@ import org.junit.jupiter.api.extension.ExtendWith
 import org.slf4j.LoggerFactory
 import java.util.concurrent.CountDownLatch
 import java.util.concurrent.Executors
+import java.util.concurrent.LinkedBlockingQueue
 import java.util.concurrent.TimeUnit
 import kotlin.test.assertEquals
 
@@ -55,6 +61,24 @@ class GrpcGpioPortTest {
         assertThat(remoteDevice.read()).isEqualTo(42)
     }
 
+    @Test
+    fun `can write and read in a batch`(
+        @PjsExtension.Local localRegistry: DeviceRegistry,
+        @PjsExtension.Remote remoteRegistry: DeviceRegistry,
+    ) {
+        val first = localRegistry.create(outputConfig)
+        val second = localRegistry.create(errorPortConfig)
+
+        val batch = GpioBatch.of(localRegistry, listOf(first, second))
+        assertThat(batch).isInstanceOf(GrpcGpioBatch::class)
+
+        batch.write(intArrayOf(42, 7))
+        assertThat(remoteRegistry.device<GpioPort>(outputConfig.id)?.read()).isEqualTo(42)
+        assertThat(remoteRegistry.device<GpioPort>(errorPortConfig.id)?.read()).isEqualTo(7)
+
+        assertThat(batch.read().toList()).isEqualTo(listOf(42, 7))
+    }
+
     @Test
     fun `cannot recreate the same id`(
         @PjsExtension.Local localRegistry: DeviceRegistry,
@@ -87,6 +111,36 @@ class GrpcGpioPortTest {
         latch.await(1, TimeUnit.SECONDS)
     }
 
+    @Test
+    fun `events keep source timestamps, sequence numbers and clock`(
+        @PjsExtension.Local localRegistry: DeviceRegistry,
+        @PjsExtension.Remote remoteRegistry: DeviceRegistry,
+    ) {
+        val config = GpioPortConfig.builder()
+            .id("test-clock")
+            .portMode(GpioPortMode.INPUT)
+            .eventMode(GpioEventMode.BOTH)
+            .eventClock(GpioEventClock.REALTIME)
+            .build()
+        val device = localRegistry.create(config)
+        val remoteDevice = remoteRegistry.device<GpioPort>(config.id) as? MockGpioPort
+            ?: fail("cannot find device")
+        assertThat(device.config).isEqualTo(config)
+        assertThat(remoteDevice.config.eventClock).isEqualTo(GpioEventClock.REALTIME)
+
+        val events = LinkedBlockingQueue<GpioChangeEvent<GpioPort>>()
+        device.addListener { events.add(it) }
+        remoteDevice.mockValue(1, 123_456_789L, 3, 7, 2)
+
+        val event = events.poll(5, TimeUnit.SECONDS) ?: fail("no event received")
+        assertThat(event.port).isEqualTo(device)
+        assertThat(event.eventType).isEqualTo(GpioChangeEventType.RISING)
+        assertThat(event.timestampNanos).isEqualTo(123_456_789L)
+        assertThat(event.lineOffset).isEqualTo(3)
+        assertThat(event.seqno).isEqualTo(7)
+        assertThat(event.lineSeqno).isEqualTo(2)
+    }
+
     @Test
     fun `test events 2`(
         @PjsExtension.Local localRegistry: DeviceRegistry,
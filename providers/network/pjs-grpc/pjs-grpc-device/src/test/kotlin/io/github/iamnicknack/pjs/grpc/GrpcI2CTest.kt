@@ -3,6 +3,8 @@ package io.github.iamnicknack.pjs.grpc
 import assertk.assertThat
 import assertk.assertions.containsExactly
 import assertk.assertions.isEqualTo
+import assertk.assertions.isInstanceOf
+import io.github.iamnicknack.pjs.device.i2c.AsyncI2C
 import io.github.iamnicknack.pjs.device.i2c.I2C
 import io.github.iamnicknack.pjs.device.i2c.I2CConfig
 import io.github.iamnicknack.pjs.device.i2c.impl.I2CRegister
@@ -12,6 +14,7 @@ import io.github.iamnicknack.pjs.model.device.DeviceRegistry
 import org.junit.jupiter.api.Assertions.fail
 import org.junit.jupiter.api.Test
 import org.junit.jupiter.api.extension.ExtendWith
+import java.util.concurrent.TimeUnit
 
 @ExtendWith(PjsExtension::class)
 class GrpcI2CTest {
@@ -83,4 +86,27 @@ class GrpcI2CTest {
         val bytesRead = localDevice.readBytes(2)
         assertThat(bytesRead).containsExactly(*bytes)
     }
-}
\ No newline at end of file
+
+    @Test
+    fun `can transfer asynchronously`(
+        @PjsExtension.Local localRegistry: DeviceRegistry,
+        @PjsExtension.Remote remoteRegistry: DeviceRegistry
+    ) {
+        val localDevice = localRegistry.create(config)
+        val remoteDevice = remoteRegistry.device<I2C>(config.id) as? MockI2C
+            ?: fail("cannot find mock device")
+        remoteDevice.getBuffer(1).put(byteArrayOf(42, 84)).flip()
+
+        AsyncI2C.of(localRegistry, localDevice).use { async ->
+            assertThat(async).isInstanceOf(GrpcAsyncI2C::class)
+
+            val read = ByteArray(3)
+            async.transfer(
+                I2C.Message.write(0x20, byteArrayOf(1), 0, 1),
+                I2C.Message.read(0x20, read, 1, 2)
+            ).get(1, TimeUnit.SECONDS)
+
+            assertThat(read).containsExactly(0, 42, 84)
+        }
+    }
+}
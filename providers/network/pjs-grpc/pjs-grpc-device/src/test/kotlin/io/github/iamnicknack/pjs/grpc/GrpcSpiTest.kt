@@ -3,14 +3,18 @@ package io.github.iamnicknack.pjs.grpc
 import assertk.assertThat
 import assertk.assertions.isEqualTo
 import assertk.assertions.isNotNull
+import io.github.iamnicknack.pjs.device.spi.PreparedSpiTransaction
 import io.github.iamnicknack.pjs.device.spi.Spi
 import io.github.iamnicknack.pjs.device.spi.SpiConfig
 import io.github.iamnicknack.pjs.device.spi.SpiProvider
 import io.github.iamnicknack.pjs.device.spi.SpiTransfer
 import io.github.iamnicknack.pjs.mock.MockSpi
 import io.github.iamnicknack.pjs.model.device.DeviceRegistry
+import io.grpc.Status
+import io.grpc.StatusRuntimeException
 import org.junit.jupiter.api.Assertions.fail
 import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
 import org.junit.jupiter.api.extension.ExtendWith
 
 @ExtendWith(PjsExtension::class)
@@ -67,4 +71,83 @@ class GrpcSpiTest {
         transfer.transfer(message)
         assertThat(message.read()[0]).isEqualTo(42)
     }
-}
\ No newline at end of file
+
+    @Test
+    fun `can transfer half duplex messages at offsets`(
+        @PjsExtension.Local localRegistry: DeviceRegistry,
+        @PjsExtension.Remote remoteRegistry: DeviceRegistry
+    ) {
+        val localDevice = localRegistry.create(config)
+        val localProvider = localRegistry.getProvider(SpiConfig::class.java) as SpiProvider
+        val transfer = localProvider.createTransfer(localDevice)
+
+        val remoteDevice = remoteRegistry.device<Spi>(config.id) as? MockSpi ?: fail("cannot find device")
+        remoteDevice.writeBytes(byteArrayOf(0, 0, 7, 8))
+        remoteDevice.swapBuffers()
+
+        val read = ByteArray(4) { -1 }
+        transfer.transfer(
+            SpiTransfer.Message.write(byteArrayOf(0, 1, 2), 1, 2),
+            SpiTransfer.Message.read(read, 1, 2)
+        )
+
+        assertThat(read.toList()).isEqualTo(listOf<Byte>(-1, 7, 8, -1))
+        assertThat(remoteDevice.outBuffer[0]).isEqualTo(1)
+        assertThat(remoteDevice.outBuffer[1]).isEqualTo(2)
+    }
+
+    @Test
+    fun `can execute prepared transactions`(
+        @PjsExtension.Local localRegistry: DeviceRegistry,
+        @PjsExtension.Remote remoteRegistry: DeviceRegistry
+    ) {
+        val localDevice = localRegistry.create(config)
+        val localProvider = localRegistry.getProvider(SpiConfig::class.java) as SpiProvider
+        val transfer = localProvider.createTransfer(localDevice)
+
+        val remoteDevice = remoteRegistry.device<Spi>(config.id) as? MockSpi ?: fail("cannot find device")
+        remoteDevice.writeBytes(byteArrayOf(0, 0, 0, 0, 7, 8))
+        remoteDevice.swapBuffers()
+
+        val template = PreparedSpiTransaction.template()
+            .fixed(0x03)
+            .field(2)
+            .write(2)
+            .read(4)
+            .build()
+
+        val read = ByteArray(4) { -1 }
+        transfer.prepare(template).use { transaction ->
+            val length = transaction
+                .field(0, 0x0102)
+                .payload(0, byteArrayOf(0, 5), 1, 1)
+                .payload(1, read, 1, 2)
+                .execute()
+            assertThat(length).isEqualTo(6)
+        }
+
+        assertThat(read.toList()).isEqualTo(listOf<Byte>(-1, 7, 8, -1))
+        assertThat(remoteDevice.outBuffer[0]).isEqualTo(3)
+        assertThat(remoteDevice.outBuffer[1]).isEqualTo(1)
+        assertThat(remoteDevice.outBuffer[2]).isEqualTo(2)
+        assertThat(remoteDevice.outBuffer[3]).isEqualTo(5)
+    }
+
+    @Test
+    fun `prepared transactions are released with their device`(
+        @PjsExtension.Local localRegistry: DeviceRegistry,
+        @PjsExtension.Remote remoteRegistry: DeviceRegistry
+    ) {
+        val localDevice = localRegistry.create(config)
+        val localProvider = localRegistry.getProvider(SpiConfig::class.java) as SpiProvider
+        val transaction = localProvider.createTransfer(localDevice)
+            .prepare(PreparedSpiTransaction.template().fixed(0x03).read(1).build())
+
+        remoteRegistry.remove(config.id)
+        remoteRegistry.create(config)
+
+        val exception = assertThrows<StatusRuntimeException> { transaction.execute() }
+        assertThat(exception.status.code).isEqualTo(Status.Code.NOT_FOUND)
+        transaction.close()
+    }
+}
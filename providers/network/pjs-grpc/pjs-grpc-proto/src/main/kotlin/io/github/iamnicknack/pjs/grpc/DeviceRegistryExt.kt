@@ -1,17 +1,23 @@
 package io.github.iamnicknack.pjs.grpc
 
+import com.google.protobuf.ByteString
+import io.github.iamnicknack.pjs.device.gpio.GpioEventClock
 import io.github.iamnicknack.pjs.device.gpio.GpioEventMode
 import io.github.iamnicknack.pjs.device.gpio.GpioPortConfig
 import io.github.iamnicknack.pjs.device.gpio.GpioPortMode
 import io.github.iamnicknack.pjs.device.i2c.I2CConfig
 import io.github.iamnicknack.pjs.device.pwm.PwmConfig
+import io.github.iamnicknack.pjs.device.spi.PreparedSpiTransaction
 import io.github.iamnicknack.pjs.device.spi.SpiConfig
 import io.github.iamnicknack.pjs.grpc.gen.v1.i2c.bus.I2CBusConfigPayload
+import io.github.iamnicknack.pjs.grpc.gen.v1.port.EventClock
 import io.github.iamnicknack.pjs.grpc.gen.v1.port.EventMode
 import io.github.iamnicknack.pjs.grpc.gen.v1.port.PortConfigPayload
 import io.github.iamnicknack.pjs.grpc.gen.v1.port.PortMode
 import io.github.iamnicknack.pjs.grpc.gen.v1.pwm.PwmConfigPayload
 import io.github.iamnicknack.pjs.grpc.gen.v1.spi.SpiConfigPayload
+import io.github.iamnicknack.pjs.grpc.gen.v1.spi.SpiTransactionPart
+import io.github.iamnicknack.pjs.grpc.gen.v1.spi.SpiTransactionTemplate
 import io.github.iamnicknack.pjs.model.device.Device
 import io.github.iamnicknack.pjs.model.device.DeviceRegistry
 import io.grpc.Status
@@ -43,6 +49,7 @@ fun PortConfigPayload.asGpioPortConfig(): GpioPortConfig {
         .eventMode(this.eventMode.asGpioEventMode())
         .defaultValue(this.defaultValue)
         .debounceDelay(this.debounceDelay)
+        .eventClock(this.eventClock.asGpioEventClock())
         .build()
 }
 
@@ -54,9 +61,27 @@ fun GpioPortConfig.asPortConfigPayload(): PortConfigPayload {
         .setDefaultValue(this.defaultValue)
         .addAllPinNumber(this.pinNumber.toList())
         .setDebounceDelay(this.debounceDelay)
+        .setEventClock(this.eventClock.asEventClock())
         .build()
 }
 
+fun EventClock.asGpioEventClock(): GpioEventClock {
+    return when (this) {
+        EventClock.MONOTONIC -> GpioEventClock.MONOTONIC
+        EventClock.REALTIME -> GpioEventClock.REALTIME
+        EventClock.HTE -> GpioEventClock.HTE
+        else -> throw IllegalArgumentException("Unsupported event clock: $this")
+    }
+}
+
+fun GpioEventClock.asEventClock(): EventClock {
+    return when (this) {
+        GpioEventClock.MONOTONIC -> EventClock.MONOTONIC
+        GpioEventClock.REALTIME -> EventClock.REALTIME
+        GpioEventClock.HTE -> EventClock.HTE
+    }
+}
+
 fun PortMode.asGpioPortMode(): GpioPortMode {
     return when (this) {
         PortMode.INPUT -> GpioPortMode.INPUT
@@ -154,4 +179,33 @@ fun SpiConfigPayload.asSpiConfig(): SpiConfig {
         .bitsPerWord(bitsPerWord)
         .lsbFirst(lsbFirst)
         .build()
-}
\ No newline at end of file
+}
+
+fun PreparedSpiTransaction.Template.asSpiTransactionTemplate(deviceId: String): SpiTransactionTemplate {
+    return SpiTransactionTemplate.newBuilder()
+        .setDeviceId(deviceId)
+        .addAllPart(parts().map {
+            SpiTransactionPart.newBuilder()
+                .setKind(SpiTransactionPart.Kind.valueOf(it.kind().name))
+                .setFixed(ByteString.copyFrom(it.bytes()))
+                .setLength(it.length())
+                .setDelayUs(it.delayUs())
+                .setCsChange(it.csChange())
+                .build()
+        })
+        .build()
+}
+
+fun SpiTransactionTemplate.asTemplate(): PreparedSpiTransaction.Template {
+    return PreparedSpiTransaction.Template(
+        partList.map {
+            PreparedSpiTransaction.Part(
+                PreparedSpiTransaction.Kind.valueOf(it.kind.name),
+                it.fixed.toByteArray(),
+                it.length,
+                it.delayUs,
+                it.csChange
+            )
+        }
+    )
+}
@@ -3,6 +3,7 @@ package io.github.iamnicknack.pjs.grpc.config
 import io.github.iamnicknack.pjs.grpc.service.*
 import io.github.iamnicknack.pjs.model.device.DeviceRegistry
 import io.github.iamnicknack.pjs.server.DeviceRegistryProvider
+import io.github.iamnicknack.pjs.server.PreparedSpiTransactions
 import io.grpc.Server
 import io.grpc.ServerBuilder
 import io.grpc.protobuf.services.ProtoReflectionServiceV1
@@ -29,6 +30,13 @@ class DefaultGrpcServer(
         deviceRegistryProvider.createDeviceRegistry()
     }
 
+    /**
+     * SPI transactions prepared by clients, released with their devices or when the server closes
+     */
+    private val spiTransactions: PreparedSpiTransactions by lazy {
+        PreparedSpiTransactions(deviceRegistry)
+    }
+
     override val server: Server by lazy {
         serverBuilderProvider.createServerBuilder()
             .addService(GrpcPortService(deviceRegistry))
@@ -39,7 +47,7 @@ class DefaultGrpcServer(
             .addService(GrpcPwmConfigService(deviceRegistry))
             .addService(GrpcSpiService(deviceRegistry))
             .addService(GrpcSpiConfigService(deviceRegistry))
-            .addService(GrpcSpiTransferService(deviceRegistry))
+            .addService(GrpcSpiTransferService(deviceRegistry, spiTransactions))
             .addService(GrpcDeviceConfigService(deviceRegistry))
             .addService(ProtoReflectionServiceV1.newInstance())
             .intercept(ExceptionLoggingInterceptor())
@@ -48,6 +56,7 @@ class DefaultGrpcServer(
 
     override fun close() {
         logger.info("*** shutting down gRPC server")
+        spiTransactions.close()
         deviceRegistry.close()
         server.shutdown().awaitTermination(5, TimeUnit.SECONDS)
         logger.info("*** server shut down")
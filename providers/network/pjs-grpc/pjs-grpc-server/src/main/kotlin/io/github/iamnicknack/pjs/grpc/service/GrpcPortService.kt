@@ -1,10 +1,13 @@
 package io.github.iamnicknack.pjs.grpc.service
 
+import io.github.iamnicknack.pjs.device.gpio.GpioBatch
 import io.github.iamnicknack.pjs.device.gpio.GpioPort
 import io.github.iamnicknack.pjs.device.gpio.GpioPortConfig
 import io.github.iamnicknack.pjs.device.gpio.GpioPortMode
 import io.github.iamnicknack.pjs.grpc.asGpioPortMode
 import io.github.iamnicknack.pjs.grpc.deviceOrThrow
+import io.github.iamnicknack.pjs.grpc.gen.v1.port.BatchRequest
+import io.github.iamnicknack.pjs.grpc.gen.v1.port.BatchResponse
 import io.github.iamnicknack.pjs.grpc.gen.v1.port.Empty
 import io.github.iamnicknack.pjs.grpc.gen.v1.port.EventMode
 import io.github.iamnicknack.pjs.grpc.gen.v1.port.PortModePayload
@@ -58,6 +61,32 @@ class GrpcPortService(
         return Empty.getDefaultInstance()
     }
 
+    override suspend fun readBatch(request: BatchRequest): BatchResponse {
+        val values = batchOf(request).read()
+
+        return BatchResponse.newBuilder()
+            .addAllValue(values.asList())
+            .build()
+    }
+
+    override suspend fun writeBatch(request: BatchRequest): Empty {
+        if (request.valueCount != request.deviceIdCount) {
+            throw Status.INVALID_ARGUMENT
+                .withDescription("Expected ${request.deviceIdCount} values but got ${request.valueCount}")
+                .asRuntimeException()
+        }
+        batchOf(request).write(request.valueList.toIntArray())
+
+        return Empty.getDefaultInstance()
+    }
+
+    /**
+     * Batch over the requested ports, using the registry provider so that the ports are read and written with as
+     * few operations as the local devices allow
+     */
+    private fun batchOf(request: BatchRequest): GpioBatch =
+        GpioBatch.of(deviceRegistry, request.deviceIdList.map { deviceRegistry.deviceOrThrow<GpioPort>(it) })
+
     override fun addListener(request: DeviceRequest): Flow<StateChangeEvent> {
         // should only do this if port is input
         val device = deviceRegistry.deviceOrThrow<GpioPort>(request.deviceId)
@@ -78,6 +107,10 @@ class GrpcPortService(
                     .setListenerId(listenerId)
                     .setEventMode(event.eventType.asEventType())
                     .setValue(event.port.read())
+                    .setTimestampNanos(event.timestampNanos)
+                    .setLineOffset(event.lineOffset)
+                    .setSeqno(event.seqno)
+                    .setLineSeqno(event.lineSeqno)
                     .build()
 
                 trySend(changeEvent)
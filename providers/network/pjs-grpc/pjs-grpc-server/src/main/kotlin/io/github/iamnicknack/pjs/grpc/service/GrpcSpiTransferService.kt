@@ -1,18 +1,32 @@
 package io.github.iamnicknack.pjs.grpc.service
 
 import com.google.protobuf.ByteString
+import io.github.iamnicknack.pjs.device.spi.PreparedSpiTransaction
 import io.github.iamnicknack.pjs.device.spi.Spi
+import io.github.iamnicknack.pjs.device.spi.SpiBufferMessage
 import io.github.iamnicknack.pjs.device.spi.SpiConfig
 import io.github.iamnicknack.pjs.device.spi.SpiProvider
-import io.github.iamnicknack.pjs.device.spi.SpiTransfer
+import io.github.iamnicknack.pjs.grpc.asTemplate
 import io.github.iamnicknack.pjs.grpc.deviceOrThrow
+import io.github.iamnicknack.pjs.grpc.gen.v1.spi.SpiTransactionExecution
+import io.github.iamnicknack.pjs.grpc.gen.v1.spi.SpiTransactionHandle
+import io.github.iamnicknack.pjs.grpc.gen.v1.spi.SpiTransactionResult
+import io.github.iamnicknack.pjs.grpc.gen.v1.spi.SpiTransactionTemplate
 import io.github.iamnicknack.pjs.grpc.gen.v1.spi.SpiTransferMessage
 import io.github.iamnicknack.pjs.grpc.gen.v1.spi.SpiTransferMessageList
 import io.github.iamnicknack.pjs.grpc.gen.v1.spi.SpiTransferServiceGrpcKt
+import io.github.iamnicknack.pjs.grpc.gen.v1.types.Empty
 import io.github.iamnicknack.pjs.model.device.DeviceRegistry
+import io.github.iamnicknack.pjs.server.PreparedSpiTransactions
+import io.grpc.Status
+import java.lang.foreign.MemorySegment
 
 class GrpcSpiTransferService(
-    private val deviceRegistry: DeviceRegistry
+    private val deviceRegistry: DeviceRegistry,
+    /**
+     * Transactions prepared by clients, by device
+     */
+    private val transactions: PreparedSpiTransactions = PreparedSpiTransactions(deviceRegistry)
 ) : SpiTransferServiceGrpcKt.SpiTransferServiceCoroutineImplBase() {
 
     private val provider: SpiProvider = deviceRegistry.getProvider(SpiConfig::class.java) as SpiProvider
@@ -22,11 +36,9 @@ class GrpcSpiTransferService(
 
         val messagesToSend = request.messageList
             .map {
-                SpiTransfer.DefaultMessage(
-                    it.payload.toByteArray(),
-                    0,
-                    ByteArray(it.length),
-                    0,
+                SpiBufferMessage(
+                    if (it.payload.isEmpty) MemorySegment.NULL else MemorySegment.ofArray(it.payload.toByteArray()),
+                    if (it.writeOnly) MemorySegment.NULL else MemorySegment.ofArray(ByteArray(it.length)),
                     it.length,
                     it.delayUs,
                     it.csChange
@@ -38,8 +50,9 @@ class GrpcSpiTransferService(
 
         val messagesToReturn = messagesToSend
             .map {
+                val read = it.readSegment()
                 SpiTransferMessage.newBuilder()
-                    .setPayload(ByteString.copyFrom(it.read()))
+                    .setPayload(if (read == MemorySegment.NULL) ByteString.EMPTY else ByteString.copyFrom(read.asByteBuffer()))
                     .setLength(it.length())
                     .setDelayUs(it.delayUs())
                     .setCsChange(it.csChange())
@@ -51,4 +64,72 @@ class GrpcSpiTransferService(
             .addAllMessage(messagesToReturn)
             .build()
     }
-}
\ No newline at end of file
+
+    override suspend fun prepare(request: SpiTransactionTemplate): SpiTransactionHandle {
+        val device = deviceRegistry.deviceOrThrow<Spi>(request.deviceId)
+        val template = request.asTemplate()
+        val id = try {
+            transactions.prepare(request.deviceId, device) { provider.createTransfer(device).prepare(template) }
+        } catch (e: IllegalStateException) {
+            throw Status.RESOURCE_EXHAUSTED
+                .withDescription(e.message)
+                .asRuntimeException()
+        }
+
+        return SpiTransactionHandle.newBuilder()
+            .setDeviceId(request.deviceId)
+            .setId(id)
+            .build()
+    }
+
+    override suspend fun execute(request: SpiTransactionExecution): SpiTransactionResult {
+        val transaction = transactionOrThrow(request.deviceId, request.id)
+        val template = transaction.template()
+        if (request.fieldCount != template.fieldCount()) {
+            throw Status.INVALID_ARGUMENT
+                .withDescription("Expected ${template.fieldCount()} fields but got ${request.fieldCount}")
+                .asRuntimeException()
+        }
+
+        val payloadKinds = template.parts().filter { it.isPayload }.map { it.kind() }
+        val writeCount = payloadKinds.count { it == PreparedSpiTransaction.Kind.WRITE }
+        if (request.writeCount != writeCount || request.readLengthCount != payloadKinds.size - writeCount) {
+            throw Status.INVALID_ARGUMENT
+                .withDescription("Payloads do not match the prepared transaction")
+                .asRuntimeException()
+        }
+
+        return synchronized(transaction) {
+            request.fieldList.forEachIndexed { index, value -> transaction.field(index, value) }
+
+            val reads = ArrayList<ByteArray>()
+            var write = 0
+            payloadKinds.forEachIndexed { index, kind ->
+                val buffer = when (kind) {
+                    PreparedSpiTransaction.Kind.WRITE -> request.getWrite(write++).toByteArray()
+                    else -> ByteArray(request.getReadLength(reads.size)).also { reads.add(it) }
+                }
+                transaction.payload(index, buffer)
+            }
+
+            val length = transaction.execute()
+
+            SpiTransactionResult.newBuilder()
+                .addAllRead(reads.map { ByteString.copyFrom(it) })
+                .setLength(length)
+                .build()
+        }
+    }
+
+    override suspend fun release(request: SpiTransactionHandle): Empty {
+        // releasing is idempotent, the transaction may already have gone with its device
+        transactions.release(request.deviceId, request.id)
+        return Empty.getDefaultInstance()
+    }
+
+    private fun transactionOrThrow(deviceId: String, id: Int): PreparedSpiTransaction =
+        transactions.transaction(deviceId, id)
+            ?: throw Status.NOT_FOUND
+                .withDescription("Transaction with id $id does not exist for device $deviceId")
+                .asRuntimeException()
+}
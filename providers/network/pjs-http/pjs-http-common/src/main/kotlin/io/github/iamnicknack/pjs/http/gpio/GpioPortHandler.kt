@@ -1,11 +1,15 @@
 package io.github.iamnicknack.pjs.http.gpio
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties
+import com.fasterxml.jackson.annotation.JsonProperty
+import com.fasterxml.jackson.databind.ObjectMapper
+import io.github.iamnicknack.pjs.device.gpio.GpioEventClock
 import io.github.iamnicknack.pjs.device.gpio.GpioEventMode
 import io.github.iamnicknack.pjs.device.gpio.GpioPort
 import io.github.iamnicknack.pjs.device.gpio.GpioPortConfig
 import io.github.iamnicknack.pjs.device.gpio.GpioPortMode
 import io.github.iamnicknack.pjs.http.config.ConfigHandler
+import io.github.iamnicknack.pjs.model.event.GpioChangeEvent
 import io.github.iamnicknack.pjs.model.event.GpioChangeEventType
 
 /**
@@ -33,6 +37,20 @@ interface GpioPortHandler : ConfigHandler<GpioPort> {
      */
     suspend fun setDeviceDirection(deviceId: String, direction: GpioPortMode)
 
+    /**
+     * Read the current values of several devices together
+     * @param deviceIds the device ids
+     * @return the value of each device, in the order of the ids
+     */
+    suspend fun readDevices(deviceIds: List<String>): IntArray
+
+    /**
+     * Write values to several devices together
+     * @param deviceIds the device ids
+     * @param values the value of each device, in the order of the ids
+     */
+    suspend fun writeDevices(deviceIds: List<String>, values: IntArray)
+
     /**
      * Configuration payload for a GPIO port
      */
@@ -42,7 +60,8 @@ interface GpioPortHandler : ConfigHandler<GpioPort> {
         val portMode: GpioPortMode,
         val eventMode: GpioEventMode = GpioEventMode.NONE,
         val defaultValue: Int? = null,
-        val debounceDelay: Int? = null
+        val debounceDelay: Int? = null,
+        val eventClock: GpioEventClock? = null
     ) : ConfigHandler.DeviceConfigPayload<GpioPort> {
 
         override fun asDeviceConfig(deviceId: String?): GpioPortConfig = GpioPortConfig.builder()
@@ -52,9 +71,45 @@ interface GpioPortHandler : ConfigHandler<GpioPort> {
             .eventMode(this.eventMode)
             .defaultValue(this.defaultValue ?: 0)
             .debounceDelay(this.debounceDelay ?: 0)
+            .eventClock(this.eventClock ?: GpioEventClock.MONOTONIC)
             .build()
     }
 
+    /**
+     * Data of a state change event sent to subscribers, carrying the details of the source event
+     */
+    class GpioEventPayload(
+        @param:JsonProperty("deviceId") val deviceId: String,
+        @param:JsonProperty("timestampNanos") val timestampNanos: Long,
+        @param:JsonProperty("lineOffset") val lineOffset: Int,
+        @param:JsonProperty("seqno") val seqno: Int,
+        @param:JsonProperty("lineSeqno") val lineSeqno: Int
+    ) {
+        fun toJson(): String = mapper.writeValueAsString(this)
+
+        companion object {
+            private val mapper = ObjectMapper()
+
+            fun of(event: GpioChangeEvent<GpioPort>) = GpioEventPayload(
+                event.port.config.id,
+                event.timestampNanos,
+                event.lineOffset,
+                event.seqno,
+                event.lineSeqno
+            )
+
+            fun fromJson(json: String): GpioEventPayload = mapper.readValue(json, GpioEventPayload::class.java)
+        }
+    }
+
+    /**
+     * Values of several devices, in the order of the ids
+     */
+    class GpioBatchPayload(
+        val deviceId: List<String>,
+        val value: IntArray
+    )
+
     /**
      * Extended event types for SSE
      */
@@ -1,19 +1,103 @@
 package io.github.iamnicknack.pjs.http.spi
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties
+import io.github.iamnicknack.pjs.device.spi.PreparedSpiTransaction
 
 interface SpiTransferHandler {
 
     suspend fun transfer(deviceId: String, messageList: TransferMessageList): TransferMessageList
 
+    /**
+     * Register a transaction template with the device
+     * @return the handle used to execute and release the transaction
+     */
+    suspend fun prepare(deviceId: String, template: TransactionTemplate): TransactionHandle
+
+    /**
+     * Execute a prepared transaction with the given values
+     */
+    suspend fun execute(deviceId: String, transactionId: Int, execution: TransactionExecution): TransactionResult
+
+    /**
+     * Release a prepared transaction
+     */
+    suspend fun release(deviceId: String, transactionId: Int)
+
+    /**
+     * A message of a transfer
+     * @param payload the bytes to write, or empty to shift out zeroes; the bytes read in a response
+     * @param length the number of bytes to transfer
+     * @param writeOnly whether received bytes are discarded rather than returned
+     */
     @JsonIgnoreProperties(ignoreUnknown = true)
     class TransferMessage(
         val payload: ByteArray,
         val delayUs: Int = 0,
-        val csChange: Boolean = false
+        val csChange: Boolean = false,
+        val length: Int = payload.size,
+        val writeOnly: Boolean = false
     )
 
     class TransferMessageList(
         val messages: List<TransferMessage>
     )
-}
\ No newline at end of file
+
+    /**
+     * A message of a transaction template
+     * @param fixed the constant bytes of a [PreparedSpiTransaction.Kind.FIXED] part
+     * @param length the length of the part, or the maximum length of a payload slot
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    class TransactionPart(
+        val kind: PreparedSpiTransaction.Kind,
+        val length: Int,
+        val fixed: ByteArray = ByteArray(0),
+        val delayUs: Int = 0,
+        val csChange: Boolean = false
+    )
+
+    class TransactionTemplate(
+        val parts: List<TransactionPart>
+    ) {
+        fun asTemplate(): PreparedSpiTransaction.Template =
+            PreparedSpiTransaction.Template(
+                parts.map {
+                    PreparedSpiTransaction.Part(it.kind, it.fixed, it.length, it.delayUs, it.csChange)
+                }
+            )
+
+        companion object {
+            fun of(template: PreparedSpiTransaction.Template): TransactionTemplate =
+                TransactionTemplate(
+                    template.parts().map {
+                        TransactionPart(it.kind(), it.length(), it.bytes(), it.delayUs(), it.csChange())
+                    }
+                )
+        }
+    }
+
+    class TransactionHandle(
+        val id: Int
+    )
+
+    /**
+     * The values bound for one execution of a prepared transaction
+     * @param fields the values of the field parts, in template order
+     * @param writes the written payloads, in template order
+     * @param readLengths the number of bytes to read into each read payload, in template order
+     */
+    class TransactionExecution(
+        val fields: List<Long>,
+        val writes: List<ByteArray>,
+        val readLengths: List<Int>
+    )
+
+    /**
+     * @param reads the bytes read into each read payload, in template order
+     * @param length the number of bytes transferred
+     */
+    class TransactionResult(
+        val reads: List<ByteArray>,
+        val length: Int
+    )
+}
@@ -0,0 +1,31 @@
+package io.github.iamnicknack.pjs.http.client.gpio
+
+import io.github.iamnicknack.pjs.device.gpio.GpioBatch
+import io.github.iamnicknack.pjs.device.gpio.GpioPort
+import kotlinx.coroutines.runBlocking
+
+/**
+ * [GpioBatch] which reads or writes all ports with a single request to the remote server.
+ * The server uses a batch from its own provider, so ports sharing a hardware request are read from one snapshot.
+ */
+class HttpGpioBatch(
+    private val handler: GpioPortClientHandler,
+    ports: List<GpioPort>
+) : GpioBatch {
+
+    private val portList: List<GpioPort> = ports.toList()
+    private val deviceIds: List<String> = portList.map { it.config.id }
+
+    override fun ports(): List<GpioPort> = portList
+
+    override fun readInto(values: IntArray) {
+        require(values.size >= portList.size) { "Expected ${portList.size} values but got ${values.size}" }
+        runBlocking { handler.readDevices(deviceIds) }
+            .copyInto(values)
+    }
+
+    override fun write(values: IntArray) {
+        require(values.size >= portList.size) { "Expected ${portList.size} values but got ${values.size}" }
+        runBlocking { handler.writeDevices(deviceIds, values.copyOf(portList.size)) }
+    }
+}
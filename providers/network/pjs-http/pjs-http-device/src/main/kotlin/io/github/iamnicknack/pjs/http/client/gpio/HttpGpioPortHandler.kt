@@ -59,6 +59,25 @@ class HttpGpioPortHandler(
             .ensureSuccess(deviceId)
     }
 
+    override suspend fun readDevices(deviceIds: List<String>): IntArray {
+        return httpClient
+            .get("/api/v1/gpio-batch/value") {
+                deviceIds.forEach { parameter("deviceId", it) }
+                accept(ContentType.Application.Json)
+            }
+            .ensureSuccess(deviceIds.joinToString(","))
+            .body<IntArray>()
+    }
+
+    override suspend fun writeDevices(deviceIds: List<String>, values: IntArray) {
+        httpClient
+            .put("/api/v1/gpio-batch/value") {
+                contentType(ContentType.Application.Json)
+                setBody(GpioPortHandler.GpioBatchPayload(deviceIds, values))
+            }
+            .ensureSuccess(deviceIds.joinToString(","))
+    }
+
     override suspend fun listen(deviceId: String, listener: GpioEventListener<GpioPort>) {
         if (jobsMap[deviceId]?.isActive == true) return
 
@@ -84,7 +103,7 @@ class HttpGpioPortHandler(
                                     return@collect
                                 }
 
-                                listener.onEvent(GpioChangeEvent(port, sseEventType.gpioEvent))
+                                listener.onEvent(sseEvent.data.asGpioChangeEvent(port, sseEventType))
                                     .also { logger.debug("Forwarded GPIO event for port {}: {}", port.config.id, sseEventType) }
                             }
                     }
@@ -101,4 +120,26 @@ class HttpGpioPortHandler(
                 .ensureSuccess(deviceId)
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Map the event data, keeping the timestamp and sequence numbers of the source event.
+     * Events without a payload are timestamped on receipt.
+     */
+    private fun String?.asGpioChangeEvent(
+        port: GpioPort,
+        sseEventType: GpioPortHandler.SseEventType
+    ): GpioChangeEvent<GpioPort> {
+        val payload = this
+            ?.takeIf { it.startsWith("{") }
+            ?.let { GpioPortHandler.GpioEventPayload.fromJson(it) }
+            ?: return GpioChangeEvent(port, sseEventType.gpioEvent)
+        return GpioChangeEvent(
+            port,
+            sseEventType.gpioEvent,
+            payload.timestampNanos,
+            payload.lineOffset,
+            payload.seqno,
+            payload.lineSeqno
+        )
+    }
+}
@@ -1,5 +1,6 @@
 package io.github.iamnicknack.pjs.http.client.gpio
 
+import io.github.iamnicknack.pjs.device.gpio.GpioBatch
 import io.github.iamnicknack.pjs.device.gpio.GpioPort
 import io.github.iamnicknack.pjs.device.gpio.GpioPortConfig
 import io.github.iamnicknack.pjs.device.gpio.GpioPortProvider
@@ -15,11 +16,23 @@ class HttpGpioPortProvider(
         return HttpGpioPort.Default(portHandler, config as GpioPortConfig)
     }
 
+    /**
+     * Ports of this provider are read and written in a single request
+     */
+    override fun batch(ports: List<GpioPort>): GpioBatch {
+        return if (ports.all { it is HttpGpioPort }) {
+            HttpGpioBatch(portHandler, ports)
+        } else {
+            GpioBatch.of(ports)
+        }
+    }
+
     fun GpioPortConfig.asGpioPortConfigPayload() = GpioPortHandler.GpioPortConfigPayload(
         this.pinNumber,
         this.portMode,
         this.eventMode,
         this.defaultValue,
-        this.debounceDelay
+        this.debounceDelay,
+        this.eventClock
     )
 }
\ No newline at end of file
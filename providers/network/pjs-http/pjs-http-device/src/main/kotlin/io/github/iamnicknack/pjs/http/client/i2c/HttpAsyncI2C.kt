@@ -0,0 +1,39 @@
+package io.github.iamnicknack.pjs.http.client.i2c
+
+import io.github.iamnicknack.pjs.device.i2c.AsyncI2C
+import io.github.iamnicknack.pjs.device.i2c.I2C
+import io.github.iamnicknack.pjs.http.i2c.I2CHandler
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.cancel
+import kotlinx.coroutines.future.future
+import java.util.concurrent.CompletableFuture
+
+/**
+ * [AsyncI2C] which sends each transfer as a request as soon as it is submitted, without waiting for
+ * earlier transfers to complete. Requests are ordered on each bus by the server.
+ */
+class HttpAsyncI2C(
+    private val i2c: I2C,
+    private val i2cHandler: I2CHandler
+) : AsyncI2C {
+
+    private val scope = CoroutineScope(Dispatchers.IO + SupervisorJob())
+
+    override fun i2c(): I2C = i2c
+
+    override fun transfer(vararg messages: I2C.Message): CompletableFuture<Array<out I2C.Message>> {
+        return scope.future {
+            i2cHandler.transfer(i2c.config.id, asTransferPayload(messages)).copyReadsTo(messages)
+            messages
+        }
+    }
+
+    /**
+     * Cancel transfers still in flight
+     */
+    override fun close() {
+        scope.cancel()
+    }
+}
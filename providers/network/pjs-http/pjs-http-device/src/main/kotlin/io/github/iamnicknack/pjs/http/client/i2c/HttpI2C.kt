@@ -11,10 +11,9 @@ sealed class HttpI2C(
     private val config: I2CConfig
 ) : I2C {
     override fun transfer(vararg messages: I2C.Message) {
-        val payload = I2CHandler.I2CTransferPayload(
-            messages.map { I2CHandler.I2CTransferMessage(it.address, it.data, it.type) }
-        )
-        return runBlocking { i2cHandler.transfer(config.id, payload) }
+        runBlocking {
+            i2cHandler.transfer(config.id, asTransferPayload(messages)).copyReadsTo(messages)
+        }
     }
 
     override fun getConfig(): DeviceConfig<I2C> = config
@@ -39,4 +38,21 @@ sealed class HttpI2C(
      * Default implementation used when the device is managed by the local registry
      */
     class Default(handler: I2CHandler, config: I2CConfig) : HttpI2C(handler, config)
-}
\ No newline at end of file
+}
+
+internal fun asTransferPayload(messages: Array<out I2C.Message>) = I2CHandler.I2CTransferPayload(
+    messages.map {
+        I2CHandler.I2CTransferMessage(it.address, it.data.copyOfRange(it.offset, it.offset + it.length), it.type)
+    }
+)
+
+/**
+ * Copy the data returned for read messages into the buffers of the messages transferred
+ */
+internal fun I2CHandler.I2CTransferPayload.copyReadsTo(messages: Array<out I2C.Message>) {
+    this.messages.zip(messages)
+        .filter { (_, message) -> message.type == I2C.Message.Type.READ }
+        .forEach { (transferred, message) ->
+            transferred.payload.copyInto(message.data, message.offset, 0, message.length)
+        }
+}
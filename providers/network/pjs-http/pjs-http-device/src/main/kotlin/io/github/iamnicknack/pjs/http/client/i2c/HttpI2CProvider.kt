@@ -1,5 +1,6 @@
 package io.github.iamnicknack.pjs.http.client.i2c
 
+import io.github.iamnicknack.pjs.device.i2c.AsyncI2C
 import io.github.iamnicknack.pjs.device.i2c.I2C
 import io.github.iamnicknack.pjs.device.i2c.I2CConfig
 import io.github.iamnicknack.pjs.device.i2c.I2CProvider
@@ -16,5 +17,13 @@ class HttpI2CProvider(
         return HttpI2C.Default(i2cHandler, config as I2CConfig)
     }
 
+    override fun async(i2c: I2C): AsyncI2C {
+        return if (i2c is HttpI2C) {
+            HttpAsyncI2C(i2c, i2cHandler)
+        } else {
+            AsyncI2C.of(i2c)
+        }
+    }
+
     fun I2CConfig.asI2CConfigPayload() = I2CHandler.I2CConfigPayload(bus)
 }
\ No newline at end of file
@@ -0,0 +1,56 @@
+package io.github.iamnicknack.pjs.http.client.spi
+
+import io.github.iamnicknack.pjs.device.spi.PreparedSpiTransaction
+import io.github.iamnicknack.pjs.device.spi.impl.AbstractPreparedSpiTransaction
+import io.github.iamnicknack.pjs.http.spi.SpiTransferHandler
+import kotlinx.coroutines.runBlocking
+
+/**
+ * [PreparedSpiTransaction] registered with the remote transfer handler.
+ * Each execution sends only the field values, written payloads and read lengths. The transaction is released on
+ * the server when closed.
+ */
+class HttpPreparedSpiTransaction(
+    template: PreparedSpiTransaction.Template,
+    private val deviceId: String,
+    private val transactionId: Int,
+    private val spiTransferHandler: SpiTransferHandler
+) : AbstractPreparedSpiTransaction(template) {
+
+    override fun execute(): Int {
+        val writes = ArrayList<ByteArray>()
+        val readLengths = ArrayList<Int>()
+        for (index in payloads.indices) {
+            if (isWrite(index)) {
+                writes.add(payloads[index].copyOfRange(payloadOffsets[index], payloadOffsets[index] + payloadLengths[index]))
+            } else {
+                readLengths.add(payloadLengths[index])
+            }
+        }
+
+        val result = runBlocking {
+            spiTransferHandler.execute(
+                deviceId,
+                transactionId,
+                SpiTransferHandler.TransactionExecution(fields.asList(), writes, readLengths)
+            )
+        }
+
+        var read = 0
+        for (index in payloads.indices) {
+            if (!isWrite(index)) {
+                val bytes = result.reads[read++]
+                bytes.copyInto(payloads[index], payloadOffsets[index], 0, minOf(bytes.size, payloadLengths[index]))
+            }
+        }
+
+        return result.length
+    }
+
+    override fun close() {
+        runBlocking { spiTransferHandler.release(deviceId, transactionId) }
+    }
+
+    private fun isWrite(index: Int): Boolean =
+        template.parts()[payloadPart(index)].kind() == PreparedSpiTransaction.Kind.WRITE
+}
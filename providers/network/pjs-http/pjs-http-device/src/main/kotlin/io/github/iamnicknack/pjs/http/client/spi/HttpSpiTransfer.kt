@@ -1,9 +1,12 @@
 package io.github.iamnicknack.pjs.http.client.spi
 
+import io.github.iamnicknack.pjs.device.spi.PreparedSpiTransaction
 import io.github.iamnicknack.pjs.device.spi.SpiConfig
 import io.github.iamnicknack.pjs.device.spi.SpiTransfer
 import io.github.iamnicknack.pjs.http.spi.SpiTransferHandler
 import kotlinx.coroutines.runBlocking
+import java.lang.foreign.MemorySegment
+import java.lang.foreign.ValueLayout
 
 class HttpSpiTransfer(
     private val spiTransferHandler: SpiTransferHandler,
@@ -13,10 +16,13 @@ class HttpSpiTransfer(
     override fun transfer(vararg messages: SpiTransfer.Message): Int {
         val messagesToSend = messages
             .map {
+                val write = it.writeSegment()
                 SpiTransferHandler.TransferMessage(
-                    it.write(),
+                    if (write == MemorySegment.NULL) ByteArray(0) else write.toArray(ValueLayout.JAVA_BYTE),
                     it.delayUs(),
-                    it.csChange()
+                    it.csChange(),
+                    it.length(),
+                    it.readSegment() == MemorySegment.NULL
                 )
             }
 
@@ -29,9 +35,26 @@ class HttpSpiTransfer(
 
         messagesToReturn.messages
             .forEachIndexed { index, message ->
-                System.arraycopy(message.payload, 0, messages[index].read(), 0, message.payload.size)
+                val read = messages[index].readSegment()
+                if (read != MemorySegment.NULL) {
+                    MemorySegment.copy(
+                        message.payload,
+                        0,
+                        read,
+                        ValueLayout.JAVA_BYTE,
+                        0,
+                        minOf(message.payload.size, read.byteSize().toInt())
+                    )
+                }
             }
 
         return messages.sumOf { it.length() }
     }
-}
\ No newline at end of file
+
+    override fun prepare(template: PreparedSpiTransaction.Template): PreparedSpiTransaction {
+        val handle = runBlocking {
+            spiTransferHandler.prepare(config.id, SpiTransferHandler.TransactionTemplate.of(template))
+        }
+        return HttpPreparedSpiTransaction(template, config.id, handle.id, spiTransferHandler)
+    }
+}
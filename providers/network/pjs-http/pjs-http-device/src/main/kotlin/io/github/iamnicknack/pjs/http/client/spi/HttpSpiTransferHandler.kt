@@ -1,5 +1,6 @@
 package io.github.iamnicknack.pjs.http.client.spi
 
+import io.github.iamnicknack.pjs.http.client.ensureSuccess
 import io.github.iamnicknack.pjs.http.spi.SpiTransferHandler
 import io.ktor.client.*
 import io.ktor.client.call.*
@@ -22,4 +23,39 @@ class HttpSpiTransferHandler(
             }
             .body<SpiTransferHandler.TransferMessageList>()
     }
-}
\ No newline at end of file
+
+    override suspend fun prepare(
+        deviceId: String,
+        template: SpiTransferHandler.TransactionTemplate
+    ): SpiTransferHandler.TransactionHandle {
+        return httpClient
+            .post("/api/v1/spi/$deviceId/spi-transaction") {
+                accept(ContentType.Application.Json)
+                contentType(ContentType.Application.Json)
+                setBody(template)
+            }
+            .ensureSuccess(deviceId)
+            .body<SpiTransferHandler.TransactionHandle>()
+    }
+
+    override suspend fun execute(
+        deviceId: String,
+        transactionId: Int,
+        execution: SpiTransferHandler.TransactionExecution
+    ): SpiTransferHandler.TransactionResult {
+        return httpClient
+            .post("/api/v1/spi/$deviceId/spi-transaction/$transactionId") {
+                accept(ContentType.Application.Json)
+                contentType(ContentType.Application.Json)
+                setBody(execution)
+            }
+            .ensureSuccess(deviceId)
+            .body<SpiTransferHandler.TransactionResult>()
+    }
+
+    override suspend fun release(deviceId: String, transactionId: Int) {
+        httpClient
+            .delete("/api/v1/spi/$deviceId/spi-transaction/$transactionId")
+            .ensureSuccess(deviceId)
+    }
+}
@@ -0,0 +1,42 @@
+package io.github.iamnicknack.pjs.http.gpio
+
+import assertk.assertThat
+import assertk.assertions.isEqualTo
+import assertk.assertions.isInstanceOf
+import io.github.iamnicknack.pjs.device.gpio.GpioBatch
+import io.github.iamnicknack.pjs.device.gpio.GpioPort
+import io.github.iamnicknack.pjs.device.gpio.GpioPortConfig
+import io.github.iamnicknack.pjs.device.gpio.GpioPortMode
+import io.github.iamnicknack.pjs.http.client.gpio.HttpGpioBatch
+import io.github.iamnicknack.pjs.http.pjsHttpTestCase
+import org.junit.jupiter.api.Test
+
+class HttpGpioBatchTest {
+
+    private val firstConfig = GpioPortConfig.builder()
+        .id("first")
+        .portMode(GpioPortMode.OUTPUT)
+        .pin(1)
+        .build()
+
+    private val secondConfig = GpioPortConfig.builder()
+        .id("second")
+        .portMode(GpioPortMode.OUTPUT)
+        .pin(2, 3)
+        .build()
+
+    @Test
+    fun `can write and read in a batch`() = pjsHttpTestCase {
+        val first = httpDeviceRegistry.create(firstConfig)
+        val second = httpDeviceRegistry.create(secondConfig)
+
+        val batch = GpioBatch.of(httpDeviceRegistry, listOf<GpioPort>(first, second))
+        assertThat(batch).isInstanceOf(HttpGpioBatch::class)
+
+        batch.write(intArrayOf(1, 2))
+        assertThat(mockDeviceRegistry.device(firstConfig.id, GpioPort::class.java)?.read()).isEqualTo(1)
+        assertThat(mockDeviceRegistry.device(secondConfig.id, GpioPort::class.java)?.read()).isEqualTo(2)
+
+        assertThat(batch.read().toList()).isEqualTo(listOf(1, 2))
+    }
+}
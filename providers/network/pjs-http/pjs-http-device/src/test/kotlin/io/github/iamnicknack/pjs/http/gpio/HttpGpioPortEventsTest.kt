@@ -1,5 +1,6 @@
 package io.github.iamnicknack.pjs.http.gpio
 
+import io.github.iamnicknack.pjs.device.gpio.GpioEventClock
 import io.github.iamnicknack.pjs.device.gpio.GpioPort
 import io.github.iamnicknack.pjs.device.gpio.GpioPortConfig
 import io.github.iamnicknack.pjs.device.gpio.GpioPortMode
@@ -7,10 +8,14 @@ import io.github.iamnicknack.pjs.http.client.gpio.HttpGpioPort
 import io.github.iamnicknack.pjs.http.pjsHttpTestCase
 import io.github.iamnicknack.pjs.http.server.deviceOrThrow
 import io.github.iamnicknack.pjs.mock.MockGpioPort
+import io.github.iamnicknack.pjs.model.event.GpioChangeEvent
+import io.github.iamnicknack.pjs.model.event.GpioChangeEventType
 import org.junit.jupiter.api.Test
 import java.util.concurrent.CountDownLatch
+import java.util.concurrent.LinkedBlockingQueue
 import java.util.concurrent.TimeUnit
 import kotlin.test.assertEquals
+import kotlin.test.assertNotNull
 import kotlin.test.assertTrue
 
 class HttpGpioPortEventsTest {
@@ -35,4 +40,31 @@ class HttpGpioPortEventsTest {
         httpPort.close()
         assertEquals(0, mockPort.listenerCount)
     }
-}
\ No newline at end of file
+
+    @Test
+    fun `events keep source timestamps, sequence numbers and clock`() = pjsHttpTestCase {
+        val config = GpioPortConfig.builder()
+            .id("test-clock")
+            .portMode(GpioPortMode.INPUT)
+            .pin(1)
+            .eventClock(GpioEventClock.REALTIME)
+            .build()
+        val httpPort = httpDeviceRegistry.create(config) as HttpGpioPort
+        val mockPort = mockDeviceRegistry.deviceOrThrow<GpioPort>("test-clock") as MockGpioPort
+        assertEquals(GpioEventClock.REALTIME, mockPort.config.eventClock)
+        assertEquals(GpioEventClock.REALTIME, (httpPort.config as GpioPortConfig).eventClock)
+
+        val events = LinkedBlockingQueue<GpioChangeEvent<GpioPort>>()
+        httpPort.addListener { events.add(it) }
+        mockPort.mockValue(1, 123_456_789L, 3, 7, 2)
+
+        val event = assertNotNull(events.poll(2, TimeUnit.SECONDS))
+        assertEquals(GpioChangeEventType.RISING, event.eventType)
+        assertEquals(123_456_789L, event.timestampNanos)
+        assertEquals(3, event.lineOffset)
+        assertEquals(7, event.seqno)
+        assertEquals(2, event.lineSeqno)
+
+        httpPort.close()
+    }
+}
@@ -0,0 +1,40 @@
+package io.github.iamnicknack.pjs.http.i2c
+
+import assertk.assertThat
+import assertk.assertions.containsExactly
+import assertk.assertions.isInstanceOf
+import io.github.iamnicknack.pjs.device.i2c.AsyncI2C
+import io.github.iamnicknack.pjs.device.i2c.I2C
+import io.github.iamnicknack.pjs.device.i2c.I2CConfig
+import io.github.iamnicknack.pjs.http.client.i2c.HttpAsyncI2C
+import io.github.iamnicknack.pjs.http.pjsHttpTestCase
+import io.github.iamnicknack.pjs.mock.MockI2C
+import kotlinx.coroutines.future.await
+import org.junit.jupiter.api.Test
+
+class HttpAsyncI2CTest {
+
+    private val config = I2CConfig.builder()
+        .id("i2c")
+        .bus(1)
+        .build()
+
+    @Test
+    fun `can transfer asynchronously`() = pjsHttpTestCase {
+        val i2c = httpDeviceRegistry.create(config)
+        val remoteDevice = mockDeviceRegistry.device(config.id, I2C::class.java) as MockI2C
+        remoteDevice.getBuffer(1).put(byteArrayOf(42, 84)).flip()
+
+        AsyncI2C.of(httpDeviceRegistry, i2c).use { async ->
+            assertThat(async).isInstanceOf(HttpAsyncI2C::class)
+
+            val read = ByteArray(3)
+            async.transfer(
+                I2C.Message.write(0x20, byteArrayOf(1), 0, 1),
+                I2C.Message.read(0x20, read, 1, 2)
+            ).await()
+
+            assertThat(read).containsExactly(0, 42, 84)
+        }
+    }
+}
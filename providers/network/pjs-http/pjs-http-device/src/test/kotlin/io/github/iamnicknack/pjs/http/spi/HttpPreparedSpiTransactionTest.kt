@@ -0,0 +1,53 @@
+package io.github.iamnicknack.pjs.http.spi
+
+import assertk.assertThat
+import assertk.assertions.isEqualTo
+import io.github.iamnicknack.pjs.device.spi.PreparedSpiTransaction
+import io.github.iamnicknack.pjs.device.spi.Spi
+import io.github.iamnicknack.pjs.device.spi.SpiConfig
+import io.github.iamnicknack.pjs.device.spi.SpiProvider
+import io.github.iamnicknack.pjs.http.pjsHttpTestCase
+import io.github.iamnicknack.pjs.mock.MockSpi
+import org.junit.jupiter.api.Test
+
+class HttpPreparedSpiTransactionTest {
+
+    private val config = SpiConfig.builder()
+        .id("spi")
+        .bus(1)
+        .build()
+
+    @Test
+    fun `can execute prepared transactions`() = pjsHttpTestCase {
+        val spi = httpDeviceRegistry.create(config)
+        val provider = httpDeviceRegistry.getProvider(SpiConfig::class.java) as SpiProvider
+        val transfer = provider.createTransfer(spi)
+
+        val remoteDevice = mockDeviceRegistry.device(config.id, Spi::class.java) as MockSpi
+        remoteDevice.writeBytes(byteArrayOf(0, 0, 0, 0, 7, 8))
+        remoteDevice.swapBuffers()
+
+        val template = PreparedSpiTransaction.template()
+            .fixed(0x03)
+            .field(2)
+            .write(2)
+            .read(4)
+            .build()
+
+        val read = ByteArray(4) { -1 }
+        transfer.prepare(template).use { transaction ->
+            val length = transaction
+                .field(0, 0x0102)
+                .payload(0, byteArrayOf(0, 5), 1, 1)
+                .payload(1, read, 1, 2)
+                .execute()
+            assertThat(length).isEqualTo(6)
+        }
+
+        assertThat(read.toList()).isEqualTo(listOf<Byte>(-1, 7, 8, -1))
+        assertThat(remoteDevice.outBuffer[0]).isEqualTo(3)
+        assertThat(remoteDevice.outBuffer[1]).isEqualTo(1)
+        assertThat(remoteDevice.outBuffer[2]).isEqualTo(2)
+        assertThat(remoteDevice.outBuffer[3]).isEqualTo(5)
+    }
+}
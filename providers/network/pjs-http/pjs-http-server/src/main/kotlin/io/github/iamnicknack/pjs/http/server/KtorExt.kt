@@ -3,4 +3,7 @@ package io.github.iamnicknack.pjs.http.server
 import io.ktor.server.routing.*
 
 val RoutingCall.deviceId: String
-    get() = parameters["deviceId"] ?: throw IllegalArgumentException("Invalid deviceId")
\ No newline at end of file
+    get() = parameters["deviceId"] ?: throw IllegalArgumentException("Invalid deviceId")
+
+val RoutingCall.transactionId: Int
+    get() = parameters["transactionId"]?.toIntOrNull() ?: throw IllegalArgumentException("Invalid transactionId")
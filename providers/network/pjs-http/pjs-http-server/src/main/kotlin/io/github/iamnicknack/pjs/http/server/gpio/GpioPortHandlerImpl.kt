@@ -1,5 +1,6 @@
 package io.github.iamnicknack.pjs.http.server.gpio
 
+import io.github.iamnicknack.pjs.device.gpio.GpioBatch
 import io.github.iamnicknack.pjs.device.gpio.GpioPort
 import io.github.iamnicknack.pjs.device.gpio.GpioPortMode
 import io.github.iamnicknack.pjs.http.config.ConfigHandler
@@ -30,6 +31,21 @@ class GpioPortHandlerImpl(
         deviceRegistry.deviceOrThrow<GpioPort>(deviceId)
             .setDirection(direction)
 
+    override suspend fun readDevices(deviceIds: List<String>): IntArray =
+        batchOf(deviceIds).read()
+
+    override suspend fun writeDevices(deviceIds: List<String>, values: IntArray) {
+        require(values.size == deviceIds.size) { "Expected ${deviceIds.size} values but got ${values.size}" }
+        batchOf(deviceIds).write(values)
+    }
+
+    /**
+     * Batch over the ports, using the registry provider so that the ports are read and written with as few
+     * operations as the local devices allow
+     */
+    private fun batchOf(deviceIds: List<String>): GpioBatch =
+        GpioBatch.of(deviceRegistry, deviceIds.map { deviceRegistry.deviceOrThrow<GpioPort>(it) })
+
     override suspend fun listen(deviceId: String) {
         deviceRegistry.deviceOrThrow<GpioPort>(deviceId)
             .addListener(eventBroadcasterForDevice(deviceId))
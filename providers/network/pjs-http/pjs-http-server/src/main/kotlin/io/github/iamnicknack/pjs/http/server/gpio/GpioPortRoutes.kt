@@ -17,6 +17,26 @@ fun Route.gpioPortRoutes() {
     val handler: GpioPortHandler by inject()
     val eventsHandler: GpioEventsHandler by inject()
 
+    route("/api/v1/gpio-batch") {
+        /**
+         * Read the current values of the ports identified by the `deviceId` query parameters
+         */
+        get("/value") {
+            val deviceIds = call.request.queryParameters.getAll("deviceId")
+                ?: throw IllegalArgumentException("Invalid deviceId")
+            call.respond(handler.readDevices(deviceIds))
+        }
+
+        /**
+         * Set the values of several ports
+         */
+        put("/value") {
+            val payload = call.receive<GpioPortHandler.GpioBatchPayload>()
+            handler.writeDevices(payload.deviceId, payload.value)
+            call.respond(HttpStatusCode.OK)
+        }
+    }
+
     route("/api/v1/gpio/{deviceId}") {
         /**
          * Read the current value of the port
@@ -69,7 +89,7 @@ fun Route.gpioPortRoutes() {
                 .events
                 .collect { event ->
                     ServerSentEvent(
-                        data = event.port.config.id,
+                        data = GpioPortHandler.GpioEventPayload.of(event).toJson(),
                         event = event.eventType.toString(),
                         id = getTimeMillis().toString()
                     )
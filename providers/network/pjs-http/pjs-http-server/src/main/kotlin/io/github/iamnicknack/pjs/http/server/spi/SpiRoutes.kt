@@ -2,8 +2,10 @@ package io.github.iamnicknack.pjs.http.server.spi
 
 import io.github.iamnicknack.pjs.http.server.config.configRoutes
 import io.github.iamnicknack.pjs.http.server.deviceId
+import io.github.iamnicknack.pjs.http.server.transactionId
 import io.github.iamnicknack.pjs.http.spi.SpiHandler
 import io.github.iamnicknack.pjs.http.spi.SpiTransferHandler
+import io.ktor.http.*
 import io.ktor.server.request.*
 import io.ktor.server.response.*
 import io.ktor.server.routing.*
@@ -28,10 +30,34 @@ fun Route.spiRoutes() {
             call.respond(result)
         }
 
+        /**
+         * Register a transaction template, responding with its handle
+         */
+        post("/spi-transaction") {
+            val result = transferHandler.prepare(call.deviceId, call.receive())
+            call.respond(result)
+        }
+
+        /**
+         * Execute a prepared transaction
+         */
+        post("/spi-transaction/{transactionId}") {
+            val result = transferHandler.execute(call.deviceId, call.transactionId, call.receive())
+            call.respond(result)
+        }
+
+        /**
+         * Release a prepared transaction
+         */
+        delete("/spi-transaction/{transactionId}") {
+            transferHandler.release(call.deviceId, call.transactionId)
+            call.respond(HttpStatusCode.OK)
+        }
+
         configRoutes(
             handler,
             { call.receive(SpiHandler.SpiConfigPayload::class) },
             { call.respond(it) }
         )
     }
-}
\ No newline at end of file
+}
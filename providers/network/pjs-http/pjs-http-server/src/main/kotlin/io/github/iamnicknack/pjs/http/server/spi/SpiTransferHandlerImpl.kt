@@ -1,15 +1,22 @@
 package io.github.iamnicknack.pjs.http.server.spi
 
+import io.github.iamnicknack.pjs.device.spi.PreparedSpiTransaction
 import io.github.iamnicknack.pjs.device.spi.Spi
+import io.github.iamnicknack.pjs.device.spi.SpiBufferMessage
 import io.github.iamnicknack.pjs.device.spi.SpiConfig
 import io.github.iamnicknack.pjs.device.spi.SpiProvider
-import io.github.iamnicknack.pjs.device.spi.SpiTransfer
 import io.github.iamnicknack.pjs.http.server.deviceOrThrow
 import io.github.iamnicknack.pjs.http.spi.SpiTransferHandler
 import io.github.iamnicknack.pjs.model.device.DeviceRegistry
+import io.github.iamnicknack.pjs.server.PreparedSpiTransactions
+import java.lang.foreign.MemorySegment
 
 class SpiTransferHandlerImpl(
     private val deviceRegistry: DeviceRegistry,
+    /**
+     * Transactions prepared by clients, by device
+     */
+    private val transactions: PreparedSpiTransactions = PreparedSpiTransactions(deviceRegistry),
 ) : SpiTransferHandler {
 
     private val spiProvider: SpiProvider = deviceRegistry.getProvider(SpiConfig::class.java) as SpiProvider
@@ -20,16 +27,17 @@ class SpiTransferHandlerImpl(
     ): SpiTransferHandler.TransferMessageList {
         val transfer = spiProvider.createTransfer(deviceRegistry.deviceOrThrow<Spi>(deviceId))
 
+        val readBuffers = messageList.messages
+            .map { if (it.writeOnly) ByteArray(0) else ByteArray(it.length) }
+
         val messagesToSend = messageList.messages
-            .map {
-                SpiTransfer.DefaultMessage(
-                    it.payload,
-                    0,
-                    ByteArray(it.payload.size),
-                    0,
-                    it.payload.size,
-                    it.delayUs,
-                    it.csChange
+            .mapIndexed { index, message ->
+                SpiBufferMessage(
+                    if (message.payload.isEmpty()) MemorySegment.NULL else MemorySegment.ofArray(message.payload),
+                    if (message.writeOnly) MemorySegment.NULL else MemorySegment.ofArray(readBuffers[index]),
+                    message.length,
+                    message.delayUs,
+                    message.csChange
                 )
             }
             .toTypedArray()
@@ -37,14 +45,72 @@ class SpiTransferHandlerImpl(
         transfer.transfer(*messagesToSend)
 
         val messagesToReturn = messagesToSend
-            .map {
+            .mapIndexed { index, message ->
                 SpiTransferHandler.TransferMessage(
-                    it.read,
-                    it.delayUs,
-                    it.csChange
+                    readBuffers[index],
+                    message.delayUs(),
+                    message.csChange(),
+                    message.length()
                 )
             }
 
         return SpiTransferHandler.TransferMessageList(messagesToReturn)
     }
+
+    override suspend fun prepare(
+        deviceId: String,
+        template: SpiTransferHandler.TransactionTemplate
+    ): SpiTransferHandler.TransactionHandle {
+        val device = deviceRegistry.deviceOrThrow<Spi>(deviceId)
+        val transactionTemplate = template.asTemplate()
+        val id = try {
+            transactions.prepare(deviceId, device) { spiProvider.createTransfer(device).prepare(transactionTemplate) }
+        } catch (e: IllegalStateException) {
+            throw IllegalArgumentException(e.message, e)
+        }
+        return SpiTransferHandler.TransactionHandle(id)
+    }
+
+    override suspend fun execute(
+        deviceId: String,
+        transactionId: Int,
+        execution: SpiTransferHandler.TransactionExecution
+    ): SpiTransferHandler.TransactionResult {
+        val transaction = transactionOrThrow(deviceId, transactionId)
+        val template = transaction.template()
+        if (execution.fields.size != template.fieldCount()) {
+            throw IllegalArgumentException("Expected ${template.fieldCount()} fields but got ${execution.fields.size}")
+        }
+
+        val payloadKinds = template.parts().filter { it.isPayload }.map { it.kind() }
+        val writeCount = payloadKinds.count { it == PreparedSpiTransaction.Kind.WRITE }
+        if (execution.writes.size != writeCount || execution.readLengths.size != payloadKinds.size - writeCount) {
+            throw IllegalArgumentException("Payloads do not match the prepared transaction")
+        }
+
+        return synchronized(transaction) {
+            execution.fields.forEachIndexed { index, value -> transaction.field(index, value) }
+
+            val reads = ArrayList<ByteArray>()
+            var write = 0
+            payloadKinds.forEachIndexed { index, kind ->
+                val buffer = when (kind) {
+                    PreparedSpiTransaction.Kind.WRITE -> execution.writes[write++]
+                    else -> ByteArray(execution.readLengths[reads.size]).also { reads.add(it) }
+                }
+                transaction.payload(index, buffer)
+            }
+
+            SpiTransferHandler.TransactionResult(reads, transaction.execute())
+        }
+    }
+
+    override suspend fun release(deviceId: String, transactionId: Int) {
+        // releasing is idempotent, the transaction may already have gone with its device
+        transactions.release(deviceId, transactionId)
+    }
+
+    private fun transactionOrThrow(deviceId: String, id: Int): PreparedSpiTransaction =
+        transactions.transaction(deviceId, id)
+            ?: throw IllegalArgumentException("Transaction with id $id does not exist for device $deviceId")
 }
\ No newline at end of file
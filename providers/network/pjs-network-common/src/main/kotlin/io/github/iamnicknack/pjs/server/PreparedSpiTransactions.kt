@@ -0,0 +1,128 @@
+package io.github.iamnicknack.pjs.server
+
+import io.github.iamnicknack.pjs.device.spi.PreparedSpiTransaction
+import io.github.iamnicknack.pjs.device.spi.Spi
+import io.github.iamnicknack.pjs.model.device.DeviceRegistry
+import org.slf4j.LoggerFactory
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Transactions prepared by remote clients, held by the device they were prepared on.
+ *
+ * A transaction is only visible through the id of its device, and is released when that device is removed from the
+ * registry or replaced by another with the same id. Devices are checked against the registry whenever a transaction
+ * is prepared, executed or released, so transactions of a removed device do not outlive the next call.
+ * @param deviceRegistry the registry the devices belong to
+ * @param maxPerDevice the number of transactions a device can hold before further prepares are rejected
+ */
+class PreparedSpiTransactions(
+    private val deviceRegistry: DeviceRegistry,
+    private val maxPerDevice: Int = DEFAULT_MAX_PER_DEVICE,
+) : AutoCloseable {
+
+    private val logger = LoggerFactory.getLogger(PreparedSpiTransactions::class.java)
+
+    /**
+     * Transactions by handle id, for the device instance they were prepared on
+     */
+    private class DeviceTransactions(val device: Spi) {
+        val transactions = ConcurrentHashMap<Int, PreparedSpiTransaction>()
+    }
+
+    private val devices = ConcurrentHashMap<String, DeviceTransactions>()
+    private val nextTransactionId = AtomicInteger()
+
+    /**
+     * Prepare a transaction on a device and hold it until released
+     * @param deviceId the id of the device
+     * @param device the device, as currently registered under [deviceId]
+     * @param prepare creates the transaction
+     * @return the id of the transaction
+     * @throws IllegalStateException if the device already holds [maxPerDevice] transactions
+     */
+    fun prepare(deviceId: String, device: Spi, prepare: () -> PreparedSpiTransaction): Int {
+        releaseRemoved()
+        val id = nextTransactionId.incrementAndGet()
+        devices.compute(deviceId) { _, current ->
+            val entry = current?.takeIf { it.device === device } ?: run {
+                current?.let { release(deviceId, it) }
+                DeviceTransactions(device)
+            }
+            check(entry.transactions.size < maxPerDevice) {
+                "Device $deviceId already holds $maxPerDevice prepared transactions"
+            }
+            entry.transactions[id] = prepare()
+            entry
+        }
+        return id
+    }
+
+    /**
+     * Get a transaction prepared on a device
+     * @return the transaction, or null if the device holds no transaction with that id
+     */
+    fun transaction(deviceId: String, id: Int): PreparedSpiTransaction? =
+        registeredOrRelease(deviceId)?.transactions?.get(id)
+
+    /**
+     * Release a transaction prepared on a device
+     * @return true if the device held the transaction
+     */
+    fun release(deviceId: String, id: Int): Boolean {
+        releaseRemoved()
+        return registeredOrRelease(deviceId)
+            ?.transactions
+            ?.remove(id)
+            ?.also { closeQuietly(deviceId, it) } != null
+    }
+
+    /**
+     * Release every transaction prepared on a device
+     */
+    fun releaseAll(deviceId: String) {
+        devices.remove(deviceId)?.let { release(deviceId, it) }
+    }
+
+    /**
+     * Release every transaction held
+     */
+    override fun close() {
+        devices.keys.forEach(::releaseAll)
+    }
+
+    /**
+     * The transactions of a device, provided the instance they were prepared on is still registered
+     */
+    private fun registeredOrRelease(deviceId: String): DeviceTransactions? {
+        val entry = devices[deviceId] ?: return null
+        if (deviceRegistry.device(deviceId, Spi::class.java) === entry.device) {
+            return entry
+        }
+        if (devices.remove(deviceId, entry)) {
+            release(deviceId, entry)
+        }
+        return null
+    }
+
+    private fun releaseRemoved() {
+        devices.keys.forEach(::registeredOrRelease)
+    }
+
+    private fun release(deviceId: String, entry: DeviceTransactions) {
+        entry.transactions.values.forEach { closeQuietly(deviceId, it) }
+        entry.transactions.clear()
+    }
+
+    private fun closeQuietly(deviceId: String, transaction: PreparedSpiTransaction) {
+        try {
+            transaction.close()
+        } catch (e: Exception) {
+            logger.warn("Failed to release transaction for device {}", deviceId, e)
+        }
+    }
+
+    companion object {
+        const val DEFAULT_MAX_PER_DEVICE = 64
+    }
+}
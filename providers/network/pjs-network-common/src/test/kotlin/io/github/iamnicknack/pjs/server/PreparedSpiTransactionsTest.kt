@@ -0,0 +1,109 @@
+package io.github.iamnicknack.pjs.server
+
+import assertk.assertThat
+import assertk.assertions.isEqualTo
+import assertk.assertions.isFalse
+import assertk.assertions.isNotNull
+import assertk.assertions.isNull
+import assertk.assertions.isSameInstanceAs
+import assertk.assertions.isTrue
+import io.github.iamnicknack.pjs.device.spi.PreparedSpiTransaction
+import io.github.iamnicknack.pjs.device.spi.Spi
+import io.github.iamnicknack.pjs.device.spi.SpiConfig
+import io.github.iamnicknack.pjs.device.spi.impl.DefaultPreparedSpiTransaction
+import io.github.iamnicknack.pjs.device.spi.impl.DefaultSpiTransfer
+import io.github.iamnicknack.pjs.mock.MockDeviceRegistry
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+
+class PreparedSpiTransactionsTest {
+
+    private val registry = MockDeviceRegistry()
+    private val transactions = PreparedSpiTransactions(registry, maxPerDevice = 2)
+
+    private val template = PreparedSpiTransaction.template()
+        .fixed(0x03)
+        .read(1)
+        .build()
+
+    @Test
+    fun `transactions are only visible through their device`() {
+        val first = registry.create(SpiConfig.builder().id("first").build())
+        registry.create(SpiConfig.builder().id("second").build())
+
+        val transaction = RecordingTransaction(first)
+        val id = transactions.prepare("first", first) { transaction }
+
+        assertThat(transactions.transaction("first", id)).isSameInstanceAs(transaction)
+        assertThat(transactions.transaction("second", id)).isNull()
+        assertThat(transactions.release("second", id)).isFalse()
+        assertThat(transaction.closed).isFalse()
+
+        assertThat(transactions.release("first", id)).isTrue()
+        assertThat(transaction.closed).isTrue()
+        assertThat(transactions.transaction("first", id)).isNull()
+    }
+
+    @Test
+    fun `transactions are released with their device`() {
+        val spi = registry.create(SpiConfig.builder().id("spi").build())
+        val transaction = RecordingTransaction(spi)
+        val id = transactions.prepare("spi", spi) { transaction }
+
+        registry.remove("spi")
+        val replacement = registry.create(SpiConfig.builder().id("spi").build())
+
+        assertThat(transactions.transaction("spi", id)).isNull()
+        assertThat(transaction.closed).isTrue()
+
+        val replacementId = transactions.prepare("spi", replacement) { RecordingTransaction(replacement) }
+        assertThat(transactions.transaction("spi", replacementId)).isNotNull()
+    }
+
+    @Test
+    fun `removed devices are released when another device prepares`() {
+        val removed = registry.create(SpiConfig.builder().id("removed").build())
+        val other = registry.create(SpiConfig.builder().id("other").build())
+        val transaction = RecordingTransaction(removed)
+        transactions.prepare("removed", removed) { transaction }
+
+        registry.remove(removed)
+        transactions.prepare("other", other) { RecordingTransaction(other) }
+
+        assertThat(transaction.closed).isTrue()
+    }
+
+    @Test
+    fun `prepares beyond the limit of a device are rejected`() {
+        val spi = registry.create(SpiConfig.builder().id("spi").build())
+        repeat(2) { transactions.prepare("spi", spi) { RecordingTransaction(spi) } }
+
+        val exception = assertThrows<IllegalStateException> {
+            transactions.prepare("spi", spi) { RecordingTransaction(spi) }
+        }
+        assertThat(exception.message).isEqualTo("Device spi already holds 2 prepared transactions")
+    }
+
+    @Test
+    fun `close releases every transaction`() {
+        val spi = registry.create(SpiConfig.builder().id("spi").build())
+        val transaction = RecordingTransaction(spi)
+        val id = transactions.prepare("spi", spi) { transaction }
+
+        transactions.close()
+
+        assertThat(transaction.closed).isTrue()
+        assertThat(transactions.transaction("spi", id)).isNull()
+    }
+
+    private inner class RecordingTransaction(
+        spi: Spi,
+        private val delegate: PreparedSpiTransaction = DefaultPreparedSpiTransaction(DefaultSpiTransfer(spi), template)
+    ) : PreparedSpiTransaction by delegate {
+        var closed = false
+
+        override fun close() {
+            closed = true
+        }
+    }
+}
@@ -69,12 +69,26 @@ public class MockGpioPort implements GpioPort {
      * @param value the new value
      */
     public void mockValue(int value) {
+        mockValue(value, System.nanoTime(), 0, 0, 0);
+    }
+
+    /**
+     * Update the value which backs the mock, emitting an event with the provided kernel event details
+     * @param value the new value
+     * @param timestampNanos the event timestamp
+     * @param lineOffset the offset of the line which changed
+     * @param seqno the sequence number of the event across the port
+     * @param lineSeqno the sequence number of the event on its line
+     */
+    public void mockValue(int value, long timestampNanos, int lineOffset, int seqno, int lineSeqno) {
         if (config.portMode().isSet(GpioPortMode.INPUT)) {
             var eventType = eventTypeForValue(value);
             if (eventType != GpioChangeEventType.NONE) {
                 logger.debug("Mocking value change on port {}: {} -> {}", config.id(), portValue, value);
                 portValue = value;
-                eventEmitterDelegate.onEvent(new GpioChangeEvent<>(this, eventType));
+                eventEmitterDelegate.onEvent(
+                        new GpioChangeEvent<>(this, eventType, timestampNanos, lineOffset, seqno, lineSeqno)
+                );
             }
         } else {
             throw new IllegalStateException("Cannot set values on mock output. Use `write` operations.");
@@ -2,6 +2,7 @@ plugins {
     id("buildlogic.repositories")
     id("buildlogic.java-core")
     id("buildlogic.test.test-java")
+    id("buildlogic.test.test-jmh")
     id("buildlogic.java-library")
     id("buildlogic.maven-publish")
 }
@@ -0,0 +1,101 @@
+package io.github.iamnicknack.pjs.ffm.context.method;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the boxing {@link MethodCaller} path with {@link TypedMethodCaller} shapes.
+ * <p>
+ * Each invocation is a zero-length {@code read} from {@code /dev/zero}, so the measurement is dominated by the
+ * call path rather than the syscall. Run with {@code ./gradlew -p providers :pjs-native-context:jmh}. The gc profiler reports
+ * bytes/op.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MethodCallerBenchmark {
+
+    private static final FunctionDescriptor OPEN = FunctionDescriptor.of(
+            ValueLayout.JAVA_INT,
+            ValueLayout.ADDRESS,
+            ValueLayout.JAVA_INT
+    );
+
+    private static final FunctionDescriptor READ = FunctionDescriptor.of(
+            ValueLayout.JAVA_INT,
+            ValueLayout.JAVA_INT,
+            ValueLayout.ADDRESS,
+            ValueLayout.JAVA_INT
+    );
+
+    private Arena arena;
+    private final MethodCallerFactory methodCallerFactory = new DefaultMethodCallerFactory();
+
+    private MethodCaller close;
+    private MethodCaller boxedRead;
+    private TypedMethodCaller.IntIntAddrInt typedRead;
+    private MemorySegment buffer;
+    private int fd;
+
+    @Setup
+    public void setup() {
+        arena = Arena.ofConfined();
+        var open = methodCallerFactory.createCapturedState(
+                "open",
+                OPEN,
+                (methodHandle, capturedState, args) ->
+                        (int)methodHandle.invokeExact(capturedState, (MemorySegment)args[0], (int)args[1])
+        );
+        close = methodCallerFactory.createCapturedState(
+                "close",
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT),
+                (methodHandle, capturedState, args) ->
+                        (int)methodHandle.invokeExact(capturedState, (int)args[0])
+        );
+        boxedRead = methodCallerFactory.createCapturedState(
+                "read",
+                READ,
+                (methodHandle, capturedState, args) ->
+                        (int)methodHandle.invokeExact(capturedState, (int)args[0], (MemorySegment)args[1], (int)args[2])
+        );
+        typedRead = methodCallerFactory.createIntIntAddrInt("read", READ);
+
+        buffer = arena.allocate(16);
+        fd = (int)open.call(arena.allocateFrom("/dev/zero"), 0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        close.call(fd);
+        arena.close();
+    }
+
+    @Benchmark
+    public int boxed() {
+        return (int)boxedRead.call(fd, buffer, 0);
+    }
+
+    @Benchmark
+    public int typed() {
+        return typedRead.call(fd, buffer, 0);
+    }
+}
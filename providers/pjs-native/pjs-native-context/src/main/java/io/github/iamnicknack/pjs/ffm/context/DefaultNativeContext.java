@@ -30,7 +30,7 @@ public class DefaultNativeContext implements NativeContext {
     public DefaultNativeContext(SegmentAllocator segmentAllocator, MemorySegmentMapper memorySegmentMapper) {
         this.segmentAllocator = segmentAllocator;
         this.memorySegmentMapper = memorySegmentMapper;
-        this.methodCallerFactory = new DefaultMethodCallerFactory(segmentAllocator);
+        this.methodCallerFactory = new DefaultMethodCallerFactory();
     }
 
     @Override
@@ -0,0 +1,64 @@
+package io.github.iamnicknack.pjs.ffm.context;
+
+import io.github.iamnicknack.pjs.ffm.context.method.DefaultMethodCallerFactory;
+import io.github.iamnicknack.pjs.ffm.context.method.MethodCallerFactory;
+import io.github.iamnicknack.pjs.ffm.context.segment.MemorySegmentMapper;
+import io.github.iamnicknack.pjs.ffm.context.segment.MemorySegmentMapperImpl;
+import io.github.iamnicknack.pjs.ffm.context.segment.ScratchSegmentAllocator;
+
+/**
+ * Container for components required to interact with native code, where all argument memory is taken from
+ * a single {@link ScratchSegmentAllocator}. Captured call state is reused per thread by the method caller factory.
+ * <p>
+ * Intended to be owned by a single device. Calling {@link #reset()} before each operation allows memory to be reused,
+ * so that the steady-state call path does not allocate native memory.
+ * </p>
+ */
+public class ScratchNativeContext implements NativeContext, AutoCloseable {
+
+    private final ScratchSegmentAllocator segmentAllocator;
+
+    private final MemorySegmentMapper memorySegmentMapper;
+
+    private final MethodCallerFactory methodCallerFactory;
+
+    public ScratchNativeContext(ScratchSegmentAllocator segmentAllocator) {
+        this(segmentAllocator, new DefaultMethodCallerFactory());
+    }
+
+    public ScratchNativeContext(ScratchSegmentAllocator segmentAllocator, MethodCallerFactory methodCallerFactory) {
+        this.segmentAllocator = segmentAllocator;
+        this.memorySegmentMapper = new MemorySegmentMapperImpl(segmentAllocator);
+        this.methodCallerFactory = methodCallerFactory;
+    }
+
+    @Override
+    public ScratchSegmentAllocator getSegmentAllocator() {
+        return segmentAllocator;
+    }
+
+    @Override
+    public MemorySegmentMapper getMemorySegmentMapper() {
+        return memorySegmentMapper;
+    }
+
+    @Override
+    public MethodCallerFactory getMethodCallerFactory() {
+        return methodCallerFactory;
+    }
+
+    /**
+     * Rewind the scratch allocator, making memory from previous operations available for reuse
+     */
+    public void reset() {
+        segmentAllocator.reset();
+    }
+
+    /**
+     * Release the native memory owned by this context
+     */
+    @Override
+    public void close() {
+        segmentAllocator.close();
+    }
+}
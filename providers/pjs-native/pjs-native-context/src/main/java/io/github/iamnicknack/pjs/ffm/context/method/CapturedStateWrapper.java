@@ -1,5 +1,6 @@
 package io.github.iamnicknack.pjs.ffm.context.method;
 
+import java.lang.foreign.Arena;
 import java.lang.foreign.FunctionDescriptor;
 import java.lang.foreign.Linker;
 import java.lang.foreign.MemoryLayout;
@@ -9,7 +10,18 @@ import java.lang.foreign.StructLayout;
 import java.lang.foreign.ValueLayout;
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.VarHandle;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
+/**
+ * Provides captured-state segments for native calls and converts failed results into exceptions.
+ * <p>
+ * Captured state is only read when a call fails, so segments are reused rather than allocated per call. Platform
+ * threads each hold a segment in a {@link ThreadLocal}. Virtual threads borrow from a small pool sized to the number
+ * of processors, which approximates one segment per carrier thread without pinning a segment to every virtual thread.
+ * </p>
+ */
 public class CapturedStateWrapper {
 
     public static final StructLayout CAPTURED_STATE_LAYOUT = Linker.Option.captureStateLayout();
@@ -21,31 +33,115 @@ public class CapturedStateWrapper {
                     FunctionDescriptor.of(ValueLayout.ADDRESS, ValueLayout.JAVA_INT)
             );
 
-    private final SegmentAllocator segmentAllocator;
+    /**
+     * Error strings are cached for errno values below this limit. Linux defines fewer than 140.
+     */
+    private static final int ERROR_STRING_CACHE_SIZE = 256;
+    private static final AtomicReferenceArray<String> ERROR_STRINGS = new AtomicReferenceArray<>(ERROR_STRING_CACHE_SIZE);
 
+    /**
+     * Upper bound on the length of a string returned by {@code strerror}
+     */
+    private static final long MAX_ERROR_STRING_LENGTH = 1024;
+
+    private final Arena arena = Arena.ofAuto();
+    private final ThreadLocal<MemorySegment> threadCapturedState =
+            ThreadLocal.withInitial(() -> arena.allocate(CAPTURED_STATE_LAYOUT));
+    private final BlockingQueue<MemorySegment> virtualCapturedState =
+            new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Constructor. Captured state segments are allocated on first use by each thread.
+     */
+    public CapturedStateWrapper() {
+    }
+
+    /**
+     * Constructor using the provided segment allocator.
+     * @param segmentAllocator ignored, captured state segments are reused per thread
+     * @deprecated captured state no longer needs an allocator, use {@link #CapturedStateWrapper()}
+     */
+    @Deprecated(forRemoval = true)
     public CapturedStateWrapper(SegmentAllocator segmentAllocator) {
-        this.segmentAllocator = segmentAllocator;
+        this();
     }
 
     public int wrap(ResultSupplier supplier) {
-        var capturedState = segmentAllocator.allocate(CAPTURED_STATE_LAYOUT);
+        var capturedState = acquire();
         try {
-            int result = supplier.get(capturedState);
-
-            if (result < 0) {
-                int errno = (int) ERRNO_HANDLE.get(capturedState, 0L);
-                var errnoStr = (MemorySegment) STR_ERROR.invokeExact(errno);
-                var str = (errnoStr.byteSize() > 0)
-                        ? errnoStr.getString(0L)
-                        : "Empty error string for errno: " + errno;
-                throw new CapturedStateException(errno, str);
-            }
-            
-            return result;
+            return check(supplier.get(capturedState), capturedState);
         } catch (CapturedStateException e) {
             throw e;
         } catch (Throwable e) {
             throw new RuntimeException(e);
+        } finally {
+            release(capturedState);
+        }
+    }
+
+    /**
+     * Obtain a segment to receive captured state from a native call.
+     * <p>
+     * The segment must be returned with {@link #release(MemorySegment)} once the result has been checked.
+     * </p>
+     * @return the captured state segment
+     */
+    public MemorySegment acquire() {
+        if (Thread.currentThread().isVirtual()) {
+            var segment = virtualCapturedState.poll();
+            return (segment != null) ? segment : arena.allocate(CAPTURED_STATE_LAYOUT);
+        }
+        return threadCapturedState.get();
+    }
+
+    /**
+     * Return a segment obtained from {@link #acquire()}
+     * @param capturedState the captured state segment
+     */
+    public void release(MemorySegment capturedState) {
+        if (Thread.currentThread().isVirtual()) {
+            virtualCapturedState.offer(capturedState);
+        }
+    }
+
+    /**
+     * Check the result of a native call, throwing a {@link CapturedStateException} if the call failed.
+     * @param result the value returned by the native call
+     * @param capturedState the state captured by the native call
+     * @return the result, if the call succeeded
+     */
+    public int check(int result, MemorySegment capturedState) {
+        if (result < 0) {
+            throw new CapturedStateException((int) ERRNO_HANDLE.get(capturedState, 0L));
+        }
+        return result;
+    }
+
+    /**
+     * Describe an errno value using {@code strerror}, caching the result
+     * @param errno the error number
+     * @return the error description
+     */
+    public static String errorString(int errno) {
+        if (errno < 0 || errno >= ERROR_STRING_CACHE_SIZE) {
+            return lookupErrorString(errno);
+        }
+        var value = ERROR_STRINGS.get(errno);
+        if (value == null) {
+            value = lookupErrorString(errno);
+            ERROR_STRINGS.compareAndSet(errno, null, value);
+        }
+        return value;
+    }
+
+    private static String lookupErrorString(int errno) {
+        try {
+            var errnoStr = (MemorySegment) STR_ERROR.invokeExact(errno);
+            return (!errnoStr.equals(MemorySegment.NULL))
+                    ? errnoStr.reinterpret(MAX_ERROR_STRING_LENGTH).getString(0L)
+                    : "Empty error string for errno: " + errno;
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
         }
     }
 
@@ -58,6 +154,15 @@ public class CapturedStateWrapper {
 
         private final int errno;
 
+        /**
+         * Create an exception whose message is resolved from the errno value when first requested
+         * @param errno the error number
+         */
+        public CapturedStateException(int errno) {
+            super();
+            this.errno = errno;
+        }
+
         public CapturedStateException(int errno, String message) {
             super(message);
             this.errno = errno;
@@ -66,5 +171,11 @@ public class CapturedStateWrapper {
         public int getErrno() {
             return errno;
         }
+
+        @Override
+        public String getMessage() {
+            var message = super.getMessage();
+            return (message != null) ? message : errorString(errno);
+        }
     }
 }
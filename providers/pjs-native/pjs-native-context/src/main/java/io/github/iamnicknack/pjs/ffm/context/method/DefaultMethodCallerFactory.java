@@ -1,13 +1,17 @@
 package io.github.iamnicknack.pjs.ffm.context.method;
 
-import java.lang.foreign.Arena;
 import java.lang.foreign.FunctionDescriptor;
 import java.lang.foreign.Linker;
 import java.lang.foreign.SegmentAllocator;
 import java.lang.foreign.SymbolLookup;
+import java.lang.invoke.MethodHandle;
 
 /**
  * Default implementation of {@link MethodCallerFactory}
+ * <p>
+ * Each typed caller inlines its captured state handling rather than passing the call to a shared helper as a
+ * lambda, which would allocate on every call and leave the helper with too many call shapes to inline.
+ * </p>
  */
 public class DefaultMethodCallerFactory implements MethodCallerFactory {
 
@@ -16,32 +20,52 @@ public class DefaultMethodCallerFactory implements MethodCallerFactory {
     private final Linker.Option capturedStateOption;
 
     /**
-     * Default constructor using auto arena, default linker lookup and default call state.
+     * Default constructor using default linker lookup and default call state.
      */
     public DefaultMethodCallerFactory() {
-        this(Arena.ofAuto());
+        this(Linker.nativeLinker().defaultLookup(), Linker.Option.captureCallState("errno"));
     }
 
     /**
      * Constructor using the provided segment allocator, default linker-lookup and default call state.
-     * @param segmentAllocator the segment allocator to use
+     * @param segmentAllocator ignored, captured state segments are now reused by {@link CapturedStateWrapper}
+     * @deprecated captured state no longer needs an allocator, use {@link #DefaultMethodCallerFactory()}
      */
+    @Deprecated(forRemoval = true)
     public DefaultMethodCallerFactory(SegmentAllocator segmentAllocator) {
-        this(segmentAllocator, Linker.nativeLinker().defaultLookup(), Linker.Option.captureCallState("errno"));
+        this();
     }
 
     /**
      * Constructor using the provided segment allocator, linker-lookup and call state option.
-     * @param segmentAllocator the segment allocator to use
+     * @param segmentAllocator ignored, captured state segments are now reused by {@link CapturedStateWrapper}
      * @param symbolLookup the linker lookup to use
      * @param capturedStateOption the call state option to use
+     * @deprecated captured state no longer needs an allocator, use
+     * {@link #DefaultMethodCallerFactory(SymbolLookup, Linker.Option)}
      */
+    @Deprecated(forRemoval = true)
     public DefaultMethodCallerFactory(
             SegmentAllocator segmentAllocator,
             SymbolLookup symbolLookup,
             Linker.Option capturedStateOption
     ) {
-        this.capturedStateWrapper = new CapturedStateWrapper(segmentAllocator);
+        this(symbolLookup, capturedStateOption);
+    }
+
+    /**
+     * Constructor using the provided linker-lookup and call state option.
+     * <p>
+     * Captured state segments are reused per thread by {@link CapturedStateWrapper}, so no allocator is required.
+     * </p>
+     * @param symbolLookup the linker lookup to use
+     * @param capturedStateOption the call state option to use
+     */
+    public DefaultMethodCallerFactory(
+            SymbolLookup symbolLookup,
+            Linker.Option capturedStateOption
+    ) {
+        this.capturedStateWrapper = new CapturedStateWrapper();
         this.symbolLookup = symbolLookup;
         this.capturedStateOption = capturedStateOption;
     }
@@ -67,14 +91,7 @@ public class DefaultMethodCallerFactory implements MethodCallerFactory {
 
     @Override
     public MethodCaller createCapturedState(String name, FunctionDescriptor descriptor, InvocationWithCapturedState invocation) {
-        var methodHandle = Linker.nativeLinker()
-                .downcallHandle(
-                        symbolLookup
-                                .find(name)
-                                .orElseThrow(),
-                        descriptor,
-                        capturedStateOption
-                );
+        var methodHandle = capturedStateHandle(name, descriptor);
 
         return args -> capturedStateWrapper.wrap(capturedState -> {
             try {
@@ -84,4 +101,95 @@ public class DefaultMethodCallerFactory implements MethodCallerFactory {
             }
         });
     }
+
+    @Override
+    public TypedMethodCaller.IntIntLongAddr createIntIntLongAddr(String name, FunctionDescriptor descriptor) {
+        var methodHandle = capturedStateHandle(name, descriptor);
+
+        return (arg0, arg1, arg2) -> {
+            var capturedState = capturedStateWrapper.acquire();
+            try {
+                int result;
+                try {
+                    result = (int)methodHandle.invokeExact(capturedState, arg0, arg1, arg2);
+                } catch (Throwable e) {
+                    throw new MethodCaller.MethodCallerException(name, e);
+                }
+                return capturedStateWrapper.check(result, capturedState);
+            } finally {
+                capturedStateWrapper.release(capturedState);
+            }
+        };
+    }
+
+    @Override
+    public TypedMethodCaller.IntIntAddrInt createIntIntAddrInt(String name, FunctionDescriptor descriptor) {
+        var methodHandle = capturedStateHandle(name, descriptor);
+
+        return (arg0, arg1, arg2) -> {
+            var capturedState = capturedStateWrapper.acquire();
+            try {
+                int result;
+                try {
+                    result = (int)methodHandle.invokeExact(capturedState, arg0, arg1, arg2);
+                } catch (Throwable e) {
+                    throw new MethodCaller.MethodCallerException(name, e);
+                }
+                return capturedStateWrapper.check(result, capturedState);
+            } finally {
+                capturedStateWrapper.release(capturedState);
+            }
+        };
+    }
+
+    @Override
+    public TypedMethodCaller.IntIntAddrIntLong createIntIntAddrIntLong(String name, FunctionDescriptor descriptor) {
+        var methodHandle = capturedStateHandle(name, descriptor);
+
+        return (arg0, arg1, arg2, arg3) -> {
+            var capturedState = capturedStateWrapper.acquire();
+            try {
+                int result;
+                try {
+                    result = (int)methodHandle.invokeExact(capturedState, arg0, arg1, arg2, arg3);
+                } catch (Throwable e) {
+                    throw new MethodCaller.MethodCallerException(name, e);
+                }
+                return capturedStateWrapper.check(result, capturedState);
+            } finally {
+                capturedStateWrapper.release(capturedState);
+            }
+        };
+    }
+
+    @Override
+    public TypedMethodCaller.IntAddrIntInt createIntAddrIntInt(String name, FunctionDescriptor descriptor) {
+        var methodHandle = capturedStateHandle(name, descriptor);
+
+        return (arg0, arg1, arg2) -> {
+            var capturedState = capturedStateWrapper.acquire();
+            try {
+                int result;
+                try {
+                    result = (int)methodHandle.invokeExact(capturedState, arg0, arg1, arg2);
+                } catch (Throwable e) {
+                    throw new MethodCaller.MethodCallerException(name, e);
+                }
+                return capturedStateWrapper.check(result, capturedState);
+            } finally {
+                capturedStateWrapper.release(capturedState);
+            }
+        };
+    }
+
+    private MethodHandle capturedStateHandle(String name, FunctionDescriptor descriptor) {
+        return Linker.nativeLinker()
+                .downcallHandle(
+                        symbolLookup
+                                .find(name)
+                                .orElseThrow(),
+                        descriptor,
+                        capturedStateOption
+                );
+    }
 }
@@ -61,6 +61,74 @@ public interface MethodCallerFactory {
         });
     }
 
+    /**
+     * Create a capturing method caller for {@code int f(int, long, void*)}.
+     * <p>
+     * The default implementation adapts {@link #createCapturedState(String, FunctionDescriptor, InvocationWithCapturedState)}.
+     * Implementations should override this to avoid boxing arguments.
+     * </p>
+     * @param name the name of the method
+     * @param descriptor the descriptor of the method
+     * @return a new typed method caller
+     */
+    default TypedMethodCaller.IntIntLongAddr createIntIntLongAddr(String name, FunctionDescriptor descriptor) {
+        var caller = createCapturedState(name, descriptor, (methodHandle, capturedState, args) ->
+                (int)methodHandle.invokeExact(capturedState, (int)args[0], (long)args[1], (MemorySegment)args[2])
+        );
+        return (arg0, arg1, arg2) -> (int)caller.call(arg0, arg1, arg2);
+    }
+
+    /**
+     * Create a capturing method caller for {@code int f(int, void*, int)}.
+     * <p>
+     * The default implementation adapts {@link #createCapturedState(String, FunctionDescriptor, InvocationWithCapturedState)}.
+     * Implementations should override this to avoid boxing arguments.
+     * </p>
+     * @param name the name of the method
+     * @param descriptor the descriptor of the method
+     * @return a new typed method caller
+     */
+    default TypedMethodCaller.IntIntAddrInt createIntIntAddrInt(String name, FunctionDescriptor descriptor) {
+        var caller = createCapturedState(name, descriptor, (methodHandle, capturedState, args) ->
+                (int)methodHandle.invokeExact(capturedState, (int)args[0], (MemorySegment)args[1], (int)args[2])
+        );
+        return (arg0, arg1, arg2) -> (int)caller.call(arg0, arg1, arg2);
+    }
+
+    /**
+     * Create a capturing method caller for {@code int f(int, void*, int, long)}.
+     * <p>
+     * The default implementation adapts {@link #createCapturedState(String, FunctionDescriptor, InvocationWithCapturedState)}.
+     * Implementations should override this to avoid boxing arguments.
+     * </p>
+     * @param name the name of the method
+     * @param descriptor the descriptor of the method
+     * @return a new typed method caller
+     */
+    default TypedMethodCaller.IntIntAddrIntLong createIntIntAddrIntLong(String name, FunctionDescriptor descriptor) {
+        var caller = createCapturedState(name, descriptor, (methodHandle, capturedState, args) ->
+                (int)methodHandle.invokeExact(capturedState, (int)args[0], (MemorySegment)args[1], (int)args[2], (long)args[3])
+        );
+        return (arg0, arg1, arg2, arg3) -> (int)caller.call(arg0, arg1, arg2, arg3);
+    }
+
+    /**
+     * Create a capturing method caller for {@code int f(void*, int, int)}.
+     * <p>
+     * The default implementation adapts {@link #createCapturedState(String, FunctionDescriptor, InvocationWithCapturedState)}.
+     * Implementations should override this to avoid boxing arguments.
+     * </p>
+     * @param name the name of the method
+     * @param descriptor the descriptor of the method
+     * @return a new typed method caller
+     */
+    default TypedMethodCaller.IntAddrIntInt createIntAddrIntInt(String name, FunctionDescriptor descriptor) {
+        var caller = createCapturedState(name, descriptor, (methodHandle, capturedState, args) ->
+                (int)methodHandle.invokeExact(capturedState, (MemorySegment)args[0], (int)args[1], (int)args[2])
+        );
+        return (arg0, arg1, arg2) -> (int)caller.call(arg0, arg1, arg2);
+    }
+
     /**
      * Allows exact method invocations to be provided by the caller, rather than falling back on
      * {@link MethodHandle#invokeWithArguments(Object...)}
@@ -0,0 +1,47 @@
+package io.github.iamnicknack.pjs.ffm.context.method;
+
+import java.lang.foreign.MemorySegment;
+
+/**
+ * Method callers with fixed native signatures.
+ * <p>
+ * Unlike {@link MethodCaller#call(Object...)}, these shapes take primitive arguments directly, avoiding the argument
+ * array and boxing on each call. Names list the return type followed by the argument types, e.g.
+ * {@link IntIntLongAddr} is {@code int f(int, long, void*)}.
+ * </p>
+ * @see MethodCallerFactory#createIntIntLongAddr(String, java.lang.foreign.FunctionDescriptor)
+ */
+public interface TypedMethodCaller {
+
+    /**
+     * {@code int f(int, long, void*)}, e.g. {@code ioctl}
+     */
+    @FunctionalInterface
+    interface IntIntLongAddr {
+        int call(int arg0, long arg1, MemorySegment arg2);
+    }
+
+    /**
+     * {@code int f(int, void*, int)}, e.g. {@code read} and {@code write}
+     */
+    @FunctionalInterface
+    interface IntIntAddrInt {
+        int call(int arg0, MemorySegment arg1, int arg2);
+    }
+
+    /**
+     * {@code int f(int, void*, int, long)}, e.g. {@code pread} and {@code pwrite}
+     */
+    @FunctionalInterface
+    interface IntIntAddrIntLong {
+        int call(int arg0, MemorySegment arg1, int arg2, long arg3);
+    }
+
+    /**
+     * {@code int f(void*, int, int)}, e.g. {@code poll}
+     */
+    @FunctionalInterface
+    interface IntAddrIntInt {
+        int call(MemorySegment arg0, int arg1, int arg2);
+    }
+}
@@ -0,0 +1,39 @@
+package io.github.iamnicknack.pjs.ffm.context.segment;
+
+import java.lang.foreign.MemorySegment;
+
+/**
+ * Serializer and deserializer for a single type, resolved once by {@link MemorySegmentMapper#codec(Class)}.
+ * <p>
+ * Devices should obtain a codec when they are created and hold it, rather than looking up a type on each call.
+ * </p>
+ * @param <T> the type converted by this codec
+ */
+public interface Codec<T> extends WithLayout {
+
+    /**
+     * The type converted by this codec
+     */
+    Class<T> type();
+
+    /**
+     * Write a value to a newly allocated segment
+     * @param value the value to serialize
+     * @return the serialized segment
+     */
+    MemorySegment serialize(T value);
+
+    /**
+     * Write a value to a caller-provided segment
+     * @param value the value to serialize
+     * @param segment the segment to write to, which must be at least {@link #layout()} bytes in size
+     */
+    void serializeInto(T value, MemorySegment segment);
+
+    /**
+     * Read a value from a segment
+     * @param segment the segment to read from
+     * @return the deserialized value
+     */
+    T deserialize(MemorySegment segment);
+}
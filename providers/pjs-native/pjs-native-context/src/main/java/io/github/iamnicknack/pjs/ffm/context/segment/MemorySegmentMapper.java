@@ -28,6 +28,18 @@ public interface MemorySegmentMapper {
      */
     MemoryLayout layout(Class<?> type);
 
+    /**
+     * Resolve the codec for a given type.
+     * <p>
+     * The returned codec is bound to this mapper's allocator and can be held for the lifetime of the caller,
+     * avoiding a lookup on each conversion.
+     * </p>
+     * @param type the class of the type
+     * @return the codec
+     * @param <T> the type
+     */
+    <T> Codec<T> codec(Class<T> type);
+
     @SuppressWarnings("unchecked")
     default <T> MemorySegment segment(T value) {
         return segment(value, (Class<T>)value.getClass());
@@ -6,7 +6,6 @@ import java.lang.foreign.MemoryLayout;
 import java.lang.foreign.MemorySegment;
 import java.lang.foreign.SegmentAllocator;
 import java.util.Map;
-import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 
 public class MemorySegmentMapperImpl implements MemorySegmentMapper {
@@ -15,6 +14,7 @@ public class MemorySegmentMapperImpl implements MemorySegmentMapper {
     private final Map<Class<?>, MemorySegmentSerializer<?>> serializerMap = new ConcurrentHashMap<>();
     private final Map<Class<?>, MemorySegmentDeserializer<?>> deserializerMap = new ConcurrentHashMap<>();
     private final Map<Class<?>, MemoryLayout> layoutMap = new ConcurrentHashMap<>();
+    private final Map<Class<?>, Codec<?>> codecMap = new ConcurrentHashMap<>();
 
     public MemorySegmentMapperImpl(SegmentAllocator segmentAllocator) {
         this.segmentAllocator = segmentAllocator;
@@ -26,6 +26,7 @@ public class MemorySegmentMapperImpl implements MemorySegmentMapper {
     public MemorySegmentMapperImpl registerSerializer(Class<?> type, MemorySegmentSerializer<?> serializer) {
         serializerMap.put(type, serializer);
         layoutMap.put(type, serializer.layout());
+        codecMap.remove(type);
         return this;
     }
 
@@ -33,40 +34,63 @@ public class MemorySegmentMapperImpl implements MemorySegmentMapper {
     public MemorySegmentMapperImpl registerDeserializer(Class<?> type, MemorySegmentDeserializer<?> deserializer) {
         deserializerMap.put(type, deserializer);
         layoutMap.put(type, deserializer.layout());
+        codecMap.remove(type);
         return this;
     }
 
     @SuppressWarnings("unused")
     public MemorySegmentMapperImpl registerLayout(Class<?> type, MemoryLayout layout) {
         layoutMap.put(type, layout);
+        codecMap.remove(type);
         return this;
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public <T> T value(MemorySegment segment, Class<T> targetType) {
-        return Optional.ofNullable(deserializerMap.computeIfAbsent(targetType, this::findDeserializer))
-                .map(deserializer -> (T)deserializer.deserialize(segment))
-                .orElseThrow(() -> new IllegalArgumentException("No deserializer registered for type: " + targetType));
+        return codec(targetType).deserialize(segment);
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public <T> MemorySegment segment(T value, Class<T> sourceType) {
-        return Optional.ofNullable(serializerMap.computeIfAbsent(sourceType, this::findSerializer))
-                .map(serializer -> ((MemorySegmentSerializer<T>)serializer).serialize(value))
-                .orElseThrow(() -> new IllegalArgumentException("No serializer registered for type: " + sourceType));
+        return codec(sourceType).serialize(value);
     }
 
     @Override
     public MemoryLayout layout(Class<?> type) {
-        return layoutMap.computeIfAbsent(
-                type,
-                t -> Optional.ofNullable((WithLayout)this.findSerializer(t))
-                        .or(() -> Optional.ofNullable((WithLayout)this.findDeserializer(t)))
-                        .map(WithLayout::layout)
-                        .orElseThrow(() -> new IllegalArgumentException("type has no memory layout"))
-        );
+        return codec(type).layout();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Codec<T> codec(Class<T> type) {
+        var codec = codecMap.get(type);
+        if (codec == null) {
+            codec = codecMap.computeIfAbsent(type, this::createCodec);
+        }
+        return (Codec<T>) codec;
+    }
+
+    /**
+     * Resolve the serializer, deserializer and layout for a type. Annotated serializers are instantiated here,
+     * once per type.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Codec<T> createCodec(Class<T> type) {
+        var serializer = (MemorySegmentSerializer<T>) serializerMap.get(type);
+        if (serializer == null && (serializer = findSerializer(type)) != null) {
+            serializerMap.put(type, serializer);
+        }
+        var deserializer = (MemorySegmentDeserializer<T>) deserializerMap.get(type);
+        if (deserializer == null && (deserializer = findDeserializer(type)) != null) {
+            deserializerMap.put(type, deserializer);
+        }
+        var layout = layoutMap.get(type);
+        if (layout == null) {
+            layout = (serializer != null) ? serializer.layout()
+                    : (deserializer != null) ? deserializer.layout()
+                    : null;
+        }
+        return new MappedCodec<>(type, layout, serializer, deserializer);
     }
 
     @SuppressWarnings("unchecked")
@@ -98,4 +122,45 @@ public class MemorySegmentMapperImpl implements MemorySegmentMapper {
         }
         return null;
     }
+
+    private record MappedCodec<T>(
+            Class<T> type,
+            @Nullable MemoryLayout memoryLayout,
+            @Nullable MemorySegmentSerializer<T> serializer,
+            @Nullable MemorySegmentDeserializer<T> deserializer
+    ) implements Codec<T> {
+
+        @Override
+        public MemoryLayout layout() {
+            if (memoryLayout == null) {
+                throw new IllegalArgumentException("type has no memory layout");
+            }
+            return memoryLayout;
+        }
+
+        @Override
+        public MemorySegment serialize(T value) {
+            return serializer().serialize(value);
+        }
+
+        @Override
+        public void serializeInto(T value, MemorySegment segment) {
+            serializer().serializeInto(value, segment);
+        }
+
+        @Override
+        public T deserialize(MemorySegment segment) {
+            if (deserializer == null) {
+                throw new IllegalArgumentException("No deserializer registered for type: " + type);
+            }
+            return deserializer.deserialize(segment);
+        }
+
+        private MemorySegmentSerializer<T> serializer() {
+            if (serializer == null) {
+                throw new IllegalArgumentException("No serializer registered for type: " + type);
+            }
+            return serializer;
+        }
+    }
 }
@@ -19,6 +19,19 @@ public interface MemorySegmentSerializer<T> extends WithLayout {
      */
     MemorySegment serialize(T data);
 
+    /**
+     * Writes a value of type T to a caller-provided MemorySegment.
+     * <p>
+     * The default implementation serializes to a new segment and copies the result. Implementations should
+     * override this to write fields directly.
+     * </p>
+     * @param data the value to serialize
+     * @param segment the segment to write to
+     */
+    default void serializeInto(T data, MemorySegment segment) {
+        segment.copyFrom(serialize(data));
+    }
+
     /**
      * Writes a list of T to a MemorySegment
      * @param list the list to serialize
@@ -27,11 +40,9 @@ public interface MemorySegmentSerializer<T> extends WithLayout {
      */
     default MemorySegment serializeList(List<T> list, SegmentAllocator allocator) {
         var layout = layout();
-        var segment = allocator.allocate(layout.byteSize() * list.size());
+        var segment = allocator.allocate(layout, list.size());
         for (int i = 0; i < list.size(); i++) {
-            var slice = segment.asSlice(i * layout.byteSize(), layout.byteSize());
-            var serialized = serialize(list.get(i));
-            slice.copyFrom(serialized);
+            serializeInto(list.get(i), segment.asSlice(i * layout.byteSize(), layout.byteSize()));
         }
         return segment;
     }
@@ -44,11 +55,9 @@ public interface MemorySegmentSerializer<T> extends WithLayout {
      */
     default MemorySegment serializeArray(T[] array, SegmentAllocator allocator) {
         var layout = layout();
-        var segment = allocator.allocate(layout.byteSize() * array.length);
+        var segment = allocator.allocate(layout, array.length);
         for (int i = 0; i < array.length; i++) {
-            var slice = segment.asSlice(i * layout.byteSize(), layout.byteSize());
-            var serialized = serialize(array[i]);
-            slice.copyFrom(serialized);
+            serializeInto(array[i], segment.asSlice(i * layout.byteSize(), layout.byteSize()));
         }
         return segment;
     }
@@ -0,0 +1,95 @@
+package io.github.iamnicknack.pjs.ffm.context.segment;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.SegmentAllocator;
+
+/**
+ * A bump allocator which hands out zeroed slices of a block of memory owned by a single {@link Arena}.
+ * <p>
+ * Calling {@link #reset()} rewinds the allocator so that the same block is reused for the next operation. When a
+ * request does not fit in the current block, a larger block is allocated from the arena. Once the block has grown
+ * to fit the largest operation, no further native memory is allocated.
+ * </p>
+ * <p>
+ * Instances are not thread-safe. Segments returned by this allocator are only valid until the next
+ * {@link #reset()}.
+ * </p>
+ */
+public class ScratchSegmentAllocator implements SegmentAllocator, AutoCloseable {
+
+    /**
+     * Default size of the initial block in bytes
+     */
+    public static final long DEFAULT_BLOCK_SIZE = 4096;
+
+    /**
+     * Alignment of each block allocated from the arena
+     */
+    private static final long BLOCK_ALIGNMENT = 16;
+
+    private final Arena arena;
+    private MemorySegment block;
+    private long offset = 0;
+    private int blockCount = 1;
+
+    /**
+     * Create a new instance which allocates from the provided arena.
+     * @param arena the arena which owns the allocated blocks
+     * @param initialBlockSize the size of the initial block in bytes
+     */
+    public ScratchSegmentAllocator(Arena arena, long initialBlockSize) {
+        this.arena = arena;
+        this.block = arena.allocate(initialBlockSize, BLOCK_ALIGNMENT);
+    }
+
+    /**
+     * Create an allocator backed by a shared arena. Segments may be accessed by any thread.
+     */
+    public static ScratchSegmentAllocator shared() {
+        return new ScratchSegmentAllocator(Arena.ofShared(), DEFAULT_BLOCK_SIZE);
+    }
+
+    @Override
+    public MemorySegment allocate(long byteSize, long byteAlignment) {
+        var start = alignedOffset(block, offset, byteAlignment);
+        if (start + byteSize > block.byteSize()) {
+            var size = Math.max(block.byteSize() * 2, byteSize + byteAlignment);
+            block = arena.allocate(size, BLOCK_ALIGNMENT);
+            blockCount++;
+            offset = 0;
+            start = alignedOffset(block, offset, byteAlignment);
+        }
+
+        offset = start + byteSize;
+        return block.asSlice(start, byteSize).fill((byte) 0);
+    }
+
+    /**
+     * Rewind the allocator. Segments allocated before this call must no longer be used.
+     */
+    public void reset() {
+        offset = 0;
+    }
+
+    /**
+     * The number of blocks which have been allocated from the arena
+     */
+    public int blockCount() {
+        return blockCount;
+    }
+
+    /**
+     * Release all memory allocated by this instance
+     */
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    private static long alignedOffset(MemorySegment block, long offset, long byteAlignment) {
+        var address = block.address() + offset;
+        var aligned = (address + byteAlignment - 1) & -byteAlignment;
+        return aligned - block.address();
+    }
+}
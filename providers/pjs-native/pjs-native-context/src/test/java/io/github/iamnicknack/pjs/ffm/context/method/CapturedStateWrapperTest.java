@@ -0,0 +1,121 @@
+package io.github.iamnicknack.pjs.ffm.context.method;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@EnabledOnOs({OS.LINUX, OS.MAC})
+class CapturedStateWrapperTest {
+
+    /**
+     * POSIX {@code ENOENT}, which has the same value on Linux and macOS
+     */
+    private static final int ENOENT = 2;
+
+    private final CapturedStateWrapper wrapper = new CapturedStateWrapper();
+
+    @Test
+    void successfulResultDoesNotReadCapturedState() {
+        // reading errno from a NULL segment would throw, so this passes only if errno is left undecoded
+        assertThat(wrapper.check(42, MemorySegment.NULL)).isEqualTo(42);
+        assertThat(wrapper.check(0, MemorySegment.NULL)).isZero();
+    }
+
+    @Test
+    void failedResultThrowsCapturedErrno() {
+        var capturedState = Arena.ofAuto().allocate(CapturedStateWrapper.CAPTURED_STATE_LAYOUT);
+        CapturedStateWrapper.ERRNO_HANDLE.set(capturedState, 0L, ENOENT);
+
+        assertThatThrownBy(() -> wrapper.check(-1, capturedState))
+                .isInstanceOfSatisfying(CapturedStateWrapper.CapturedStateException.class, e ->
+                        assertThat(e.getErrno()).isEqualTo(ENOENT)
+                );
+    }
+
+    @Test
+    void exceptionMessageIsResolvedFromErrno() {
+        var exception = new CapturedStateWrapper.CapturedStateException(ENOENT);
+
+        assertThat(exception.getMessage()).isEqualTo(CapturedStateWrapper.errorString(ENOENT));
+        assertThat(new CapturedStateWrapper.CapturedStateException(ENOENT, "explicit").getMessage())
+                .isEqualTo("explicit");
+    }
+
+    @Test
+    void errorStringReadsStrerrorResult() {
+        assertThat(CapturedStateWrapper.errorString(ENOENT))
+                .isNotBlank()
+                .doesNotStartWith("Empty error string");
+    }
+
+    @Test
+    void errorStringsAreCachedPerErrno() {
+        var first = CapturedStateWrapper.errorString(ENOENT);
+
+        assertThat(CapturedStateWrapper.errorString(ENOENT)).isSameAs(first);
+        assertThat(CapturedStateWrapper.errorString(ENOENT + 1)).isNotEqualTo(first);
+    }
+
+    @Test
+    void errorStringsOutsideCacheAreStillResolved() {
+        assertThat(CapturedStateWrapper.errorString(100_000)).isNotBlank();
+        assertThat(CapturedStateWrapper.errorString(-1)).isNotBlank();
+    }
+
+    @Test
+    @SuppressWarnings("removal")
+    void deprecatedAllocatorConstructorIgnoresAllocator() {
+        var deprecated = new CapturedStateWrapper((_, _) -> {
+            throw new AssertionError("Allocator should not be used");
+        });
+
+        var segment = deprecated.acquire();
+        deprecated.release(segment);
+        assertThat(segment.byteSize()).isEqualTo(CapturedStateWrapper.CAPTURED_STATE_LAYOUT.byteSize());
+    }
+
+    @Test
+    void platformThreadReusesItsSegment() throws Exception {
+        var first = wrapper.acquire();
+        wrapper.release(first);
+        assertThat(wrapper.acquire()).isSameAs(first);
+
+        var other = new AtomicReference<MemorySegment>();
+        var thread = Thread.ofPlatform().start(() -> other.set(wrapper.acquire()));
+        thread.join();
+        assertThat(other.get()).isNotSameAs(first);
+    }
+
+    @Test
+    void virtualThreadsBorrowFromPool() throws Exception {
+        var first = new AtomicReference<MemorySegment>();
+        var second = new AtomicReference<MemorySegment>();
+        var nested = new AtomicReference<MemorySegment>();
+
+        Thread.ofVirtual().start(() -> {
+            var segment = wrapper.acquire();
+            first.set(segment);
+            wrapper.release(segment);
+        }).join();
+
+        Thread.ofVirtual().start(() -> {
+            var segment = wrapper.acquire();
+            second.set(segment);
+            // a segment on loan is not handed out again until it is released
+            nested.set(wrapper.acquire());
+            wrapper.release(nested.get());
+            wrapper.release(segment);
+        }).join();
+
+        assertThat(second.get()).isSameAs(first.get());
+        assertThat(nested.get()).isNotSameAs(first.get());
+        assertThat(first.get().byteSize()).isEqualTo(CapturedStateWrapper.CAPTURED_STATE_LAYOUT.byteSize());
+    }
+}
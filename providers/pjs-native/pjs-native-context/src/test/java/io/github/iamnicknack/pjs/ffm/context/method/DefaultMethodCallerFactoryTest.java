@@ -0,0 +1,83 @@
+package io.github.iamnicknack.pjs.ffm.context.method;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.ValueLayout;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Makes real libc calls on an invalid file descriptor, which fail with {@code EBADF}.
+ */
+@EnabledOnOs({OS.LINUX, OS.MAC})
+class DefaultMethodCallerFactoryTest {
+
+    /**
+     * POSIX {@code EBADF}, which has the same value on Linux and macOS
+     */
+    private static final int EBADF = 9;
+    private static final int INVALID_FD = -1;
+
+    private final DefaultMethodCallerFactory factory = new DefaultMethodCallerFactory();
+
+    @Test
+    void failedCallThrowsErrnoWithMessage() {
+        var close = factory.createCapturedState(
+                "close",
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT),
+                (methodHandle, capturedState, args) -> (int) methodHandle.invokeExact(capturedState, (int) args[0])
+        );
+
+        assertThatThrownBy(() -> close.call(INVALID_FD))
+                .isInstanceOfSatisfying(CapturedStateWrapper.CapturedStateException.class, e -> {
+                    assertThat(e.getErrno()).isEqualTo(EBADF);
+                    assertThat(e.getMessage()).isNotBlank().isEqualTo(CapturedStateWrapper.errorString(EBADF));
+                });
+    }
+
+    @Test
+    void failedTypedCallThrowsErrnoWithMessage() {
+        var read = factory.createIntIntAddrInt(
+                "read",
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.JAVA_INT)
+        );
+
+        try (var arena = Arena.ofConfined()) {
+            var buffer = arena.allocate(8);
+            assertThatThrownBy(() -> read.call(INVALID_FD, buffer, 8))
+                    .isInstanceOfSatisfying(CapturedStateWrapper.CapturedStateException.class, e -> {
+                        assertThat(e.getErrno()).isEqualTo(EBADF);
+                        assertThat(e.getMessage()).isNotBlank();
+                    });
+        }
+    }
+
+    @Test
+    void successfulCallReturnsResult() {
+        var getpid = factory.createNonCapture(
+                "getpid",
+                FunctionDescriptor.of(ValueLayout.JAVA_INT),
+                (methodHandle, _) -> (int) methodHandle.invokeExact()
+        );
+
+        assertThat(getpid.call()).isEqualTo((int) ProcessHandle.current().pid());
+    }
+
+    @Test
+    @SuppressWarnings("removal")
+    void deprecatedAllocatorConstructorStillCreatesCallers() {
+        var deprecated = new DefaultMethodCallerFactory(Arena.ofAuto());
+        var read = deprecated.createIntIntAddrInt(
+                "read",
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.JAVA_INT)
+        );
+
+        assertThatThrownBy(() -> read.call(INVALID_FD, Arena.ofAuto().allocate(1), 1))
+                .isInstanceOf(CapturedStateWrapper.CapturedStateException.class);
+    }
+}
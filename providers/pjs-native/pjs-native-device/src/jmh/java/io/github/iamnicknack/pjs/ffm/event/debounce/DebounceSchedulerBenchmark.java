@@ -0,0 +1,165 @@
+package io.github.iamnicknack.pjs.ffm.event.debounce;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Compares a scheduled executor per debounced input, as previously used by {@link TrailingEdgeDebounceCallback},
+ * with a single shared {@link TimerWheel}.
+ * <p>
+ * The {@code rearm} benchmarks measure the cost of a bounce, which re-arms the debounce timer of one input. The
+ * {@code latency} benchmarks measure the time from arming a 1ms timer to its expiry task running. The
+ * {@code threads} benchmark reports the number of scheduler threads for each approach with all inputs created. Run with
+ * {@code ./gradlew :pjs-native-device:jmh}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DebounceSchedulerBenchmark {
+
+    private static final long DEBOUNCE_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long LATENCY_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final String EXECUTOR_THREAD_PREFIX = "debounce-executor";
+
+    /**
+     * Number of debounced inputs. Must be a power of two.
+     */
+    @Param({"128", "256"})
+    public int inputs;
+
+    private ScheduledThreadPoolExecutor[] executors;
+    private ScheduledFuture<?>[] futures;
+    private final Runnable noop = () -> {};
+
+    private TimerWheel timerWheel;
+    private TimerWheel.Timeout[] timeouts;
+
+    private int next;
+    private volatile long firedAt;
+    private TimerWheel.Timeout latencyTimeout;
+    private ScheduledExecutorService latencyExecutor;
+    private final Runnable recordFired = () -> firedAt = System.nanoTime();
+
+    @Setup
+    public void setup() {
+        executors = new ScheduledThreadPoolExecutor[inputs];
+        futures = new ScheduledFuture<?>[inputs];
+        for (int i = 0; i < inputs; i++) {
+            executors[i] = new ScheduledThreadPoolExecutor(1, runnable -> new Thread(runnable, EXECUTOR_THREAD_PREFIX));
+            executors[i].prestartCoreThread();
+        }
+
+        timerWheel = new TimerWheel();
+        timeouts = new TimerWheel.Timeout[inputs];
+        for (int i = 0; i < inputs; i++) {
+            timeouts[i] = timerWheel.newTimeout(noop);
+        }
+        // start the worker thread
+        timeouts[0].schedule(0);
+
+        latencyTimeout = timerWheel.newTimeout(recordFired);
+        latencyExecutor = executors[0];
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (var executor : executors) {
+            executor.shutdownNow();
+        }
+        timerWheel.close();
+    }
+
+    @Benchmark
+    public void rearmExecutor() {
+        var index = next++ & (inputs - 1);
+        var future = futures[index];
+        if (future != null) {
+            future.cancel(false);
+        }
+        futures[index] = executors[index].schedule(noop, DEBOUNCE_NANOS, TimeUnit.NANOSECONDS);
+    }
+
+    @Benchmark
+    public void rearmTimerWheel() {
+        timeouts[next++ & (inputs - 1)].schedule(DEBOUNCE_NANOS);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long latencyExecutor() {
+        firedAt = 0;
+        var start = System.nanoTime();
+        latencyExecutor.schedule(recordFired, LATENCY_DELAY_NANOS, TimeUnit.NANOSECONDS);
+        return awaitFired(start);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long latencyTimerWheel() {
+        firedAt = 0;
+        var start = System.nanoTime();
+        latencyTimeout.schedule(LATENCY_DELAY_NANOS);
+        return awaitFired(start);
+    }
+
+    @Benchmark
+    public int threads(ThreadCount threadCount) {
+        threadCount.executorThreads = 0;
+        threadCount.timerWheelThreads = 0;
+        for (var thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith(EXECUTOR_THREAD_PREFIX)) {
+                threadCount.executorThreads++;
+            } else if (thread.getName().startsWith("debounce-timer-wheel")) {
+                threadCount.timerWheelThreads++;
+            }
+        }
+        return threadCount.executorThreads + threadCount.timerWheelThreads;
+    }
+
+    private long awaitFired(long start) {
+        while (firedAt == 0) {
+            LockSupport.parkNanos(10_000);
+        }
+        return firedAt - start;
+    }
+
+    /**
+     * Reports live scheduler threads alongside the benchmark score
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class ThreadCount {
+        public int executorThreads;
+        public int timerWheelThreads;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            executorThreads = 0;
+            timerWheelThreads = 0;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package io.github.iamnicknack.pjs.ffm;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Native memory management strategies for devices created by {@link NativeDeviceRegistryLoader}
+ */
+public enum ArenaMode {
+    /**
+     * Devices share a single auto arena. Native memory is allocated per call and released by the garbage collector
+     */
+    AUTO,
+    /**
+     * Each device owns a shared arena which is reused for every call.
+     * Devices may be used by any thread, including event and worker threads. Calls on a device are serialised.
+     */
+    SHARED;
+
+    public static final String PROPERTY_KEY = "pjs.ffm.arena";
+
+    public static final ArenaMode DEFAULT = AUTO;
+
+    /**
+     * Derive the arena mode from system properties
+     */
+    public static ArenaMode fromProperty() {
+        return valueOf(System.getProperty(PROPERTY_KEY, DEFAULT.name()).toUpperCase());
+    }
+
+    /**
+     * Derive the arena mode from the provided properties
+     */
+    public static ArenaMode fromProperties(Map<String, Object> properties) {
+        return Optional.ofNullable(properties.get(PROPERTY_KEY))
+                .map(value -> valueOf(value.toString().toUpperCase()))
+                .orElse(DEFAULT);
+    }
+}
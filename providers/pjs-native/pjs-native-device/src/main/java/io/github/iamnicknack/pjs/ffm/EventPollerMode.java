@@ -0,0 +1,38 @@
+package io.github.iamnicknack.pjs.ffm;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * GPIO event polling strategies for ports created by {@link NativeDeviceRegistryLoader}
+ */
+public enum EventPollerMode {
+    /**
+     * Each event-enabled port is polled by its own thread from a fixed pool
+     */
+    POLL,
+    /**
+     * All event-enabled ports are monitored by a single thread using one epoll instance. Opt-in.
+     */
+    EPOLL;
+
+    public static final String PROPERTY_KEY = "pjs.ffm.event-poller";
+
+    public static final EventPollerMode DEFAULT = POLL;
+
+    /**
+     * Derive the event poller mode from system properties
+     */
+    public static EventPollerMode fromProperty() {
+        return valueOf(System.getProperty(PROPERTY_KEY, DEFAULT.name()).toUpperCase());
+    }
+
+    /**
+     * Derive the event poller mode from the provided properties
+     */
+    public static EventPollerMode fromProperties(Map<String, Object> properties) {
+        return Optional.ofNullable(properties.get(PROPERTY_KEY))
+                .map(value -> valueOf(value.toString().toUpperCase()))
+                .orElse(DEFAULT);
+    }
+}
@@ -1,5 +1,6 @@
 package io.github.iamnicknack.pjs.ffm;
 
+import io.github.iamnicknack.pjs.device.gpio.GpioPort;
 import io.github.iamnicknack.pjs.device.gpio.GpioPortConfig;
 import io.github.iamnicknack.pjs.device.i2c.I2CConfig;
 import io.github.iamnicknack.pjs.device.pwm.PwmConfig;
@@ -10,19 +11,50 @@ import io.github.iamnicknack.pjs.ffm.device.NativePwmProvider;
 import io.github.iamnicknack.pjs.ffm.device.NativeSpiProvider;
 import io.github.iamnicknack.pjs.impl.DefaultDeviceRegistry;
 
+import java.util.HashSet;
+import java.util.List;
+
 /**
  * A {@link DefaultDeviceRegistry} with native providers registered
  */
 public class NativeDeviceRegistry extends DefaultDeviceRegistry {
+
+    private final NativePortProvider nativePortProvider;
+
     NativeDeviceRegistry(
             NativePortProvider nativePortProvider,
             NativeSpiProvider nativeSpiProvider,
             NativePwmProvider nativePwmProvider,
             NativeI2CProvider nativeI2CProvider
     ) {
+        this.nativePortProvider = nativePortProvider;
         this.registerProvider(nativePortProvider, GpioPortConfig.class);
         this.registerProvider(nativeSpiProvider, SpiConfig.class);
         this.registerProvider(nativePwmProvider, PwmConfig.class);
         this.registerProvider(nativeI2CProvider, I2CConfig.class);
     }
+
+    /**
+     * Create ports for several configurations, merging those which are compatible into shared line requests.
+     * Each port is added to the registry under the id of its configuration.
+     * @param configs the port configurations
+     * @return the created ports, in the same order as the configurations
+     * @throws IllegalArgumentException if an id is repeated or already registered, before any line is requested
+     * @see NativePortProvider#createGroup(List)
+     */
+    public List<GpioPort> createGroup(List<GpioPortConfig> configs) {
+        var ids = new HashSet<String>();
+        for (var config : configs) {
+            if (!ids.add(config.id())) {
+                throw new IllegalArgumentException("Device id is used by more than one port: " + config.id());
+            }
+            if (contains(config.id())) {
+                throw new IllegalArgumentException("Device id is already registered: " + config.id());
+            }
+        }
+
+        var ports = nativePortProvider.createGroup(configs);
+        ports.forEach(this::appendDevice);
+        return ports;
+    }
 }
@@ -2,7 +2,9 @@ package io.github.iamnicknack.pjs.ffm;
 
 import io.github.iamnicknack.pjs.ffm.context.DefaultNativeContext;
 import io.github.iamnicknack.pjs.ffm.context.NativeContext;
+import io.github.iamnicknack.pjs.ffm.context.ScratchNativeContext;
 import io.github.iamnicknack.pjs.ffm.context.segment.MemorySegmentMapperImpl;
+import io.github.iamnicknack.pjs.ffm.context.segment.ScratchSegmentAllocator;
 import io.github.iamnicknack.pjs.ffm.device.NativeI2CProvider;
 import io.github.iamnicknack.pjs.ffm.device.NativePortProvider;
 import io.github.iamnicknack.pjs.ffm.device.NativePwmProvider;
@@ -10,8 +12,12 @@ import io.github.iamnicknack.pjs.ffm.device.NativeSpiProvider;
 import io.github.iamnicknack.pjs.ffm.device.context.FileOperationsImpl;
 import io.github.iamnicknack.pjs.ffm.device.context.GpioOperationsImpl;
 import io.github.iamnicknack.pjs.ffm.device.context.IoctlOperationsImpl;
+import io.github.iamnicknack.pjs.ffm.device.context.NativeDeviceScope;
 import io.github.iamnicknack.pjs.ffm.device.context.PollingOperationsImpl;
+import io.github.iamnicknack.pjs.ffm.event.EpollEventPollerFactory;
+import io.github.iamnicknack.pjs.ffm.event.EventPoller;
 import io.github.iamnicknack.pjs.ffm.event.EventPollerFactoryImpl;
+import io.github.iamnicknack.pjs.ffm.event.debounce.TimerWheel;
 import io.github.iamnicknack.pjs.model.device.DeviceRegistry;
 import io.github.iamnicknack.pjs.model.device.DeviceRegistryLoader;
 import org.jspecify.annotations.Nullable;
@@ -35,12 +41,31 @@ public class NativeDeviceRegistryLoader implements DeviceRegistryLoader<DeviceRe
         return load(DeviceRegistryLoader.NoConfig.INSTANCE);
     }
 
-    public DeviceRegistry load(Map<String, Object> ignored) {
-        return load(DeviceRegistryLoader.NoConfig.INSTANCE);
+    public DeviceRegistry load(Map<String, Object> properties) {
+        return load(ArenaMode.fromProperties(properties), EventPollerMode.fromProperties(properties));
     }
 
     @Override
     public DeviceRegistry load(NoConfig ignored) {
+        return load(ArenaMode.fromProperty(), EventPollerMode.fromProperty());
+    }
+
+    /**
+     * Load a registry where devices manage native memory using the provided {@link ArenaMode}
+     * @param arenaMode the arena mode used by devices
+     * @return the loaded device registry
+     */
+    public DeviceRegistry load(ArenaMode arenaMode) {
+        return load(arenaMode, EventPollerMode.fromProperty());
+    }
+
+    /**
+     * Load a registry using the provided memory management and event polling strategies
+     * @param arenaMode the arena mode used by devices
+     * @param eventPollerMode the strategy used to poll GPIO events
+     * @return the loaded device registry
+     */
+    public DeviceRegistry load(ArenaMode arenaMode, EventPollerMode eventPollerMode) {
         var context = ServiceLoader.load(NativeContext.class, NativeContext.class.getClassLoader()).stream()
                 .findFirst()
                 .map(ServiceLoader.Provider::get)
@@ -50,29 +75,32 @@ public class NativeDeviceRegistryLoader implements DeviceRegistryLoader<DeviceRe
 
         var fileOperations = new FileOperationsImpl(context);
         var ioctlOperations = new IoctlOperationsImpl(context);
-        var gpioOperations = new GpioOperationsImpl(fileOperations, ioctlOperations);
+        var gpioOperations = new GpioOperationsImpl(fileOperations, ioctlOperations, true);
         var pollingOperations = new PollingOperationsImpl(context);
-        var eventPollerFactory = new EventPollerFactoryImpl(
-                Duration.ofMillis(100),
-                pollingOperations,
-                fileOperations,
-                4
-        );
+        EventPoller.Factory eventPollerFactory = switch (eventPollerMode) {
+            case POLL -> new EventPollerFactoryImpl(Duration.ofMillis(100), pollingOperations, fileOperations, 4);
+            case EPOLL -> new EpollEventPollerFactory(pollingOperations, fileOperations);
+        };
+
+        NativeDeviceScope.Factory scopeFactory = switch (arenaMode) {
+            case AUTO -> {
+                var scope = NativeDeviceScope.shared(ioctlOperations, context.getSegmentAllocator(), mapper);
+                yield () -> scope;
+            }
+            case SHARED -> () -> NativeDeviceScope.scratch(new ScratchNativeContext(ScratchSegmentAllocator.shared()));
+        };
 
-        var i2cProvider = new NativeI2CProvider(fileOperations, ioctlOperations);
+        var i2cProvider = new NativeI2CProvider(fileOperations, ioctlOperations, scopeFactory);
         var portProvider = new NativePortProvider(
-                gpioOperations.chipInfo("/dev/gpiochip0"),
+                gpioOperations.lineInfoCache(gpioOperations.chipInfo("/dev/gpiochip0")),
                 fileOperations,
                 ioctlOperations,
-                eventPollerFactory
+                eventPollerFactory,
+                scopeFactory,
+                new TimerWheel()
         );
         var pwmProvider = new NativePwmProvider(fileOperations);
-        var spiProvider = new NativeSpiProvider(
-                fileOperations,
-                ioctlOperations,
-                mapper,
-                context.getSegmentAllocator()
-        );
+        var spiProvider = new NativeSpiProvider(fileOperations, ioctlOperations, scopeFactory);
 
         return new NativeDeviceRegistry(
                 portProvider,
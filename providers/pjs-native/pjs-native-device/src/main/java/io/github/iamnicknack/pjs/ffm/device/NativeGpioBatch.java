@@ -0,0 +1,113 @@
+package io.github.iamnicknack.pjs.ffm.device;
+
+import io.github.iamnicknack.pjs.device.gpio.GpioBatch;
+import io.github.iamnicknack.pjs.device.gpio.GpioPort;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Batch over native ports which performs one ioctl per line request.
+ * <p>
+ * Ports belonging to a {@link NativePortGroup} are read and written within a cycle of their group, so all of them
+ * are read from one {@code GET_VALUES} snapshot and written with one {@code SET_VALUES}. Other ports hold their own
+ * line request and are read and written individually.
+ * </p>
+ * <p>
+ * Cycles belong to the calling thread, so other batches and direct reads and writes of the same groups wait until
+ * the batch completes, and a write has been issued when it returns. Cycles are started in
+ * {@link NativePortGroup#CYCLE_ORDER}, so batches over the same groups in any order cannot deadlock.
+ * </p>
+ */
+class NativeGpioBatch implements GpioBatch {
+
+    private final List<GpioPort> ports;
+
+    /**
+     * The distinct groups of the ports in the batch, in cycle order
+     */
+    private final NativePortGroup[] groups;
+
+    /**
+     * Cycles open during a read or write, one for each group
+     */
+    private final NativePortGroup.Cycle[] cycles;
+
+    NativeGpioBatch(List<GpioPort> ports) {
+        this.ports = List.copyOf(ports);
+        var distinctGroups = new ArrayList<NativePortGroup>();
+        for (var port : this.ports) {
+            NativePortGroup.groupOf(port)
+                    .filter(group -> !distinctGroups.contains(group))
+                    .ifPresent(distinctGroups::add);
+        }
+        distinctGroups.sort(NativePortGroup.CYCLE_ORDER);
+        this.groups = distinctGroups.toArray(NativePortGroup[]::new);
+        this.cycles = new NativePortGroup.Cycle[groups.length];
+    }
+
+    @Override
+    public List<GpioPort> ports() {
+        return ports;
+    }
+
+    @Override
+    public synchronized void readInto(int[] values) {
+        checkLength(values);
+        try {
+            beginCycles();
+            for (int index = 0; index < ports.size(); index++) {
+                values[index] = ports.get(index).readInt();
+            }
+        } finally {
+            endCycles();
+        }
+    }
+
+    @Override
+    public synchronized void write(int[] values) {
+        checkLength(values);
+        try {
+            beginCycles();
+            for (int index = 0; index < ports.size(); index++) {
+                ports.get(index).writeInt(values[index]);
+            }
+        } finally {
+            endCycles();
+        }
+    }
+
+    private void checkLength(int[] values) {
+        if (values.length < ports.size()) {
+            throw new IllegalArgumentException("Expected " + ports.size() + " values but got " + values.length);
+        }
+    }
+
+    private void beginCycles() {
+        for (int index = 0; index < groups.length; index++) {
+            cycles[index] = groups[index].cycle();
+        }
+    }
+
+    private void endCycles() {
+        RuntimeException failure = null;
+        for (int index = 0; index < cycles.length; index++) {
+            if (cycles[index] == null) {
+                continue;
+            }
+            try {
+                cycles[index].close();
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+            cycles[index] = null;
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -2,28 +2,65 @@ package io.github.iamnicknack.pjs.ffm.device;
 
 import io.github.iamnicknack.pjs.device.i2c.I2C;
 import io.github.iamnicknack.pjs.device.i2c.I2CConfig;
+import io.github.iamnicknack.pjs.ffm.context.segment.Codec;
 import io.github.iamnicknack.pjs.ffm.device.context.FileDescriptor;
 import io.github.iamnicknack.pjs.ffm.device.context.IoctlOperations;
+import io.github.iamnicknack.pjs.ffm.device.context.NativeDeviceScope;
 import io.github.iamnicknack.pjs.ffm.device.context.i2c.I2CMessage;
 import io.github.iamnicknack.pjs.ffm.device.context.i2c.I2CRdwrData;
 
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
 import static io.github.iamnicknack.pjs.ffm.device.context.i2c.I2CConstants.I2C_M_RD;
 import static io.github.iamnicknack.pjs.ffm.device.context.i2c.I2CConstants.I2C_RDWR;
 
+/**
+ * I2C bus backed by an i2c-dev file descriptor.
+ * <p>
+ * Transfers are issued through an {@code i2c_rdwr_ioctl_data} struct, an {@code i2c_msg} array and a data buffer
+ * owned by the bus. The array and buffer grow to the largest transfer seen, so the steady-state path fills the
+ * structs in place and only copies the bytes written from, and read into, the caller's arrays.
+ * </p>
+ */
 class NativeI2C implements I2C {
 
+    private static final long MESSAGE_SIZE = I2CMessage.LAYOUT.byteSize();
+
     private final I2CConfig config;
+    private final NativeDeviceScope scope;
     private final IoctlOperations ioctlOperations;
+    private final Codec<MemorySegment> segmentCodec;
     private final FileDescriptor fileDescriptor;
 
+    /**
+     * Owns the transfer structs and data buffer. An auto arena allows replaced buffers to be reclaimed when they grow.
+     */
+    private final Arena bufferArena = Arena.ofAuto();
+    private final MemorySegment rdwrBuffer;
+    private MemorySegment messageBuffer = MemorySegment.NULL;
+    private MemorySegment dataBuffer = MemorySegment.NULL;
+
     public NativeI2C(
             I2CConfig config,
             IoctlOperations ioctlOperations,
             FileDescriptor fileDescriptor
+    ) {
+        this(config, NativeDeviceScope.shared(ioctlOperations), fileDescriptor);
+    }
+
+    public NativeI2C(
+            I2CConfig config,
+            NativeDeviceScope scope,
+            FileDescriptor fileDescriptor
     ) {
         this.config = config;
-        this.ioctlOperations = ioctlOperations;
+        this.scope = scope;
+        this.ioctlOperations = scope.ioctlOperations();
+        this.segmentCodec = scope.memorySegmentMapper().codec(MemorySegment.class);
         this.fileDescriptor = fileDescriptor;
+        this.rdwrBuffer = bufferArena.allocate(I2CRdwrData.LAYOUT);
     }
 
     @Override
@@ -32,32 +69,72 @@ class NativeI2C implements I2C {
     }
 
     @Override
-    public void transfer(Message[] messages) {
-        var nativeMessages = new I2CMessage[messages.length];
+    public synchronized void transfer(Message[] messages) {
+        if (messages.length > I2CRdwrData.MAX_MESSAGES) {
+            throw new IllegalArgumentException(
+                    "Cannot transfer " + messages.length + " messages, maximum is " + I2CRdwrData.MAX_MESSAGES
+            );
+        }
+
+        var byteCount = 0L;
+        for (var message : messages) {
+            byteCount += message.length();
+        }
+        ensureMessageCapacity(messages.length);
+        ensureDataCapacity(byteCount);
+
+        var offset = 0L;
         for (int i = 0; i < messages.length; i++) {
-            nativeMessages[i] = new I2CMessage(
-                    messages[i].address(),
-                    messages[i].type() == Message.Type.READ ? I2C_M_RD : 0,
-                    messages[i].length(),
-                    messages[i].data()
+            var message = messages[i];
+            var isRead = message.type() == Message.Type.READ;
+            if (!isRead) {
+                MemorySegment.copy(message.data(), message.offset(), dataBuffer, ValueLayout.JAVA_BYTE, offset, message.length());
+            }
+            I2CMessage.set(
+                    messageBuffer,
+                    i * MESSAGE_SIZE,
+                    message.address(),
+                    isRead ? I2C_M_RD : 0,
+                    message.length(),
+                    dataBuffer.asSlice(offset, message.length())
             );
+            offset += message.length();
         }
 
-        var response = execute(nativeMessages);
-        for (var i = 0; i < response.messageCount(); i++) {
-            if (messages[i].type() == Message.Type.READ) {
-                System.arraycopy(response.messages()[i].buffer(), 0, messages[i].data(), 0, messages[i].length());
+        scope.reset();
+        I2CRdwrData.set(rdwrBuffer, messageBuffer, messages.length);
+        ioctlOperations.ioctl(fileDescriptor, I2C_RDWR, rdwrBuffer, segmentCodec);
+
+        offset = 0L;
+        for (var message : messages) {
+            if (message.type() == Message.Type.READ) {
+                MemorySegment.copy(dataBuffer, ValueLayout.JAVA_BYTE, offset, message.data(), message.offset(), message.length());
             }
+            offset += message.length();
         }
     }
 
-    private I2CRdwrData execute(I2CMessage... messages) {
-        var payload = new I2CRdwrData(messages, messages.length);
-        return ioctlOperations.ioctl(fileDescriptor, I2C_RDWR, payload);
+    /**
+     * Grow the message array if it cannot hold the requested number of messages
+     */
+    private void ensureMessageCapacity(int count) {
+        if (messageBuffer.byteSize() < count * MESSAGE_SIZE) {
+            messageBuffer = bufferArena.allocate(I2CMessage.LAYOUT, count);
+        }
+    }
+
+    /**
+     * Grow the data buffer if it cannot hold the requested number of bytes
+     */
+    private void ensureDataCapacity(long length) {
+        if (dataBuffer.byteSize() < length) {
+            dataBuffer = bufferArena.allocate(length);
+        }
     }
 
     @Override
     public void close() throws Exception {
         fileDescriptor.close();
+        scope.close();
     }
 }
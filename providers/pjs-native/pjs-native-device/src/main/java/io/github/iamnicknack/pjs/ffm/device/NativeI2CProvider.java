@@ -1,14 +1,21 @@
 package io.github.iamnicknack.pjs.ffm.device;
 
+import io.github.iamnicknack.pjs.device.i2c.AsyncI2C;
 import io.github.iamnicknack.pjs.device.i2c.I2C;
 import io.github.iamnicknack.pjs.device.i2c.I2CConfig;
 import io.github.iamnicknack.pjs.device.i2c.I2CProvider;
 import io.github.iamnicknack.pjs.ffm.device.context.FileOperations;
 import io.github.iamnicknack.pjs.ffm.device.context.FileOperationsImpl;
 import io.github.iamnicknack.pjs.ffm.device.context.IoctlOperations;
+import io.github.iamnicknack.pjs.ffm.device.context.NativeDeviceScope;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import static io.github.iamnicknack.pjs.ffm.device.context.i2c.I2CConstants.I2C_CHECK_FUNCTIONALITY;
 import static io.github.iamnicknack.pjs.ffm.device.context.i2c.I2CConstants.I2C_FUNC_I2C;
 
@@ -20,13 +27,32 @@ public class NativeI2CProvider implements I2CProvider {
 
     private final FileOperations fileOperations;
     private final IoctlOperations ioctlOperations;
+    private final NativeDeviceScope.Factory scopeFactory;
+
+    /**
+     * Worker threads for asynchronous transfers, shared by every view of the same bus number
+     */
+    private final Map<Integer, ExecutorService> workers = new ConcurrentHashMap<>();
 
     public NativeI2CProvider(
             FileOperations fileOperations,
             IoctlOperations ioctlOperations
+    ) {
+        this(fileOperations, ioctlOperations, () -> NativeDeviceScope.shared(ioctlOperations));
+    }
+
+    /**
+     * Create a provider where each bus uses native components from its own {@link NativeDeviceScope}
+     * @param scopeFactory creates the scope for each bus
+     */
+    public NativeI2CProvider(
+            FileOperations fileOperations,
+            IoctlOperations ioctlOperations,
+            NativeDeviceScope.Factory scopeFactory
     ) {
         this.fileOperations = fileOperations;
         this.ioctlOperations = ioctlOperations;
+        this.scopeFactory = scopeFactory;
     }
 
     @Override
@@ -44,6 +70,25 @@ public class NativeI2CProvider implements I2CProvider {
             throw new IllegalStateException("I2C bus " + config.bus() + " does not support direct portMode.");
         }
 
-        return new NativeI2C(config, ioctlOperations, fileDescriptor);
+        return new NativeI2C(config, scopeFactory.create(), fileDescriptor);
+    }
+
+    /**
+     * Create an asynchronous view of a bus. Transfers on each bus number run in submission order on a single worker
+     * thread shared by all views of the bus, which is stopped when the provider is closed.
+     */
+    @Override
+    public AsyncI2C async(I2C i2c) {
+        var bus = ((I2CConfig) i2c.getConfig()).bus();
+        var worker = workers.computeIfAbsent(bus, _ -> Executors.newSingleThreadExecutor(
+                Thread.ofPlatform().name("i2c-" + bus).daemon(true).factory()
+        ));
+        return new AsyncI2C.Worker(i2c, worker);
+    }
+
+    @Override
+    public void close() {
+        workers.values().forEach(ExecutorService::shutdown);
+        workers.clear();
     }
 }
@@ -3,8 +3,10 @@ package io.github.iamnicknack.pjs.ffm.device;
 import io.github.iamnicknack.pjs.device.gpio.GpioPort;
 import io.github.iamnicknack.pjs.device.gpio.GpioPortConfig;
 import io.github.iamnicknack.pjs.device.gpio.GpioPortMode;
+import io.github.iamnicknack.pjs.ffm.context.segment.Codec;
 import io.github.iamnicknack.pjs.ffm.device.context.FileDescriptor;
 import io.github.iamnicknack.pjs.ffm.device.context.IoctlOperations;
+import io.github.iamnicknack.pjs.ffm.device.context.NativeDeviceScope;
 import io.github.iamnicknack.pjs.ffm.device.context.gpio.GpioConstants;
 import io.github.iamnicknack.pjs.ffm.device.context.gpio.LineConfig;
 import io.github.iamnicknack.pjs.ffm.device.context.gpio.LineValues;
@@ -12,59 +14,101 @@ import io.github.iamnicknack.pjs.ffm.event.DebounceStrategy;
 import io.github.iamnicknack.pjs.ffm.event.EventPoller;
 import io.github.iamnicknack.pjs.ffm.event.PollEvent;
 import io.github.iamnicknack.pjs.ffm.event.PollEventsCallback;
+import io.github.iamnicknack.pjs.ffm.event.debounce.TimerWheel;
 import io.github.iamnicknack.pjs.ffm.event.debounce.TrailingEdgeDebounceCallback;
 import io.github.iamnicknack.pjs.ffm.event.debounce.LeadingEdgeDebounceCallback;
 import io.github.iamnicknack.pjs.model.event.GpioChangeEvent;
 import io.github.iamnicknack.pjs.model.event.GpioEventListener;
 import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * A GPIO port that uses native IOCTL calls to read and write pin values
  */
 class NativePort implements GpioPort, AutoCloseable {
 
-    private static final LineValues LOW_MASK = new LineValues(0, Long.MAX_VALUE);
+    /**
+     * Mask selecting all lines in the request
+     */
+    private static final long ALL_LINES = Long.MAX_VALUE;
 
     private final Logger logger = LoggerFactory.getLogger(NativePort.class);
 
     private final GpioPortConfig config;
     private final NativePortProvider.LineConfigTriple lineConfigs;
+    private final NativeDeviceScope scope;
     private final IoctlOperations ioctlOperations;
+    private final Codec<LineConfig> lineConfigCodec;
+    private final Codec<MemorySegment> segmentCodec;
     private final FileDescriptor fileDescriptor;
     private final Set<GpioEventListener<GpioPort>> listeners = new CopyOnWriteArraySet<>();
+    /**
+     * Orders starting and stopping the event poller. Separate from the port monitor, which guards the scope and is
+     * taken by listeners reading the port.
+     */
+    private final ReentrantLock listenerLock = new ReentrantLock();
     private final EventPoller eventPoller;
     private final AutoCloseable closeableCallback;
 
+    /**
+     * Preallocated {@code gpio_v2_line_values} struct reused by every read and write
+     */
+    private final MemorySegment lineValues = Arena.ofAuto().allocate(LineValues.LAYOUT);
 
     private @NonNull LineConfig currentLineConfig;
 
     /**
      * Create a new instance with event polling support
-     * Create a new instance with no event polling support
      * @param config the port configuration
      * @param fileDescriptor the file descriptor for the GPIO port
-     * @param ioctlOperations ioctl implementation
+     * @param scope native components owned by this port
      */
     public NativePort(
             GpioPortConfig config,
             NativePortProvider.LineConfigTriple lineConfigs,
             FileDescriptor fileDescriptor,
-            IoctlOperations ioctlOperations,
+            NativeDeviceScope scope,
             EventPoller.Factory eventPollerFactory
+    ) {
+        this(config, lineConfigs, fileDescriptor, scope, eventPollerFactory, null);
+    }
+
+    /**
+     * Create a new instance with event polling support
+     * @param config the port configuration
+     * @param fileDescriptor the file descriptor for the GPIO port
+     * @param scope native components owned by this port
+     * @param timerWheel shared timer wheel for trailing-edge debounce, or null for the callback to own one
+     */
+    public NativePort(
+            GpioPortConfig config,
+            NativePortProvider.LineConfigTriple lineConfigs,
+            FileDescriptor fileDescriptor,
+            NativeDeviceScope scope,
+            EventPoller.Factory eventPollerFactory,
+            @Nullable TimerWheel timerWheel
     ) {
         this.config = config;
         this.lineConfigs = lineConfigs;
         this.fileDescriptor = fileDescriptor;
-        this.ioctlOperations = ioctlOperations;
+        this.scope = scope;
+        this.ioctlOperations = scope.ioctlOperations();
+        this.lineConfigCodec = scope.memorySegmentMapper().codec(LineConfig.class);
+        this.segmentCodec = scope.memorySegmentMapper().codec(MemorySegment.class);
         PollEventsCallback pollEventsCallback = switch (DebounceStrategy.fromProperty()) {
             case SOFTWARE_LEADING_EDGE -> new LeadingEdgeDebounceCallback(this::handleEventCallback, config.debounceDelay() * 1000L);
-            case SOFTWARE_TRAILING_EDGE -> new TrailingEdgeDebounceCallback(this::handleEventCallback, config.debounceDelay() * 1000L);
+            case SOFTWARE_TRAILING_EDGE -> (timerWheel != null)
+                    ? new TrailingEdgeDebounceCallback(this::handleEventCallback, config.debounceDelay() * 1000L, timerWheel)
+                    : new TrailingEdgeDebounceCallback(this::handleEventCallback, config.debounceDelay() * 1000L);
             case HARDWARE -> this::handleEventCallback;
         };
         if (pollEventsCallback instanceof AutoCloseable closeable) {
@@ -77,7 +121,7 @@ class NativePort implements GpioPort, AutoCloseable {
     }
 
     /**
-     * Create a new instance with no event polling support
+     * Create a new instance with event polling support
      * @param config the port configuration
      * @param fileDescriptor the file descriptor for the GPIO port
      * @param ioctlOperations ioctl implementation
@@ -86,9 +130,25 @@ class NativePort implements GpioPort, AutoCloseable {
             GpioPortConfig config,
             NativePortProvider.LineConfigTriple lineConfigs,
             FileDescriptor fileDescriptor,
-            IoctlOperations ioctlOperations
+            IoctlOperations ioctlOperations,
+            EventPoller.Factory eventPollerFactory
     ) {
-        this(config, lineConfigs, fileDescriptor, ioctlOperations, EventPoller.NOOP_FACTORY);
+        this(config, lineConfigs, fileDescriptor, NativeDeviceScope.shared(ioctlOperations), eventPollerFactory);
+    }
+
+    /**
+     * Create a new instance with no event polling support
+     * @param config the port configuration
+     * @param fileDescriptor the file descriptor for the GPIO port
+     * @param scope native components owned by this port
+     */
+    public NativePort(
+            GpioPortConfig config,
+            NativePortProvider.LineConfigTriple lineConfigs,
+            FileDescriptor fileDescriptor,
+            NativeDeviceScope scope
+    ) {
+        this(config, lineConfigs, fileDescriptor, scope, EventPoller.NOOP_FACTORY);
     }
 
     @Override
@@ -98,31 +158,72 @@ class NativePort implements GpioPort, AutoCloseable {
 
     @Override
     public Integer read() {
-        var value = ioctlOperations.ioctl(fileDescriptor, GpioConstants.GPIO_V2_LINE_GET_VALUES_IOCTL, LOW_MASK);
-        return (int)value.bits();
+        return readInt();
     }
 
     @Override
     public void write(Integer value) {
-        var lineValues = new LineValues(value, Long.MAX_VALUE);
-        ioctlOperations.ioctl(fileDescriptor, GpioConstants.GPIO_V2_LINE_SET_VALUES_IOCTL, lineValues);
+        writeInt(value);
     }
 
     @Override
-    public void setDirection(GpioPortMode mode) {
+    public synchronized int readInt() {
+        scope.reset();
+        LineValues.set(lineValues, 0, ALL_LINES);
+        ioctlOperations.ioctl(fileDescriptor, GpioConstants.GPIO_V2_LINE_GET_VALUES_IOCTL, lineValues, segmentCodec);
+        return (int) LineValues.bits(lineValues);
+    }
+
+    @Override
+    public synchronized void writeInt(int value) {
+        setValues(value, ALL_LINES);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Only the masked lines are written by the kernel, so no read is required.
+     * </p>
+     */
+    @Override
+    public synchronized void writeMasked(int bits, int mask) {
+        setValues(bits, Integer.toUnsignedLong(mask));
+    }
+
+    private void setValues(long bits, long mask) {
+        scope.reset();
+        LineValues.set(lineValues, bits, mask);
+        ioctlOperations.ioctl(fileDescriptor, GpioConstants.GPIO_V2_LINE_SET_VALUES_IOCTL, lineValues, segmentCodec);
+    }
+
+    @Override
+    public synchronized void setDirection(GpioPortMode mode) {
+        scope.reset();
         if (mode.isSet(GpioPortMode.OUTPUT) && currentLineConfig != lineConfigs.outputConfig()) {
-            ioctlOperations.ioctl(fileDescriptor, GpioConstants.GPIO_V2_LINE_SET_CONFIG_IOCTL, lineConfigs.outputConfig());
+            ioctlOperations.ioctl(fileDescriptor, GpioConstants.GPIO_V2_LINE_SET_CONFIG_IOCTL, lineConfigs.outputConfig(), lineConfigCodec);
             currentLineConfig = lineConfigs.outputConfig();
         } else if (mode.isSet(GpioPortMode.INPUT) && currentLineConfig != lineConfigs.inputConfig()) {
-            ioctlOperations.ioctl(fileDescriptor, GpioConstants.GPIO_V2_LINE_SET_CONFIG_IOCTL, lineConfigs.inputConfig());
+            ioctlOperations.ioctl(fileDescriptor, GpioConstants.GPIO_V2_LINE_SET_CONFIG_IOCTL, lineConfigs.inputConfig(), lineConfigCodec);
             currentLineConfig = lineConfigs.inputConfig();
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The event poller is stopped before taking the port monitor, as stopping waits for a listener which may be
+     * reading the port.
+     * </p>
+     */
     @Override
     public void close() {
         logger.debug("Closing GPIO port with file descriptor: {}", fileDescriptor.fd());
-        fileDescriptor.close();
+        // stop polling before the descriptor can be closed and its number reused, stopping waits for a read in progress
+        eventPoller.stop();
+        synchronized (this) {
+            fileDescriptor.close();
+            scope.close();
+        }
         if (closeableCallback != null) {
             try {
                 closeableCallback.close();
@@ -130,30 +231,60 @@ class NativePort implements GpioPort, AutoCloseable {
                 logger.warn("Failed to close event poller", e);
             }
         }
-        eventPoller.stop();
     }
 
     @Override
     public void addListener(GpioEventListener<GpioPort> listener) {
-        if (listeners.add(listener) && !eventPoller.isRunning()) {
-            // assert config with possible event attributes
-            ioctlOperations.ioctl(fileDescriptor, GpioConstants.GPIO_V2_LINE_SET_CONFIG_IOCTL, lineConfigs.inputConfig());
-            eventPoller.start();
+        listenerLock.lock();
+        try {
+            if (listeners.add(listener) && !eventPoller.isStarted()) {
+                synchronized (this) {
+                    scope.reset();
+                    // assert config with possible event attributes
+                    ioctlOperations.ioctl(fileDescriptor, GpioConstants.GPIO_V2_LINE_SET_CONFIG_IOCTL, lineConfigs.inputConfig(), lineConfigCodec);
+                }
+                eventPoller.start();
+            }
+        } finally {
+            listenerLock.unlock();
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Removing the last listener waits for events being delivered on another thread, so it must not be called while
+     * holding a lock which a listener may take.
+     * </p>
+     */
     @Override
     public void removeListener(GpioEventListener<GpioPort> listener) {
-        if (listeners.remove(listener) && listeners.isEmpty() && eventPoller.isRunning()) {
-            // set config with no event attributes
-            ioctlOperations.ioctl(fileDescriptor, GpioConstants.GPIO_V2_LINE_SET_CONFIG_IOCTL, lineConfigs.inputConfigNoEvents());
-            eventPoller.stop();
+        listenerLock.lock();
+        try {
+            if (listeners.remove(listener) && listeners.isEmpty() && eventPoller.isStarted()) {
+                // stop outside the port monitor, as stopping waits for a listener which may be reading the port
+                eventPoller.stop();
+                synchronized (this) {
+                    scope.reset();
+                    // set config with no event attributes
+                    ioctlOperations.ioctl(fileDescriptor, GpioConstants.GPIO_V2_LINE_SET_CONFIG_IOCTL, lineConfigs.inputConfigNoEvents(), lineConfigCodec);
+                }
+            }
+        } finally {
+            listenerLock.unlock();
         }
     }
 
     private void handleEventCallback(EventPoller poller, List<PollEvent> pollEvents) {
         pollEvents.stream()
-                .map(pollEvent -> new GpioChangeEvent<>(NativePort.this, pollEvent.asLineChangeEventType()))
+                .map(pollEvent -> new GpioChangeEvent<>(
+                        NativePort.this,
+                        pollEvent.asLineChangeEventType(),
+                        pollEvent.timestamp(),
+                        pollEvent.lineOffset(),
+                        pollEvent.seqno(),
+                        pollEvent.lineSeqno()
+                ))
                 .forEach(event -> listeners.forEach(listener -> listener.onEvent(event)));
     }
 }
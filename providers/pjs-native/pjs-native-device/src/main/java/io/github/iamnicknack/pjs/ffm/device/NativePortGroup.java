@@ -0,0 +1,416 @@
+package io.github.iamnicknack.pjs.ffm.device;
+
+import io.github.iamnicknack.pjs.device.gpio.GpioPort;
+import io.github.iamnicknack.pjs.device.gpio.GpioPortConfig;
+import io.github.iamnicknack.pjs.device.gpio.GpioPortMode;
+import io.github.iamnicknack.pjs.ffm.context.segment.Codec;
+import io.github.iamnicknack.pjs.ffm.device.context.FileDescriptor;
+import io.github.iamnicknack.pjs.ffm.device.context.IoctlOperations;
+import io.github.iamnicknack.pjs.ffm.device.context.NativeDeviceScope;
+import io.github.iamnicknack.pjs.ffm.device.context.gpio.GpioConstants;
+import io.github.iamnicknack.pjs.ffm.device.context.gpio.LineAttribute;
+import io.github.iamnicknack.pjs.ffm.device.context.gpio.LineConfig;
+import io.github.iamnicknack.pjs.ffm.device.context.gpio.LineConfigAttribute;
+import io.github.iamnicknack.pjs.ffm.device.context.gpio.LineValues;
+import io.github.iamnicknack.pjs.ffm.device.context.gpio.PinFlag;
+import io.github.iamnicknack.pjs.model.event.GpioEventListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Lines of several {@link GpioPortConfig}s held by a single kernel line request.
+ * <p>
+ * Each config is exposed as a {@link Member} port over a contiguous range of lines in the request. Lines whose
+ * flags differ from the most common flags are configured with per-line {@code FLAGS} attributes.
+ * </p>
+ * <p>
+ * Outside a {@link Cycle}, each member read or write is a single ioctl, and writes are masked to the lines of that
+ * member. Within
+ * a cycle, the first read fetches all lines with one {@code GET_VALUES} and later reads are served from that
+ * snapshot. Writes are merged into one masked {@code SET_VALUES} issued when the cycle closes.
+ * </p>
+ * <p>
+ * A cycle belongs to the thread which started it, and must be closed on that thread. Reads and writes of members on
+ * other threads wait until the cycle closes, so they are never merged into another thread's cycle.
+ * </p>
+ * <p>
+ * The request is released when all members have been closed.
+ * </p>
+ */
+public class NativePortGroup {
+
+    /**
+     * Maximum number of lines in a single request
+     */
+    static final int MAX_LINES = 64;
+
+    /**
+     * Order in which cycles of several groups are started, so that threads cycling the same groups cannot deadlock
+     */
+    static final Comparator<NativePortGroup> CYCLE_ORDER = Comparator.comparingInt(group -> group.fileDescriptor.fd());
+
+    private final Logger logger = LoggerFactory.getLogger(NativePortGroup.class);
+
+    private final FileDescriptor fileDescriptor;
+    private final NativeDeviceScope scope;
+    private final IoctlOperations ioctlOperations;
+    private final Codec<LineConfig> lineConfigCodec;
+    private final Codec<MemorySegment> segmentCodec;
+    private final long[] lineFlags;
+    private final long allLines;
+    private final List<Member> members = new ArrayList<>();
+
+    /**
+     * Preallocated {@code gpio_v2_line_values} struct reused by every read and write
+     */
+    private final MemorySegment lineValues = Arena.ofAuto().allocate(LineValues.LAYOUT);
+
+    /**
+     * Guards the request and the fields below, and is held by a thread for the duration of its cycle
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    private int openMembers;
+    private int cycleDepth;
+    private boolean snapshotValid;
+    private long snapshot;
+    private long pendingBits;
+    private long pendingMask;
+
+    /**
+     * Constructor.
+     * @param fileDescriptor the file descriptor of the line request
+     * @param scope native components owned by the group
+     * @param lineFlags the flags of each line in the request, in request order
+     */
+    NativePortGroup(FileDescriptor fileDescriptor, NativeDeviceScope scope, long[] lineFlags) {
+        if (lineFlags.length == 0 || lineFlags.length > MAX_LINES) {
+            throw new IllegalArgumentException("Invalid number of lines: " + lineFlags.length);
+        }
+        this.fileDescriptor = fileDescriptor;
+        this.scope = scope;
+        this.ioctlOperations = scope.ioctlOperations();
+        this.lineConfigCodec = scope.memorySegmentMapper().codec(LineConfig.class);
+        this.segmentCodec = scope.memorySegmentMapper().codec(MemorySegment.class);
+        this.lineFlags = lineFlags.clone();
+        this.allLines = mask(0, lineFlags.length);
+    }
+
+    /**
+     * Build the config for lines with possibly different flags. The most common flags are used for the config and
+     * the remaining lines are configured with {@code FLAGS} attributes.
+     * @param lineFlags the flags of each line in request order
+     * @param values output values to apply with the config
+     * @param valuesMask the lines to which output values apply, or zero for none
+     * @return the line config
+     */
+    static LineConfig lineConfig(long[] lineFlags, long values, long valuesMask) {
+        var linesByFlags = new LinkedHashMap<Long, Long>();
+        for (int line = 0; line < lineFlags.length; line++) {
+            linesByFlags.merge(lineFlags[line], 1L << line, (a, b) -> a | b);
+        }
+        var baseFlags = linesByFlags.entrySet().stream()
+                .max((a, b) -> Long.compare(Long.bitCount(a.getValue()), Long.bitCount(b.getValue())))
+                .orElseThrow()
+                .getKey();
+
+        var attributes = new ArrayList<LineConfigAttribute>();
+        linesByFlags.forEach((flags, lines) -> {
+            if (flags != baseFlags) {
+                attributes.add(new LineConfigAttribute(new LineAttribute(LineAttribute.Id.FLAGS, flags), lines));
+            }
+        });
+        if (valuesMask != 0) {
+            attributes.add(new LineConfigAttribute(new LineAttribute(LineAttribute.Id.VALUES, values), valuesMask));
+        }
+        if (attributes.size() > LineConfig.MAX_ATTRIBUTES) {
+            throw new IllegalStateException("Too many distinct line configurations for a single request: " + attributes.size());
+        }
+        return new LineConfig(baseFlags, attributes.toArray(LineConfigAttribute[]::new));
+    }
+
+    /**
+     * Add a port over the next lines in the request
+     * @param config the port config
+     * @param lineConfigs the input and output configs of the port
+     * @return the port
+     */
+    Member addMember(GpioPortConfig config, NativePortProvider.LineConfigTriple lineConfigs) {
+        lock.lock();
+        try {
+            var shift = members.isEmpty() ? 0 : members.getLast().shift + members.getLast().width;
+            var member = new Member(config, lineConfigs, shift, config.pinNumber().length);
+            if (shift + member.width > lineFlags.length) {
+                throw new IllegalArgumentException("Port " + config.id() + " exceeds the lines in the request");
+            }
+            members.add(member);
+            openMembers++;
+            return member;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the group holding the lines of a port
+     * @param port the port
+     * @return the group, or empty if the port does not belong to a group
+     */
+    public static Optional<NativePortGroup> groupOf(GpioPort port) {
+        return (port instanceof Member member)
+                ? Optional.of(member.group())
+                : Optional.empty();
+    }
+
+    /**
+     * Start a read and write cycle, waiting for a cycle open on another thread to close. Cycles may be nested, in
+     * which case values are written when the outermost cycle closes.
+     * @return the cycle, to be closed when complete on the calling thread
+     */
+    public Cycle cycle() {
+        lock.lock();
+        cycleDepth++;
+        return new Cycle();
+    }
+
+    /**
+     * Values of all lines in request order
+     */
+    private long readLines() {
+        lock.lock();
+        try {
+            if (cycleDepth == 0) {
+                return getValues();
+            }
+            if (!snapshotValid) {
+                snapshot = getValues();
+                snapshotValid = true;
+            }
+            return (snapshot & ~pendingMask) | pendingBits;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void writeLines(long bits, long mask) {
+        lock.lock();
+        try {
+            if (cycleDepth == 0) {
+                setValues(bits, mask);
+                return;
+            }
+            pendingBits = (pendingBits & ~mask) | (bits & mask);
+            pendingMask |= mask;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * End a cycle of the current thread, releasing the hold taken when it was started
+     */
+    private void endCycle() {
+        try {
+            if (--cycleDepth > 0) {
+                return;
+            }
+            try {
+                if (pendingMask != 0) {
+                    setValues(pendingBits, pendingMask);
+                }
+            } finally {
+                snapshotValid = false;
+                pendingBits = 0;
+                pendingMask = 0;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void setDirection(Member member, long flags) {
+        lock.lock();
+        try {
+            if (lineFlags[member.shift] == flags) {
+                return;
+            }
+            // reconfiguring resets output lines which are not given a value, so carry the current values over
+            var values = getValues();
+            var outputLines = 0L;
+            for (int line = 0; line < lineFlags.length; line++) {
+                if (line >= member.shift && line < member.shift + member.width) {
+                    lineFlags[line] = flags;
+                }
+                if (PinFlag.OUTPUT.isSet(lineFlags[line])) {
+                    outputLines |= 1L << line;
+                }
+            }
+            scope.reset();
+            ioctlOperations.ioctl(
+                    fileDescriptor,
+                    GpioConstants.GPIO_V2_LINE_SET_CONFIG_IOCTL,
+                    lineConfig(lineFlags, values, outputLines),
+                    lineConfigCodec
+            );
+            snapshotValid = false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(Member member) {
+        lock.lock();
+        try {
+            if (member.closed) {
+                return;
+            }
+            member.closed = true;
+            if (--openMembers == 0) {
+                logger.debug("Closing GPIO port group with file descriptor: {}", fileDescriptor.fd());
+                fileDescriptor.close();
+                scope.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long getValues() {
+        scope.reset();
+        LineValues.set(lineValues, 0, allLines);
+        ioctlOperations.ioctl(fileDescriptor, GpioConstants.GPIO_V2_LINE_GET_VALUES_IOCTL, lineValues, segmentCodec);
+        return LineValues.bits(lineValues);
+    }
+
+    private void setValues(long bits, long mask) {
+        scope.reset();
+        LineValues.set(lineValues, bits, mask);
+        ioctlOperations.ioctl(fileDescriptor, GpioConstants.GPIO_V2_LINE_SET_VALUES_IOCTL, lineValues, segmentCodec);
+    }
+
+    private static long mask(int shift, int width) {
+        return ((width == Long.SIZE) ? -1L : (1L << width) - 1) << shift;
+    }
+
+    /**
+     * Read and write cycle over all lines in the group, owned by the thread which started it
+     */
+    public final class Cycle implements AutoCloseable {
+        /**
+         * Only accessed by the owning thread
+         */
+        private boolean closed;
+
+        private Cycle() {}
+
+        /**
+         * Write pending values, discard the read snapshot and allow other threads to use the group
+         * @throws IllegalStateException if called on a thread other than the one which started the cycle
+         */
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            if (!lock.isHeldByCurrentThread()) {
+                throw new IllegalStateException("Cycle must be closed by the thread which started it");
+            }
+            closed = true;
+            endCycle();
+        }
+    }
+
+    /**
+     * Port over a range of lines in the group
+     */
+    public final class Member implements GpioPort, AutoCloseable {
+
+        private final GpioPortConfig config;
+        private final NativePortProvider.LineConfigTriple lineConfigs;
+        private final int shift;
+        private final int width;
+        private final long lines;
+        private boolean closed;
+
+        private Member(GpioPortConfig config, NativePortProvider.LineConfigTriple lineConfigs, int shift, int width) {
+            this.config = config;
+            this.lineConfigs = lineConfigs;
+            this.shift = shift;
+            this.width = width;
+            this.lines = mask(shift, width);
+        }
+
+        /**
+         * The group holding the lines of this port
+         */
+        public NativePortGroup group() {
+            return NativePortGroup.this;
+        }
+
+        @Override
+        public GpioPortConfig getConfig() {
+            return config;
+        }
+
+        @Override
+        public Integer read() {
+            return readInt();
+        }
+
+        @Override
+        public void write(Integer value) {
+            writeInt(value);
+        }
+
+        @Override
+        public int readInt() {
+            return (int) ((readLines() & lines) >>> shift);
+        }
+
+        @Override
+        public void writeInt(int value) {
+            writeLines(Integer.toUnsignedLong(value) << shift, lines);
+        }
+
+        @Override
+        public void writeMasked(int bits, int mask) {
+            writeLines(Integer.toUnsignedLong(bits) << shift, (Integer.toUnsignedLong(mask) << shift) & lines);
+        }
+
+        @Override
+        public void setDirection(GpioPortMode mode) {
+            if (mode.isSet(GpioPortMode.OUTPUT)) {
+                NativePortGroup.this.setDirection(this, lineConfigs.outputConfig().flags());
+            } else if (mode.isSet(GpioPortMode.INPUT)) {
+                NativePortGroup.this.setDirection(this, lineConfigs.inputConfig().flags());
+            }
+        }
+
+        /**
+         * Grouped ports are created without edge detection, so, as with any port without events, listeners are
+         * accepted but never notified
+         */
+        @Override
+        public void addListener(GpioEventListener<GpioPort> listener) {
+            // no events are raised
+        }
+
+        @Override
+        public void removeListener(GpioEventListener<GpioPort> listener) {
+            // no listeners are held
+        }
+
+        @Override
+        public void close() {
+            release(this);
+        }
+    }
+}
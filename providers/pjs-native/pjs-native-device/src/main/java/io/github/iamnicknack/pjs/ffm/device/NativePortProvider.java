@@ -1,30 +1,36 @@
 package io.github.iamnicknack.pjs.ffm.device;
 
+import io.github.iamnicknack.pjs.device.gpio.GpioBatch;
 import io.github.iamnicknack.pjs.device.gpio.GpioEventMode;
 import io.github.iamnicknack.pjs.device.gpio.GpioPort;
 import io.github.iamnicknack.pjs.device.gpio.GpioPortConfig;
 import io.github.iamnicknack.pjs.device.gpio.GpioPortMode;
 import io.github.iamnicknack.pjs.device.gpio.GpioPortProvider;
-import io.github.iamnicknack.pjs.ffm.device.context.FileDescriptor;
+import io.github.iamnicknack.pjs.ffm.context.method.CapturedStateWrapper;
 import io.github.iamnicknack.pjs.ffm.device.context.FileOperations;
-import io.github.iamnicknack.pjs.ffm.device.context.FileOperationsImpl;
 import io.github.iamnicknack.pjs.ffm.device.context.IoctlOperations;
+import io.github.iamnicknack.pjs.ffm.device.context.LineInfoCache;
+import io.github.iamnicknack.pjs.ffm.device.context.NativeDeviceScope;
 import io.github.iamnicknack.pjs.ffm.device.context.gpio.ChipInfo;
 import io.github.iamnicknack.pjs.ffm.device.context.gpio.GpioConstants;
 import io.github.iamnicknack.pjs.ffm.device.context.gpio.LineAttribute;
 import io.github.iamnicknack.pjs.ffm.device.context.gpio.LineConfig;
 import io.github.iamnicknack.pjs.ffm.device.context.gpio.LineConfigAttribute;
-import io.github.iamnicknack.pjs.ffm.device.context.gpio.LineInfo;
 import io.github.iamnicknack.pjs.ffm.device.context.gpio.LineRequest;
 import io.github.iamnicknack.pjs.ffm.device.context.gpio.PinFlag;
 import io.github.iamnicknack.pjs.ffm.event.DebounceStrategy;
 import io.github.iamnicknack.pjs.ffm.event.EventPoller;
+import io.github.iamnicknack.pjs.ffm.event.debounce.TimerWheel;
 import io.github.iamnicknack.pjs.util.GpioPinMask;
 import org.jspecify.annotations.NonNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * @see <a href="https://docs.kernel.org/userspace-api/gpio/gpio-v2-get-line-ioctl.html">gpio-v2-get-line-ioctl</a>
@@ -32,12 +38,16 @@ import java.util.Arrays;
  */
 public class NativePortProvider implements GpioPortProvider {
 
+    private static final int EBUSY = 16;
+
     private final Logger logger = LoggerFactory.getLogger(NativePortProvider.class);
 
-    private final ChipInfo chipInfo;
+    private final LineInfoCache lineInfoCache;
     private final FileOperations fileOperations;
     private final IoctlOperations ioctlOperations;
     private final EventPoller.Factory eventPollerFactory;
+    private final NativeDeviceScope.Factory scopeFactory;
+    private final TimerWheel timerWheel;
 
     public NativePortProvider(
             ChipInfo chipInfo,
@@ -45,83 +55,290 @@ public class NativePortProvider implements GpioPortProvider {
             IoctlOperations ioctlOperations,
             EventPoller.Factory eventPollerFactory
     ) {
-        this.chipInfo = chipInfo;
+        this(chipInfo, fileOperations, ioctlOperations, eventPollerFactory, () -> NativeDeviceScope.shared(ioctlOperations));
+    }
+
+    /**
+     * Create a provider where each port uses native components from its own {@link NativeDeviceScope}
+     * @param scopeFactory creates the scope for each port
+     */
+    public NativePortProvider(
+            ChipInfo chipInfo,
+            FileOperations fileOperations,
+            IoctlOperations ioctlOperations,
+            EventPoller.Factory eventPollerFactory,
+            NativeDeviceScope.Factory scopeFactory
+    ) {
+        this(chipInfo, fileOperations, ioctlOperations, eventPollerFactory, scopeFactory, new TimerWheel());
+    }
+
+    /**
+     * Create a provider where ports share the provided timer wheel for software debounce
+     * @param scopeFactory creates the scope for each port
+     * @param timerWheel the timer wheel shared by trailing-edge debounce callbacks. Closed with the provider.
+     */
+    public NativePortProvider(
+            ChipInfo chipInfo,
+            FileOperations fileOperations,
+            IoctlOperations ioctlOperations,
+            EventPoller.Factory eventPollerFactory,
+            NativeDeviceScope.Factory scopeFactory,
+            TimerWheel timerWheel
+    ) {
+        this(
+                new LineInfoCache(chipInfo, fileOperations, ioctlOperations, false),
+                fileOperations,
+                ioctlOperations,
+                eventPollerFactory,
+                scopeFactory,
+                timerWheel
+        );
+    }
+
+    /**
+     * Create a provider which checks lines and requests them through the chip file descriptor held by a
+     * {@link LineInfoCache}. Use a watching cache to avoid reading line info from the kernel for every port.
+     * @param lineInfoCache line metadata for the chip. Closed with the provider.
+     * @param scopeFactory creates the scope for each port
+     * @param timerWheel the timer wheel shared by trailing-edge debounce callbacks. Closed with the provider.
+     */
+    public NativePortProvider(
+            LineInfoCache lineInfoCache,
+            FileOperations fileOperations,
+            IoctlOperations ioctlOperations,
+            EventPoller.Factory eventPollerFactory,
+            NativeDeviceScope.Factory scopeFactory,
+            TimerWheel timerWheel
+    ) {
+        this.lineInfoCache = lineInfoCache;
         this.fileOperations = fileOperations;
         this.ioctlOperations = ioctlOperations;
         this.eventPollerFactory = eventPollerFactory;
+        this.scopeFactory = scopeFactory;
+        this.timerWheel = timerWheel;
     }
 
     @Override
     public void close() {
         eventPollerFactory.close();
+        timerWheel.close();
+        lineInfoCache.close();
     }
 
     @Override
     public GpioPort create(GpioPortConfig config) {
-        try(var fileDescriptor = fileOperations.openFd(
-                chipInfo.getPath(),
-                FileOperationsImpl.Flags.O_RDWR | FileOperationsImpl.Flags.O_CLOEXEC)
-        ) {
-            checkLines(config, fileDescriptor);
-
-            var lineConfigs = createLineConfigPair(config);
-            var lineRequest = new LineRequest(
-                    config.pinNumber(),
-                    config.id(),
-                    (config.portMode().isSet(GpioPortMode.INPUT) ? lineConfigs.inputConfig() : lineConfigs.outputConfig()),
-                    0,
-                    0
-            );
-
-            var lineRequestResult = ioctlOperations.ioctl(
-                    fileDescriptor,
-                    GpioConstants.GPIO_V2_GET_LINE_IOCTL,
-                    lineRequest
-            );
-
-            logger.debug("Created port {} with result {}", config.id(), lineRequestResult);
-
-            var port = ((config.eventMode() != GpioEventMode.NONE) && (config.portMode().isSet(GpioPortMode.INPUT))
-                    ? new NativePort(
-                            config,
-                            lineConfigs,
-                            fileOperations.createFileDescriptor(lineRequestResult.fd()),
-                            ioctlOperations,
-                            eventPollerFactory
-                    )
-                    : new NativePort(
-                            config,
-                            lineConfigs,
-                            fileOperations.createFileDescriptor(lineRequestResult.fd()),
-                            ioctlOperations
-                    )
-            );
-
-            if (config.defaultValue() >= 0) {
-                port.write(config.defaultValue());
+        checkLines(config);
+
+        var lineConfigs = createLineConfigPair(config);
+        var lineRequest = new LineRequest(
+                config.pinNumber(),
+                config.id(),
+                (config.portMode().isSet(GpioPortMode.INPUT) ? lineConfigs.inputConfig() : lineConfigs.outputConfig()),
+                0,
+                0
+        );
+
+        var lineRequestResult = requestLines(lineRequest, config.pinNumber());
+
+        logger.debug("Created port {} with result {}", config.id(), lineRequestResult);
+
+        var port = ((config.eventMode() != GpioEventMode.NONE) && (config.portMode().isSet(GpioPortMode.INPUT))
+                ? new NativePort(
+                        config,
+                        lineConfigs,
+                        fileOperations.createFileDescriptor(lineRequestResult.fd()),
+                        scopeFactory.create(),
+                        eventPollerFactory,
+                        timerWheel
+                )
+                : new NativePort(
+                        config,
+                        lineConfigs,
+                        fileOperations.createFileDescriptor(lineRequestResult.fd()),
+                        scopeFactory.create()
+                )
+        );
+
+        if (config.defaultValue() >= 0) {
+            port.write(config.defaultValue());
+        }
+
+        return port;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Configs without events are merged into {@link NativePortGroup}s, each held by a single line request with
+     * per-line flags. A group is limited to {@value NativePortGroup#MAX_LINES} lines and to the distinct line
+     * configurations which fit in the attributes of a line config. Configs with events are created as individual
+     * ports, since events are delivered per line request.
+     * </p>
+     */
+    @Override
+    public List<GpioPort> createGroup(List<GpioPortConfig> configs) {
+        var pins = new HashSet<Integer>();
+        for (var config : configs) {
+            for (var pin : config.pinNumber()) {
+                if (!pins.add(pin)) {
+                    throw new IllegalArgumentException("Pin " + pin + " is used by more than one port: " + config.id());
+                }
             }
+        }
 
-            return port;
+        var ports = new GpioPort[configs.size()];
+        var batch = new ArrayList<Integer>();
+        var batchFlags = new HashSet<Long>();
+        var batchLines = 0;
+        try {
+            for (int index = 0; index < configs.size(); index++) {
+                var config = configs.get(index);
+                if (config.eventMode() != GpioEventMode.NONE) {
+                    ports[index] = create(config);
+                    continue;
+                }
+                var flags = initialFlags(config);
+                var newFlags = batchFlags.contains(flags) ? 0 : 1;
+                // one attribute is kept free for output values when a member changes direction
+                if (!batch.isEmpty() && (batchLines + config.pinNumber().length > NativePortGroup.MAX_LINES
+                        || batchFlags.size() + newFlags > LineConfig.MAX_ATTRIBUTES)) {
+                    createMerged(configs, batch, ports);
+                    batch.clear();
+                    batchFlags.clear();
+                    batchLines = 0;
+                }
+                batch.add(index);
+                batchFlags.add(flags);
+                batchLines += config.pinNumber().length;
+            }
+            if (!batch.isEmpty()) {
+                createMerged(configs, batch, ports);
+            }
+        } catch (RuntimeException e) {
+            for (var port : ports) {
+                if (port != null) {
+                    try {
+                        port.close();
+                    } catch (Exception closeException) {
+                        e.addSuppressed(closeException);
+                    }
+                }
+            }
+            throw e;
         }
+        return List.of(ports);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Ports created with {@link #createGroup(List)} are read with one {@code GET_VALUES} and written with one
+     * {@code SET_VALUES} per group. Other ports are read and written with one ioctl each.
+     * </p>
+     */
+    @Override
+    public GpioBatch batch(List<GpioPort> ports) {
+        return new NativeGpioBatch(ports);
+    }
+
+    /**
+     * Create a single line request for the selected configs
+     * @param configs all configs
+     * @param indexes the indexes of the configs to merge
+     * @param ports receives the created ports at the index of their config
+     */
+    private void createMerged(List<GpioPortConfig> configs, List<Integer> indexes, GpioPort[] ports) {
+        var offsets = new int[indexes.stream().mapToInt(index -> configs.get(index).pinNumber().length).sum()];
+        var lineFlags = new long[offsets.length];
+        var lineConfigs = new LineConfigTriple[indexes.size()];
+        var line = 0;
+        for (int i = 0; i < indexes.size(); i++) {
+            var config = configs.get(indexes.get(i));
+            checkLines(config);
+            lineConfigs[i] = createLineConfigPair(config);
+            var flags = initialFlags(config);
+            for (var pin : config.pinNumber()) {
+                offsets[line] = pin;
+                lineFlags[line++] = flags;
+            }
+        }
+
+        var consumer = indexes.stream().map(index -> configs.get(index).id()).collect(Collectors.joining(","));
+        var lineRequest = new LineRequest(offsets, consumer, NativePortGroup.lineConfig(lineFlags, 0, 0), 0, 0);
+        var lineRequestResult = requestLines(lineRequest, offsets);
+        logger.debug("Created port group {} with result {}", consumer, lineRequestResult);
+
+        var group = new NativePortGroup(
+                fileOperations.createFileDescriptor(lineRequestResult.fd()),
+                scopeFactory.create(),
+                lineFlags
+        );
+        var members = new NativePortGroup.Member[indexes.size()];
+        for (int i = 0; i < indexes.size(); i++) {
+            members[i] = group.addMember(configs.get(indexes.get(i)), lineConfigs[i]);
+            ports[indexes.get(i)] = members[i];
+        }
+
+        // default values of all members are written together
+        try (var _ = group.cycle()) {
+            for (var member : members) {
+                if (member.getConfig().defaultValue() >= 0) {
+                    member.writeInt(member.getConfig().defaultValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Request lines from the chip. A request failing with {@code EBUSY} means the cached line info missed a change,
+     * so the requested lines are re-read before the failure is reported.
+     * @param lineRequest the request
+     * @param offsets the requested lines
+     * @return the completed request
+     */
+    private LineRequest requestLines(LineRequest lineRequest, int[] offsets) {
+        try {
+            // the chip descriptor is shared by all ports and remains open until the provider is closed
+            return ioctlOperations.ioctl(lineInfoCache.chipFd(), GpioConstants.GPIO_V2_GET_LINE_IOCTL, lineRequest);
+        } catch (CapturedStateWrapper.CapturedStateException e) {
+            if (e.getErrno() != EBUSY) {
+                throw e;
+            }
+            for (var offset : offsets) {
+                var lineInfo = lineInfoCache.refresh(offset);
+                if (PinFlag.USED.isSet(lineInfo.flags())) {
+                    throw new IllegalStateException("Pin " + offset + " is already in use.", e);
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * The flags of a config in its initial direction, without events
+     */
+    private long initialFlags(GpioPortConfig config) {
+        var lineConfigs = createLineConfigPair(config);
+        return config.portMode().isSet(GpioPortMode.INPUT)
+                ? lineConfigs.inputConfig().flags()
+                : lineConfigs.outputConfig().flags();
     }
 
     /**
      * Check lines are available or not currently in use
      * @param config the requested config
-     * @param fileDescriptor the file descriptor for the GPIO port
      */
-    private void checkLines(GpioPortConfig config, FileDescriptor fileDescriptor) {
+    private void checkLines(GpioPortConfig config) {
         Arrays.stream(config.pinNumber()).forEach(pinNumber -> {
-            var lineInfoResult = ioctlOperations.ioctl(
-                    fileDescriptor,
-                    GpioConstants.GPIO_V2_GET_LINEINFO_IOCTL,
-                    LineInfo.ofOffset(pinNumber)
-            );
-            if (PinFlag.USED.isSet(lineInfoResult.flags())) {
-                throw new IllegalStateException("Pin " + lineInfoResult.offset() + " is already in use.");
+            var lineInfo = lineInfoCache.lineInfo(pinNumber);
+            if (PinFlag.USED.isSet(lineInfo.flags()) && lineInfoCache.isWatching()) {
+                // a release may have been dropped from the change events
+                lineInfo = lineInfoCache.refresh(pinNumber);
+            }
+            if (PinFlag.USED.isSet(lineInfo.flags())) {
+                throw new IllegalStateException("Pin " + lineInfo.offset() + " is already in use.");
             }
         });
-
     }
 
     /**
@@ -137,6 +354,14 @@ public class NativePortProvider implements GpioPortProvider {
             case FALLING -> PinFlag.EDGE_FALLING.value;
             case BOTH -> PinFlag.EDGE_RISING.value | PinFlag.EDGE_FALLING.value;
         };
+        if (eventFlags != 0) {
+            // the kernel timestamps events with the monotonic clock unless another clock is requested
+            eventFlags |= switch (config.eventClock()) {
+                case MONOTONIC -> 0;
+                case REALTIME -> PinFlag.EVENT_CLOCK_REALTIME.value;
+                case HTE -> PinFlag.EVENT_CLOCK_HTE.value;
+            };
+        }
 
         var modeFlags = switch (config.portMode()) {
             case INPUT -> PinFlag.INPUT.value;
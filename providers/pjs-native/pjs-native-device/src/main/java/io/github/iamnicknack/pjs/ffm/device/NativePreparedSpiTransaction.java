@@ -0,0 +1,92 @@
+package io.github.iamnicknack.pjs.ffm.device;
+
+import io.github.iamnicknack.pjs.device.spi.impl.AbstractPreparedSpiTransaction;
+import io.github.iamnicknack.pjs.ffm.device.context.spi.SpiTransfer;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+/**
+ * A prepared transaction compiled into an {@code spi_ioc_transfer} array and a data buffer owned by the transaction.
+ * <p>
+ * Each part of the template has its own region of the data buffer, with constant bytes copied in once. Written parts
+ * point the transmit buffer at their region and read parts the receive buffer, leaving the other pointer null. An
+ * execution patches the field bytes, copies written payloads in, updates the payload lengths and issues a single
+ * ioctl, then copies read payloads out.
+ * </p>
+ */
+class NativePreparedSpiTransaction extends AbstractPreparedSpiTransaction {
+
+    private static final long STRUCT_SIZE = SpiTransfer.LAYOUT.byteSize();
+
+    private final NativeSpi spi;
+    /**
+     * Owns the transfer structs and data buffer, which are reclaimed with the transaction
+     */
+    private final Arena arena = Arena.ofAuto();
+    private final MemorySegment transfers;
+    private final MemorySegment buffer;
+    private final long[] offsets;
+
+    NativePreparedSpiTransaction(NativeSpi spi, Template template) {
+        super(template);
+        this.spi = spi;
+
+        var parts = template.parts();
+        this.offsets = new long[parts.size()];
+        var length = 0L;
+        for (int i = 0; i < parts.size(); i++) {
+            offsets[i] = length;
+            length += parts.get(i).length();
+        }
+
+        this.transfers = arena.allocate(SpiTransfer.LAYOUT, parts.size());
+        this.buffer = arena.allocate(Math.max(length, 1));
+
+        for (int i = 0; i < parts.size(); i++) {
+            var part = parts.get(i);
+            var region = buffer.asSlice(offsets[i], part.length());
+            MemorySegment.copy(part.bytes(), 0, region, ValueLayout.JAVA_BYTE, 0, part.bytes().length);
+            var isRead = part.kind() == Kind.READ;
+            SpiTransfer.set(
+                    transfers,
+                    i * STRUCT_SIZE,
+                    isRead ? MemorySegment.NULL : region,
+                    isRead ? region : MemorySegment.NULL,
+                    part.isPayload() ? 0 : part.length(),
+                    part.delayUs(),
+                    part.csChange()
+            );
+        }
+    }
+
+    @Override
+    public int execute() {
+        for (int i = 0; i < fields.length; i++) {
+            var part = fieldPart(i);
+            var length = template.parts().get(part).length();
+            for (int b = 0; b < length; b++) {
+                buffer.set(ValueLayout.JAVA_BYTE, offsets[part] + b, (byte) (fields[i] >>> (8 * (length - 1 - b))));
+            }
+        }
+
+        for (int i = 0; i < payloads.length; i++) {
+            var part = payloadPart(i);
+            SpiTransfer.setLength(transfers, part * STRUCT_SIZE, payloadLengths[i]);
+            if (template.parts().get(part).kind() == Kind.WRITE) {
+                MemorySegment.copy(payloads[i], payloadOffsets[i], buffer, ValueLayout.JAVA_BYTE, offsets[part], payloadLengths[i]);
+            }
+        }
+
+        spi.submit(transfers, template.parts().size());
+
+        for (int i = 0; i < payloads.length; i++) {
+            var part = payloadPart(i);
+            if (template.parts().get(part).kind() == Kind.READ) {
+                MemorySegment.copy(buffer, ValueLayout.JAVA_BYTE, offsets[part], payloads[i], payloadOffsets[i], payloadLengths[i]);
+            }
+        }
+        return transferLength();
+    }
+}
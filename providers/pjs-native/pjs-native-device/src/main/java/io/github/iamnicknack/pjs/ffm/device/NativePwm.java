@@ -5,8 +5,6 @@ import io.github.iamnicknack.pjs.device.pwm.PwmBean;
 import io.github.iamnicknack.pjs.device.pwm.PwmConfig;
 import io.github.iamnicknack.pjs.ffm.device.context.SysfsOperations;
 
-import java.util.concurrent.TimeUnit;
-
 class NativePwm extends PwmBean implements Pwm, AutoCloseable {
 
     static final String ENABLE_PATH = "enable";
@@ -14,11 +12,11 @@ class NativePwm extends PwmBean implements Pwm, AutoCloseable {
     static final String PERIOD_PATH = "period";
     static final String POLARITY_PATH = "polarity";
 
-    private final SysfsOperations channelOperations;
+    private final PwmChannel channel;
 
     public NativePwm(PwmConfig config, SysfsOperations channelOperations) {
         super(config);
-        this.channelOperations = channelOperations;
+        this.channel = new PwmChannel(channelOperations);
     }
 
     // Synchronized to avoid races with on/off
@@ -34,20 +32,23 @@ class NativePwm extends PwmBean implements Pwm, AutoCloseable {
     }
 
     @Override
-    public void setPeriod(long period) {
+    public synchronized void setPeriod(long period) {
         super.setPeriod(period);
+        if (super.getDutyCycle() > period) {
+            // the duty cycle cannot exceed the period
+            super.setDutyCycle(period);
+        }
         applySettings();
     }
 
     @Override
-    public long getPeriod() {
+    public synchronized long getPeriod() {
         return super.getPeriod();
     }
 
     @Override
     public synchronized void setFrequency(int frequency) {
-        super.setFrequency(frequency);
-        applySettings(); // write through to sysfs immediately
+        super.setFrequency(frequency); // written through by setPeriod
     }
 
     @Override
@@ -68,10 +69,9 @@ class NativePwm extends PwmBean implements Pwm, AutoCloseable {
 
     @Override
     public synchronized void on() {
-        // ensure hardware reflects current cached values using safe ordering
-        applySettings();
+        // ensure hardware reflects current cached values before enabling
         try {
-            channelOperations.writeInt(ENABLE_PATH, 1);
+            channel.apply(new PwmState(getPeriod(), getDutyCycle(), getPolarity().value, true));
             super.on();
         } catch (Exception ex) {
             System.err.println("Failed to enable PWM: " + ex);
@@ -83,7 +83,7 @@ class NativePwm extends PwmBean implements Pwm, AutoCloseable {
     @Override
     public synchronized void off() {
         try {
-            channelOperations.writeInt(ENABLE_PATH, 0);
+            channel.writeEnabled(false);
         } catch (Exception ex) {
             System.err.println("Failed to disable PWM: " + ex);
             ex.printStackTrace(System.err);
@@ -93,49 +93,26 @@ class NativePwm extends PwmBean implements Pwm, AutoCloseable {
 
     @Override
     public Boolean read() {
-        return channelOperations.readInt(ENABLE_PATH) == 1;
+        return channel.readEnabled();
     }
 
     @Override
     public synchronized void close() {
         off();
+        channel.close();
     }
 
     /**
-     * Writes current frequency/dutyCycle to sysfs using a safe order:
-     * - if enabled, disable first
-     * - set duty to 0
-     * - set period
-     * - set duty to desired value
-     * - if was enabled, re-enable
+     * Writes the current settings to sysfs, as the minimal sequence of writes from the current channel state.
+     * @see PwmChannel#apply(PwmState)
      */
     private void applySettings() {
-//        long nanos = NANOS_PER_SECOND / super.getFrequency();
-//        long dutyNanos = (nanos * super.getDutyCycle()) / 100;
-
         try {
-            // If currently enabled, disable first to satisfy drivers that require it.
-            boolean wasEnabled = super.read();
-            if (wasEnabled) {
-                channelOperations.writeInt(ENABLE_PATH, 0);
-            }
-
-            // Many drivers require duty <= period or require disabled writes.
-            // Writing duty=0 first avoids transient invalid values.
-            channelOperations.writeLong(DUTY_CYCLE_PATH, 0);
-            channelOperations.writeLong(PERIOD_PATH, this.getPeriod());
-            channelOperations.writeLong(DUTY_CYCLE_PATH, this.getDutyCycle());
-            channelOperations.writeString(POLARITY_PATH, getPolarity().value);
-
-            if (wasEnabled) {
-                // Re-enable if we were on
-                channelOperations.writeInt(ENABLE_PATH, 1);
-                super.on();
-            }
+            channel.apply(new PwmState(getPeriod(), getDutyCycle(), getPolarity().value, super.isEnabled()));
         } catch (Exception ex) {
             // Minimal error handling; replace with a logger if available.
             System.err.println("Failed to apply PWM settings: " + ex);
             ex.printStackTrace(System.err);
         }
     }
-}
\ No newline at end of file
+}
@@ -1,25 +1,48 @@
 package io.github.iamnicknack.pjs.ffm.device;
 
+import io.github.iamnicknack.pjs.device.spi.PreparedSpiTransaction;
 import io.github.iamnicknack.pjs.device.spi.Spi;
+import io.github.iamnicknack.pjs.device.spi.SpiBufferMessage;
 import io.github.iamnicknack.pjs.device.spi.SpiConfig;
+import io.github.iamnicknack.pjs.ffm.context.segment.Codec;
 import io.github.iamnicknack.pjs.ffm.context.segment.MemorySegmentMapper;
 import io.github.iamnicknack.pjs.ffm.device.context.FileDescriptor;
 import io.github.iamnicknack.pjs.ffm.device.context.IoctlOperations;
+import io.github.iamnicknack.pjs.ffm.device.context.NativeDeviceScope;
 import io.github.iamnicknack.pjs.ffm.device.context.spi.SpiConstants;
 import io.github.iamnicknack.pjs.ffm.device.context.spi.SpiTransfer;
 
+import java.lang.foreign.Arena;
 import java.lang.foreign.MemorySegment;
 import java.lang.foreign.SegmentAllocator;
 import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
 
+/**
+ * SPI device backed by a spidev file descriptor.
+ * <p>
+ * Transfers from byte arrays are staged through transmit and receive segments owned by the device. These grow to the
+ * largest transfer seen, so the steady-state path only copies the bytes being transferred. Callers holding native
+ * memory can use {@link #transfer(MemorySegment, MemorySegment, int)} or {@link #transfer(ByteBuffer, ByteBuffer)}
+ * to hand buffers to the kernel without copying. The same applies to {@link SpiBufferMessage}s passed to the
+ * transfer of this device, whose absent buffers are passed to the kernel as null pointers for half-duplex transfers.
+ * </p>
+ */
 public class NativeSpi implements Spi, AutoCloseable {
 
     private final SpiConfig config;
-    private final SegmentAllocator segmentAllocator;
+    private final NativeDeviceScope scope;
     private final IoctlOperations ioctlOperations;
+    private final Codec<MemorySegment> segmentCodec;
     private final FileDescriptor fileDescriptor;
-    private final MemorySegmentMapper memorySegmentMapper;
-    private final SpiTransfer.Serializer transferSerializer;
+
+    /**
+     * Owns the staging buffers. An auto arena allows replaced buffers to be reclaimed when they grow.
+     */
+    private final Arena bufferArena = Arena.ofAuto();
+    private MemorySegment txBuffer = MemorySegment.NULL;
+    private MemorySegment rxBuffer = MemorySegment.NULL;
+    private MemorySegment transferBuffer;
 
     public NativeSpi(
             SpiConfig config,
@@ -27,13 +50,21 @@ public class NativeSpi implements Spi, AutoCloseable {
             IoctlOperations ioctlOperations,
             SegmentAllocator segmentAllocator,
             MemorySegmentMapper memorySegmentMapper
+    ) {
+        this(config, fileDescriptor, NativeDeviceScope.shared(ioctlOperations, segmentAllocator, memorySegmentMapper));
+    }
+
+    public NativeSpi(
+            SpiConfig config,
+            FileDescriptor fileDescriptor,
+            NativeDeviceScope scope
     ) {
         this.config = config;
         this.fileDescriptor = fileDescriptor;
-        this.segmentAllocator = segmentAllocator;
-        this.ioctlOperations = ioctlOperations;
-        this.memorySegmentMapper = memorySegmentMapper;
-        this.transferSerializer = new SpiTransfer.Serializer(segmentAllocator);
+        this.scope = scope;
+        this.ioctlOperations = scope.ioctlOperations();
+        this.segmentCodec = scope.memorySegmentMapper().codec(MemorySegment.class);
+        this.transferBuffer = bufferArena.allocate(SpiTransfer.LAYOUT);
     }
 
     @Override
@@ -42,71 +73,192 @@ public class NativeSpi implements Spi, AutoCloseable {
     }
 
     @Override
-    public int transfer(byte[] write, int writeOffset, byte[] read, int readOffset, int length) {
-        var writeBufferSegment = segmentAllocator.allocateFrom(ValueLayout.JAVA_BYTE, write);
-        var outSegment = writeBufferSegment.asSlice(writeOffset, length);
-        var inSegment = segmentAllocator.allocate(length);
+    public synchronized int transfer(byte[] write, int writeOffset, byte[] read, int readOffset, int length) {
+        ensureBufferCapacity(length);
+        MemorySegment.copy(write, writeOffset, txBuffer, ValueLayout.JAVA_BYTE, 0, length);
+
+        execute(txBuffer, rxBuffer, length);
+
+        MemorySegment.copy(rxBuffer, ValueLayout.JAVA_BYTE, 0, read, readOffset, length);
+        return length;
+    }
+
+    /**
+     * Perform a single SPI transfer using caller-supplied segments.
+     * <p>
+     * Native segments are passed to the kernel directly. Heap segments are staged through the device buffers.
+     * </p>
+     * @param write the data to write, or {@link MemorySegment#NULL} to shift out zeroes.
+     * @param read the segment to read into, or {@link MemorySegment#NULL} to discard received data.
+     * @param length the number of bytes to transfer.
+     * @return the number of bytes transferred.
+     */
+    @Override
+    public synchronized int transfer(MemorySegment write, MemorySegment read, int length) {
+        checkLength(write, length);
+        checkLength(read, length);
 
-        var transfer = SpiTransfer.builder()
-                .txBuf(outSegment)
-                .rxBuf(inSegment)
-                .length(length)
-                .build();
+        var tx = write;
+        if (!write.isNative()) {
+            ensureBufferCapacity(length);
+            MemorySegment.copy(write, 0, txBuffer, 0, length);
+            tx = txBuffer;
+        }
 
-        var segment = memorySegmentMapper.segment(transfer, SpiTransfer.class);
-        ioctlOperations.ioctl(fileDescriptor, SpiConstants.SPI_IOC_MESSAGE(1), segment, MemorySegment.class);
+        var rx = read;
+        if (!read.isNative()) {
+            ensureBufferCapacity(length);
+            rx = rxBuffer;
+        }
 
-        byte[] bytesIn = inSegment.toArray(ValueLayout.JAVA_BYTE);
-        System.arraycopy(bytesIn, 0, read, readOffset, length);
+        execute(tx, rx, length);
 
+        if (rx != read) {
+            MemorySegment.copy(rxBuffer, 0, read, 0, length);
+        }
         return length;
     }
 
+    /**
+     * Perform a single SPI transfer between the remaining bytes of two buffers.
+     * <p>
+     * Direct buffers are passed to the kernel without copying. The position of each buffer is advanced by the number
+     * of bytes transferred.
+     * </p>
+     * @param write the data to write.
+     * @param read the buffer to read into.
+     * @return the number of bytes transferred.
+     */
+    public int transfer(ByteBuffer write, ByteBuffer read) {
+        var length = Math.min(write.remaining(), read.remaining());
+        var transferred = transfer(MemorySegment.ofBuffer(write), MemorySegment.ofBuffer(read), length);
+        write.position(write.position() + transferred);
+        read.position(read.position() + transferred);
+        return transferred;
+    }
+
     @Override
     public void close() {
         fileDescriptor.close();
+        scope.close();
+    }
+
+    /**
+     * Populate the preallocated transfer struct and issue a single-message ioctl
+     */
+    private void execute(MemorySegment tx, MemorySegment rx, int length) {
+        scope.reset();
+        SpiTransfer.set(transferBuffer, 0, tx, rx, length, 0, false);
+        ioctlOperations.ioctl(fileDescriptor, SpiConstants.SPI_IOC_MESSAGE(1), transferBuffer, segmentCodec);
+    }
+
+    /**
+     * Issue a multi-message ioctl for an array of transfer structs owned by the caller
+     * @param transfers the {@code spi_ioc_transfer} array.
+     * @param count the number of structs in the array.
+     */
+    synchronized void submit(MemorySegment transfers, int count) {
+        scope.reset();
+        ioctlOperations.ioctl(fileDescriptor, SpiConstants.SPI_IOC_MESSAGE(count), transfers, segmentCodec);
+    }
+
+    /**
+     * Grow the staging buffers if they cannot hold the requested number of bytes
+     */
+    private void ensureBufferCapacity(long length) {
+        if (txBuffer.byteSize() < length) {
+            txBuffer = bufferArena.allocate(length);
+            rxBuffer = bufferArena.allocate(length);
+        }
+    }
+
+    /**
+     * Grow the transfer struct array if it cannot hold the requested number of messages
+     */
+    private void ensureTransferCapacity(int count) {
+        if (transferBuffer.byteSize() < count * SpiTransfer.LAYOUT.byteSize()) {
+            transferBuffer = bufferArena.allocate(SpiTransfer.LAYOUT, count);
+        }
+    }
+
+    private static void checkLength(MemorySegment segment, int length) {
+        if (!segment.equals(MemorySegment.NULL) && segment.byteSize() < length) {
+            throw new IllegalArgumentException(
+                    "Segment of " + segment.byteSize() + " bytes is too small for a " + length + " byte transfer"
+            );
+        }
     }
 
     class Transfer implements io.github.iamnicknack.pjs.device.spi.SpiTransfer {
 
+        @Override
+        public PreparedSpiTransaction prepare(PreparedSpiTransaction.Template template) {
+            return new NativePreparedSpiTransaction(NativeSpi.this, template);
+        }
+
         @Override
         public int transfer(Message... messages) {
-            var spiTransfers = new SpiTransfer[messages.length];
-            for (int i = 0; i < messages.length; i++) {
-                var currentTransfer = messages[i];
-                var txBuffer = segmentAllocator.allocateFrom(ValueLayout.JAVA_BYTE, currentTransfer.sliceWrite());
-                var rxBuffer = segmentAllocator.allocate(currentTransfer.length());
-                spiTransfers[i] = SpiTransfer.builder()
-                        .txBuf(txBuffer)
-                        .rxBuf(rxBuffer)
-                        .length(currentTransfer.length())
-                        .delayUsecs(currentTransfer.delayUs())
-                        .csChange(currentTransfer.csChange())
-                        .build();
-            }
+            synchronized (NativeSpi.this) {
+                var byteCount = 0;
+                for (var message : messages) {
+                    byteCount += message.length();
+                }
 
-            var segment = transferSerializer.serializeArray(spiTransfers, segmentAllocator);
-            ioctlOperations.ioctl(
-                    fileDescriptor,
-                    SpiConstants.SPI_IOC_MESSAGE(spiTransfers.length),
-                    segment,
-                    MemorySegment.class
-            );
+                ensureBufferCapacity(byteCount);
+                ensureTransferCapacity(messages.length);
 
-            var byteCount = 0;
-            for (int i = 0; i < messages.length; i++) {
-                var buffer = spiTransfers[i];
-                var currentTransfer = messages[i];
-                System.arraycopy(
-                        buffer.rxArray(),
-                        0,
-                        currentTransfer.read(),
-                        currentTransfer.readOffset(),
-                        currentTransfer.length()
+                var offset = 0L;
+                for (int i = 0; i < messages.length; i++) {
+                    var message = messages[i];
+                    MemorySegment tx;
+                    MemorySegment rx;
+                    if (message instanceof SpiBufferMessage buffer) {
+                        tx = buffer.writeSegment();
+                        if (!tx.isNative()) {
+                            MemorySegment.copy(tx, 0, txBuffer, offset, message.length());
+                            tx = txBuffer.asSlice(offset, message.length());
+                        }
+                        rx = buffer.readSegment().isNative()
+                                ? buffer.readSegment()
+                                : rxBuffer.asSlice(offset, message.length());
+                    } else {
+                        MemorySegment.copy(message.write(), message.writeOffset(), txBuffer, ValueLayout.JAVA_BYTE, offset, message.length());
+                        tx = txBuffer.asSlice(offset, message.length());
+                        rx = rxBuffer.asSlice(offset, message.length());
+                    }
+                    SpiTransfer.set(
+                            transferBuffer,
+                            i * SpiTransfer.LAYOUT.byteSize(),
+                            tx,
+                            rx,
+                            message.length(),
+                            message.delayUs(),
+                            message.csChange()
+                    );
+                    offset += message.length();
+                }
+
+                scope.reset();
+                ioctlOperations.ioctl(
+                        fileDescriptor,
+                        SpiConstants.SPI_IOC_MESSAGE(messages.length),
+                        transferBuffer,
+                        segmentCodec
                 );
-                byteCount += currentTransfer.length();
+
+                offset = 0L;
+                for (var message : messages) {
+                    if (message instanceof SpiBufferMessage buffer) {
+                        if (!buffer.readSegment().isNative()) {
+                            MemorySegment.copy(rxBuffer, offset, buffer.readSegment(), 0, message.length());
+                        }
+                    } else {
+                        MemorySegment.copy(rxBuffer, ValueLayout.JAVA_BYTE, offset, message.read(), message.readOffset(), message.length());
+                    }
+                    offset += message.length();
+                }
+                return byteCount;
             }
-            return byteCount;
         }
     }
 }
@@ -8,6 +8,7 @@ import io.github.iamnicknack.pjs.ffm.context.segment.MemorySegmentMapper;
 import io.github.iamnicknack.pjs.ffm.device.context.FileOperations;
 import io.github.iamnicknack.pjs.ffm.device.context.FileOperationsImpl;
 import io.github.iamnicknack.pjs.ffm.device.context.IoctlOperations;
+import io.github.iamnicknack.pjs.ffm.device.context.NativeDeviceScope;
 import io.github.iamnicknack.pjs.ffm.device.context.spi.SpiConstants;
 import io.github.iamnicknack.pjs.logging.LoggingSpi;
 
@@ -17,19 +18,30 @@ public class NativeSpiProvider implements SpiProvider {
 
     private final FileOperations fileOperations;
     private final IoctlOperations ioctlOperations;
-    private final MemorySegmentMapper memorySegmentMapper;
-    private final SegmentAllocator segmentAllocator;
+    private final NativeDeviceScope.Factory scopeFactory;
 
     public NativeSpiProvider(
             FileOperations fileOperations,
             IoctlOperations ioctlOperations,
             MemorySegmentMapper memorySegmentMapper,
             SegmentAllocator segmentAllocator
+    ) {
+        var scope = NativeDeviceScope.shared(ioctlOperations, segmentAllocator, memorySegmentMapper);
+        this(fileOperations, ioctlOperations, () -> scope);
+    }
+
+    /**
+     * Create a provider where each device uses native components from its own {@link NativeDeviceScope}
+     * @param scopeFactory creates the scope for each device
+     */
+    public NativeSpiProvider(
+            FileOperations fileOperations,
+            IoctlOperations ioctlOperations,
+            NativeDeviceScope.Factory scopeFactory
     ) {
         this.fileOperations = fileOperations;
         this.ioctlOperations = ioctlOperations;
-        this.memorySegmentMapper = memorySegmentMapper;
-        this.segmentAllocator = segmentAllocator;
+        this.scopeFactory = scopeFactory;
     }
 
     @Override
@@ -46,13 +58,7 @@ public class NativeSpiProvider implements SpiProvider {
         ioctlOperations.ioctl(spiFileDescriptor, SpiConstants.SPI_IOC_RD_LSB_FIRST, config.lsbFirst() ? 1 : 0);
         ioctlOperations.ioctl(spiFileDescriptor, SpiConstants.SPI_IOC_WR_LSB_FIRST, config.lsbFirst() ? 1 : 0);
 
-        return new NativeSpi(
-                config,
-                spiFileDescriptor,
-                ioctlOperations,
-                segmentAllocator,
-                memorySegmentMapper
-        );
+        return new NativeSpi(config, spiFileDescriptor, scopeFactory.create());
     }
 
     @Override
@@ -0,0 +1,207 @@
+package io.github.iamnicknack.pjs.ffm.device;
+
+import io.github.iamnicknack.pjs.ffm.device.context.SysfsAttribute;
+import io.github.iamnicknack.pjs.ffm.device.context.SysfsOperations;
+
+import java.util.ArrayList;
+
+import static io.github.iamnicknack.pjs.ffm.device.NativePwm.DUTY_CYCLE_PATH;
+import static io.github.iamnicknack.pjs.ffm.device.NativePwm.ENABLE_PATH;
+import static io.github.iamnicknack.pjs.ffm.device.NativePwm.PERIOD_PATH;
+import static io.github.iamnicknack.pjs.ffm.device.NativePwm.POLARITY_PATH;
+
+/**
+ * The sysfs attributes of an exported PWM channel.
+ * <p>
+ * The attributes are opened once and kept open until the channel is closed. The current value of each attribute is
+ * read when the channel is opened and then tracked as values are written, so writes of an unchanged value are
+ * skipped. A failed write clears the tracked value, so the next write is always attempted.
+ * </p>
+ * <p>
+ * {@link #apply(PwmState)} moves the channel to a new state with the fewest writes which keep each intermediate
+ * state valid for the driver:
+ * </p>
+ * <ul>
+ *     <li>The duty cycle never exceeds the period, so the order of period and duty cycle writes depends on whether
+ *     the period grows or shrinks. Neither requires the output to be disabled.</li>
+ *     <li>The polarity is only written while the output is disabled.</li>
+ *     <li>The output is disabled before other changes and enabled after them.</li>
+ * </ul>
+ */
+class PwmChannel implements AutoCloseable {
+
+    /**
+     * Cached value for an attribute in an unknown state
+     */
+    private static final long UNKNOWN = Long.MIN_VALUE;
+
+    private final SysfsAttribute enable;
+    private final SysfsAttribute period;
+    private final SysfsAttribute dutyCycle;
+    private final SysfsAttribute polarity;
+
+    private long enableValue = UNKNOWN;
+    private long periodValue = UNKNOWN;
+    private long dutyCycleValue = UNKNOWN;
+    private String polarityValue;
+
+    /**
+     * Open the attributes of the channel. If an attribute cannot be opened, those already opened are closed.
+     * @param channelOperations operations on the channel directory
+     */
+    PwmChannel(SysfsOperations channelOperations) {
+        var attributes = new ArrayList<SysfsAttribute>(4);
+        try {
+            attributes.add(channelOperations.openAttribute(ENABLE_PATH));
+            attributes.add(channelOperations.openAttribute(PERIOD_PATH));
+            attributes.add(channelOperations.openAttribute(DUTY_CYCLE_PATH));
+            attributes.add(channelOperations.openAttribute(POLARITY_PATH));
+        } catch (RuntimeException e) {
+            for (var attribute : attributes) {
+                try {
+                    attribute.close();
+                } catch (RuntimeException closeException) {
+                    e.addSuppressed(closeException);
+                }
+            }
+            throw e;
+        }
+        this.enable = attributes.get(0);
+        this.period = attributes.get(1);
+        this.dutyCycle = attributes.get(2);
+        this.polarity = attributes.get(3);
+        sync();
+    }
+
+    /**
+     * Read the current state of the channel. Values which cannot be read are treated as unknown.
+     */
+    void sync() {
+        enableValue = readOrUnknown(enable);
+        periodValue = readOrUnknown(period);
+        dutyCycleValue = readOrUnknown(dutyCycle);
+        try {
+            var value = polarity.readString();
+            polarityValue = value.isEmpty() ? null : value;
+        } catch (RuntimeException _) {
+            polarityValue = null;
+        }
+    }
+
+    /**
+     * Move the channel to the target state
+     * @param target the target state
+     */
+    void apply(PwmState target) {
+        var polarityChanged = !isPolarity(target.polarity());
+        if (enableValue != 0 && (!target.enabled() || polarityChanged)) {
+            writeEnabled(false);
+        }
+
+        if (periodValue == target.period()) {
+            writeDutyCycle(target.dutyCycle());
+        } else if (dutyCycleValue == UNKNOWN) {
+            // the current duty cycle may exceed either period
+            writeDutyCycle(0);
+            writePeriod(target.period());
+            writeDutyCycle(target.dutyCycle());
+        } else if (target.period() >= dutyCycleValue) {
+            writePeriod(target.period());
+            writeDutyCycle(target.dutyCycle());
+        } else {
+            // the new duty cycle is below the current one, which is no greater than the current period
+            writeDutyCycle(target.dutyCycle());
+            writePeriod(target.period());
+        }
+
+        if (polarityChanged) {
+            writePolarity(target.polarity());
+        }
+        if (target.enabled()) {
+            writeEnabled(true);
+        }
+    }
+
+    /**
+     * @return true if the value was written
+     */
+    boolean writeEnabled(boolean enabled) {
+        var value = enabled ? 1L : 0L;
+        if (enableValue == value) {
+            return false;
+        }
+        enableValue = UNKNOWN;
+        enable.writeLong(value);
+        enableValue = value;
+        return true;
+    }
+
+    /**
+     * @return true if the value was written
+     */
+    boolean writePeriod(long value) {
+        if (periodValue == value) {
+            return false;
+        }
+        periodValue = UNKNOWN;
+        period.writeLong(value);
+        periodValue = value;
+        return true;
+    }
+
+    /**
+     * @return true if the value was written
+     */
+    boolean writeDutyCycle(long value) {
+        if (dutyCycleValue == value) {
+            return false;
+        }
+        dutyCycleValue = UNKNOWN;
+        dutyCycle.writeLong(value);
+        dutyCycleValue = value;
+        return true;
+    }
+
+    /**
+     * @return true if the value was written
+     */
+    boolean writePolarity(String value) {
+        if (value.equals(polarityValue)) {
+            return false;
+        }
+        polarityValue = null;
+        polarity.writeString(value);
+        polarityValue = value;
+        return true;
+    }
+
+    /**
+     * Read the enabled state from the device
+     */
+    boolean readEnabled() {
+        return enable.readLong() == 1;
+    }
+
+    /**
+     * Check whether the value is known to be the current polarity
+     */
+    boolean isPolarity(String value) {
+        return value.equals(polarityValue);
+    }
+
+    private static long readOrUnknown(SysfsAttribute attribute) {
+        try {
+            return attribute.readLong();
+        } catch (RuntimeException _) {
+            return UNKNOWN;
+        }
+    }
+
+    @Override
+    public void close() {
+        enable.close();
+        period.close();
+        dutyCycle.close();
+        polarity.close();
+    }
+}
@@ -0,0 +1,24 @@
+package io.github.iamnicknack.pjs.ffm.device;
+
+/**
+ * Target state of a PWM channel
+ * @param period the period in nanoseconds
+ * @param dutyCycle the duty cycle in nanoseconds, no greater than the period
+ * @param polarity the sysfs polarity value
+ * @param enabled whether the output is enabled
+ */
+record PwmState(
+        long period,
+        long dutyCycle,
+        String polarity,
+        boolean enabled
+) {
+    PwmState {
+        if (dutyCycle < 0 || period < 0) {
+            throw new IllegalArgumentException("Period and duty cycle must not be negative: " + period + ", " + dutyCycle);
+        }
+        if (dutyCycle > period) {
+            throw new IllegalArgumentException("Duty cycle must not exceed period: " + dutyCycle + " > " + period);
+        }
+    }
+}
@@ -61,6 +61,30 @@ public interface FileOperations {
         return read(fd.fd(), offset, length, handler);
     }
 
+    /**
+     * Read from a file descriptor into a caller-provided MemorySegment.
+     * <p>
+     * Implementations should read directly into native segments. The default implementation copies from a
+     * temporary segment.
+     * </p>
+     * @param fd the file descriptor to read from
+     * @param buffer the segment to read into
+     * @param length the maximum number of bytes to read
+     * @return the number of bytes read
+     */
+    default int read(int fd, MemorySegment buffer, int length) {
+        return read(fd, 0, length, (segment, bytesRead) -> {
+            if (bytesRead > 0) {
+                MemorySegment.copy(segment, 0, buffer, 0, bytesRead);
+            }
+            return bytesRead;
+        });
+    }
+
+    default int read(FileDescriptor fd, MemorySegment buffer, int length) {
+        return read(fd.fd(), buffer, length);
+    }
+
     /**
      * Write to a file descriptor from a byte array.
      * @param fd the file descriptor to write to
@@ -75,6 +99,40 @@ public interface FileOperations {
         return write(fd.fd(), buffer, offset, count);
     }
 
+    /**
+     * Read from a file descriptor at the given file offset, without changing the file position.
+     * <p>
+     * Allows a file to be re-read without reopening it, e.g. a sysfs attribute.
+     * </p>
+     * @param fd the file descriptor to read from
+     * @param buffer the segment to read into
+     * @param length the maximum number of bytes to read
+     * @param offset the file offset to read from
+     * @return the number of bytes read
+     */
+    int pread(int fd, MemorySegment buffer, int length, long offset);
+
+    default int pread(FileDescriptor fd, MemorySegment buffer, int length, long offset) {
+        return pread(fd.fd(), buffer, length, offset);
+    }
+
+    /**
+     * Write to a file descriptor at the given file offset, without changing the file position.
+     * <p>
+     * Allows a file to be rewritten without reopening it, e.g. a sysfs attribute.
+     * </p>
+     * @param fd the file descriptor to write to
+     * @param buffer the segment to write from
+     * @param length the number of bytes to write
+     * @param offset the file offset to write at
+     * @return the number of bytes written
+     */
+    int pwrite(int fd, MemorySegment buffer, int length, long offset);
+
+    default int pwrite(FileDescriptor fd, MemorySegment buffer, int length, long offset) {
+        return pwrite(fd.fd(), buffer, length, offset);
+    }
+
     int access(String pathname, int mode);
 
     /**
@@ -111,6 +169,7 @@ public interface FileOperations {
         public static final int O_EXCL = 0x80;          // Error if O_CREAT and the file exists
         public static final int O_TRUNC = 0x200;        // Truncate file to zero length
         public static final int O_APPEND = 0x400;       // Append on each write
+        public static final int O_NONBLOCK = 0x800;     // Return EAGAIN rather than blocking
         public static final int O_CLOEXEC = 0x80000;    // Set close-on-exec flag
 
         public static final int F_OK = 0;               // Test for existence of file
@@ -152,6 +211,16 @@ public interface FileOperations {
             throw new UnsupportedOperationException();
         }
 
+        @Override
+        public int pread(int fd, MemorySegment buffer, int length, long offset) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int pwrite(int fd, MemorySegment buffer, int length, long offset) {
+            throw new UnsupportedOperationException();
+        }
+
         @Override
         public int access(String pathname, int mode) {
             throw new UnsupportedOperationException();
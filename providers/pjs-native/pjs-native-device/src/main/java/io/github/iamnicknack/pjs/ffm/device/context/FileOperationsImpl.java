@@ -2,6 +2,7 @@ package io.github.iamnicknack.pjs.ffm.device.context;
 
 import io.github.iamnicknack.pjs.ffm.context.NativeContext;
 import io.github.iamnicknack.pjs.ffm.context.method.MethodCaller;
+import io.github.iamnicknack.pjs.ffm.context.method.TypedMethodCaller;
 
 import java.lang.foreign.FunctionDescriptor;
 import java.lang.foreign.MemorySegment;
@@ -16,8 +17,10 @@ public class FileOperationsImpl implements FileOperations, SysfsOperationsFactor
     private final MethodCaller openCreate;
     private final MethodCaller open;
     private final MethodCaller close;
-    private final MethodCaller read;
-    private final MethodCaller write;
+    private final TypedMethodCaller.IntIntAddrInt read;
+    private final TypedMethodCaller.IntIntAddrInt write;
+    private final TypedMethodCaller.IntIntAddrIntLong pread;
+    private final TypedMethodCaller.IntIntAddrIntLong pwrite;
     private final MethodCaller access;
     private final MethodCaller fcntl;
 
@@ -43,18 +46,10 @@ public class FileOperationsImpl implements FileOperations, SysfsOperationsFactor
                 (methodHandle, capturedState, args) ->
                         (int)methodHandle.invokeExact(capturedState, (int)args[0])
         );
-        this.read = methodCallerFactory.createCapturedState(
-                "read",
-                Descriptors.READ,
-                (methodHandle, capturedState, args) ->
-                        (int)methodHandle.invokeExact(capturedState, (int)args[0], (MemorySegment)args[1], (int)args[2])
-        );
-        this.write = methodCallerFactory.createCapturedState(
-                "write",
-                Descriptors.WRITE,
-                (methodHandle, capturedState, args) ->
-                        (int)methodHandle.invokeExact(capturedState, (int)args[0], (MemorySegment)args[1], (int)args[2])
-        );
+        this.read = methodCallerFactory.createIntIntAddrInt("read", Descriptors.READ);
+        this.write = methodCallerFactory.createIntIntAddrInt("write", Descriptors.WRITE);
+        this.pread = methodCallerFactory.createIntIntAddrIntLong("pread", Descriptors.PREAD);
+        this.pwrite = methodCallerFactory.createIntIntAddrIntLong("pwrite", Descriptors.PWRITE);
         this.access = methodCallerFactory.createNonCapture(
                 "access",
                 Descriptors.ACCESS,
@@ -103,15 +98,46 @@ public class FileOperationsImpl implements FileOperations, SysfsOperationsFactor
     @Override
     public <T> T read(int fd, int offset, int length, BiFunction<MemorySegment, Integer, T> handler) {
         var buf = segmentAllocator.allocate(ValueLayout.JAVA_BYTE, length);
-        int bytesRead = (int) read.call(fd, buf, length);
+        int bytesRead = read.call(fd, buf, length);
         return handler.apply(buf, bytesRead);
     }
 
+    @Override
+    public int read(int fd, MemorySegment buffer, int length) {
+        if (!buffer.isNative()) {
+            return FileOperations.super.read(fd, buffer, length);
+        }
+        return read.call(fd, buffer, length);
+    }
+
     @Override
     public int write(int fd, byte[] buffer, int offset, int count) {
         var segment = segmentAllocator.allocate(count);
         segment.asByteBuffer().put(buffer, offset, count);
-        return (int) write.call(fd, segment, count);
+        return write.call(fd, segment, count);
+    }
+
+    @Override
+    public int pread(int fd, MemorySegment buffer, int length, long offset) {
+        if (!buffer.isNative()) {
+            var segment = segmentAllocator.allocate(length);
+            var bytesRead = pread.call(fd, segment, length, offset);
+            if (bytesRead > 0) {
+                MemorySegment.copy(segment, 0, buffer, 0, bytesRead);
+            }
+            return bytesRead;
+        }
+        return pread.call(fd, buffer, length, offset);
+    }
+
+    @Override
+    public int pwrite(int fd, MemorySegment buffer, int length, long offset) {
+        if (!buffer.isNative()) {
+            var segment = segmentAllocator.allocate(length);
+            MemorySegment.copy(buffer, 0, segment, 0, length);
+            return pwrite.call(fd, segment, length, offset);
+        }
+        return pwrite.call(fd, buffer, length, offset);
     }
 
     @Override
@@ -176,6 +202,22 @@ public class FileOperationsImpl implements FileOperations, SysfsOperationsFactor
                 ValueLayout.JAVA_INT   // size_t count
         );
 
+        static final FunctionDescriptor PREAD = FunctionDescriptor.of(
+                ValueLayout.JAVA_INT,  // return type (ssize_t)
+                ValueLayout.JAVA_INT,  // int fd
+                ValueLayout.ADDRESS,   // void *buf
+                ValueLayout.JAVA_INT,  // size_t count
+                ValueLayout.JAVA_LONG  // off_t offset
+        );
+
+        static final FunctionDescriptor PWRITE = FunctionDescriptor.of(
+                ValueLayout.JAVA_INT,  // return type (ssize_t)
+                ValueLayout.JAVA_INT,  // int fd
+                ValueLayout.ADDRESS,   // const void *buf
+                ValueLayout.JAVA_INT,  // size_t count
+                ValueLayout.JAVA_LONG  // off_t offset
+        );
+
         static final FunctionDescriptor ACCESS = FunctionDescriptor.of(
                 ValueLayout.JAVA_INT,
                 ValueLayout.ADDRESS,
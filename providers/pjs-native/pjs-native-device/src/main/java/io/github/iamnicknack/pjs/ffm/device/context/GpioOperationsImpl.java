@@ -6,19 +6,39 @@ import io.github.iamnicknack.pjs.ffm.device.context.gpio.ChipInfo;
 import io.github.iamnicknack.pjs.ffm.device.context.gpio.GpioConstants;
 import io.github.iamnicknack.pjs.ffm.device.context.gpio.LineInfo;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.IntStream;
 
 public class GpioOperationsImpl implements GpioOperations {
 
     private final FileOperations fileOperations;
     private final IoctlOperations ioctlOperations;
+    private final boolean cacheLines;
+    private final Map<String, LineInfoCache> lineInfoCaches = new ConcurrentHashMap<>();
 
     public GpioOperationsImpl(
             FileOperations fileOperations,
             IoctlOperations ioctlOperations
+    ) {
+        this(fileOperations, ioctlOperations, false);
+    }
+
+    /**
+     * Constructor.
+     * @param fileOperations file operations
+     * @param ioctlOperations ioctl operations
+     * @param cacheLines true to serve line info from a watching {@link LineInfoCache} for each chip, rather than
+     *                   opening the chip and reading each line on every call
+     */
+    public GpioOperationsImpl(
+            FileOperations fileOperations,
+            IoctlOperations ioctlOperations,
+            boolean cacheLines
     ) {
         this.fileOperations = fileOperations;
         this.ioctlOperations = ioctlOperations;
+        this.cacheLines = cacheLines;
     }
 
     public GpioOperationsImpl(NativeContext nativeContext) {
@@ -35,8 +55,24 @@ public class GpioOperationsImpl implements GpioOperations {
         }
     }
 
+    /**
+     * Get the line metadata for a chip. A single instance, holding a single chip file descriptor, is kept for each
+     * chip. The cache watches lines if line caching is enabled.
+     * @param chipInfo the chip
+     * @return the line metadata for the chip
+     */
+    public LineInfoCache lineInfoCache(ChipInfo chipInfo) {
+        return lineInfoCaches.computeIfAbsent(
+                chipInfo.getPath(),
+                _ -> new LineInfoCache(chipInfo, fileOperations, ioctlOperations, cacheLines)
+        );
+    }
+
     @Override
     public Iterable<LineInfo> lines(ChipInfo chipInfo) {
+        if (cacheLines) {
+            return lineInfoCache(chipInfo).lines();
+        }
         try (var fd = fileOperations.openFd(chipInfo.getPath(), Flags.O_RDONLY | Flags.O_CLOEXEC)) {
             return IntStream.range(0, chipInfo.lines())
                     .mapToObj(line -> ioctlOperations.ioctl(
@@ -51,6 +87,9 @@ public class GpioOperationsImpl implements GpioOperations {
 
     @Override
     public LineInfo lineInfo(ChipInfo chipInfo, int offset) {
+        if (cacheLines) {
+            return lineInfoCache(chipInfo).lineInfo(offset);
+        }
         try (var fd = fileOperations.openFd(chipInfo.getPath(), Flags.O_RDONLY | Flags.O_CLOEXEC)) {
             return ioctlOperations.ioctl(
                     fd,
@@ -1,5 +1,7 @@
 package io.github.iamnicknack.pjs.ffm.device.context;
 
+import io.github.iamnicknack.pjs.ffm.context.segment.Codec;
+
 public interface IoctlOperations {
     /**
      * Perform an ioctl operation with an integer argument passed by reference.
@@ -29,6 +31,23 @@ public interface IoctlOperations {
         return ioctl(fd.fd(), command, data, type);
     }
 
+    /**
+     * Perform an ioctl read/write-like operation using a codec resolved in advance by the caller.
+     * @param fd the spi device file descriptor
+     * @param command the ioctl command
+     * @param data the data to pass
+     * @param codec the codec for the data
+     * @return data modified by the ioctl call
+     * @param <T> the type of data
+     */
+    default <T> T ioctl(int fd, long command, T data, Codec<T> codec) {
+        return ioctl(fd, command, data, codec.type());
+    }
+
+    default <T> T ioctl(FileDescriptor fd, long command, T data, Codec<T> codec) {
+        return ioctl(fd.fd(), command, data, codec);
+    }
+
     /**
      * Perform an ioctl read/write-like operation with arbitrary data passed by reference.
      * @param fd the spi device file descriptor
@@ -1,12 +1,11 @@
 package io.github.iamnicknack.pjs.ffm.device.context;
 
 import io.github.iamnicknack.pjs.ffm.context.NativeContext;
-import io.github.iamnicknack.pjs.ffm.context.method.MethodCaller;
-import io.github.iamnicknack.pjs.ffm.context.method.MethodCallerFactory;
+import io.github.iamnicknack.pjs.ffm.context.method.TypedMethodCaller;
+import io.github.iamnicknack.pjs.ffm.context.segment.Codec;
 import io.github.iamnicknack.pjs.ffm.context.segment.MemorySegmentMapper;
 
 import java.lang.foreign.FunctionDescriptor;
-import java.lang.foreign.MemorySegment;
 import java.lang.foreign.SegmentAllocator;
 import java.lang.foreign.ValueLayout;
 
@@ -15,12 +14,12 @@ import static io.github.iamnicknack.pjs.ffm.device.context.IoctlOperationsImpl.D
 public class IoctlOperationsImpl implements IoctlOperations {
 
     private final SegmentAllocator segmentAllocator;
-    private final MethodCaller ioctlIntByReference;
+    private final TypedMethodCaller.IntIntLongAddr ioctlIntByReference;
     private final MemorySegmentMapper memorySegmentMapper;
 
     public IoctlOperationsImpl(
             SegmentAllocator segmentAllocator,
-            MethodCaller ioctlIntByReference,
+            TypedMethodCaller.IntIntLongAddr ioctlIntByReference,
             MemorySegmentMapper memorySegmentMapper
     ) {
         this.segmentAllocator = segmentAllocator;
@@ -29,10 +28,8 @@ public class IoctlOperationsImpl implements IoctlOperations {
     }
 
     public IoctlOperationsImpl(NativeContext nativeContext) {
-        MethodCallerFactory.InvocationWithCapturedState invocation = (methodHandle, capturedState, args) ->
-                (int)methodHandle.invokeExact(capturedState, (int)args[0], (long)args[1], (MemorySegment)args[2]);
-        MethodCaller methodCaller = nativeContext.getMethodCallerFactory()
-                .createCapturedState("ioctl", IOCTL_INT_BY_REFERENCE, invocation);
+        var methodCaller = nativeContext.getMethodCallerFactory()
+                .createIntIntLongAddr("ioctl", IOCTL_INT_BY_REFERENCE);
 
         this(nativeContext.getSegmentAllocator(), methodCaller, nativeContext.getMemorySegmentMapper());
     }
@@ -47,9 +44,14 @@ public class IoctlOperationsImpl implements IoctlOperations {
 
     @Override
     public <T> T ioctl(int fd, long command, T data, Class<T> type) {
-        var dataMemorySegment = memorySegmentMapper.segment(data, type);
+        return ioctl(fd, command, data, memorySegmentMapper.codec(type));
+    }
+
+    @Override
+    public <T> T ioctl(int fd, long command, T data, Codec<T> codec) {
+        var dataMemorySegment = codec.serialize(data);
         ioctlIntByReference.call(fd, command, dataMemorySegment);
-        return memorySegmentMapper.value(dataMemorySegment, type);
+        return codec.deserialize(dataMemorySegment);
     }
 
     @SuppressWarnings("unchecked")
@@ -60,9 +62,10 @@ public class IoctlOperationsImpl implements IoctlOperations {
 
     @Override
     public <T> T ioctl(int fd, long command, Class<T> type) {
-        var data = segmentAllocator.allocate(memorySegmentMapper.layout(type));
+        var codec = memorySegmentMapper.codec(type);
+        var data = segmentAllocator.allocate(codec.layout());
         ioctlIntByReference.call(fd, command, data);
-        return memorySegmentMapper.value(data, type);
+        return codec.deserialize(data);
     }
 
     static class Descriptors {
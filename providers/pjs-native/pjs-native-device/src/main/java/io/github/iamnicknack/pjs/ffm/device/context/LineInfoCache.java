@@ -0,0 +1,258 @@
+package io.github.iamnicknack.pjs.ffm.device.context;
+
+import io.github.iamnicknack.pjs.ffm.context.method.CapturedStateWrapper;
+import io.github.iamnicknack.pjs.ffm.device.context.FileOperations.Flags;
+import io.github.iamnicknack.pjs.ffm.device.context.gpio.ChipInfo;
+import io.github.iamnicknack.pjs.ffm.device.context.gpio.GpioConstants;
+import io.github.iamnicknack.pjs.ffm.device.context.gpio.LineInfo;
+import io.github.iamnicknack.pjs.ffm.device.context.gpio.LineInfoChanged;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Line metadata for a GPIO chip, read over a single long-lived chip file descriptor.
+ * <p>
+ * When watching is enabled, each line is read with {@link GpioConstants#GPIO_V2_GET_LINEINFO_WATCH_IOCTL} the first
+ * time it is requested and is then served from the cache. The kernel reports requests, releases and reconfiguration
+ * of watched lines as {@link LineInfoChanged} events on the chip file descriptor, which is opened non-blocking.
+ * Pending events are applied before each lookup, so cached entries follow changes made by this and other processes
+ * without a monitoring thread.
+ * </p>
+ * <p>
+ * Coherence is best-effort. The kernel queues change events in a small per-descriptor FIFO and drops events when it
+ * is full, without notifying the reader. When a single drain reads enough events that the FIFO may have overflowed,
+ * every cached entry is re-read. Callers which find an entry contradicted by the kernel, such as a line request
+ * failing with {@code EBUSY}, should {@link #refresh(int) refresh} it.
+ * </p>
+ * <p>
+ * Without watching, entries cannot be kept coherent, so each lookup reads the line from the kernel. The chip file
+ * descriptor is still shared between lookups.
+ * </p>
+ * <p>
+ * Closing the cache closes the chip file descriptor and discards the entries. Subsequent lookups reopen the chip.
+ * </p>
+ */
+public class LineInfoCache implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(LineInfoCache.class);
+
+    private static final int EAGAIN = 11;
+
+    /**
+     * Number of change events read from the chip in a single call
+     */
+    private static final int CHANGE_BUFFER_EVENTS = 16;
+
+    /**
+     * Capacity of the kernel's lineinfo change FIFO for a chip file descriptor. Events beyond this are dropped.
+     */
+    private static final int KERNEL_FIFO_EVENTS = 32;
+
+    private final ChipInfo chipInfo;
+    private final FileOperations fileOperations;
+    private final IoctlOperations ioctlOperations;
+    private final boolean watch;
+    private final LineInfoChanged.Deserializer changeDeserializer = new LineInfoChanged.Deserializer();
+
+    // guarded by this
+    private final Map<Integer, LineInfo> lines = new HashMap<>();
+    private @Nullable FileDescriptor chipFd;
+    private @Nullable Arena arena;
+    private @Nullable MemorySegment changeBuffer;
+
+    /**
+     * Constructor.
+     * @param chipInfo the chip
+     * @param fileOperations file operations used to open the chip and read change events
+     * @param ioctlOperations ioctl operations used to read line info
+     * @param watch true to cache line info and keep it coherent with change events
+     */
+    public LineInfoCache(
+            ChipInfo chipInfo,
+            FileOperations fileOperations,
+            IoctlOperations ioctlOperations,
+            boolean watch
+    ) {
+        this.chipInfo = chipInfo;
+        this.fileOperations = fileOperations;
+        this.ioctlOperations = ioctlOperations;
+        this.watch = watch;
+    }
+
+    /**
+     * The chip described by this cache
+     */
+    public ChipInfo chipInfo() {
+        return chipInfo;
+    }
+
+    /**
+     * Check whether line info is cached and kept coherent with change events
+     */
+    public boolean isWatching() {
+        return watch;
+    }
+
+    /**
+     * Get the chip file descriptor, opening it on first use. The descriptor is owned by the cache and must not be
+     * closed by the caller.
+     */
+    public synchronized FileDescriptor chipFd() {
+        if (chipFd == null) {
+            var flags = Flags.O_RDWR | Flags.O_CLOEXEC | (watch ? Flags.O_NONBLOCK : 0);
+            chipFd = fileOperations.openFd(chipInfo.getPath(), flags);
+            logger.debug("Opened chip {} on fd {}", chipInfo.name(), chipFd.fd());
+        }
+        return chipFd;
+    }
+
+    /**
+     * Get info for a single line
+     * @param offset the offset of the line
+     * @return the line info
+     */
+    public synchronized LineInfo lineInfo(int offset) {
+        if (!watch) {
+            return read(offset);
+        }
+        applyChanges();
+        var lineInfo = lines.get(offset);
+        if (lineInfo == null) {
+            lineInfo = read(offset);
+            lines.put(offset, lineInfo);
+        }
+        return lineInfo;
+    }
+
+    /**
+     * Get info for all lines on the chip. When watching, lines which have not been read are loaded together and
+     * later calls are served from the cache.
+     * @return line info ordered by offset
+     */
+    public synchronized List<LineInfo> lines() {
+        if (watch) {
+            applyChanges();
+        }
+        var result = new ArrayList<LineInfo>(chipInfo.lines());
+        for (int offset = 0; offset < chipInfo.lines(); offset++) {
+            var lineInfo = watch ? lines.get(offset) : null;
+            if (lineInfo == null) {
+                lineInfo = read(offset);
+                if (watch) {
+                    lines.put(offset, lineInfo);
+                }
+            }
+            result.add(lineInfo);
+        }
+        return List.copyOf(result);
+    }
+
+    /**
+     * Discard the entry for a line and read it from the kernel again. Use this when the entry is suspected to be
+     * stale, as change events may have been dropped.
+     * @param offset the offset of the line
+     * @return the current line info
+     */
+    public synchronized LineInfo refresh(int offset) {
+        if (!watch) {
+            return read(offset);
+        }
+        if (lines.remove(offset) == null) {
+            // not yet watched, so the watch is registered with the read
+            return lineInfo(offset);
+        }
+        // the line is still watched, and a second watch request would fail with EBUSY
+        var lineInfo = readUnwatched(offset);
+        lines.put(offset, lineInfo);
+        return lineInfo;
+    }
+
+    /**
+     * Close the chip file descriptor, which also removes the watches, and discard cached line info
+     */
+    @Override
+    public synchronized void close() {
+        lines.clear();
+        if (chipFd != null) {
+            chipFd.close();
+            chipFd = null;
+        }
+        if (arena != null) {
+            arena.close();
+            arena = null;
+            changeBuffer = null;
+        }
+    }
+
+    private LineInfo read(int offset) {
+        return ioctlOperations.ioctl(
+                chipFd(),
+                watch ? GpioConstants.GPIO_V2_GET_LINEINFO_WATCH_IOCTL : GpioConstants.GPIO_V2_GET_LINEINFO_IOCTL,
+                LineInfo.ofOffset(offset),
+                LineInfo.class
+        );
+    }
+
+    private LineInfo readUnwatched(int offset) {
+        return ioctlOperations.ioctl(
+                chipFd(),
+                GpioConstants.GPIO_V2_GET_LINEINFO_IOCTL,
+                LineInfo.ofOffset(offset),
+                LineInfo.class
+        );
+    }
+
+    /**
+     * Read pending change events from the chip and update the affected entries. If enough events were pending that
+     * the kernel may have dropped some, all entries are re-read.
+     */
+    private void applyChanges() {
+        if (chipFd == null) {
+            // nothing is watched until the chip has been opened
+            return;
+        }
+        if (changeBuffer == null) {
+            arena = Arena.ofShared();
+            changeBuffer = arena.allocate(LineInfoChanged.LAYOUT, CHANGE_BUFFER_EVENTS);
+        }
+        var eventSize = LineInfoChanged.LAYOUT.byteSize();
+        var drained = 0;
+        while (true) {
+            int bytesRead;
+            try {
+                bytesRead = fileOperations.read(chipFd, changeBuffer, (int) changeBuffer.byteSize());
+            } catch (CapturedStateWrapper.CapturedStateException e) {
+                if (e.getErrno() == EAGAIN) {
+                    break;
+                }
+                throw e;
+            }
+            var events = (int) (bytesRead / eventSize);
+            for (int index = 0; index < events; index++) {
+                var change = changeDeserializer.deserialize(changeBuffer.asSlice(index * eventSize, eventSize));
+                logger.debug("Line {} changed on chip {}, event type {}",
+                        change.info().offset(),
+                        chipInfo.name(),
+                        change.eventType()
+                );
+                lines.put(change.info().offset(), change.info());
+            }
+            drained += events;
+            if (events < CHANGE_BUFFER_EVENTS) {
+                break;
+            }
+        }
+        if (drained >= KERNEL_FIFO_EVENTS) {
+            logger.debug("Read {} change events on chip {}, events may have been dropped", drained, chipInfo.name());
+            lines.replaceAll((offset, _) -> readUnwatched(offset));
+        }
+    }
+}
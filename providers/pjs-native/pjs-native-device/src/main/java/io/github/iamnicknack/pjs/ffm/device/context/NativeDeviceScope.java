@@ -0,0 +1,102 @@
+package io.github.iamnicknack.pjs.ffm.device.context;
+
+import io.github.iamnicknack.pjs.ffm.context.ScratchNativeContext;
+import io.github.iamnicknack.pjs.ffm.context.segment.MemorySegmentMapper;
+import io.github.iamnicknack.pjs.ffm.context.segment.MemorySegmentMapperImpl;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.SegmentAllocator;
+
+/**
+ * Native components owned by a single device.
+ * <p>
+ * Devices call {@link #reset()} at the start of each operation and {@link #close()} when the device is closed.
+ * A {@link #shared} scope uses components common to the registry and leaves memory management to the garbage
+ * collector. A {@link #scratch} scope owns an arena which is reused by every operation on the device.
+ * </p>
+ */
+public interface NativeDeviceScope extends AutoCloseable {
+
+    IoctlOperations ioctlOperations();
+
+    SegmentAllocator segmentAllocator();
+
+    MemorySegmentMapper memorySegmentMapper();
+
+    /**
+     * Make memory allocated by previous operations available for reuse
+     */
+    default void reset() {}
+
+    /**
+     * Release any native memory owned by this scope
+     */
+    @Override
+    default void close() {}
+
+    /**
+     * Create a scope using the provided common components
+     */
+    static NativeDeviceScope shared(
+            IoctlOperations ioctlOperations,
+            SegmentAllocator segmentAllocator,
+            MemorySegmentMapper memorySegmentMapper
+    ) {
+        return new Shared(ioctlOperations, segmentAllocator, memorySegmentMapper);
+    }
+
+    /**
+     * Create a scope using the provided ioctl implementation and an auto arena
+     */
+    static NativeDeviceScope shared(IoctlOperations ioctlOperations) {
+        var segmentAllocator = Arena.ofAuto();
+        return new Shared(ioctlOperations, segmentAllocator, new MemorySegmentMapperImpl(segmentAllocator));
+    }
+
+    /**
+     * Create a scope which allocates all native memory from the provided context
+     */
+    static NativeDeviceScope scratch(ScratchNativeContext nativeContext) {
+        return new Scratch(nativeContext, new IoctlOperationsImpl(nativeContext));
+    }
+
+    /**
+     * Creates a new scope for each device
+     */
+    @FunctionalInterface
+    interface Factory {
+        NativeDeviceScope create();
+    }
+
+    record Shared(
+            IoctlOperations ioctlOperations,
+            SegmentAllocator segmentAllocator,
+            MemorySegmentMapper memorySegmentMapper
+    ) implements NativeDeviceScope {}
+
+    record Scratch(
+            ScratchNativeContext nativeContext,
+            IoctlOperations ioctlOperations
+    ) implements NativeDeviceScope {
+
+        @Override
+        public SegmentAllocator segmentAllocator() {
+            return nativeContext.getSegmentAllocator();
+        }
+
+        @Override
+        public MemorySegmentMapper memorySegmentMapper() {
+            return nativeContext.getMemorySegmentMapper();
+        }
+
+        @Override
+        public void reset() {
+            nativeContext.reset();
+        }
+
+        @Override
+        public void close() {
+            nativeContext.close();
+        }
+    }
+}
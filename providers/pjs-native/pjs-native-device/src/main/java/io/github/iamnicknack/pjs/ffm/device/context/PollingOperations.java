@@ -2,19 +2,44 @@ package io.github.iamnicknack.pjs.ffm.device.context;
 
 import io.github.iamnicknack.pjs.ffm.device.context.gpio.Poll;
 
+import java.lang.foreign.MemorySegment;
+import java.util.Set;
+
 /**
  * Native operations for event polling
  * <p>
- * The current specification states that only a single file descriptor can be passed and therefore requires
- * that multiple file descriptors require multiple calls to poll and consequently multiple threads.
+ * {@link #poll(Poll, int)} monitors a single file descriptor and therefore requires a call, and consequently a
+ * thread, per file descriptor. The epoll operations allow any number of file descriptors to be monitored from a
+ * single thread.
  * </p>
  * <p>
- * An optimisation could be to allow multiple file descriptors per poll request and monitor all in the same
- * thread. TBD
+ * Only {@link #poll(Poll, int)} is required. The remaining operations are optional, and are only called when listed
+ * by {@link #capabilities()}.
  * </p>
  */
 public interface PollingOperations {
 
+    int EPOLL_CTL_ADD = 1;
+    int EPOLL_CTL_DEL = 2;
+    int EPOLL_CTL_MOD = 3;
+
+    /**
+     * The optional operations implemented
+     * @return the supported capabilities, empty by default
+     */
+    default Set<Capability> capabilities() {
+        return Set.of();
+    }
+
+    /**
+     * Whether an optional operation is implemented
+     * @param capability the capability
+     * @return true if the operations of the capability may be called
+     */
+    default boolean supports(Capability capability) {
+        return capabilities().contains(capability);
+    }
+
     /**
      * Native call to `poll`. Implementations of this function will only ever pass a single file descriptor.
      * @param poll request data
@@ -22,4 +47,85 @@ public interface PollingOperations {
      * @return poll structure with `revents` set
      */
     Poll poll(Poll poll, int timeout);
+
+    /**
+     * Native call to `poll` over an array of {@link Poll} structs. The `revents` field of each struct is updated
+     * in place.
+     * @param pollFds segment containing the poll structs
+     * @param count the number of structs
+     * @param timeout timeout in milliseconds, or -1 to wait indefinitely
+     * @return the number of structs with non-zero `revents`
+     * @see Capability#POLL_MULTIPLE
+     */
+    default int poll(MemorySegment pollFds, int count, int timeout) {
+        throw unsupported(Capability.POLL_MULTIPLE);
+    }
+
+    /**
+     * Native call to `eventfd` with `EFD_CLOEXEC | EFD_NONBLOCK`. Used to wake threads blocked in
+     * {@link #poll(MemorySegment, int, int)} or {@link #epollWait(int, MemorySegment, int, int)}.
+     * @return the event file descriptor
+     * @see Capability#EVENT_FD
+     */
+    default int eventFd() {
+        throw unsupported(Capability.EVENT_FD);
+    }
+
+    /**
+     * Native call to `epoll_create1` with `EPOLL_CLOEXEC`
+     * @return the epoll file descriptor
+     * @see Capability#EPOLL
+     */
+    default int epollCreate() {
+        throw unsupported(Capability.EPOLL);
+    }
+
+    /**
+     * Native call to `epoll_ctl`
+     * @param epollFd the epoll file descriptor
+     * @param op one of {@link #EPOLL_CTL_ADD}, {@link #EPOLL_CTL_DEL} or {@link #EPOLL_CTL_MOD}
+     * @param fd the file descriptor to add, remove or modify
+     * @param events the events to monitor. Ignored for {@link #EPOLL_CTL_DEL}
+     * @see Capability#EPOLL
+     */
+    default void epollCtl(int epollFd, int op, int fd, int events) {
+        throw unsupported(Capability.EPOLL);
+    }
+
+    /**
+     * Native call to `epoll_wait`
+     * @param epollFd the epoll file descriptor
+     * @param events segment to receive ready {@link io.github.iamnicknack.pjs.ffm.device.context.gpio.EpollEvent}
+     *               structs
+     * @param maxEvents the maximum number of events to return
+     * @param timeout timeout in milliseconds, or -1 to wait indefinitely
+     * @return the number of ready file descriptors
+     * @see Capability#EPOLL
+     */
+    default int epollWait(int epollFd, MemorySegment events, int maxEvents, int timeout) {
+        throw unsupported(Capability.EPOLL);
+    }
+
+    private IllegalStateException unsupported(Capability capability) {
+        return new IllegalStateException(capability + " is not supported by " + getClass().getSimpleName());
+    }
+
+    /**
+     * Optional groups of operations
+     */
+    enum Capability {
+        /**
+         * {@link #poll(MemorySegment, int, int)}
+         */
+        POLL_MULTIPLE,
+        /**
+         * {@link #eventFd()}
+         */
+        EVENT_FD,
+        /**
+         * {@link #epollCreate()}, {@link #epollCtl(int, int, int, int)} and
+         * {@link #epollWait(int, MemorySegment, int, int)}
+         */
+        EPOLL
+    }
 }
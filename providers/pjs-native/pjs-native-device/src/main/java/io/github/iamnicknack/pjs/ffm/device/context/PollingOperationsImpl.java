@@ -2,44 +2,113 @@ package io.github.iamnicknack.pjs.ffm.device.context;
 
 import io.github.iamnicknack.pjs.ffm.context.NativeContext;
 import io.github.iamnicknack.pjs.ffm.context.method.MethodCaller;
+import io.github.iamnicknack.pjs.ffm.context.method.MethodCallerFactory;
+import io.github.iamnicknack.pjs.ffm.context.method.TypedMethodCaller;
+import io.github.iamnicknack.pjs.ffm.context.segment.Codec;
 import io.github.iamnicknack.pjs.ffm.context.segment.MemorySegmentMapper;
+import io.github.iamnicknack.pjs.ffm.device.context.gpio.EpollEvent;
 import io.github.iamnicknack.pjs.ffm.device.context.gpio.Poll;
 
+import java.lang.foreign.Arena;
 import java.lang.foreign.FunctionDescriptor;
 import java.lang.foreign.MemorySegment;
 import java.lang.foreign.ValueLayout;
+import java.util.EnumSet;
+import java.util.Set;
 
 public class PollingOperationsImpl implements PollingOperations {
 
-    private final MethodCaller pollCaller;
-    private final MemorySegmentMapper memorySegmentMapper;
+    private static final int EPOLL_CLOEXEC = 0x80000;
+    private static final int EFD_CLOEXEC = 0x80000;
+    private static final int EFD_NONBLOCK = 0x800;
+
+    private final TypedMethodCaller.IntAddrIntInt pollCaller;
+    private final Codec<Poll> pollCodec;
+
+    private final MethodCaller epollCreate;
+    private final MethodCaller epollCtl;
+    private final MethodCaller epollWait;
+    private final MethodCaller eventFd;
 
     public PollingOperationsImpl(NativeContext nativeContext) {
         this(
-                nativeContext.getMethodCallerFactory()
-                        .createCapturedState(
-                                "poll",
-                                Descriptors.POLL,
-                                (methodHandle, capturedState, args) ->
-                                        (int)methodHandle.invokeExact(capturedState, (MemorySegment)args[0], (int)args[1], (int)args[2])
-                        ),
+                nativeContext.getMethodCallerFactory(),
                 nativeContext.getMemorySegmentMapper()
         );
     }
 
     public PollingOperationsImpl(
-            MethodCaller pollCaller,
+            MethodCallerFactory methodCallerFactory,
             MemorySegmentMapper memorySegmentMapper
     ) {
-        this.pollCaller = pollCaller;
-        this.memorySegmentMapper = memorySegmentMapper;
+        this.pollCaller = methodCallerFactory.createIntAddrIntInt("poll", Descriptors.POLL);
+        this.pollCodec = memorySegmentMapper.codec(Poll.class);
+        this.epollCreate = methodCallerFactory.createCapturedState(
+                "epoll_create1",
+                Descriptors.EPOLL_CREATE1,
+                (methodHandle, capturedState, args) ->
+                        (int)methodHandle.invokeExact(capturedState, (int)args[0])
+        );
+        this.epollCtl = methodCallerFactory.createCapturedState(
+                "epoll_ctl",
+                Descriptors.EPOLL_CTL,
+                (methodHandle, capturedState, args) ->
+                        (int)methodHandle.invokeExact(capturedState, (int)args[0], (int)args[1], (int)args[2], (MemorySegment)args[3])
+        );
+        this.epollWait = methodCallerFactory.createCapturedState(
+                "epoll_wait",
+                Descriptors.EPOLL_WAIT,
+                (methodHandle, capturedState, args) ->
+                        (int)methodHandle.invokeExact(capturedState, (int)args[0], (MemorySegment)args[1], (int)args[2], (int)args[3])
+        );
+        this.eventFd = methodCallerFactory.createCapturedState(
+                "eventfd",
+                Descriptors.EVENTFD,
+                (methodHandle, capturedState, args) ->
+                        (int)methodHandle.invokeExact(capturedState, (int)args[0], (int)args[1])
+        );
+    }
+
+    @Override
+    public Set<Capability> capabilities() {
+        return EnumSet.allOf(Capability.class);
     }
 
     @Override
     public Poll poll(Poll poll, int timeout) {
-        var dataMemorySegment = memorySegmentMapper.segment(poll, Poll.class);
+        var dataMemorySegment = pollCodec.serialize(poll);
         this.pollCaller.call(dataMemorySegment, 1,  timeout);
-        return memorySegmentMapper.value(dataMemorySegment, Poll.class);
+        return pollCodec.deserialize(dataMemorySegment);
+    }
+
+    @Override
+    public int poll(MemorySegment pollFds, int count, int timeout) {
+        return pollCaller.call(pollFds, count, timeout);
+    }
+
+    @Override
+    public int eventFd() {
+        return (int)eventFd.call(0, EFD_CLOEXEC | EFD_NONBLOCK);
+    }
+
+    @Override
+    public int epollCreate() {
+        return (int)epollCreate.call(EPOLL_CLOEXEC);
+    }
+
+    @Override
+    public void epollCtl(int epollFd, int op, int fd, int events) {
+        // registration is infrequent, so the event struct is allocated per call
+        try (var arena = Arena.ofConfined()) {
+            var event = arena.allocate(EpollEvent.LAYOUT);
+            new EpollEvent.Serializer(arena).serializeInto(new EpollEvent(events, fd), event);
+            epollCtl.call(epollFd, op, fd, event);
+        }
+    }
+
+    @Override
+    public int epollWait(int epollFd, MemorySegment events, int maxEvents, int timeout) {
+        return (int)epollWait.call(epollFd, events, maxEvents, timeout);
     }
 
     static class Descriptors {
@@ -49,5 +118,32 @@ public class PollingOperationsImpl implements PollingOperations {
                 ValueLayout.JAVA_INT,   // poll data count
                 ValueLayout.JAVA_INT    // timeout
         );
+
+        static final FunctionDescriptor EPOLL_CREATE1 = FunctionDescriptor.of(
+                ValueLayout.JAVA_INT,   // return value
+                ValueLayout.JAVA_INT    // flags
+        );
+
+        static final FunctionDescriptor EPOLL_CTL = FunctionDescriptor.of(
+                ValueLayout.JAVA_INT,   // return value
+                ValueLayout.JAVA_INT,   // epoll fd
+                ValueLayout.JAVA_INT,   // operation
+                ValueLayout.JAVA_INT,   // target fd
+                ValueLayout.ADDRESS     // pointer to epoll_event
+        );
+
+        static final FunctionDescriptor EPOLL_WAIT = FunctionDescriptor.of(
+                ValueLayout.JAVA_INT,   // return value
+                ValueLayout.JAVA_INT,   // epoll fd
+                ValueLayout.ADDRESS,    // pointer to epoll_event array
+                ValueLayout.JAVA_INT,   // max events
+                ValueLayout.JAVA_INT    // timeout
+        );
+
+        static final FunctionDescriptor EVENTFD = FunctionDescriptor.of(
+                ValueLayout.JAVA_INT,   // return value
+                ValueLayout.JAVA_INT,   // initial value
+                ValueLayout.JAVA_INT    // flags
+        );
     }
 }
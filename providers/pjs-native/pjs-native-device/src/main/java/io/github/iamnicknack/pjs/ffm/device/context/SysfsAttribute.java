@@ -0,0 +1,22 @@
+package io.github.iamnicknack.pjs.ffm.device.context;
+
+/**
+ * Handle to a single sysfs attribute which can be written and read repeatedly.
+ * @see SysfsOperations#openAttribute(String)
+ */
+public interface SysfsAttribute extends AutoCloseable {
+
+    void writeLong(long value);
+
+    long readLong();
+
+    void writeString(String value);
+
+    String readString();
+
+    /**
+     * Release the attribute. Closing does not throw.
+     */
+    @Override
+    void close();
+}
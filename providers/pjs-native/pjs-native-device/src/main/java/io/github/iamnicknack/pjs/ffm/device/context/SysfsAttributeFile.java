@@ -0,0 +1,159 @@
+package io.github.iamnicknack.pjs.ffm.device.context;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * {@link SysfsAttribute} which keeps the attribute file open.
+ * <p>
+ * Values are written with {@code pwrite} at offset 0 from a native buffer owned by the attribute, and numbers are
+ * formatted and parsed in that buffer, so writing a number does not allocate. Sysfs regenerates an attribute on each
+ * read at offset 0, so reads use {@code pread} in the same way.
+ * </p>
+ */
+public class SysfsAttributeFile implements SysfsAttribute {
+
+    /**
+     * Buffer size, which fits any {@code long} and the short strings used by sysfs attributes
+     */
+    static final int BUFFER_SIZE = 32;
+
+    private static final byte[] LONG_MIN_VALUE = Long.toString(Long.MIN_VALUE).getBytes(StandardCharsets.US_ASCII);
+
+    private final FileOperations fileOperations;
+    private final FileDescriptor fileDescriptor;
+    private final Arena arena = Arena.ofShared();
+    private final MemorySegment buffer = arena.allocate(BUFFER_SIZE);
+
+    /**
+     * Open the attribute for reading and writing
+     * @param fileOperations file operations
+     * @param pathname the path of the attribute file
+     */
+    public SysfsAttributeFile(FileOperations fileOperations, String pathname) {
+        this.fileOperations = fileOperations;
+        var flags = FileOperations.Flags.O_RDWR | FileOperations.Flags.O_CLOEXEC;
+        try {
+            this.fileDescriptor = fileOperations.openFd(pathname, flags);
+        } catch (RuntimeException e) {
+            // the buffer is allocated before the file is opened
+            arena.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public synchronized void writeLong(long value) {
+        write(format(buffer, value));
+    }
+
+    @Override
+    public synchronized long readLong() {
+        return parse(buffer, read());
+    }
+
+    @Override
+    public synchronized void writeString(String value) {
+        var bytes = value.getBytes(StandardCharsets.US_ASCII);
+        if (bytes.length > BUFFER_SIZE) {
+            throw new IllegalArgumentException("Value too long for sysfs attribute: " + value);
+        }
+        MemorySegment.copy(bytes, 0, buffer, ValueLayout.JAVA_BYTE, 0, bytes.length);
+        write(bytes.length);
+    }
+
+    @Override
+    public synchronized String readString() {
+        var length = read();
+        var bytes = new byte[length];
+        MemorySegment.copy(buffer, ValueLayout.JAVA_BYTE, 0, bytes, 0, length);
+        return new String(bytes, StandardCharsets.US_ASCII).trim();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (arena.scope().isAlive()) {
+            fileDescriptor.close();
+            arena.close();
+        }
+    }
+
+    private void write(int length) {
+        var written = fileOperations.pwrite(fileDescriptor, buffer, length, 0);
+        if (written != length) {
+            throw new IllegalStateException("Short write to sysfs attribute: " + written + " of " + length + " bytes");
+        }
+    }
+
+    private int read() {
+        return Math.max(0, fileOperations.pread(fileDescriptor, buffer, BUFFER_SIZE, 0));
+    }
+
+    /**
+     * Format a value as ASCII decimal
+     * @param segment the segment to write into, of at least 20 bytes
+     * @param value the value to format
+     * @return the number of bytes written
+     */
+    static int format(MemorySegment segment, long value) {
+        if (value == Long.MIN_VALUE) {
+            MemorySegment.copy(LONG_MIN_VALUE, 0, segment, ValueLayout.JAVA_BYTE, 0, LONG_MIN_VALUE.length);
+            return LONG_MIN_VALUE.length;
+        }
+        var start = 0;
+        var remaining = value;
+        if (value < 0) {
+            segment.set(ValueLayout.JAVA_BYTE, 0, (byte) '-');
+            start = 1;
+            remaining = -value;
+        }
+        var digits = 1;
+        for (var bound = 10L; digits < 19 && remaining >= bound; bound *= 10) {
+            digits++;
+        }
+        for (int index = start + digits - 1; index >= start; index--) {
+            segment.set(ValueLayout.JAVA_BYTE, index, (byte) ('0' + (remaining % 10)));
+            remaining /= 10;
+        }
+        return start + digits;
+    }
+
+    /**
+     * Parse an ASCII decimal value, ignoring surrounding whitespace
+     * @param segment the segment to read from
+     * @param length the number of bytes available
+     * @return the parsed value
+     */
+    static long parse(MemorySegment segment, int length) {
+        var index = 0;
+        while (index < length && Character.isWhitespace(segment.get(ValueLayout.JAVA_BYTE, index))) {
+            index++;
+        }
+        var negative = index < length && segment.get(ValueLayout.JAVA_BYTE, index) == '-';
+        if (negative) {
+            index++;
+        }
+        var start = index;
+        var value = 0L;
+        while (index < length) {
+            var digit = segment.get(ValueLayout.JAVA_BYTE, index) - '0';
+            if (digit < 0 || digit > 9) {
+                break;
+            }
+            value = (value * 10) - digit;
+            index++;
+        }
+        if (index == start) {
+            throw new NumberFormatException("No digits in sysfs attribute value");
+        }
+        while (index < length && Character.isWhitespace(segment.get(ValueLayout.JAVA_BYTE, index))) {
+            index++;
+        }
+        if (index != length) {
+            throw new NumberFormatException("Unexpected character in sysfs attribute value");
+        }
+        return negative ? value : -value;
+    }
+}
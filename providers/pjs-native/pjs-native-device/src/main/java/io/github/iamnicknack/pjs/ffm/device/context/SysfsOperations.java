@@ -19,6 +19,44 @@ public interface SysfsOperations {
 
     boolean exists(String path);
 
+    /**
+     * Open an attribute for repeated access.
+     * <p>
+     * The default implementation delegates to the path-based operations of this instance. Implementations should
+     * override this to keep the attribute file open.
+     * </p>
+     * @param path the attribute path, relative to the device
+     * @return the attribute, which must be closed by the caller
+     */
+    default SysfsAttribute openAttribute(String path) {
+        return new SysfsAttribute() {
+            @Override
+            public void writeLong(long value) {
+                SysfsOperations.this.writeLong(path, value);
+            }
+
+            @Override
+            public long readLong() {
+                return SysfsOperations.this.readLong(path);
+            }
+
+            @Override
+            public void writeString(String value) {
+                SysfsOperations.this.writeString(path, value);
+            }
+
+            @Override
+            public String readString() {
+                return SysfsOperations.this.readString(path).trim();
+            }
+
+            @Override
+            public void close() {
+                // nothing to release
+            }
+        };
+    }
+
     default void writeString(String path, String value) {
         write(path, value.getBytes());
     }
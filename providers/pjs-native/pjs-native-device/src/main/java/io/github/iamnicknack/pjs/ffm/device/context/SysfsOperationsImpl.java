@@ -38,6 +38,17 @@ public class SysfsOperationsImpl implements SysfsOperations {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The attribute file is kept open until the attribute is closed.
+     * </p>
+     */
+    @Override
+    public SysfsAttribute openAttribute(String path) {
+        return new SysfsAttributeFile(fileOperations, devicePath.resolve(path).toString());
+    }
+
     @Override
     public boolean exists() {
         return Files.exists(devicePath);
@@ -0,0 +1,114 @@
+package io.github.iamnicknack.pjs.ffm.device.context.gpio;
+
+import io.github.iamnicknack.pjs.ffm.context.segment.DeserializeUsing;
+import io.github.iamnicknack.pjs.ffm.context.segment.MemorySegmentDeserializer;
+import io.github.iamnicknack.pjs.ffm.context.segment.MemorySegmentSerializer;
+import io.github.iamnicknack.pjs.ffm.context.segment.SerializeUsing;
+
+import java.lang.foreign.MemoryLayout;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.SegmentAllocator;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.VarHandle;
+
+import static java.lang.foreign.MemoryLayout.PathElement.groupElement;
+
+/**
+ * Data for epoll registrations and ready events.
+ * <p>
+ * The 64-bit user data field carries the file descriptor being monitored. The struct is packed on x86-64 and
+ * naturally aligned on all other architectures.
+ * </p>
+ * @param events mask of requested or ready events
+ * @param fd the file descriptor stored in the user data field
+ * @see <a href="https://man7.org/linux/man-pages/man2/epoll_ctl.2.html">man epoll_ctl</a>
+ */
+@SerializeUsing(EpollEvent.Serializer.class)
+@DeserializeUsing(EpollEvent.Deserializer.class)
+public record EpollEvent(
+        int events,
+        int fd
+) {
+    public static final MemoryLayout LAYOUT = isPacked()
+            ? MemoryLayout.structLayout(
+                    ValueLayout.JAVA_INT.withName("events"),
+                    ValueLayout.JAVA_LONG_UNALIGNED.withName("data")
+            )
+            : MemoryLayout.structLayout(
+                    ValueLayout.JAVA_INT.withName("events"),
+                    MemoryLayout.paddingLayout(4),
+                    ValueLayout.JAVA_LONG.withName("data")
+            );
+
+    private static final VarHandle VH_EVENTS = LAYOUT.varHandle(groupElement("events"));
+    private static final VarHandle VH_DATA = LAYOUT.varHandle(groupElement("data"));
+
+    /**
+     * Read the ready event mask of the element at the given index
+     */
+    public static int events(MemorySegment segment, int index) {
+        return (int) VH_EVENTS.get(segment, index * LAYOUT.byteSize());
+    }
+
+    /**
+     * Read the file descriptor of the element at the given index
+     */
+    public static int fd(MemorySegment segment, int index) {
+        return (int) (long) VH_DATA.get(segment, index * LAYOUT.byteSize());
+    }
+
+    private static boolean isPacked() {
+        var arch = System.getProperty("os.arch");
+        return arch.equals("amd64") || arch.equals("x86_64");
+    }
+
+    public static class Serializer implements MemorySegmentSerializer<EpollEvent> {
+        private final SegmentAllocator segmentAllocator;
+
+        public Serializer(SegmentAllocator segmentAllocator) {
+            this.segmentAllocator = segmentAllocator;
+        }
+
+        @Override
+        public MemoryLayout layout() {
+            return LAYOUT;
+        }
+
+        @Override
+        public MemorySegment serialize(EpollEvent data) {
+            var segment = segmentAllocator.allocate(LAYOUT);
+            serializeInto(data, segment);
+            return segment;
+        }
+
+        @Override
+        public void serializeInto(EpollEvent data, MemorySegment segment) {
+            VH_EVENTS.set(segment, 0L, data.events);
+            VH_DATA.set(segment, 0L, (long) data.fd);
+        }
+    }
+
+    public static class Deserializer implements MemorySegmentDeserializer<EpollEvent> {
+        @Override
+        public MemoryLayout layout() {
+            return LAYOUT;
+        }
+
+        @Override
+        public EpollEvent deserialize(MemorySegment segment) {
+            return new EpollEvent(events(segment, 0), fd(segment, 0));
+        }
+    }
+
+    public enum Flags {
+        EPOLLIN(0x0001),
+        EPOLLERR(0x0008),
+        EPOLLHUP(0x0010);
+
+        public final int value;
+
+        Flags(int value) {
+            this.value = value;
+        }
+    }
+}
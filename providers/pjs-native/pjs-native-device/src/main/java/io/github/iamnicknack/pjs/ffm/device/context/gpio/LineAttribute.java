@@ -74,6 +74,46 @@ public record LineAttribute(
             groupElement("debounce_period_us")
     );
 
+    /**
+     * Read the attribute id of a {@link #LAYOUT} struct in place
+     * @param segment the segment containing the struct
+     * @param offset the byte offset of the struct within the segment
+     * @return the attribute id
+     */
+    static Id id(MemorySegment segment, long offset) {
+        return Id.fromId((int) VH_ID.get(segment, offset));
+    }
+
+    /**
+     * Read the attribute value of a {@link #LAYOUT} struct in place, interpreting the union according to its id
+     * @param segment the segment containing the struct
+     * @param offset the byte offset of the struct within the segment
+     * @return the attribute value
+     */
+    static long value(MemorySegment segment, long offset) {
+        return switch (id(segment, offset)) {
+            case FLAGS -> (long) VH_FLAGS.get(segment, offset);
+            case VALUES -> (long) VH_VALUES.get(segment, offset);
+            case DEBOUNCE_PERIOD_US -> (int) VH_DEBOUNCE.get(segment, offset);
+        };
+    }
+
+    /**
+     * Write a {@link #LAYOUT} struct in place
+     * @param segment the segment containing the struct
+     * @param offset the byte offset of the struct within the segment
+     * @param id the attribute id
+     * @param value the attribute value
+     */
+    static void set(MemorySegment segment, long offset, Id id, long value) {
+        VH_ID.set(segment, offset, id.id);
+        switch (id) {
+            case FLAGS -> VH_FLAGS.set(segment, offset, value);
+            case VALUES -> VH_VALUES.set(segment, offset, value);
+            case DEBOUNCE_PERIOD_US -> VH_DEBOUNCE.set(segment, offset, (int) value);
+        }
+    }
+
     public static class Serializer implements MemorySegmentSerializer<LineAttribute> {
 
         private final SegmentAllocator segmentAllocator;
@@ -90,14 +130,14 @@ public record LineAttribute(
         @Override
         public MemorySegment serialize(LineAttribute data) {
             var segment = segmentAllocator.allocate(LAYOUT);
-            VH_ID.set(segment, 0L, data.id.id);
-            switch (data.id) {
-                case FLAGS -> VH_FLAGS.set(segment, 0L, data.value);
-                case VALUES -> VH_VALUES.set(segment, 0L, data.value);
-                case DEBOUNCE_PERIOD_US -> VH_DEBOUNCE.set(segment, 0L, (int)data.value);
-            }
+            serializeInto(data, segment);
             return segment;
         }
+
+        @Override
+        public void serializeInto(LineAttribute data, MemorySegment segment) {
+            set(segment, 0L, data.id, data.value);
+        }
     }
 
     public static class Deserializer implements MemorySegmentDeserializer<LineAttribute> {
@@ -109,15 +149,7 @@ public record LineAttribute(
 
         @Override
         public LineAttribute deserialize(MemorySegment segment) {
-            var id = Id.fromId((int) VH_ID.get(segment, 0L));
-            return new LineAttribute(
-                    id,
-                    switch (id) {
-                        case FLAGS -> (long) VH_FLAGS.get(segment, 0L);
-                        case VALUES -> (long) VH_VALUES.get(segment, 0L);
-                        case DEBOUNCE_PERIOD_US -> (int)VH_DEBOUNCE.get(segment, 0L);
-                    }
-            );
+            return new LineAttribute(id(segment, 0L), value(segment, 0L));
         }
     }
 
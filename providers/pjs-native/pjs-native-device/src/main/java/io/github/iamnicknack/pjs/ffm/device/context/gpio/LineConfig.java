@@ -9,9 +9,9 @@ import java.lang.foreign.MemoryLayout;
 import java.lang.foreign.MemorySegment;
 import java.lang.foreign.SegmentAllocator;
 import java.lang.foreign.ValueLayout;
-import java.lang.invoke.MethodHandle;
 import java.lang.invoke.VarHandle;
 import java.util.Arrays;
+import java.util.Objects;
 
 import static java.lang.foreign.MemoryLayout.PathElement.groupElement;
 
@@ -52,19 +52,112 @@ public record LineConfig(
             MemoryLayout.sequenceLayout(10, LineConfigAttribute.LAYOUT).withName("attrs")
     );
 
+    /**
+     * Maximum number of attributes in a {@code gpio_v2_line_config}
+     */
+    public static final int MAX_ATTRIBUTES = 10;
+
     private static final VarHandle VH_FLAGS = LAYOUT.varHandle(groupElement("flags"));
     private static final VarHandle VH_NUM_ATTRS = LAYOUT.varHandle(groupElement("num_attrs"));
-    private static final MethodHandle MH_ATTRS = LAYOUT.sliceHandle(groupElement("attrs"));
+    private static final long ATTRS_OFFSET = LAYOUT.byteOffset(groupElement("attrs"));
+
+    /**
+     * Flyweight view of a {@code gpio_v2_line_config} struct, allowing flags and attributes to be updated in place
+     */
+    public static final class View {
+        private MemorySegment segment;
+        private long offset;
+
+        public View() {
+            this(MemorySegment.NULL, 0L);
+        }
+
+        public View(MemorySegment segment) {
+            this(segment, 0L);
+        }
+
+        public View(MemorySegment segment, long offset) {
+            this.segment = segment;
+            this.offset = offset;
+        }
+
+        /**
+         * Point this view at a struct
+         * @param segment the segment containing the struct
+         * @param offset the byte offset of the struct within the segment
+         * @return this view
+         */
+        public View wrap(MemorySegment segment, long offset) {
+            this.segment = segment;
+            this.offset = offset;
+            return this;
+        }
 
+        public long flags() {
+            return (long) VH_FLAGS.get(segment, offset);
+        }
+
+        public View flags(long flags) {
+            VH_FLAGS.set(segment, offset, flags);
+            return this;
+        }
+
+        public int numAttributes() {
+            return (int) VH_NUM_ATTRS.get(segment, offset);
+        }
+
+        public View numAttributes(int numAttributes) {
+            VH_NUM_ATTRS.set(segment, offset, numAttributes);
+            return this;
+        }
+
+        public LineAttribute.Id attributeId(int index) {
+            return LineConfigAttribute.id(segment, attributeOffset(index));
+        }
+
+        public long attributeValue(int index) {
+            return LineConfigAttribute.value(segment, attributeOffset(index));
+        }
+
+        public long attributeMask(int index) {
+            return LineConfigAttribute.mask(segment, attributeOffset(index));
+        }
+
+        /**
+         * Write the attribute at the given index. The attribute count is not changed.
+         * @param index the attribute index
+         * @param id the attribute id
+         * @param value the attribute value
+         * @param mask the lines to which the attribute applies
+         * @return this view
+         */
+        public View attribute(int index, LineAttribute.Id id, long value, long mask) {
+            LineConfigAttribute.set(segment, attributeOffset(index), id, value, mask);
+            return this;
+        }
+
+        public LineConfig toRecord() {
+            var attributes = new LineConfigAttribute[numAttributes()];
+            for (int i = 0; i < attributes.length; i++) {
+                attributes[i] = new LineConfigAttribute(
+                        new LineAttribute(attributeId(i), attributeValue(i)),
+                        attributeMask(i)
+                );
+            }
+            return new LineConfig(flags(), attributes);
+        }
+
+        private long attributeOffset(int index) {
+            return offset + ATTRS_OFFSET + Objects.checkIndex(index, MAX_ATTRIBUTES) * LineConfigAttribute.LAYOUT.byteSize();
+        }
+    }
 
     public static class Serializer implements MemorySegmentSerializer<LineConfig> {
 
         private final SegmentAllocator segmentAllocator;
-        private final LineConfigAttribute.Serializer attributeSerializer;
 
         public Serializer(SegmentAllocator segmentAllocator) {
             this.segmentAllocator = segmentAllocator;
-            this.attributeSerializer = new LineConfigAttribute.Serializer(segmentAllocator);
         }
 
         @Override
@@ -74,32 +167,24 @@ public record LineConfig(
 
         @Override
         public MemorySegment serialize(LineConfig data) {
-            try {
-                var segment = segmentAllocator.allocate(LAYOUT);
-
-                VH_FLAGS.set(segment, 0L, data.flags);
-                VH_NUM_ATTRS.set(segment, 0, data.attributes.length);
-
-                var attrsSegment = (MemorySegment) MH_ATTRS.invoke(segment, 0L);
-                for (int i = 0; i < data.attributes.length; i++) {
-                    var attrSlice = attrsSegment.asSlice(i * LineConfigAttribute.LAYOUT.byteSize(), LineConfigAttribute.LAYOUT.byteSize());
-                    var attrSegment = attributeSerializer.serialize(data.attributes[i]);
-                    attrSlice.copyFrom(attrSegment);
-                }
-
-                return segment;
-            } catch (Throwable e) {
-                throw new RuntimeException(e);
+            var segment = segmentAllocator.allocate(LAYOUT);
+            serializeInto(data, segment);
+            return segment;
+        }
+
+        @Override
+        public void serializeInto(LineConfig data, MemorySegment segment) {
+            var view = new View(segment)
+                    .flags(data.flags)
+                    .numAttributes(data.attributes.length);
+            for (int i = 0; i < data.attributes.length; i++) {
+                var attribute = data.attributes[i];
+                view.attribute(i, attribute.lineAttribute().id(), attribute.lineAttribute().value(), attribute.mask());
             }
         }
     }
 
     public static class Deserializer implements MemorySegmentDeserializer<LineConfig> {
-        private final LineConfigAttribute.Deserializer attributeDeserializer;
-
-        public Deserializer() {
-            this.attributeDeserializer = new LineConfigAttribute.Deserializer();
-        }
 
         @Override
         public MemoryLayout layout() {
@@ -108,21 +193,7 @@ public record LineConfig(
 
         @Override
         public LineConfig deserialize(MemorySegment segment) {
-            try {
-                long flags = (long) VH_FLAGS.get(segment, 0L);
-                int numAttributes = (int) VH_NUM_ATTRS.get(segment, 0);
-
-                var attrsSegment = (MemorySegment) MH_ATTRS.invoke(segment, 0L);
-                LineConfigAttribute[] attributes = new LineConfigAttribute[numAttributes];
-                for (int i = 0; i < numAttributes; i++) {
-                    var attrSlice = attrsSegment.asSlice(i * LineConfigAttribute.LAYOUT.byteSize(), LineConfigAttribute.LAYOUT.byteSize());
-                    attributes[i] = attributeDeserializer.deserialize(attrSlice);
-                }
-
-                return new LineConfig(flags, attributes);
-            } catch (Throwable e) {
-                throw new RuntimeException(e);
-            }
+            return new View(segment).toRecord();
         }
     }
 }
@@ -34,14 +34,45 @@ public record LineConfigAttribute(
             MemoryLayout.PathElement.groupElement("mask")
     );
 
+    /**
+     * Read the attribute id of a {@link #LAYOUT} struct in place
+     */
+    static LineAttribute.Id id(MemorySegment segment, long offset) {
+        return LineAttribute.id(segment, offset + LINE_ATTRIBUTE_OFFSET);
+    }
+
+    /**
+     * Read the attribute value of a {@link #LAYOUT} struct in place
+     */
+    static long value(MemorySegment segment, long offset) {
+        return LineAttribute.value(segment, offset + LINE_ATTRIBUTE_OFFSET);
+    }
+
+    /**
+     * Read the line mask of a {@link #LAYOUT} struct in place
+     */
+    static long mask(MemorySegment segment, long offset) {
+        return (long) MASK_HANDLE.get(segment, offset);
+    }
+
+    /**
+     * Write a {@link #LAYOUT} struct in place
+     * @param segment the segment containing the struct
+     * @param offset the byte offset of the struct within the segment
+     * @param id the attribute id
+     * @param value the attribute value
+     * @param mask the lines to which the attribute applies
+     */
+    static void set(MemorySegment segment, long offset, LineAttribute.Id id, long value, long mask) {
+        LineAttribute.set(segment, offset + LINE_ATTRIBUTE_OFFSET, id, value);
+        MASK_HANDLE.set(segment, offset, mask);
+    }
 
     public static class Serializer implements MemorySegmentSerializer<LineConfigAttribute> {
         private final SegmentAllocator segmentAllocator;
-        private final LineAttribute.Serializer lineAttributeSerializer;
 
         public Serializer(SegmentAllocator segmentAllocator) {
             this.segmentAllocator = segmentAllocator;
-            this.lineAttributeSerializer = new LineAttribute.Serializer(segmentAllocator);
         }
 
         @Override
@@ -52,23 +83,17 @@ public record LineConfigAttribute(
         @Override
         public MemorySegment serialize(LineConfigAttribute data) {
             var segment = segmentAllocator.allocate(LAYOUT);
-            var lineAttrSegment = lineAttributeSerializer.serialize(data.lineAttribute);
-            MemorySegment.copy(
-                    lineAttrSegment, 0,
-                    segment, LINE_ATTRIBUTE_OFFSET,
-                    LineAttribute.LAYOUT.byteSize()
-            );
-            MASK_HANDLE.set(segment, 0L, data.mask);
+            serializeInto(data, segment);
             return segment;
         }
+
+        @Override
+        public void serializeInto(LineConfigAttribute data, MemorySegment segment) {
+            set(segment, 0L, data.lineAttribute.id(), data.lineAttribute.value(), data.mask);
+        }
     }
 
     public static class Deserializer implements MemorySegmentDeserializer<LineConfigAttribute> {
-        private final LineAttribute.Deserializer lineAttributeDeserializer;
-
-        public Deserializer() {
-            this.lineAttributeDeserializer = new LineAttribute.Deserializer();
-        }
 
         @Override
         public MemoryLayout layout() {
@@ -77,10 +102,7 @@ public record LineConfigAttribute(
 
         @Override
         public LineConfigAttribute deserialize(MemorySegment segment) {
-            var lineAttrSegment = segment.asSlice(LINE_ATTRIBUTE_OFFSET, LineAttribute.LAYOUT.byteSize());
-            var lineAttribute = lineAttributeDeserializer.deserialize(lineAttrSegment);
-            var mask = (long) MASK_HANDLE.get(segment, 0L);
-            return new LineConfigAttribute(lineAttribute, mask);
+            return new LineConfigAttribute(new LineAttribute(id(segment, 0L), value(segment, 0L)), mask(segment, 0L));
         }
     }
 
@@ -47,6 +47,76 @@ public record LineEvent(
     private static final VarHandle VH_LINE_SEQNO = LAYOUT.varHandle(groupElement("line_seqno"));
 
 
+    /**
+     * Flyweight view of a {@code gpio_v2_line_event} struct.
+     * <p>
+     * Reads fields directly from a kernel-filled buffer without creating a {@link LineEvent}. A single view can be
+     * moved across an array of events with {@link #wrap(MemorySegment, long)}.
+     * </p>
+     */
+    public static final class View {
+        private MemorySegment segment;
+        private long offset;
+
+        public View() {
+            this(MemorySegment.NULL, 0L);
+        }
+
+        public View(MemorySegment segment) {
+            this(segment, 0L);
+        }
+
+        public View(MemorySegment segment, long offset) {
+            this.segment = segment;
+            this.offset = offset;
+        }
+
+        /**
+         * Point this view at a struct
+         * @param segment the segment containing the struct
+         * @param offset the byte offset of the struct within the segment
+         * @return this view
+         */
+        public View wrap(MemorySegment segment, long offset) {
+            this.segment = segment;
+            this.offset = offset;
+            return this;
+        }
+
+        public long timestampNs() {
+            return (long) VH_TIMESTAMP_NS.get(segment, offset);
+        }
+
+        public int id() {
+            return (int) VH_ID.get(segment, offset);
+        }
+
+        public int offset() {
+            return (int) VH_OFFSET.get(segment, offset);
+        }
+
+        public int seqno() {
+            return (int) VH_SEQNO.get(segment, offset);
+        }
+
+        public int lineSeqno() {
+            return (int) VH_LINE_SEQNO.get(segment, offset);
+        }
+
+        public View set(long timestampNs, int id, int lineOffset, int seqno, int lineSeqno) {
+            VH_TIMESTAMP_NS.set(segment, offset, timestampNs);
+            VH_ID.set(segment, offset, id);
+            VH_OFFSET.set(segment, offset, lineOffset);
+            VH_SEQNO.set(segment, offset, seqno);
+            VH_LINE_SEQNO.set(segment, offset, lineSeqno);
+            return this;
+        }
+
+        public LineEvent toRecord() {
+            return new LineEvent(timestampNs(), id(), offset(), seqno(), lineSeqno());
+        }
+    }
+
     public static class Serializer implements MemorySegmentSerializer<LineEvent> {
         private final SegmentAllocator segmentAllocator;
 
@@ -62,13 +132,14 @@ public record LineEvent(
         @Override
         public MemorySegment serialize(LineEvent data) {
             var segment = segmentAllocator.allocate(LAYOUT);
-            VH_TIMESTAMP_NS.set(segment, 0L, data.timestampNs);
-            VH_ID.set(segment, 0L, data.id);
-            VH_OFFSET.set(segment, 0L, data.offset);
-            VH_SEQNO.set(segment, 0L, data.seqno);
-            VH_LINE_SEQNO.set(segment, 0L, data.lineSeqno);
+            serializeInto(data, segment);
             return segment;
         }
+
+        @Override
+        public void serializeInto(LineEvent data, MemorySegment segment) {
+            new View(segment).set(data.timestampNs, data.id, data.offset, data.seqno, data.lineSeqno);
+        }
     }
 
     public static class Deserializer implements MemorySegmentDeserializer<LineEvent> {
@@ -80,12 +151,7 @@ public record LineEvent(
 
         @Override
         public LineEvent deserialize(MemorySegment segment) {
-            var timestampNs = (long) VH_TIMESTAMP_NS.get(segment, 0L);
-            var id = (int) VH_ID.get(segment, 0L);
-            var offset = (int) VH_OFFSET.get(segment, 0L);
-            var seqno = (int) VH_SEQNO.get(segment, 0L);
-            var lineSeqno = (int) VH_LINE_SEQNO.get(segment, 0L);
-            return new LineEvent(timestampNs, id, offset, seqno, lineSeqno);
+            return new View(segment).toRecord();
         }
     }
 }
@@ -11,9 +11,9 @@ import java.lang.foreign.MemoryLayout;
 import java.lang.foreign.MemorySegment;
 import java.lang.foreign.SegmentAllocator;
 import java.lang.foreign.ValueLayout;
-import java.lang.invoke.MethodHandle;
 import java.lang.invoke.VarHandle;
 import java.util.Arrays;
+import java.util.Objects;
 
 import static java.lang.foreign.MemoryLayout.PathElement.groupElement;
 
@@ -44,12 +44,14 @@ public record LineInfo(
         MemoryLayout.sequenceLayout(4, ValueLayout.JAVA_INT).withName("padding")
     );
 
-    private static final MethodHandle MH_NAME = LAYOUT.sliceHandle(groupElement("name"));
-    private static final MethodHandle MH_CONSUMER = LAYOUT.sliceHandle(groupElement("consumer"));
+    private static final long NAME_OFFSET = LAYOUT.byteOffset(groupElement("name"));
+    private static final long CONSUMER_OFFSET = LAYOUT.byteOffset(groupElement("consumer"));
+    private static final long STRING_LENGTH = 32;
     private static final VarHandle VH_OFFSET = LAYOUT.varHandle(groupElement("offset"));
     private static final VarHandle VH_NUM_ATTRS = LAYOUT.varHandle(groupElement("num_attrs"));
     private static final VarHandle VH_FLAGS = LAYOUT.varHandle(groupElement("flags"));
-    private static final MethodHandle MH_ATTRS = LAYOUT.sliceHandle(groupElement("attrs"));
+    private static final long ATTRS_OFFSET = LAYOUT.byteOffset(groupElement("attrs"));
+    private static final int MAX_ATTRIBUTES = 10;
 
     @Override
     public boolean equals(Object obj) {
@@ -59,13 +61,117 @@ public record LineInfo(
         return offset == that.offset && flags == that.flags && Arrays.equals(attrs, that.attrs);
     }
 
+    /**
+     * Flyweight view of a {@code gpio_v2_line_info} struct.
+     * <p>
+     * Numeric fields are read in place. The name and consumer strings are only decoded when requested.
+     * </p>
+     */
+    public static final class View {
+        private MemorySegment segment;
+        private long offset;
+
+        public View() {
+            this(MemorySegment.NULL, 0L);
+        }
+
+        public View(MemorySegment segment) {
+            this(segment, 0L);
+        }
+
+        public View(MemorySegment segment, long offset) {
+            this.segment = segment;
+            this.offset = offset;
+        }
+
+        /**
+         * Point this view at a struct
+         * @param segment the segment containing the struct
+         * @param offset the byte offset of the struct within the segment
+         * @return this view
+         */
+        public View wrap(MemorySegment segment, long offset) {
+            this.segment = segment;
+            this.offset = offset;
+            return this;
+        }
+
+        public String name() {
+            return segment.asSlice(offset + NAME_OFFSET, STRING_LENGTH).getString(0L).trim();
+        }
+
+        public View name(String name) {
+            segment.asSlice(offset + NAME_OFFSET, STRING_LENGTH).setString(0L, name);
+            return this;
+        }
+
+        public String consumer() {
+            return segment.asSlice(offset + CONSUMER_OFFSET, STRING_LENGTH).getString(0L).trim();
+        }
+
+        public View consumer(String consumer) {
+            segment.asSlice(offset + CONSUMER_OFFSET, STRING_LENGTH).setString(0L, consumer);
+            return this;
+        }
+
+        public int offset() {
+            return (int) VH_OFFSET.get(segment, offset);
+        }
+
+        public View offset(int lineOffset) {
+            VH_OFFSET.set(segment, offset, lineOffset);
+            return this;
+        }
+
+        public long flags() {
+            return (long) VH_FLAGS.get(segment, offset);
+        }
+
+        public View flags(long flags) {
+            VH_FLAGS.set(segment, offset, flags);
+            return this;
+        }
+
+        public int numAttributes() {
+            return (int) VH_NUM_ATTRS.get(segment, offset);
+        }
+
+        public View numAttributes(int numAttributes) {
+            VH_NUM_ATTRS.set(segment, offset, numAttributes);
+            return this;
+        }
+
+        public LineAttribute.Id attributeId(int index) {
+            return LineAttribute.id(segment, attributeOffset(index));
+        }
+
+        public long attributeValue(int index) {
+            return LineAttribute.value(segment, attributeOffset(index));
+        }
+
+        public View attribute(int index, LineAttribute.Id id, long value) {
+            LineAttribute.set(segment, attributeOffset(index), id, value);
+            return this;
+        }
+
+        public LineInfo toRecord() {
+            var attrs = new LineAttribute[numAttributes()];
+            for (int i = 0; i < attrs.length; i++) {
+                attrs[i] = new LineAttribute(attributeId(i), attributeValue(i));
+            }
+            return new LineInfo(name(), consumer(), offset(), flags(), attrs);
+        }
+
+        private long attributeOffset(int index) {
+            return offset + ATTRS_OFFSET + Objects.checkIndex(index, MAX_ATTRIBUTES) * LineAttribute.LAYOUT.byteSize();
+        }
+    }
+
     public static class Serializer implements MemorySegmentSerializer<LineInfo> {
         private final SegmentAllocator segmentAllocator;
-        private final LineAttribute.Serializer lineAttributeSerializer;
 
         public Serializer(SegmentAllocator segmentAllocator) {
             this.segmentAllocator = segmentAllocator;
-            this.lineAttributeSerializer = new LineAttribute.Serializer(segmentAllocator);
         }
 
         @Override
@@ -75,40 +181,31 @@ public record LineInfo(
 
         @Override
         public MemorySegment serialize(LineInfo data) {
-            try {
-                var segment = segmentAllocator.allocate(LAYOUT);
-
-                var nameSegment = (MemorySegment) MH_NAME.invoke(segment, 0L);
-                if (data.name != null) {
-                    nameSegment.setString(0L, data.name);
-                }
-
-                var consumerSegment = (MemorySegment) MH_CONSUMER.invoke(segment, 0L);
-                if (data.consumer != null) {
-                    consumerSegment.setString(0L, data.consumer);
-                }
-
-                VH_OFFSET.set(segment, 0L, data.offset);
-                VH_NUM_ATTRS.set(segment, 0L, data.attrs.length);
-                VH_FLAGS.set(segment, 0L, data.flags);
-
-                var attrsSegment = (MemorySegment) MH_ATTRS.invoke(segment, 0L);
-                for (int i = 0; i < data.attrs.length; i++) {
-                    var attrSlice = attrsSegment.asSlice(i * LineAttribute.LAYOUT.byteSize(), LineAttribute.LAYOUT.byteSize());
-                    var attrSegment = lineAttributeSerializer.serialize(data.attrs[i]);
-                    attrSlice.copyFrom(attrSegment);
-                }
-                return segment;
-            } catch (Throwable e) {
-                throw new RuntimeException(e);
+            var segment = segmentAllocator.allocate(LAYOUT);
+            serializeInto(data, segment);
+            return segment;
+        }
+
+        @Override
+        public void serializeInto(LineInfo data, MemorySegment segment) {
+            var view = new View(segment)
+                    .offset(data.offset)
+                    .numAttributes(data.attrs.length)
+                    .flags(data.flags);
+            if (data.name != null) {
+                view.name(data.name);
+            }
+            if (data.consumer != null) {
+                view.consumer(data.consumer);
+            }
+            for (int i = 0; i < data.attrs.length; i++) {
+                view.attribute(i, data.attrs[i].id(), data.attrs[i].value());
             }
         }
     }
 
     public static class Deserializer implements MemorySegmentDeserializer<LineInfo> {
 
-        private final LineAttribute.Deserializer lineAttributeDeserializer = new LineAttribute.Deserializer();
-
         @Override
         public MemoryLayout layout() {
             return LAYOUT;
@@ -116,27 +213,7 @@ public record LineInfo(
 
         @Override
         public LineInfo deserialize(MemorySegment segment) {
-            try {
-                var nameSegment = (MemorySegment) MH_NAME.invoke(segment, 0L);
-                var name = nameSegment.getString(0).trim();
-
-                var consumerSegment = (MemorySegment) MH_CONSUMER.invoke(segment, 0L);
-                var consumer = consumerSegment.getString(0).trim();
-
-                var offset = (int) VH_OFFSET.get(segment, 0L);
-                var numAttrs = (int) VH_NUM_ATTRS.get(segment, 0L);
-                var flags = (long) VH_FLAGS.get(segment, 0L);
-
-                var attrs = new LineAttribute[numAttrs];
-                var attrsSegment = (MemorySegment) MH_ATTRS.invoke(segment, 0L);
-                for (int i = 0; i < numAttrs; i++) {
-                    var attrSegment = attrsSegment.asSlice(i * LineAttribute.LAYOUT.byteSize(), LineAttribute.LAYOUT.byteSize());
-                    attrs[i] = lineAttributeDeserializer.deserialize(attrSegment);
-                }
-                return new LineInfo(name, consumer, offset, flags, attrs);
-            } catch (Throwable e) {
-                throw new RuntimeException(e);
-            }
+            return new View(segment).toRecord();
         }
     }
 
@@ -0,0 +1,102 @@
+package io.github.iamnicknack.pjs.ffm.device.context.gpio;
+
+import io.github.iamnicknack.pjs.ffm.context.segment.DeserializeUsing;
+import io.github.iamnicknack.pjs.ffm.context.segment.MemorySegmentDeserializer;
+import io.github.iamnicknack.pjs.ffm.context.segment.MemorySegmentSerializer;
+import io.github.iamnicknack.pjs.ffm.context.segment.SerializeUsing;
+
+import java.lang.foreign.MemoryLayout;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.SegmentAllocator;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.VarHandle;
+
+import static java.lang.foreign.MemoryLayout.PathElement.groupElement;
+
+/**
+ * Change notification for a line watched with {@link GpioConstants#GPIO_V2_GET_LINEINFO_WATCH_IOCTL}, read from
+ * the chip file descriptor.
+ * @see <a href="https://docs.kernel.org/userspace-api/gpio/gpio-v2-lineinfo-changed-read.html">gpio-v2-lineinfo-changed-read</a>
+ * @param info the updated line info
+ * @param timestampNs the time of the change
+ * @param eventType the type of change, one of {@link Type}
+ */
+@SerializeUsing(LineInfoChanged.Serializer.class)
+@DeserializeUsing(LineInfoChanged.Deserializer.class)
+public record LineInfoChanged(
+        LineInfo info,
+        long timestampNs,
+        int eventType
+) {
+    public static final MemoryLayout LAYOUT = MemoryLayout.structLayout(
+            LineInfo.LAYOUT.withName("info"),
+            ValueLayout.JAVA_LONG.withName("timestamp_ns"),
+            ValueLayout.JAVA_INT.withName("event_type"),
+            MemoryLayout.sequenceLayout(5, ValueLayout.JAVA_INT).withName("padding")
+    );
+
+    private static final long INFO_OFFSET = LAYOUT.byteOffset(groupElement("info"));
+    private static final VarHandle VH_TIMESTAMP_NS = LAYOUT.varHandle(groupElement("timestamp_ns"));
+    private static final VarHandle VH_EVENT_TYPE = LAYOUT.varHandle(groupElement("event_type"));
+
+    /**
+     * Change event types
+     */
+    public enum Type {
+        REQUESTED(1),
+        RELEASED(2),
+        CONFIG(3);
+
+        public final int value;
+
+        Type(int value) {
+            this.value = value;
+        }
+    }
+
+    public static class Serializer implements MemorySegmentSerializer<LineInfoChanged> {
+        private final SegmentAllocator segmentAllocator;
+        private final LineInfo.Serializer infoSerializer;
+
+        public Serializer(SegmentAllocator segmentAllocator) {
+            this.segmentAllocator = segmentAllocator;
+            this.infoSerializer = new LineInfo.Serializer(segmentAllocator);
+        }
+
+        @Override
+        public MemoryLayout layout() {
+            return LAYOUT;
+        }
+
+        @Override
+        public MemorySegment serialize(LineInfoChanged data) {
+            var segment = segmentAllocator.allocate(LAYOUT);
+            serializeInto(data, segment);
+            return segment;
+        }
+
+        @Override
+        public void serializeInto(LineInfoChanged data, MemorySegment segment) {
+            infoSerializer.serializeInto(data.info, segment.asSlice(INFO_OFFSET, LineInfo.LAYOUT.byteSize()));
+            VH_TIMESTAMP_NS.set(segment, 0L, data.timestampNs);
+            VH_EVENT_TYPE.set(segment, 0L, data.eventType);
+        }
+    }
+
+    public static class Deserializer implements MemorySegmentDeserializer<LineInfoChanged> {
+
+        @Override
+        public MemoryLayout layout() {
+            return LAYOUT;
+        }
+
+        @Override
+        public LineInfoChanged deserialize(MemorySegment segment) {
+            return new LineInfoChanged(
+                    new LineInfo.View(segment, INFO_OFFSET).toRecord(),
+                    (long) VH_TIMESTAMP_NS.get(segment, 0L),
+                    (int) VH_EVENT_TYPE.get(segment, 0L)
+            );
+        }
+    }
+}
@@ -9,9 +9,9 @@ import java.lang.foreign.MemoryLayout;
 import java.lang.foreign.MemorySegment;
 import java.lang.foreign.SegmentAllocator;
 import java.lang.foreign.ValueLayout;
-import java.lang.invoke.MethodHandle;
 import java.lang.invoke.VarHandle;
 import java.util.Arrays;
+import java.util.Objects;
 
 import static java.lang.foreign.MemoryLayout.PathElement.groupElement;
 
@@ -56,13 +56,119 @@ public record LineRequest(
             ValueLayout.JAVA_INT.withName("fd")
     );
 
-    private static final MethodHandle MH_OFFSETS = LAYOUT.sliceHandle(groupElement("offsets"));
-    private static final MethodHandle MH_CONSUMER = LAYOUT.sliceHandle(groupElement("consumer"));
-    private static final MethodHandle MH_CONFIG = LAYOUT.sliceHandle(groupElement("config"));
+    /**
+     * Maximum number of lines in a {@code gpio_v2_line_request}
+     */
+    public static final int MAX_LINES = 64;
+
+    private static final long OFFSETS_OFFSET = LAYOUT.byteOffset(groupElement("offsets"));
+    private static final long CONSUMER_OFFSET = LAYOUT.byteOffset(groupElement("consumer"));
+    private static final long CONSUMER_LENGTH = 32;
+    private static final long CONFIG_OFFSET = LAYOUT.byteOffset(groupElement("config"));
     private static final VarHandle VH_NUM_LINES = LAYOUT.varHandle(groupElement("num_lines"));
     private static final VarHandle VH_EVENT_BUFFER_SIZE = LAYOUT.varHandle(groupElement("event_buffer_size"));
     private static final VarHandle VH_FD = LAYOUT.varHandle(groupElement("fd"));
 
+    /**
+     * Flyweight view of a {@code gpio_v2_line_request} struct.
+     * <p>
+     * The embedded line config is exposed through {@link #config()}, which shares the underlying segment.
+     * </p>
+     */
+    public static final class View {
+        private MemorySegment segment;
+        private long offset;
+        private final LineConfig.View config = new LineConfig.View();
+
+        public View() {
+            this(MemorySegment.NULL, 0L);
+        }
+
+        public View(MemorySegment segment) {
+            this(segment, 0L);
+        }
+
+        public View(MemorySegment segment, long offset) {
+            wrap(segment, offset);
+        }
+
+        /**
+         * Point this view at a struct
+         * @param segment the segment containing the struct
+         * @param offset the byte offset of the struct within the segment
+         * @return this view
+         */
+        public View wrap(MemorySegment segment, long offset) {
+            this.segment = segment;
+            this.offset = offset;
+            this.config.wrap(segment, offset + CONFIG_OFFSET);
+            return this;
+        }
+
+        public int numLines() {
+            return (int) VH_NUM_LINES.get(segment, offset);
+        }
+
+        public int lineOffset(int index) {
+            return segment.get(ValueLayout.JAVA_INT, offsetsOffset(index));
+        }
+
+        /**
+         * Write the line offsets and set the line count
+         * @param offsets the line offsets
+         * @return this view
+         */
+        public View offsets(int[] offsets) {
+            Objects.checkFromIndexSize(0, offsets.length, MAX_LINES);
+            MemorySegment.copy(offsets, 0, segment, ValueLayout.JAVA_INT, offset + OFFSETS_OFFSET, offsets.length);
+            VH_NUM_LINES.set(segment, offset, offsets.length);
+            return this;
+        }
+
+        public String consumer() {
+            return segment.asSlice(offset + CONSUMER_OFFSET, CONSUMER_LENGTH).getString(0L);
+        }
+
+        public View consumer(String consumer) {
+            segment.asSlice(offset + CONSUMER_OFFSET, CONSUMER_LENGTH).setString(0L, consumer);
+            return this;
+        }
+
+        public LineConfig.View config() {
+            return config;
+        }
+
+        public int eventBufferSize() {
+            return (int) VH_EVENT_BUFFER_SIZE.get(segment, offset);
+        }
+
+        public View eventBufferSize(int eventBufferSize) {
+            VH_EVENT_BUFFER_SIZE.set(segment, offset, eventBufferSize);
+            return this;
+        }
+
+        /**
+         * The line request file descriptor, populated by the kernel
+         */
+        public int fd() {
+            return (int) VH_FD.get(segment, offset);
+        }
+
+        public View fd(int fd) {
+            VH_FD.set(segment, offset, fd);
+            return this;
+        }
+
+        public LineRequest toRecord() {
+            var offsets = new int[numLines()];
+            MemorySegment.copy(segment, ValueLayout.JAVA_INT, offset + OFFSETS_OFFSET, offsets, 0, offsets.length);
+            return new LineRequest(offsets, consumer(), config.toRecord(), eventBufferSize(), fd());
+        }
+
+        private long offsetsOffset(int index) {
+            return offset + OFFSETS_OFFSET + Objects.checkIndex(index, MAX_LINES) * ValueLayout.JAVA_INT.byteSize();
+        }
+    }
 
     public static class Serializer implements MemorySegmentSerializer<LineRequest> {
         private final SegmentAllocator segmentAllocator;
@@ -80,38 +186,23 @@ public record LineRequest(
 
         @Override
         public MemorySegment serialize(LineRequest data) {
-            try {
-                var segment = segmentAllocator.allocate(LAYOUT);
-
-                var offsetsSegment = (MemorySegment) MH_OFFSETS.invoke(segment, 0L);
-                for (int i = 0; i < data.offsets.length; i++) {
-                    offsetsSegment.setAtIndex(ValueLayout.JAVA_INT, i, data.offsets[i]);
-                }
-
-                var consumerSegment = (MemorySegment) MH_CONSUMER.invoke(segment, 0L);
-                consumerSegment.setString(0L, data.consumer);
-
-                var configSegment = (MemorySegment) MH_CONFIG.invoke(segment, 0L);
-                var serializedConfig = lineConfigSerializer.serialize(data.config);
-                configSegment.copyFrom(serializedConfig);
-
-                VH_NUM_LINES.set(segment, 0, data.offsets.length);
-                VH_EVENT_BUFFER_SIZE.set(segment, 0, data.eventBufferSize);
-                VH_FD.set(segment, 0, data.fd);
+            var segment = segmentAllocator.allocate(LAYOUT);
+            serializeInto(data, segment);
+            return segment;
+        }
 
-                return segment;
-            } catch (Throwable e) {
-                throw new RuntimeException(e);
-            }
+        @Override
+        public void serializeInto(LineRequest data, MemorySegment segment) {
+            new View(segment)
+                    .offsets(data.offsets)
+                    .consumer(data.consumer)
+                    .eventBufferSize(data.eventBufferSize)
+                    .fd(data.fd);
+            lineConfigSerializer.serializeInto(data.config, segment.asSlice(CONFIG_OFFSET, LineConfig.LAYOUT.byteSize()));
         }
     }
 
     public static class Deserializer implements MemorySegmentDeserializer<LineRequest> {
-        private final LineConfig.Deserializer lineConfigDeserializer;
-
-        public Deserializer() {
-            this.lineConfigDeserializer = new LineConfig.Deserializer();
-        }
 
         @Override
         public MemoryLayout layout() {
@@ -120,27 +211,7 @@ public record LineRequest(
 
         @Override
         public LineRequest deserialize(MemorySegment segment) {
-            try {
-                var numLines = (int) VH_NUM_LINES.get(segment, 0L);
-                var offsets = new int[numLines];
-                var offsetsSegment = (MemorySegment) MH_OFFSETS.invoke(segment, 0L);
-                for (int i = 0; i < numLines; i++) {
-                    offsets[i] = offsetsSegment.getAtIndex(ValueLayout.JAVA_INT, i);
-                }
-
-                var consumerSegment = (MemorySegment) MH_CONSUMER.invoke(segment, 0L);
-                var consumer = consumerSegment.getString(0L);
-
-                var configSegment = (MemorySegment) MH_CONFIG.invoke(segment, 0L);
-                var config = lineConfigDeserializer.deserialize(configSegment);
-
-                var eventBufferSize = (int) VH_EVENT_BUFFER_SIZE.get(segment, 0L);
-                var fd = (int) VH_FD.get(segment, 0L);
-
-                return new LineRequest(offsets, consumer, config, eventBufferSize, fd);
-            } catch (Throwable e) {
-                throw new RuntimeException(e);
-            }
+            return new View(segment).toRecord();
         }
     }
 }
@@ -6,6 +6,8 @@ import io.github.iamnicknack.pjs.ffm.context.segment.MemorySegmentSerializer;
 import io.github.iamnicknack.pjs.ffm.context.segment.SerializeUsing;
 
 import java.lang.foreign.MemoryLayout;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.SegmentAllocator;
 import java.lang.foreign.ValueLayout;
 import java.lang.invoke.VarHandle;
 
@@ -32,10 +34,89 @@ public record LineValues(
     private static final VarHandle VH_BITS = LAYOUT.varHandle(groupElement("bits"));
     private static final VarHandle VH_MASK = LAYOUT.varHandle(groupElement("mask"));
 
+    /**
+     * Read the bits field of a {@link #LAYOUT} segment without creating a record
+     * @param segment the segment containing the struct
+     * @return the line values bitmap
+     */
+    public static long bits(MemorySegment segment) {
+        return (long) VH_BITS.get(segment, 0L);
+    }
+
+    /**
+     * Write both fields of a {@link #LAYOUT} segment without creating a record
+     * @param segment the segment containing the struct
+     * @param bits the line values bitmap
+     * @param mask the lines to get or set
+     */
+    public static void set(MemorySegment segment, long bits, long mask) {
+        VH_BITS.set(segment, 0L, bits);
+        VH_MASK.set(segment, 0L, mask);
+    }
+
+    /**
+     * Flyweight view of a {@code gpio_v2_line_values} struct, for reading and writing line values in place
+     */
+    public static final class View {
+        private MemorySegment segment;
+        private long offset;
+
+        public View() {
+            this(MemorySegment.NULL, 0L);
+        }
+
+        public View(MemorySegment segment) {
+            this(segment, 0L);
+        }
+
+        public View(MemorySegment segment, long offset) {
+            this.segment = segment;
+            this.offset = offset;
+        }
+
+        /**
+         * Point this view at a struct
+         * @param segment the segment containing the struct
+         * @param offset the byte offset of the struct within the segment
+         * @return this view
+         */
+        public View wrap(MemorySegment segment, long offset) {
+            this.segment = segment;
+            this.offset = offset;
+            return this;
+        }
+
+        public long bits() {
+            return (long) VH_BITS.get(segment, offset);
+        }
+
+        public View bits(long bits) {
+            VH_BITS.set(segment, offset, bits);
+            return this;
+        }
+
+        public long mask() {
+            return (long) VH_MASK.get(segment, offset);
+        }
+
+        public View mask(long mask) {
+            VH_MASK.set(segment, offset, mask);
+            return this;
+        }
+
+        public View set(long bits, long mask) {
+            return bits(bits).mask(mask);
+        }
+
+        public LineValues toRecord() {
+            return new LineValues(bits(), mask());
+        }
+    }
+
     public static class Serializer implements MemorySegmentSerializer<LineValues> {
-        private final java.lang.foreign.SegmentAllocator segmentAllocator;
+        private final SegmentAllocator segmentAllocator;
 
-        public Serializer(java.lang.foreign.SegmentAllocator segmentAllocator) {
+        public Serializer(SegmentAllocator segmentAllocator) {
             this.segmentAllocator = segmentAllocator;
         }
 
@@ -45,12 +126,16 @@ public record LineValues(
         }
 
         @Override
-        public java.lang.foreign.MemorySegment serialize(LineValues data) {
+        public MemorySegment serialize(LineValues data) {
             var segment = segmentAllocator.allocate(LAYOUT);
-            VH_BITS.set(segment, 0L, data.bits);
-            VH_MASK.set(segment, 0L, data.mask);
+            serializeInto(data, segment);
             return segment;
         }
+
+        @Override
+        public void serializeInto(LineValues data, MemorySegment segment) {
+            set(segment, data.bits, data.mask);
+        }
     }
 
     public static class Deserializer implements MemorySegmentDeserializer<LineValues> {
@@ -61,10 +146,8 @@ public record LineValues(
         }
 
         @Override
-        public LineValues deserialize(java.lang.foreign.MemorySegment segment) {
-            var bits = (long) VH_BITS.get(segment, 0L);
-            var mask = (long) VH_MASK.get(segment, 0L);
-            return new LineValues(bits, mask);
+        public LineValues deserialize(MemorySegment segment) {
+            return new View(segment).toRecord();
         }
     }
 }
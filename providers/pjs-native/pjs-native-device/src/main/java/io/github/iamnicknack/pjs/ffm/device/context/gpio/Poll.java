@@ -41,6 +41,23 @@ public record Poll(
     private static final VarHandle VH_EVENTS = LAYOUT.varHandle(groupElement("events"));
     private static final VarHandle VH_REVENTS = LAYOUT.varHandle(groupElement("revents"));
 
+    /**
+     * Write the struct at the given index of an array of poll structs
+     */
+    public static void set(MemorySegment segment, int index, int fd, int events) {
+        var offset = index * LAYOUT.byteSize();
+        VH_FD.set(segment, offset, fd);
+        VH_EVENTS.set(segment, offset, (short)events);
+        VH_REVENTS.set(segment, offset, (short)0);
+    }
+
+    /**
+     * Read the returned event mask of the struct at the given index of an array of poll structs
+     */
+    public static int revents(MemorySegment segment, int index) {
+        return (short) VH_REVENTS.get(segment, index * LAYOUT.byteSize());
+    }
+
     public static class Serializer implements MemorySegmentSerializer<Poll> {
         private final SegmentAllocator segmentAllocator;
 
@@ -56,13 +73,16 @@ public record Poll(
         @Override
         public MemorySegment serialize(Poll data) {
             var segment = segmentAllocator.allocate(LAYOUT);
-
-            VH_FD.set(segment, 0, data.fd);
-            VH_EVENTS.set(segment, 0, (short)data.events);
-            VH_REVENTS.set(segment, 0, (short)data.revents);
-
+            serializeInto(data, segment);
             return segment;
         }
+
+        @Override
+        public void serializeInto(Poll data, MemorySegment segment) {
+            VH_FD.set(segment, 0L, data.fd);
+            VH_EVENTS.set(segment, 0L, (short)data.events);
+            VH_REVENTS.set(segment, 0L, (short)data.revents);
+        }
     }
 
 
@@ -83,7 +103,9 @@ public record Poll(
 
     public enum Flags {
         POLLIN(0x0001),
-        POLLERR(0x0008);
+        POLLERR(0x0008),
+        POLLHUP(0x0010),
+        POLLNVAL(0x0020);
 
         public final int value;
 
@@ -48,6 +48,23 @@ public record I2CMessage(
     private static final VarHandle VH_LENGTH = LAYOUT.varHandle(groupElement("length"));
     private static final VarHandle VH_BUFFER = LAYOUT.varHandle(groupElement("buffer"));
 
+    /**
+     * Write message fields directly into a {@link #LAYOUT} struct, allowing a preallocated message array to be
+     * reused without creating a record
+     * @param segment the segment containing the struct
+     * @param offset the byte offset of the struct within the segment
+     * @param address the address of the I2C device
+     * @param flags the flags for the message (see I2C_M_*)
+     * @param length the length of the buffer
+     * @param buffer the native data buffer of at least {@code length} bytes
+     */
+    public static void set(MemorySegment segment, long offset, int address, int flags, int length, MemorySegment buffer) {
+        VH_ADDRESS.set(segment, offset, (short) address);
+        VH_FLAGS.set(segment, offset, (short) flags);
+        VH_LENGTH.set(segment, offset, (short) length);
+        VH_BUFFER.set(segment, offset, buffer);
+    }
+
     @Override
     public String toString() {
         return "I2CMessage{" +
@@ -81,17 +98,21 @@ public record I2CMessage(
 
         @Override
         public MemorySegment serialize(I2CMessage data) {
+            var segment = segmentAllocator.allocate(LAYOUT);
+            serializeInto(data, segment);
+            return segment;
+        }
+
+        @Override
+        public void serializeInto(I2CMessage data, MemorySegment segment) {
             try {
-                var segment = segmentAllocator.allocate(LAYOUT);
                 VH_ADDRESS.set(segment, 0L, (short)data.address);
                 VH_FLAGS.set(segment, 0L, (short)data.flags);
                 VH_LENGTH.set(segment, 0L, (short)data.length);
 
                 var bufferSegment = segmentAllocator.allocate(data.length);
-                bufferSegment.asByteBuffer().put(data.buffer);
+                MemorySegment.copy(data.buffer, 0, bufferSegment, ValueLayout.JAVA_BYTE, 0L, data.length);
                 VH_BUFFER.set(segment, 0L, bufferSegment);
-
-                return segment;
             } catch (Throwable e) {
                 throw new RuntimeException("Failed to serialize I2CMessage", e);
             }
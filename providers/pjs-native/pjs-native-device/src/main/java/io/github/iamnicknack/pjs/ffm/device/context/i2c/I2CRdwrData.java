@@ -43,6 +43,18 @@ public record I2CRdwrData(
     private static final VarHandle VH_MESSAGES = LAYOUT.varHandle(groupElement("messages"));
     private static final VarHandle VH_MESSAGE_COUNT = LAYOUT.varHandle(groupElement("messageCount"));
 
+    /**
+     * Write the fields of a {@link #LAYOUT} struct directly, allowing a preallocated struct to be reused without
+     * creating a record
+     * @param segment the segment containing the struct
+     * @param messages the native array of {@link I2CMessage#LAYOUT} structs
+     * @param messageCount the number of messages in the array to transfer
+     */
+    public static void set(MemorySegment segment, MemorySegment messages, int messageCount) {
+        VH_MESSAGES.set(segment, 0L, messages);
+        VH_MESSAGE_COUNT.set(segment, 0L, messageCount);
+    }
+
     public static class Serializer implements MemorySegmentSerializer<I2CRdwrData> {
 
         private final SegmentAllocator segmentAllocator;
@@ -60,20 +72,17 @@ public record I2CRdwrData(
 
         @Override
         public MemorySegment serialize(I2CRdwrData data) {
-            try {
-                var segment = segmentAllocator.allocate(LAYOUT);
-
-                var bodySegment = segmentAllocator.allocate(data.messages.length * I2CMessage.LAYOUT.byteSize());
-                for (int i = 0; i < data.messages.length; i++) {
-                    var messageSlice = bodySegment.asSlice(i * I2CMessage.LAYOUT.byteSize(), I2CMessage.LAYOUT.byteSize());
-                    var messageSegment = messageSerializer.serialize(data.messages[i]);
-                    messageSlice.copyFrom(messageSegment);
-                }
+            var segment = segmentAllocator.allocate(LAYOUT);
+            serializeInto(data, segment);
+            return segment;
+        }
 
+        @Override
+        public void serializeInto(I2CRdwrData data, MemorySegment segment) {
+            try {
+                var bodySegment = messageSerializer.serializeArray(data.messages, segmentAllocator);
                 VH_MESSAGES.set(segment, 0L, bodySegment);
                 VH_MESSAGE_COUNT.set(segment, 0L, data.messageCount);
-
-                return segment;
             } catch (Throwable throwable) {
                 throw new RuntimeException("Failed to serialize I2CRdwrData", throwable);
             }
@@ -145,6 +145,49 @@ public record SpiTransfer(
     private static final VarHandle VH_WORD_DELAY_USECS = LAYOUT.varHandle(groupElement("wordDelayUsecs"));
     private static final VarHandle VH_PAD = LAYOUT.varHandle(groupElement("pad"));
 
+    /**
+     * Write transfer fields directly into a {@link #LAYOUT} struct, allowing a preallocated segment to be reused
+     * without creating a record. Fields not covered by the arguments are set to zero.
+     * @param segment the segment containing the struct
+     * @param offset the byte offset of the struct within the segment
+     * @param txBuf the transmit buffer, or {@link MemorySegment#NULL}
+     * @param rxBuf the receive buffer, or {@link MemorySegment#NULL}
+     * @param length the number of bytes to transfer
+     * @param delayUsecs delay after the last bit transfer
+     * @param csChange true to deselect the device before the next transfer
+     */
+    public static void set(
+            MemorySegment segment,
+            long offset,
+            MemorySegment txBuf,
+            MemorySegment rxBuf,
+            int length,
+            int delayUsecs,
+            boolean csChange
+    ) {
+        VH_TX_BUF.set(segment, offset, txBuf);
+        VH_RX_BUF.set(segment, offset, rxBuf);
+        VH_LEN.set(segment, offset, length);
+        VH_SPEED_HZ.set(segment, offset, 0);
+        VH_DELAY_USECS.set(segment, offset, (short) delayUsecs);
+        VH_BITS_PER_WORD.set(segment, offset, (byte) 0);
+        VH_CS_CHANGE.set(segment, offset, csChange ? (byte) 1 : (byte) 0);
+        VH_TX_NBITS.set(segment, offset, (byte) 0);
+        VH_RX_NBITS.set(segment, offset, (byte) 0);
+        VH_WORD_DELAY_USECS.set(segment, offset, (byte) 0);
+        VH_PAD.set(segment, offset, (byte) 0);
+    }
+
+    /**
+     * Update the transfer length of a {@link #LAYOUT} struct in place
+     * @param segment the segment containing the struct
+     * @param offset the byte offset of the struct within the segment
+     * @param length the number of bytes to transfer
+     */
+    public static void setLength(MemorySegment segment, long offset, int length) {
+        VH_LEN.set(segment, offset, length);
+    }
+
     public byte[] txArray() {
         return txBuf.toArray(JAVA_BYTE);
     }
@@ -169,6 +212,12 @@ public record SpiTransfer(
         @Override
         public MemorySegment serialize(SpiTransfer transferBuffer) {
             var segment = segmentAllocator.allocate(LAYOUT);
+            serializeInto(transferBuffer, segment);
+            return segment;
+        }
+
+        @Override
+        public void serializeInto(SpiTransfer transferBuffer, MemorySegment segment) {
             VH_TX_BUF.set(segment, 0L, transferBuffer.txBuf);
             VH_RX_BUF.set(segment, 0L, transferBuffer.rxBuf);
             VH_LEN.set(segment, 0L, transferBuffer.length);
@@ -180,7 +229,6 @@ public record SpiTransfer(
             VH_RX_NBITS.set(segment, 0L, transferBuffer.rxNbits);
             VH_WORD_DELAY_USECS.set(segment, 0L, transferBuffer.wordDelayUsecs);
             VH_PAD.set(segment, 0L, (byte)0);
-            return segment;
         }
     }
 
@@ -0,0 +1,324 @@
+package io.github.iamnicknack.pjs.ffm.event;
+
+import io.github.iamnicknack.pjs.ffm.context.method.CapturedStateWrapper;
+import io.github.iamnicknack.pjs.ffm.device.context.FileDescriptor;
+import io.github.iamnicknack.pjs.ffm.device.context.FileOperations;
+import io.github.iamnicknack.pjs.ffm.device.context.PollingOperations;
+import io.github.iamnicknack.pjs.ffm.device.context.gpio.EpollEvent;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.foreign.Arena;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link EventPoller.Factory} which monitors all file descriptors from a single thread using one epoll instance.
+ * <p>
+ * Starting a poller registers its file descriptor with the epoll instance and stopping it removes the registration,
+ * so the number of event-enabled ports is independent of the number of threads. Ready file descriptors are read
+ * once per wakeup. Epoll is level-triggered, so a file descriptor with further queued events is reported again on the
+ * next wait, which keeps a busy line from starving the others.
+ * </p>
+ * <p>
+ * An eventfd in the epoll set wakes the loop when the factory is closed, so the loop waits indefinitely and does not
+ * wake while idle. If eventfd is unavailable, the loop falls back to waiting with the configured timeout.
+ * </p>
+ * <p>
+ * Stopping a poller waits for a dispatch already in progress on its file descriptor, so the descriptor can be closed
+ * as soon as {@link EventPoller#stop()} returns. A callback stopping its own poller does not wait.
+ * </p>
+ */
+public class EpollEventPollerFactory implements EventPoller.Factory {
+
+    private static final int EINTR = 4;
+
+    /**
+     * Default maximum number of ready file descriptors returned by a single wait
+     */
+    public static final int DEFAULT_MAX_EVENTS = 16;
+
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    private final Duration timeout;
+    private final PollingOperations pollingOperations;
+    private final FileOperations fileOperations;
+    private final int eventBufferSize;
+    private final int maxEvents;
+
+    private final int epollFd;
+    private final @Nullable WakeupSignal wakeupSignal;
+    private final Map<Integer, Registration> registrations = new ConcurrentHashMap<>();
+
+    private volatile boolean running = true;
+    private Thread thread;
+
+    public EpollEventPollerFactory(
+            PollingOperations pollingOperations,
+            FileOperations fileOperations
+    ) {
+        this(Duration.ofMillis(100), pollingOperations, fileOperations);
+    }
+
+    public EpollEventPollerFactory(
+            Duration timeout,
+            PollingOperations pollingOperations,
+            FileOperations fileOperations
+    ) {
+        this(timeout, pollingOperations, fileOperations, EventPollerFactoryImpl.DEFAULT_EVENT_BUFFER_SIZE, DEFAULT_MAX_EVENTS);
+    }
+
+    /**
+     * Constructor.
+     * @param timeout timeout for each wait when no wakeup eventfd is available
+     * @param pollingOperations polling operations
+     * @param fileOperations file operations
+     * @param eventBufferSize the number of events read from a file descriptor in a single call
+     * @param maxEvents the maximum number of ready file descriptors returned by a single wait
+     */
+    public EpollEventPollerFactory(
+            Duration timeout,
+            PollingOperations pollingOperations,
+            FileOperations fileOperations,
+            int eventBufferSize,
+            int maxEvents
+    ) {
+        if (eventBufferSize < 1) {
+            throw new IllegalArgumentException("Event buffer size must be positive: " + eventBufferSize);
+        }
+        if (maxEvents < 1) {
+            throw new IllegalArgumentException("Max events must be positive: " + maxEvents);
+        }
+        if (!pollingOperations.supports(PollingOperations.Capability.EPOLL)) {
+            throw new IllegalArgumentException("epoll is not supported by " + pollingOperations.getClass().getSimpleName());
+        }
+        this.timeout = timeout;
+        this.pollingOperations = pollingOperations;
+        this.fileOperations = fileOperations;
+        this.eventBufferSize = eventBufferSize;
+        this.maxEvents = maxEvents;
+        this.epollFd = pollingOperations.epollCreate();
+        this.wakeupSignal = WakeupSignal.tryOpen(pollingOperations, fileOperations);
+        if (wakeupSignal != null) {
+            pollingOperations.epollCtl(epollFd, PollingOperations.EPOLL_CTL_ADD, wakeupSignal.fd(), EpollEvent.Flags.EPOLLIN.value);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public EventPoller create(FileDescriptor fileDescriptor, PollEventsCallback pollEventsCallback) {
+        return createBatched(fileDescriptor, pollEventsCallback);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public EventPoller createBatched(FileDescriptor fileDescriptor, PollEventBatchCallback batchCallback) {
+        logger.debug("Creating epoll registration for fd: {}, with callback type: {}",
+                fileDescriptor.fd(),
+                batchCallback.getClass().getSimpleName()
+        );
+        return new Registration(fileDescriptor, batchCallback);
+    }
+
+    /**
+     * Stops the event loop and closes the epoll instance. If the loop is still running a callback after the wait, the
+     * epoll instance is closed by the loop once the callback returns.
+     */
+    @Override
+    public void close() {
+        Thread loop;
+        synchronized (this) {
+            running = false;
+            loop = thread;
+        }
+        registrations.clear();
+        if (loop == null) {
+            closeDescriptors();
+            return;
+        }
+        if (wakeupSignal != null) {
+            wakeupSignal.signal();
+        }
+        if (loop != Thread.currentThread()) {
+            try {
+                loop.join(timeout.toMillis() * 2);
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            }
+            if (loop.isAlive()) {
+                logger.warn("Epoll event loop on fd {} is still running, it will close on exit", epollFd);
+            }
+        }
+    }
+
+    private void closeDescriptors() {
+        if (wakeupSignal != null) {
+            wakeupSignal.close();
+        }
+        fileOperations.close(epollFd);
+    }
+
+    /**
+     * Start the event loop thread if it is not already running
+     */
+    private synchronized void ensureStarted() {
+        if (thread == null && running) {
+            thread = Thread.ofPlatform()
+                    .name("gpio-event-loop")
+                    .daemon(true)
+                    .uncaughtExceptionHandler((t, e) -> logger.error("Error on thread: {}", t.getName(), e))
+                    .start(this::loop);
+        }
+    }
+
+    private void loop() {
+        logger.info("Starting epoll event loop on fd {}", epollFd);
+        try (var arena = Arena.ofConfined()) {
+            var events = arena.allocate(EpollEvent.LAYOUT, maxEvents);
+            var reader = new LineEventReader(arena, eventBufferSize);
+            var timeoutMillis = (wakeupSignal != null) ? -1 : (int) timeout.toMillis();
+
+            while (running) {
+                int ready;
+                try {
+                    ready = pollingOperations.epollWait(epollFd, events, maxEvents, timeoutMillis);
+                } catch (CapturedStateWrapper.CapturedStateException e) {
+                    if (e.getErrno() == EINTR) {
+                        continue;
+                    }
+                    throw e;
+                }
+                for (int index = 0; index < ready && running; index++) {
+                    var fd = EpollEvent.fd(events, index);
+                    if (wakeupSignal != null && fd == wakeupSignal.fd()) {
+                        wakeupSignal.drain();
+                        continue;
+                    }
+                    var registration = registrations.get(fd);
+                    // the registration may have been removed after the wait returned
+                    if (registration != null) {
+                        registration.dispatch(reader);
+                    }
+                }
+            }
+        } finally {
+            // the loop owns the epoll instance once started, so it cannot be closed under a running wait
+            closeDescriptors();
+        }
+        logger.info("Stopped epoll event loop on fd {}", epollFd);
+    }
+
+    /**
+     * Poller handle for a single file descriptor
+     */
+    private class Registration implements EventPoller {
+
+        private final FileDescriptor fileDescriptor;
+        private final PollEventBatchCallback callback;
+
+        /**
+         * Held while reading and delivering events, so that {@link #stop()} waits for a dispatch in progress
+         */
+        private final ReentrantLock dispatchLock = new ReentrantLock();
+        /**
+         * Guarded by dispatchLock
+         */
+        private boolean active;
+
+        private Registration(FileDescriptor fileDescriptor, PollEventBatchCallback callback) {
+            this.fileDescriptor = fileDescriptor;
+            this.callback = callback;
+        }
+
+        @Override
+        public void start() {
+            dispatchLock.lock();
+            try {
+                if (registrations.putIfAbsent(fileDescriptor.fd(), this) == null) {
+                    logger.info("Registering fd {} with epoll fd {}", fileDescriptor.fd(), epollFd);
+                    try {
+                        pollingOperations.epollCtl(
+                                epollFd,
+                                PollingOperations.EPOLL_CTL_ADD,
+                                fileDescriptor.fd(),
+                                EpollEvent.Flags.EPOLLIN.value | EpollEvent.Flags.EPOLLERR.value
+                        );
+                    } catch (RuntimeException e) {
+                        registrations.remove(fileDescriptor.fd(), this);
+                        throw e;
+                    }
+                    active = true;
+                    ensureStarted();
+                }
+            } finally {
+                dispatchLock.unlock();
+            }
+        }
+
+        /**
+         * Remove the registration, waiting for a dispatch in progress on another thread to complete
+         */
+        @Override
+        public void stop() {
+            registrations.remove(fileDescriptor.fd(), this);
+            dispatchLock.lock();
+            try {
+                if (!active) {
+                    return;
+                }
+                active = false;
+                logger.info("Unregistering fd {} from epoll fd {}", fileDescriptor.fd(), epollFd);
+                try {
+                    pollingOperations.epollCtl(epollFd, PollingOperations.EPOLL_CTL_DEL, fileDescriptor.fd(), 0);
+                } catch (RuntimeException e) {
+                    // closing a file descriptor also removes it from the epoll instance
+                    logger.debug("Failed to unregister fd {}: {}", fileDescriptor.fd(), e.getMessage());
+                }
+            } finally {
+                dispatchLock.unlock();
+            }
+        }
+
+        @Override
+        public boolean isRunning() {
+            return registrations.get(fileDescriptor.fd()) == this;
+        }
+
+        /**
+         * Registers the file descriptor. Polling is performed by the shared event loop.
+         */
+        @Override
+        public void run() {
+            start();
+        }
+
+        /**
+         * Read and deliver one buffer of events. Called from the event loop thread.
+         */
+        private void dispatch(LineEventReader reader) {
+            dispatchLock.lock();
+            try {
+                // stopped after the wait returned, the descriptor may already be closed
+                if (!active) {
+                    return;
+                }
+                reader.read(fileOperations, fileDescriptor);
+                if (!reader.batch().isEmpty()) {
+                    callback.callback(this, reader.batch());
+                }
+            } catch (Exception e) {
+                logger.error("Error while reading events on fd {}, unregistering", fileDescriptor.fd(), e);
+                stop();
+            } finally {
+                dispatchLock.unlock();
+            }
+        }
+    }
+}
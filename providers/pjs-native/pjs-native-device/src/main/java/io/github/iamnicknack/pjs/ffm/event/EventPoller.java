@@ -2,6 +2,8 @@ package io.github.iamnicknack.pjs.ffm.event;
 
 import io.github.iamnicknack.pjs.ffm.device.context.FileDescriptor;
 
+import java.util.List;
+
 /**
  * {@link Runnable} responsible for polling GPIO events
  */
@@ -12,7 +14,8 @@ public interface EventPoller extends Runnable {
     void start();
 
     /**
-     * Stop polling GPIO events.
+     * Stop polling GPIO events. Events being read or delivered on another thread are completed before this returns,
+     * so the file descriptor may be closed once it has returned.
      */
     void stop();
 
@@ -22,6 +25,14 @@ public interface EventPoller extends Runnable {
      */
     boolean isRunning();
 
+    /**
+     * Check if the event poller has been started and not stopped since, including while it is waiting to run.
+     * @return true if started, false otherwise
+     */
+    default boolean isStarted() {
+        return isRunning();
+    }
+
     /**
      * Polling operation
      */
@@ -54,6 +65,30 @@ public interface EventPoller extends Runnable {
          */
         EventPoller create(FileDescriptor fileDescriptor, PollEventsCallback pollEventsCallback);
 
+        /**
+         * Create a new event poller which delivers events as reusable primitive batches.
+         * @param fileDescriptor the file descriptor to poll events from
+         * @param batchCallback the callback to invoke when events are detected
+         * @return a new event poller
+         */
+        default EventPoller createBatched(FileDescriptor fileDescriptor, PollEventBatchCallback batchCallback) {
+            return create(fileDescriptor, new PollEventsCallback() {
+                @Override
+                public void callback(EventPoller poller, List<PollEvent> pollEvents) {
+                    var batch = new PollEventBatch(Math.max(1, pollEvents.size()));
+                    pollEvents.forEach(event -> batch.add(
+                            event.timestamp(), event.eventType().value, event.lineOffset(), event.seqno(), event.lineSeqno()
+                    ));
+                    batchCallback.callback(poller, batch);
+                }
+
+                @Override
+                public void callback(EventPoller poller, PollEventBatch batch) {
+                    batchCallback.callback(poller, batch);
+                }
+            });
+        }
+
         /**
          * Close the factory and release any resources.
          */
@@ -1,34 +1,39 @@
 package io.github.iamnicknack.pjs.ffm.event;
 
-import io.github.iamnicknack.pjs.ffm.context.segment.MemorySegmentDeserializer;
 import io.github.iamnicknack.pjs.ffm.device.context.FileDescriptor;
 import io.github.iamnicknack.pjs.ffm.device.context.FileOperations;
 import io.github.iamnicknack.pjs.ffm.device.context.PollingOperations;
-import io.github.iamnicknack.pjs.ffm.device.context.gpio.LineEvent;
 import io.github.iamnicknack.pjs.ffm.device.context.gpio.Poll;
+import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.foreign.Arena;
 import java.time.Duration;
 import java.util.Objects;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.stream.IntStream;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * {@inheritDoc}
  */
 public class EventPollerFactoryImpl implements EventPoller.Factory {
 
-    private static final MemorySegmentDeserializer<LineEvent> lineEventDeserializer = new LineEvent.Deserializer();
-    private static final long LINE_EVENT_SIZE = LineEvent.LAYOUT.byteSize();
+    /**
+     * Default number of events read from the kernel in a single call
+     */
+    public static final int DEFAULT_EVENT_BUFFER_SIZE = 64;
 
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
     private final Duration timeout;
     private final PollingOperations pollingOperations;
     private final FileOperations fileOperations;
+    private final int eventBufferSize;
 
     private final AtomicInteger threadCounter = new AtomicInteger(0);
     private final ExecutorService executorService;
@@ -41,21 +46,37 @@ public class EventPollerFactoryImpl implements EventPoller.Factory {
         this(timeout, pollingOperations, fileOperations, 4);
     }
 
+    public EventPollerFactoryImpl(
+            Duration timeout,
+            PollingOperations pollingOperations,
+            FileOperations fileOperations,
+            int threadPoolSize
+    ) {
+        this(timeout, pollingOperations, fileOperations, threadPoolSize, DEFAULT_EVENT_BUFFER_SIZE);
+    }
+
     /**
      * Constructor.
-     * @param timeout timeout for the native poll operation
+     * @param timeout timeout for the native poll operation when no wakeup eventfd is available
      * @param pollingOperations polling operations
      * @param fileOperations file operations
+     * @param threadPoolSize the number of poller threads
+     * @param eventBufferSize the number of events read from the kernel in a single call
      */
     public EventPollerFactoryImpl(
             Duration timeout,
             PollingOperations pollingOperations,
             FileOperations fileOperations,
-            int threadPoolSize
+            int threadPoolSize,
+            int eventBufferSize
     ) {
+        if (eventBufferSize < 1) {
+            throw new IllegalArgumentException("Event buffer size must be positive: " + eventBufferSize);
+        }
         this.timeout = timeout;
         this.pollingOperations = pollingOperations;
         this.fileOperations = fileOperations;
+        this.eventBufferSize = eventBufferSize;
         this.executorService = Executors.newFixedThreadPool(threadPoolSize, r -> {
             Objects.requireNonNull(r);
             var thread = new Thread(r, "gpio-event-poller[" + threadCounter.getAndIncrement() + "]");
@@ -79,6 +100,18 @@ public class EventPollerFactoryImpl implements EventPoller.Factory {
         return new Poller(fileDescriptor, pollEventsCallback);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public EventPoller createBatched(FileDescriptor fileDescriptor, PollEventBatchCallback batchCallback) {
+        logger.debug("Creating batched poller for fd: {}, with callback type: {}",
+                fileDescriptor.fd(),
+                batchCallback.getClass().getSimpleName()
+        );
+        return new Poller(fileDescriptor, batchCallback);
+    }
+
     /**
      * Stops the executor service used for executing pollers.
      */
@@ -89,71 +122,243 @@ public class EventPollerFactoryImpl implements EventPoller.Factory {
 
     /**
      * Poller implementation.
+     * <p>
+     * Each wakeup drains the file descriptor into a preallocated buffer of line events. When a read fills the buffer,
+     * a zero-timeout poll checks for further queued events, so bursts are read in full before waiting again.
+     * Events are delivered through a single reusable {@link PollEventBatch}.
+     * </p>
+     * <p>
+     * The poll set includes a wakeup eventfd which is signalled by {@link #stop()}, so the poller waits indefinitely
+     * and stops immediately. If eventfd is unavailable, the poller waits with the configured timeout and notices a
+     * stop request when the timeout expires.
+     * </p>
+     * <p>
+     * Each start is recorded as a {@link Run} before the poll task is queued, so a stop arriving while the task is
+     * still queued ends that run before it polls. Events are read and delivered under a dispatch lock, which
+     * {@link #stop()} takes once the run has ended, so the file descriptor can be closed as soon as it returns. A
+     * callback stopping its own poller does not wait. The poller also stops when the line reports {@code POLLERR},
+     * {@code POLLHUP} or {@code POLLNVAL}, as a waiting poll would otherwise return immediately on every call.
+     * </p>
      */
     private class Poller implements EventPoller {
 
-        private volatile boolean running;
+        private static final int LINE_INDEX = 0;
+        private static final int WAKEUP_INDEX = 1;
+        private static final int TERMINAL_EVENTS =
+                Poll.Flags.POLLERR.value | Poll.Flags.POLLHUP.value | Poll.Flags.POLLNVAL.value;
+
         private final FileDescriptor fileDescriptor;
-        private final PollEventsCallback callback;
+        private final PollEventBatchCallback callback;
+        /**
+         * The current run, or null when stopped
+         */
+        private final AtomicReference<@Nullable Run> current = new AtomicReference<>();
+        /**
+         * Held while reading and delivering events, so that {@link #stop()} waits for a dispatch in progress
+         */
+        private final ReentrantLock dispatchLock = new ReentrantLock();
 
-        private Poller(FileDescriptor fileDescriptor, PollEventsCallback callback) {
+        private Poller(FileDescriptor fileDescriptor, PollEventBatchCallback callback) {
             this.fileDescriptor = fileDescriptor;
             this.callback = callback;
         }
 
         @Override
         public void start() {
-            if (!running) {
-                executorService.submit(this);
+            var run = new Run();
+            if (current.compareAndSet(null, run)) {
+                try {
+                    executorService.execute(() -> poll(run));
+                } catch (RejectedExecutionException e) {
+                    current.compareAndSet(run, null);
+                    throw e;
+                }
             }
         }
 
+        /**
+         * Stop the current run, waiting for a dispatch in progress on another thread to complete
+         */
         @Override
         public void stop() {
-            logger.info("Stopping event poller on fd {}", fileDescriptor.fd());
-            running = false;
+            var run = current.getAndSet(null);
+            if (run != null) {
+                logger.info("Stopping event poller on fd {}", fileDescriptor.fd());
+                run.wake();
+            }
+            // the run is no longer current, so no further dispatch starts once the lock is released
+            dispatchLock.lock();
+            dispatchLock.unlock();
         }
 
         @Override
         public boolean isRunning() {
-            return running;
+            var run = current.get();
+            return run != null && run.polling;
+        }
+
+        @Override
+        public boolean isStarted() {
+            return current.get() != null;
         }
 
         @Override
         public void run() {
-            if (running) {
+            var run = new Run();
+            if (!current.compareAndSet(null, run)) {
                 logger.warn("Event poller is already running");
                 return;
             }
-            var pollData = new Poll(fileDescriptor.fd());
+            poll(run);
+        }
+
+        /**
+         * Poll until the run is stopped or the line reports an error
+         */
+        private void poll(Run run) {
+            if (!isCurrent(run)) {
+                // stopped while the task was queued
+                return;
+            }
             logger.info("Starting event poller on fd {}", fileDescriptor.fd());
-            running = true;
 
-            try {
-                while (running) {
-                    var poll = pollingOperations.poll(pollData, (int) timeout.toMillis());
-                    // got a change event?
-                    if ((poll.revents() & Poll.Flags.POLLIN.value) != 0) {
-                        var events = fileOperations.read(
-                                fileDescriptor,
-                                0,
-                                (int) (16 * LINE_EVENT_SIZE),
-                                (memorySegment, ignored) -> IntStream.range(0, 16)
-                                        .mapToObj(index -> memorySegment.asSlice(index * LINE_EVENT_SIZE, LINE_EVENT_SIZE))
-                                        .map(lineEventDeserializer::deserialize)
-                                        .takeWhile(event -> event.timestampNs() != 0)
-                                        .map(event -> new PollEvent(PollEventType.from(event.id()), event.timestampNs()))
-                                        .toList()
-                        );
-
-                        // got some events
-                        if (!events.isEmpty()) {
-                            callback.callback(this, events);
-                        }
-                    }
+            var wakeup = pollingOperations.supports(PollingOperations.Capability.POLL_MULTIPLE)
+                    ? WakeupSignal.tryOpen(pollingOperations, fileOperations)
+                    : null;
+            run.setWakeupSignal(wakeup);
+            try (var arena = Arena.ofConfined()) {
+                run.polling = true;
+                var reader = new LineEventReader(arena, eventBufferSize);
+                if (wakeup != null) {
+                    pollWithWakeup(run, arena, reader, wakeup);
+                } else {
+                    pollWithTimeout(run, reader);
                 }
             } catch (Exception e) {
                 logger.error("Error while polling for events on fd {}", fileDescriptor.fd(), e);
+            } finally {
+                run.polling = false;
+                current.compareAndSet(run, null);
+                if (wakeup != null) {
+                    run.setWakeupSignal(null);
+                    wakeup.close();
+                }
+            }
+        }
+
+        /**
+         * Wait indefinitely on the line and wakeup file descriptors
+         */
+        private void pollWithWakeup(Run run, Arena arena, LineEventReader reader, WakeupSignal wakeup) {
+            var pollFds = arena.allocate(Poll.LAYOUT, 2);
+            Poll.set(pollFds, LINE_INDEX, fileDescriptor.fd(), Poll.Flags.POLLIN.value | Poll.Flags.POLLERR.value);
+            Poll.set(pollFds, WAKEUP_INDEX, wakeup.fd(), Poll.Flags.POLLIN.value);
+
+            while (isCurrent(run)) {
+                pollingOperations.poll(pollFds, 2, -1);
+                if (hasEvents(Poll.revents(pollFds, WAKEUP_INDEX))) {
+                    wakeup.drain();
+                }
+                // drain all queued events
+                var revents = Poll.revents(pollFds, LINE_INDEX);
+                while (isCurrent(run) && !isTerminal(run, revents) && hasEvents(revents)) {
+                    if (!drain(run, reader)) {
+                        break;
+                    }
+                    pollingOperations.poll(pollFds, 1, 0);
+                    revents = Poll.revents(pollFds, LINE_INDEX);
+                }
+                if (isTerminal(run, revents)) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Wait on the line file descriptor, waking after each timeout to check for a stop request
+         */
+        private void pollWithTimeout(Run run, LineEventReader reader) {
+            var pollData = new Poll(fileDescriptor.fd());
+            while (isCurrent(run)) {
+                var revents = pollingOperations.poll(pollData, (int) timeout.toMillis()).revents();
+                // drain all queued events
+                while (isCurrent(run) && !isTerminal(run, revents) && hasEvents(revents)) {
+                    if (!drain(run, reader)) {
+                        break;
+                    }
+                    revents = pollingOperations.poll(pollData, 0).revents();
+                }
+                if (isTerminal(run, revents)) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Read and deliver one buffer of events
+         * @return true if the buffer was filled and further events may be queued
+         */
+        private boolean drain(Run run, LineEventReader reader) {
+            dispatchLock.lock();
+            try {
+                // stopped after the poll returned, the descriptor may already be closed
+                if (!isCurrent(run)) {
+                    return false;
+                }
+                var full = reader.read(fileOperations, fileDescriptor);
+                if (!reader.batch().isEmpty()) {
+                    callback.callback(this, reader.batch());
+                }
+                return full;
+            } finally {
+                dispatchLock.unlock();
+            }
+        }
+
+        private boolean isCurrent(Run run) {
+            return current.get() == run;
+        }
+
+        /**
+         * Whether the line reported an error, invalid descriptor or hang-up, after which polling cannot continue
+         */
+        private boolean isTerminal(Run run, int revents) {
+            if ((revents & TERMINAL_EVENTS) == 0) {
+                return false;
+            }
+            // a stopped run may see its descriptor closed, which is expected
+            if (current.compareAndSet(run, null)) {
+                logger.warn("Poll on fd {} returned revents 0x{}, stopping event poller",
+                        fileDescriptor.fd(),
+                        Integer.toHexString(revents)
+                );
+            }
+            return true;
+        }
+
+        private static boolean hasEvents(int revents) {
+            return (revents & Poll.Flags.POLLIN.value) != 0;
+        }
+    }
+
+    /**
+     * A single start of a {@link Poller}, which polls for as long as it remains the current run
+     */
+    private static final class Run {
+
+        private volatile boolean polling;
+        /**
+         * Guarded by this
+         */
+        private @Nullable WakeupSignal wakeupSignal;
+
+        private synchronized void setWakeupSignal(@Nullable WakeupSignal wakeupSignal) {
+            this.wakeupSignal = wakeupSignal;
+        }
+
+        private synchronized void wake() {
+            if (wakeupSignal != null) {
+                wakeupSignal.signal();
             }
         }
     }
@@ -0,0 +1,66 @@
+package io.github.iamnicknack.pjs.ffm.event;
+
+import io.github.iamnicknack.pjs.ffm.device.context.FileDescriptor;
+import io.github.iamnicknack.pjs.ffm.device.context.FileOperations;
+import io.github.iamnicknack.pjs.ffm.device.context.gpio.LineEvent;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+
+/**
+ * Reads line events from a file descriptor into a preallocated ring and copies them into a reusable
+ * {@link PollEventBatch}.
+ * <p>
+ * Instances are not thread-safe and are owned by a single polling thread.
+ * </p>
+ */
+final class LineEventReader {
+
+    private static final long LINE_EVENT_SIZE = LineEvent.LAYOUT.byteSize();
+
+    private final MemorySegment ring;
+    private final int ringBytes;
+    private final LineEvent.View lineEvent = new LineEvent.View();
+    private final PollEventBatch batch;
+
+    /**
+     * @param arena the arena which owns the ring
+     * @param capacity the number of events read in a single call
+     */
+    LineEventReader(Arena arena, int capacity) {
+        this.ring = arena.allocate(LineEvent.LAYOUT, capacity);
+        this.ringBytes = (int) ring.byteSize();
+        this.batch = new PollEventBatch(capacity);
+    }
+
+    /**
+     * The batch populated by the most recent read
+     */
+    PollEventBatch batch() {
+        return batch;
+    }
+
+    /**
+     * Read queued events, stopping at the first empty slot
+     * @return true if the ring was filled and further events may be queued
+     */
+    boolean read(FileOperations fileOperations, FileDescriptor fileDescriptor) {
+        var bytesRead = fileOperations.read(fileDescriptor, ring, ringBytes);
+        batch.clear();
+        var count = bytesRead / LINE_EVENT_SIZE;
+        for (int index = 0; index < count; index++) {
+            lineEvent.wrap(ring, index * LINE_EVENT_SIZE);
+            if (lineEvent.timestampNs() == 0) {
+                break;
+            }
+            batch.add(
+                    lineEvent.timestampNs(),
+                    lineEvent.id(),
+                    lineEvent.offset(),
+                    lineEvent.seqno(),
+                    lineEvent.lineSeqno()
+            );
+        }
+        return bytesRead == ringBytes;
+    }
+}
@@ -6,11 +6,25 @@ import io.github.iamnicknack.pjs.model.event.GpioChangeEventType;
  * Poll event data
  * @param eventType the type of event
  * @param timestamp the event timestamp
+ * @param lineOffset the offset of the line which triggered the event
+ * @param seqno the sequence number of the event across all lines in the request
+ * @param lineSeqno the sequence number of the event on its line
  */
 public record PollEvent(
         PollEventType eventType,
-        long timestamp
+        long timestamp,
+        int lineOffset,
+        int seqno,
+        int lineSeqno
 ) {
+    public PollEvent(PollEventType eventType, long timestamp) {
+        this(eventType, timestamp, 0);
+    }
+
+    public PollEvent(PollEventType eventType, long timestamp, int lineOffset) {
+        this(eventType, timestamp, lineOffset, 0, 0);
+    }
+
     public GpioChangeEventType asLineChangeEventType() {
         return switch (this.eventType) {
             case RISING -> GpioChangeEventType.RISING;
@@ -0,0 +1,167 @@
+package io.github.iamnicknack.pjs.ffm.event;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Reusable batch of GPIO events held in primitive arrays.
+ * <p>
+ * A poller fills the same batch on each read, so delivering events does not allocate. Callbacks must not retain the
+ * batch or rely on its contents after returning.
+ * </p>
+ */
+public final class PollEventBatch {
+
+    private final long[] timestamps;
+    private final int[] ids;
+    private final int[] lineOffsets;
+    private final int[] seqnos;
+    private final int[] lineSeqnos;
+    private int size;
+
+    /**
+     * Create an empty batch
+     * @param capacity the maximum number of events held by the batch
+     */
+    public PollEventBatch(int capacity) {
+        this.timestamps = new long[capacity];
+        this.ids = new int[capacity];
+        this.lineOffsets = new int[capacity];
+        this.seqnos = new int[capacity];
+        this.lineSeqnos = new int[capacity];
+    }
+
+    public int capacity() {
+        return timestamps.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Remove all events from the batch
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Append an event to the batch
+     * @return false if the batch is full
+     */
+    public boolean add(long timestampNs, int id, int lineOffset, int seqno, int lineSeqno) {
+        if (size == timestamps.length) {
+            return false;
+        }
+        timestamps[size] = timestampNs;
+        ids[size] = id;
+        lineOffsets[size] = lineOffset;
+        seqnos[size] = seqno;
+        lineSeqnos[size] = lineSeqno;
+        size++;
+        return true;
+    }
+
+    /**
+     * Remove the events rejected by the filter, preserving the order of the remaining events.
+     * <p>
+     * Events are tested in order. Each index passed to the filter refers to an event which has not yet been moved.
+     * </p>
+     * @param filter the filter to apply
+     * @return the number of events removed
+     */
+    public int retainIf(Filter filter) {
+        var retained = 0;
+        for (int index = 0; index < size; index++) {
+            if (filter.test(this, index)) {
+                if (retained != index) {
+                    timestamps[retained] = timestamps[index];
+                    ids[retained] = ids[index];
+                    lineOffsets[retained] = lineOffsets[index];
+                    seqnos[retained] = seqnos[index];
+                    lineSeqnos[retained] = lineSeqnos[index];
+                }
+                retained++;
+            }
+        }
+        var removed = size - retained;
+        size = retained;
+        return removed;
+    }
+
+    /**
+     * Event timestamp in nanoseconds
+     */
+    public long timestampNs(int index) {
+        return timestamps[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * Raw event id, as reported by the kernel
+     */
+    public int id(int index) {
+        return ids[Objects.checkIndex(index, size)];
+    }
+
+    public PollEventType eventType(int index) {
+        return PollEventType.from(id(index));
+    }
+
+    /**
+     * Offset of the line which triggered the event
+     */
+    public int lineOffset(int index) {
+        return lineOffsets[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * Sequence number of the event across all lines in the request
+     */
+    public int seqno(int index) {
+        return seqnos[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * Sequence number of the event on its line
+     */
+    public int lineSeqno(int index) {
+        return lineSeqnos[Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * Create a {@link PollEvent} for the event at the given index
+     */
+    public PollEvent get(int index) {
+        return new PollEvent(eventType(index), timestampNs(index), lineOffset(index), seqno(index), lineSeqno(index));
+    }
+
+    /**
+     * Copy the batch into a list of {@link PollEvent}
+     */
+    public List<PollEvent> toList() {
+        var list = new ArrayList<PollEvent>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(get(i));
+        }
+        return list;
+    }
+
+    /**
+     * Predicate over the events in a batch
+     */
+    @FunctionalInterface
+    public interface Filter {
+        /**
+         * @param batch the batch being filtered
+         * @param index the index of the event to test
+         * @return true to retain the event
+         */
+        boolean test(PollEventBatch batch, int index);
+    }
+}
@@ -0,0 +1,15 @@
+package io.github.iamnicknack.pjs.ffm.event;
+
+/**
+ * Handler for batches of detected poll events
+ */
+@FunctionalInterface
+public interface PollEventBatchCallback {
+
+    /**
+     * Notification for poll events
+     * @param poller the poller which read the events
+     * @param batch the detected events. The batch is reused and is only valid for the duration of the call.
+     */
+    void callback(EventPoller poller, PollEventBatch batch);
+}
@@ -4,13 +4,25 @@ import java.util.List;
 
 /**
  * Handler for detected poll events
+ * <p>
+ * Pollers deliver events as a {@link PollEventBatch}. By default the batch is copied into a list of
+ * {@link PollEvent}. Implementations can override {@link #callback(EventPoller, PollEventBatch)} to process the
+ * batch directly.
+ * </p>
  */
 @FunctionalInterface
-public interface PollEventsCallback {
+public interface PollEventsCallback extends PollEventBatchCallback {
 
     /**
      * Notification for poll events
      * @param pollEvents the detected events
      */
     void callback(EventPoller poller, List<PollEvent> pollEvents);
+
+    @Override
+    default void callback(EventPoller poller, PollEventBatch batch) {
+        if (!batch.isEmpty()) {
+            callback(poller, batch.toList());
+        }
+    }
 }
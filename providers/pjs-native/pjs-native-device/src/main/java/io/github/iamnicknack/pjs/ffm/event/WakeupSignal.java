@@ -0,0 +1,77 @@
+package io.github.iamnicknack.pjs.ffm.event;
+
+import io.github.iamnicknack.pjs.ffm.device.context.FileOperations;
+import io.github.iamnicknack.pjs.ffm.device.context.PollingOperations;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Non-blocking eventfd added to a poll set so that a blocked polling thread can be woken immediately.
+ * <p>
+ * Signalling increments the eventfd counter, making it readable. The polling thread drains the counter when the
+ * eventfd is reported as ready.
+ * </p>
+ */
+final class WakeupSignal implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(WakeupSignal.class);
+
+    /**
+     * eventfd counters are 64-bit values in host byte order
+     */
+    private static final byte[] ONE = ByteBuffer.allocate(Long.BYTES).order(ByteOrder.nativeOrder()).putLong(1).array();
+
+    private final FileOperations fileOperations;
+    private final int fd;
+    private final byte[] drainBuffer = new byte[Long.BYTES];
+
+    private WakeupSignal(FileOperations fileOperations, int fd) {
+        this.fileOperations = fileOperations;
+        this.fd = fd;
+    }
+
+    /**
+     * Create a wakeup signal, or return null if eventfd is not supported by the polling operations
+     */
+    static @Nullable WakeupSignal tryOpen(PollingOperations pollingOperations, FileOperations fileOperations) {
+        if (!pollingOperations.supports(PollingOperations.Capability.EVENT_FD)) {
+            logger.debug("Wakeup signal unavailable, eventfd is not supported by {}",
+                    pollingOperations.getClass().getSimpleName()
+            );
+            return null;
+        }
+        return new WakeupSignal(fileOperations, pollingOperations.eventFd());
+    }
+
+    int fd() {
+        return fd;
+    }
+
+    /**
+     * Wake the polling thread
+     */
+    void signal() {
+        fileOperations.write(fd, ONE, 0, ONE.length);
+    }
+
+    /**
+     * Reset the counter after a wakeup. Called from the polling thread.
+     */
+    void drain() {
+        try {
+            fileOperations.read(fd, drainBuffer, 0, drainBuffer.length);
+        } catch (RuntimeException e) {
+            // EAGAIN if another wakeup already drained the counter
+            logger.trace("Nothing to drain from wakeup fd {}", fd);
+        }
+    }
+
+    @Override
+    public void close() {
+        fileOperations.close(fd);
+    }
+}
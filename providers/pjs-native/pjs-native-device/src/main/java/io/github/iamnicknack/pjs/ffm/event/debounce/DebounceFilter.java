@@ -1,14 +1,23 @@
 package io.github.iamnicknack.pjs.ffm.event.debounce;
 
 import io.github.iamnicknack.pjs.ffm.event.PollEvent;
+import io.github.iamnicknack.pjs.ffm.event.PollEventBatch;
 
+import java.util.Arrays;
 import java.util.function.Predicate;
 
 /**
  * Stateful predicate to filter events based on a provided debounce period
+ * <p>
+ * The time of the last accepted event is held per line offset, so each line of a multi-line port is debounced
+ * independently.
+ * </p>
  */
-public class DebounceFilter implements Predicate<PollEvent> {
-    private long last = 0;
+public class DebounceFilter implements Predicate<PollEvent>, PollEventBatch.Filter {
+    /**
+     * Timestamp of the last accepted event, indexed by line offset
+     */
+    private long[] last = new long[1];
     private final long debounce;
 
     public DebounceFilter(long debounce) {
@@ -17,8 +26,35 @@ public class DebounceFilter implements Predicate<PollEvent> {
 
     @Override
     public boolean test(PollEvent pollEvent) {
-        if ((pollEvent.timestamp() - last > debounce) || (last == 0)) {
-            last = pollEvent.timestamp();
+        return test(pollEvent.lineOffset(), pollEvent.timestamp());
+    }
+
+    @Override
+    public boolean test(PollEventBatch batch, int index) {
+        return test(batch.lineOffset(index), batch.timestampNs(index));
+    }
+
+    /**
+     * Remove debounced events from the batch in place
+     * @param batch the batch to filter
+     */
+    public void filter(PollEventBatch batch) {
+        batch.retainIf(this);
+    }
+
+    /**
+     * Test an event, recording its timestamp if accepted
+     * @param lineOffset the offset of the line which triggered the event
+     * @param timestamp the event timestamp
+     * @return true if the event is outside the debounce period of the last accepted event on the same line
+     */
+    public boolean test(int lineOffset, long timestamp) {
+        if (lineOffset >= last.length) {
+            last = Arrays.copyOf(last, Math.max(lineOffset + 1, last.length * 2));
+        }
+        var lineLast = last[lineOffset];
+        if ((timestamp - lineLast > debounce) || (lineLast == 0)) {
+            last[lineOffset] = timestamp;
             return true;
         }
         return false;
@@ -2,6 +2,7 @@ package io.github.iamnicknack.pjs.ffm.event.debounce;
 
 import io.github.iamnicknack.pjs.ffm.event.EventPoller;
 import io.github.iamnicknack.pjs.ffm.event.PollEvent;
+import io.github.iamnicknack.pjs.ffm.event.PollEventBatch;
 import io.github.iamnicknack.pjs.ffm.event.PollEventsCallback;
 
 import java.util.List;
@@ -10,7 +11,7 @@ import java.util.List;
  * Leading-edge, rate-limiting callback
  * <p>
  * Accept the first change and then ignore further changes for the debounce window
- * (or accept at most one event per window).
+ * (or accept at most one event per window). Each line is debounced independently.
  * Useful when an immediate reaction is wanted but limit how often it can re-fire.
  */
 public class LeadingEdgeDebounceCallback implements PollEventsCallback, AutoCloseable {
@@ -30,6 +31,17 @@ public class LeadingEdgeDebounceCallback implements PollEventsCallback, AutoClos
         }
     }
 
+    /**
+     * Filter the batch in place and pass any remaining events to the delegate
+     */
+    @Override
+    public void callback(EventPoller poller, PollEventBatch batch) {
+        eventFilter.filter(batch);
+        if (!batch.isEmpty()) {
+            delegate.callback(poller, batch);
+        }
+    }
+
     @Override
     public void close() {
         // do nothing
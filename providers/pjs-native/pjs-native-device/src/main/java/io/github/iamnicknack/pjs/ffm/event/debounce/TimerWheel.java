@@ -0,0 +1,278 @@
+package io.github.iamnicknack.pjs.ffm.event.debounce;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hashed timer wheel shared by software debounce callbacks.
+ * <p>
+ * A single worker thread runs the expiry tasks for all timers. Each {@link Timeout} is created once by its owner
+ * and is a node in an intrusive list, so arming, re-arming and cancelling are O(1) and do not allocate. The worker
+ * is started when the first timeout is armed and parks while no timers are pending, so an idle wheel does not wake.
+ * </p>
+ * <p>
+ * Deadlines are rounded up to the next tick. Expiry tasks run on the worker thread and should be short.
+ * </p>
+ */
+public class TimerWheel implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimerWheel.class);
+    private static final AtomicInteger wheelCounter = new AtomicInteger(0);
+
+    /**
+     * Default tick duration
+     */
+    public static final Duration DEFAULT_TICK = Duration.ofMillis(1);
+
+    /**
+     * Default number of buckets. Delays up to one wheel revolution are placed without wrapping.
+     */
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private final long tickNanos;
+    private final int mask;
+    private final Timeout[] buckets;
+    private final long startNanos = System.nanoTime();
+    private final Thread worker;
+
+    /**
+     * The last tick processed by the worker. Guarded by this.
+     */
+    private long currentTick;
+    private int pending;
+    private boolean started;
+    private volatile boolean running = true;
+
+    /**
+     * Create a wheel with the default tick and size, running on a daemon platform thread
+     */
+    public TimerWheel() {
+        this(DEFAULT_TICK, DEFAULT_WHEEL_SIZE, Thread.ofPlatform().daemon(true).factory());
+    }
+
+    /**
+     * Constructor.
+     * @param tick the resolution of the wheel
+     * @param wheelSize the number of buckets, rounded up to a power of two
+     * @param threadFactory creates the worker thread
+     */
+    public TimerWheel(Duration tick, int wheelSize, ThreadFactory threadFactory) {
+        if (tick.isNegative() || tick.isZero()) {
+            throw new IllegalArgumentException("Tick must be positive: " + tick);
+        }
+        if (wheelSize < 1 || wheelSize > (1 << 30)) {
+            throw new IllegalArgumentException("Invalid wheel size: " + wheelSize);
+        }
+        var size = Integer.highestOneBit(wheelSize);
+        if (size < wheelSize) {
+            size <<= 1;
+        }
+        this.tickNanos = tick.toNanos();
+        this.mask = size - 1;
+        this.buckets = new Timeout[size];
+        this.worker = threadFactory.newThread(this::run);
+        this.worker.setName("debounce-timer-wheel[" + wheelCounter.getAndIncrement() + "]");
+    }
+
+    /**
+     * Create a wheel with the default tick and size, running on a virtual thread
+     */
+    public static TimerWheel ofVirtualThread() {
+        return new TimerWheel(DEFAULT_TICK, DEFAULT_WHEEL_SIZE, Thread.ofVirtual().factory());
+    }
+
+    /**
+     * Create a timeout which runs the provided task each time it expires. The timeout is initially disarmed.
+     * @param task the expiry task
+     * @return a reusable timeout bound to this wheel
+     */
+    public Timeout newTimeout(Runnable task) {
+        return new Timeout(this, task);
+    }
+
+    /**
+     * The number of armed timeouts
+     */
+    public synchronized int pending() {
+        return pending;
+    }
+
+    /**
+     * Stop the worker thread. Armed timeouts do not expire.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(worker);
+    }
+
+    private long tickOf(long nanoTime) {
+        return (nanoTime - startNanos) / tickNanos;
+    }
+
+    private synchronized void arm(Timeout timeout, long delayNanos) {
+        if (timeout.bucket >= 0) {
+            unlink(timeout);
+        } else if (pending == 0) {
+            // the worker skips idle ticks rather than walking every bucket they passed
+            currentTick = tickOf(System.nanoTime());
+        }
+        // round up so that a timeout never expires early
+        var deadlineTick = tickOf(System.nanoTime() + Math.max(0, delayNanos) + tickNanos - 1);
+        timeout.deadlineTick = Math.max(deadlineTick, currentTick + 1);
+        link(timeout);
+        if (!started) {
+            started = true;
+            worker.start();
+        }
+        if (pending++ == 0) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    private synchronized boolean disarm(Timeout timeout) {
+        if (timeout.bucket < 0) {
+            return false;
+        }
+        unlink(timeout);
+        pending--;
+        return true;
+    }
+
+    private void link(Timeout timeout) {
+        var bucket = (int) (timeout.deadlineTick & mask);
+        var head = buckets[bucket];
+        timeout.bucket = bucket;
+        timeout.prev = null;
+        timeout.next = head;
+        if (head != null) {
+            head.prev = timeout;
+        }
+        buckets[bucket] = timeout;
+    }
+
+    private void unlink(Timeout timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            buckets[timeout.bucket] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.bucket = -1;
+        timeout.prev = null;
+        timeout.next = null;
+    }
+
+    /**
+     * Remove expired timeouts from the wheel
+     * @return expired timeouts linked through {@link Timeout#nextExpired}
+     */
+    private synchronized Timeout expire(long nowTick) {
+        Timeout expired = null;
+        var ticks = Math.min(nowTick - currentTick, buckets.length);
+        for (long tick = currentTick + 1; tick <= currentTick + ticks; tick++) {
+            var timeout = buckets[(int) (tick & mask)];
+            while (timeout != null) {
+                var next = timeout.next;
+                if (timeout.deadlineTick <= nowTick) {
+                    unlink(timeout);
+                    pending--;
+                    timeout.nextExpired = expired;
+                    expired = timeout;
+                }
+                timeout = next;
+            }
+        }
+        currentTick = Math.max(currentTick, nowTick);
+        return expired;
+    }
+
+    /**
+     * The time to park before the next tick, or zero to park until a timeout is armed
+     */
+    private synchronized long parkNanos() {
+        if (pending == 0) {
+            return 0;
+        }
+        var nextTickNanos = startNanos + (currentTick + 1) * tickNanos;
+        return Math.max(1, nextTickNanos - System.nanoTime());
+    }
+
+    private void run() {
+        while (running) {
+            var parkNanos = parkNanos();
+            if (parkNanos == 0) {
+                LockSupport.park(this);
+                continue;
+            }
+            LockSupport.parkNanos(this, parkNanos);
+
+            var expired = expire(tickOf(System.nanoTime()));
+            while (expired != null) {
+                var next = expired.nextExpired;
+                expired.nextExpired = null;
+                try {
+                    expired.task.run();
+                } catch (RuntimeException e) {
+                    logger.error("Timer task failed", e);
+                }
+                expired = next;
+            }
+        }
+    }
+
+    /**
+     * Reusable timer bound to a {@link TimerWheel}. Instances are created by {@link TimerWheel#newTimeout(Runnable)}.
+     */
+    public static final class Timeout {
+
+        private final TimerWheel wheel;
+        private final Runnable task;
+
+        // guarded by the wheel
+        private long deadlineTick;
+        private int bucket = -1;
+        private Timeout prev;
+        private Timeout next;
+
+        // owned by the worker thread, so a timeout re-armed by its task does not break the expired list
+        private Timeout nextExpired;
+
+        private Timeout(TimerWheel wheel, Runnable task) {
+            this.wheel = wheel;
+            this.task = task;
+        }
+
+        /**
+         * Arm the timeout, replacing any existing deadline
+         * @param delayNanos the delay in nanoseconds
+         */
+        public void schedule(long delayNanos) {
+            wheel.arm(this, delayNanos);
+        }
+
+        /**
+         * Disarm the timeout
+         * @return true if the timeout was armed
+         */
+        public boolean cancel() {
+            return wheel.disarm(this);
+        }
+
+        /**
+         * Check whether the timeout is armed
+         */
+        public boolean isArmed() {
+            synchronized (wheel) {
+                return bucket >= 0;
+            }
+        }
+    }
+}
@@ -2,67 +2,305 @@ package io.github.iamnicknack.pjs.ffm.event.debounce;
 
 import io.github.iamnicknack.pjs.ffm.event.EventPoller;
 import io.github.iamnicknack.pjs.ffm.event.PollEvent;
+import io.github.iamnicknack.pjs.ffm.event.PollEventBatch;
+import io.github.iamnicknack.pjs.ffm.event.PollEventType;
 import io.github.iamnicknack.pjs.ffm.event.PollEventsCallback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Trailing-edge callback which propagates an event after a specified debounce period of stability.
  * <p>
- * Waits until the signal/value is unchanged for the debounce window, then emits the change.
+ * Waits until the signal/value is unchanged for the debounce window, then emits the last change. Each line of a
+ * multi-line port is debounced independently, with its window tracked by a reusable timeout on a {@link TimerWheel},
+ * which may be shared by many callbacks. Per-line state is held in arrays indexed by line offset.
+ * <p>
+ * Threading: the delegate is never called on the timer wheel thread, nor while this callback holds its lock. When a
+ * window elapses the wheel only appends the event to a pending batch, and a task on the delivery executor hands the
+ * whole batch to the delegate. By default this is a single long-lived daemon thread shared by all callbacks, so a
+ * slow delegate delays other callbacks using it, but never the wheel; pass an executor to isolate a callback.
+ * Deliveries from one callback are serialised and keep the order in which their windows elapsed, so the delegate
+ * need not be thread-safe. Events still pending when the callback is closed are dropped.
+ * </p>
+ * <p>
+ * Two batches are swapped between the wheel and the delivery task, so delivering events does not allocate once the
+ * batches have grown to the largest burst.
+ * </p>
  */
 public class TrailingEdgeDebounceCallback implements PollEventsCallback, AutoCloseable {
 
+    private static final Logger logger = LoggerFactory.getLogger(TrailingEdgeDebounceCallback.class);
+
+    private static final int INITIAL_BATCH_CAPACITY = 16;
+
     private final PollEventsCallback delegate;
     private final long debounce;
-    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final TimerWheel timerWheel;
+    private final boolean ownsTimerWheel;
+    private final Executor deliveryExecutor;
     private final Object lock = new Object();
-
-    private volatile PollEvent lastEvent = null;
-    private ScheduledFuture<?> future;
     private final DebounceFilter eventFilter;
 
     /**
-     * Constructor
+     * Set while a delivery task is scheduled or running, so at most one delivers at a time
+     */
+    private final AtomicBoolean delivering = new AtomicBoolean();
+    private volatile boolean closed;
+
+    /**
+     * The batch being delivered, only accessed by the delivery task
+     */
+    private PollEventBatch deliveredEvents = new PollEventBatch(INITIAL_BATCH_CAPACITY);
+
+    /**
+     * Events whose window has elapsed, waiting to be delivered to the delegate. Guarded by lock.
+     */
+    private PollEventBatch pendingEvents = new PollEventBatch(INITIAL_BATCH_CAPACITY);
+
+    // guarded by lock, indexed by line offset
+    private TimerWheel.Timeout[] timeouts = new TimerWheel.Timeout[1];
+    private PollEventType[] lastTypes = new PollEventType[1];
+    private long[] lastTimestamps = new long[1];
+    private int[] lastSeqnos = new int[1];
+    private int[] lastLineSeqnos = new int[1];
+
+    private EventPoller poller;
+
+    /**
+     * Constructor for a callback which owns its timer wheel
      *
      * @param delegate the delegate callback
-     * @param debounce debounce period in microseconds
+     * @param debounce debounce period in nanoseconds
      */
     public TrailingEdgeDebounceCallback(PollEventsCallback delegate, long debounce) {
+        this(delegate, debounce, new TimerWheel(), true, SharedDelivery.EXECUTOR);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param delegate the delegate callback
+     * @param debounce debounce period in nanoseconds
+     * @param timerWheel the shared timer wheel used to schedule the trailing edge
+     */
+    public TrailingEdgeDebounceCallback(PollEventsCallback delegate, long debounce, TimerWheel timerWheel) {
+        this(delegate, debounce, timerWheel, false, SharedDelivery.EXECUTOR);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param delegate the delegate callback
+     * @param debounce debounce period in nanoseconds
+     * @param timerWheel the shared timer wheel used to schedule the trailing edge
+     * @param deliveryExecutor runs the tasks which deliver events to the delegate
+     */
+    public TrailingEdgeDebounceCallback(
+            PollEventsCallback delegate,
+            long debounce,
+            TimerWheel timerWheel,
+            Executor deliveryExecutor
+    ) {
+        this(delegate, debounce, timerWheel, false, deliveryExecutor);
+    }
+
+    private TrailingEdgeDebounceCallback(
+            PollEventsCallback delegate,
+            long debounce,
+            TimerWheel timerWheel,
+            boolean ownsTimerWheel,
+            Executor deliveryExecutor
+    ) {
         this.delegate = delegate;
         this.debounce = debounce;
         this.eventFilter = new DebounceFilter(debounce);
+        this.timerWheel = timerWheel;
+        this.ownsTimerWheel = ownsTimerWheel;
+        this.deliveryExecutor = deliveryExecutor;
     }
 
     @Override
     public void callback(EventPoller poller, List<PollEvent> pollEvents) {
         synchronized (lock) {
-            var filteredEvents = pollEvents.stream().filter(eventFilter).toList();
-            if (filteredEvents.isEmpty()) {
-                return;
+            for (var pollEvent : pollEvents) {
+                if (eventFilter.test(pollEvent)) {
+                    record(poller, pollEvent.lineOffset(), pollEvent.eventType(), pollEvent.timestamp(),
+                            pollEvent.seqno(), pollEvent.lineSeqno());
+                }
+            }
+        }
+    }
+
+    /**
+     * Record accepted events directly from the batch, without copying it into a list
+     */
+    @Override
+    public void callback(EventPoller poller, PollEventBatch batch) {
+        synchronized (lock) {
+            for (int index = 0; index < batch.size(); index++) {
+                if (eventFilter.test(batch, index)) {
+                    record(poller, batch.lineOffset(index), batch.eventType(index), batch.timestampNs(index),
+                            batch.seqno(index), batch.lineSeqno(index));
+                }
+            }
+        }
+    }
+
+    /**
+     * Store the latest event for a line and restart its debounce window
+     */
+    private void record(
+            EventPoller poller,
+            int lineOffset,
+            PollEventType eventType,
+            long timestamp,
+            int seqno,
+            int lineSeqno
+    ) {
+        if (lineOffset >= timeouts.length) {
+            var length = Math.max(lineOffset + 1, timeouts.length * 2);
+            timeouts = Arrays.copyOf(timeouts, length);
+            lastTypes = Arrays.copyOf(lastTypes, length);
+            lastTimestamps = Arrays.copyOf(lastTimestamps, length);
+            lastSeqnos = Arrays.copyOf(lastSeqnos, length);
+            lastLineSeqnos = Arrays.copyOf(lastLineSeqnos, length);
+        }
+        var timeout = timeouts[lineOffset];
+        if (timeout == null) {
+            timeout = timerWheel.newTimeout(() -> emit(lineOffset));
+            timeouts[lineOffset] = timeout;
+        }
+        this.poller = poller;
+        lastTypes[lineOffset] = eventType;
+        lastTimestamps[lineOffset] = timestamp;
+        lastSeqnos[lineOffset] = seqno;
+        lastLineSeqnos[lineOffset] = lineSeqno;
+        timeout.schedule(debounce);
+    }
+
+    /**
+     * Append the last event for a line to the pending batch once its debounce window has elapsed. Runs on the timer
+     * wheel thread, so leaves delivery to {@link #deliver()}.
+     */
+    private void emit(int lineOffset) {
+        boolean pending = false;
+        synchronized (lock) {
+            var eventType = lastTypes[lineOffset];
+            var timestamp = lastTimestamps[lineOffset];
+            if (eventType != null && timestamp >= debounce && !closed) {
+                appendPending(
+                        timestamp, eventType.value, lineOffset, lastSeqnos[lineOffset], lastLineSeqnos[lineOffset]
+                );
+                pending = true;
             }
+            lastTypes[lineOffset] = null;
+        }
+        if (pending) {
+            scheduleDelivery();
+        }
+    }
 
-            lastEvent = filteredEvents.getLast();
-            if (future != null) {
-                future.cancel(false);
+    /**
+     * Append an event to the pending batch, growing it when full. Guarded by lock.
+     */
+    private void appendPending(long timestamp, int id, int lineOffset, int seqno, int lineSeqno) {
+        if (!pendingEvents.add(timestamp, id, lineOffset, seqno, lineSeqno)) {
+            var grown = new PollEventBatch(pendingEvents.capacity() * 2);
+            for (int index = 0; index < pendingEvents.size(); index++) {
+                grown.add(
+                        pendingEvents.timestampNs(index),
+                        pendingEvents.id(index),
+                        pendingEvents.lineOffset(index),
+                        pendingEvents.seqno(index),
+                        pendingEvents.lineSeqno(index)
+                );
+            }
+            grown.add(timestamp, id, lineOffset, seqno, lineSeqno);
+            pendingEvents = grown;
+        }
+    }
+
+    /**
+     * Start a delivery task unless one is already scheduled or running
+     */
+    private void scheduleDelivery() {
+        if (delivering.compareAndSet(false, true)) {
+            try {
+                deliveryExecutor.execute(this::deliver);
+            } catch (RuntimeException e) {
+                delivering.set(false);
+                logger.error("Failed to schedule debounced event delivery", e);
             }
-            future = scheduler.schedule(() -> {
+        }
+    }
+
+    /**
+     * Deliver pending events to the delegate, in order, outside the lock
+     */
+    private void deliver() {
+        try {
+            while (!closed) {
+                EventPoller target;
                 synchronized (lock) {
-                    future = null;
-                    if ((lastEvent.timestamp()) >= debounce) {
-                        delegate.callback(poller, filteredEvents);
+                    if (pendingEvents.isEmpty()) {
+                        break;
                     }
+                    var swapped = deliveredEvents;
+                    deliveredEvents = pendingEvents;
+                    pendingEvents = swapped;
+                    target = poller;
                 }
-            }, debounce, TimeUnit.NANOSECONDS);
+                try {
+                    delegate.callback(target, deliveredEvents);
+                } catch (RuntimeException e) {
+                    logger.error("Debounced event callback failed", e);
+                } finally {
+                    deliveredEvents.clear();
+                }
+            }
+        } finally {
+            delivering.set(false);
+        }
+        // an event appended after the last swap but before the flag was cleared would otherwise wait for the next one
+        if (!closed && hasPendingEvents()) {
+            scheduleDelivery();
+        }
+    }
+
+    private boolean hasPendingEvents() {
+        synchronized (lock) {
+            return !pendingEvents.isEmpty();
         }
     }
 
     @Override
     public void close() {
-        scheduler.shutdownNow();
+        closed = true;
+        synchronized (lock) {
+            pendingEvents.clear();
+            for (var timeout : timeouts) {
+                if (timeout != null) {
+                    timeout.cancel();
+                }
+            }
+        }
+        if (ownsTimerWheel) {
+            timerWheel.close();
+        }
+    }
+
+    /**
+     * Delivery thread shared by callbacks created without an executor, started on first use
+     */
+    private static final class SharedDelivery {
+        private static final Executor EXECUTOR = Executors.newSingleThreadExecutor(
+                Thread.ofPlatform().name("debounce-delivery").daemon(true).factory()
+        );
     }
 }
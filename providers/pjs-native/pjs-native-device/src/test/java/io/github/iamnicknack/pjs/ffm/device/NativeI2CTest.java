@@ -1,79 +1,147 @@
 package io.github.iamnicknack.pjs.ffm.device;
 
+import io.github.iamnicknack.pjs.device.i2c.I2C;
 import io.github.iamnicknack.pjs.device.i2c.I2CConfig;
 import io.github.iamnicknack.pjs.device.i2c.impl.I2CRegister;
 import io.github.iamnicknack.pjs.ffm.device.context.AbstractFileOperations;
 import io.github.iamnicknack.pjs.ffm.device.context.AbstractIoctlOperations;
+import io.github.iamnicknack.pjs.ffm.device.context.i2c.I2CConstants;
 import io.github.iamnicknack.pjs.ffm.device.context.i2c.I2CMessage;
 import io.github.iamnicknack.pjs.ffm.device.context.i2c.I2CRdwrData;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.foreign.MemoryLayout.PathElement.groupElement;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class NativeI2CTest {
 
+    private static final long BUFFER_OFFSET = I2CMessage.LAYOUT.byteOffset(groupElement("buffer"));
+
+    private final I2CRdwrData.Deserializer deserializer = new I2CRdwrData.Deserializer();
+    private final List<I2CRdwrData> transfers = new ArrayList<>();
+    private final List<MemorySegment> structs = new ArrayList<>();
+    private byte readValue = 0x02;
+
+    private final AbstractFileOperations fileOperations = new AbstractFileOperations() {
+        @Override
+        public int close(int fd) {
+            return 0;
+        }
+    };
+
+    /**
+     * Records each transfer and fills the buffer of each read message with {@link #readValue}
+     */
+    private final AbstractIoctlOperations ioctlOperations = AbstractIoctlOperations.builder()
+            .addHandler((long) I2CConstants.I2C_RDWR, (_, _, data) -> {
+                var segment = (MemorySegment) data;
+                structs.add(segment);
+                var transfer = deserializer.deserialize(segment);
+                transfers.add(transfer);
+                for (int i = 0; i < transfer.messageCount(); i++) {
+                    var message = transfer.messages()[i];
+                    if ((message.flags() & I2CConstants.I2C_M_RD) != 0) {
+                        messageBuffer(segment, i, message.length()).fill(readValue);
+                    }
+                }
+                return data;
+            })
+            .build();
+
     @Test
     void canReadI2C() {
         var expectedMessage = new I2CMessage(0x20, 0, 1, new byte[] { 0x01 });
-        var ioctlOperations = new AbstractIoctlOperations() {
-            @Override
-            public <T> T ioctl(int fd, long command, T data) {
-                assertThat(data).isInstanceOf(I2CRdwrData.class);
-                var rdwrData = (I2CRdwrData) data;
-                assertThat(rdwrData.messages()).hasSize(2);
-                assertThat(rdwrData.messages()[0]).isEqualTo(expectedMessage);
-                rdwrData.messages()[1].buffer()[0] = 0x02;
-                return data;
-            }
-        };
-
-        var fileOperations = new AbstractFileOperations() {
-            @Override
-            public int close(int fd) {
-                return 0;
-            }
-        };
-
-        var config = I2CConfig.builder().build();
-        var fileDescriptor = fileOperations.createFileDescriptor(1);
-        try (var i2c = new NativeI2C(config, ioctlOperations, fileDescriptor)) {
+
+        try (var i2c = new NativeI2C(I2CConfig.builder().build(), ioctlOperations, fileOperations.createFileDescriptor(1))) {
             var i2cRegister = new I2CRegister(0x20, 1, i2c);
             var result = i2cRegister.read();
             assertThat(result).isEqualTo(0x02);
         } catch (Exception e) {
             Assertions.fail(e);
         }
+
+        assertThat(transfers).hasSize(1);
+        assertThat(transfers.getFirst().messages()).hasSize(2);
+        assertThat(transfers.getFirst().messages()[0]).isEqualTo(expectedMessage);
+        assertThat(transfers.getFirst().messages()[1].flags()).isEqualTo(I2CConstants.I2C_M_RD);
     }
 
     @Test
     void canWriteI2C() {
         var expectedMessage = new I2CMessage(0x20, 0, 1, new byte[] { 0x02 });
-        var ioctlOperations = new AbstractIoctlOperations() {
-            @Override
-            public <T> T ioctl(int fd, long command, T data) {
-                assertThat(data).isInstanceOf(I2CRdwrData.class);
-                var rdwrData = (I2CRdwrData) data;
-                assertThat(rdwrData.messages()).hasSize(2);
-                assertThat(rdwrData.messages()[1]).isEqualTo(expectedMessage);
-                return data;
-            }
-        };
-
-        var fileOperations = new AbstractFileOperations() {
-            @Override
-            public int close(int fd) {
-                return 0;
-            }
-        };
-
-        var config = I2CConfig.builder().build();
-        var fileDescriptor = fileOperations.createFileDescriptor(1);
-        try (var i2c = new NativeI2C(config, ioctlOperations, fileDescriptor)) {
+
+        try (var i2c = new NativeI2C(I2CConfig.builder().build(), ioctlOperations, fileOperations.createFileDescriptor(1))) {
             var i2cRegister = new I2CRegister(0x20, 1, i2c);
             i2cRegister.write(0x02);
         } catch (Exception e) {
             Assertions.fail(e);
         }
+
+        assertThat(transfers).hasSize(1);
+        assertThat(transfers.getFirst().messages()).hasSize(2);
+        assertThat(transfers.getFirst().messages()[1]).isEqualTo(expectedMessage);
+    }
+
+    @Test
+    void honoursMessageOffsets() throws Exception {
+        var write = new byte[] { 0, 0, 0x11, 0x22, 0 };
+        var read = new byte[] { -1, -1, -1, -1, -1 };
+        readValue = 0x33;
+
+        try (var i2c = new NativeI2C(I2CConfig.builder().build(), ioctlOperations, fileOperations.createFileDescriptor(1))) {
+            i2c.transfer(new I2C.Message[] {
+                    I2C.Message.write(0x40, write, 2, 2),
+                    I2C.Message.read(0x40, read, 1, 3)
+            });
+        }
+
+        var messages = transfers.getFirst().messages();
+        assertThat(messages[0]).isEqualTo(new I2CMessage(0x40, 0, 2, new byte[] { 0x11, 0x22 }));
+        assertThat(messages[1].length()).isEqualTo(3);
+        assertThat(read).containsExactly(-1, 0x33, 0x33, 0x33, -1);
+    }
+
+    @Test
+    void reusesTransferStructs() throws Exception {
+        try (var i2c = new NativeI2C(I2CConfig.builder().build(), ioctlOperations, fileOperations.createFileDescriptor(1))) {
+            var register = new I2CRegister(0x20, 1, i2c);
+            register.read();
+            register.read();
+            register.write(1);
+        }
+
+        assertThat(structs).hasSize(3);
+        assertThat(structs).allMatch(segment -> segment.equals(structs.getFirst()));
+        assertThat(transfers).extracting(transfer -> transfer.messages()[0].buffer()[0])
+                .containsOnly((byte) 0x01);
+    }
+
+    @Test
+    void rejectsTooManyMessages() throws Exception {
+        var messages = new I2C.Message[I2CRdwrData.MAX_MESSAGES + 1];
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = I2C.Message.write(0x20, new byte[1], 0, 1);
+        }
+
+        try (var i2c = new NativeI2C(I2CConfig.builder().build(), ioctlOperations, fileOperations.createFileDescriptor(1))) {
+            assertThatThrownBy(() -> i2c.transfer(messages)).isInstanceOf(IllegalArgumentException.class);
+        }
+        assertThat(transfers).isEmpty();
+    }
+
+    /**
+     * The native data buffer of a message in an {@code i2c_rdwr_ioctl_data} struct
+     */
+    private static MemorySegment messageBuffer(MemorySegment rdwr, int index, int length) {
+        var messages = rdwr.get(ValueLayout.ADDRESS, 0).reinterpret(I2CMessage.LAYOUT.byteSize() * (index + 1));
+        return messages.get(ValueLayout.ADDRESS, index * I2CMessage.LAYOUT.byteSize() + BUFFER_OFFSET)
+                .reinterpret(length);
     }
-}
\ No newline at end of file
+}
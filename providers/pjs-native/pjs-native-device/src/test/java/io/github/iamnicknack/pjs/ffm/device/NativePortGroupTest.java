@@ -0,0 +1,346 @@
+package io.github.iamnicknack.pjs.ffm.device;
+
+import io.github.iamnicknack.pjs.device.gpio.GpioEventMode;
+import io.github.iamnicknack.pjs.device.gpio.GpioPort;
+import io.github.iamnicknack.pjs.device.gpio.GpioPortConfig;
+import io.github.iamnicknack.pjs.device.gpio.GpioPortMode;
+import io.github.iamnicknack.pjs.ffm.device.context.AbstractFileOperations;
+import io.github.iamnicknack.pjs.ffm.device.context.AbstractIoctlOperations;
+import io.github.iamnicknack.pjs.ffm.device.context.FileDescriptor;
+import io.github.iamnicknack.pjs.ffm.device.context.FileOperations;
+import io.github.iamnicknack.pjs.ffm.device.context.IoctlOperations;
+import io.github.iamnicknack.pjs.ffm.device.context.gpio.ChipInfo;
+import io.github.iamnicknack.pjs.ffm.device.context.gpio.GpioConstants;
+import io.github.iamnicknack.pjs.ffm.device.context.gpio.LineAttribute;
+import io.github.iamnicknack.pjs.ffm.device.context.gpio.LineConfig;
+import io.github.iamnicknack.pjs.ffm.device.context.gpio.LineConfigAttribute;
+import io.github.iamnicknack.pjs.ffm.device.context.gpio.LineRequest;
+import io.github.iamnicknack.pjs.ffm.device.context.gpio.LineValues;
+import io.github.iamnicknack.pjs.ffm.device.context.gpio.PinFlag;
+import io.github.iamnicknack.pjs.ffm.event.EventPoller;
+import io.github.iamnicknack.pjs.model.event.GpioEventListener;
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.MemorySegment;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NativePortGroupTest {
+
+    private static final int REQUEST_FD = 5;
+
+    private final FileOperations fileOperations = new AbstractFileOperations() {
+        @Override
+        public FileDescriptor openFd(String pathname, int flags) {
+            return this.createFileDescriptor(1);
+        }
+    };
+
+    private final List<LineRequest> lineRequests = new ArrayList<>();
+    private final List<LineConfig> setConfigs = new ArrayList<>();
+    private final List<LineValues> setValues = Collections.synchronizedList(new ArrayList<>());
+    private int getValuesCount;
+    private long lineState;
+
+    private final IoctlOperations ioctlOperations = AbstractIoctlOperations.builder()
+            .addHandler(GpioConstants.GPIO_V2_GET_LINEINFO_IOCTL)
+            .addHandler(GpioConstants.GPIO_V2_GET_LINE_IOCTL, (_, _, data) -> {
+                var request = (LineRequest) data;
+                lineRequests.add(request);
+                return new LineRequest(request.offsets(), request.consumer(), request.config(), 0, REQUEST_FD + lineRequests.size() - 1);
+            })
+            .addHandler(GpioConstants.GPIO_V2_LINE_GET_VALUES_IOCTL, (fd, _, data) -> {
+                assertThat(fd).isGreaterThanOrEqualTo(REQUEST_FD);
+                getValuesCount++;
+                var view = new LineValues.View((MemorySegment) data);
+                view.bits(lineState & view.mask());
+                return data;
+            })
+            .addHandler(GpioConstants.GPIO_V2_LINE_SET_VALUES_IOCTL, (_, _, data) -> {
+                var values = new LineValues.View((MemorySegment) data).toRecord();
+                setValues.add(values);
+                lineState = (lineState & ~values.mask()) | (values.bits() & values.mask());
+                return data;
+            })
+            .addHandler(GpioConstants.GPIO_V2_LINE_SET_CONFIG_IOCTL, (_, _, data) -> {
+                setConfigs.add((LineConfig) data);
+                return data;
+            })
+            .build();
+
+    private final NativePortProvider provider = new NativePortProvider(
+            new ChipInfo("test", "test", 8),
+            fileOperations,
+            ioctlOperations,
+            EventPoller.NOOP_FACTORY
+    );
+
+    @Test
+    void mergesConfigsIntoSingleRequest() {
+        var ports = provider.createGroup(List.of(
+                GpioPortConfig.builder().id("led").pin(1).portMode(GpioPortMode.OUTPUT).build(),
+                GpioPortConfig.builder().id("buttons").pin(2, 3).portMode(GpioPortMode.INPUT_PULLUP).build(),
+                GpioPortConfig.builder().id("relay").pin(4).portMode(GpioPortMode.OUTPUT).build()
+        ));
+
+        assertThat(ports).hasSize(3);
+        assertThat(ports).allMatch(port -> port instanceof NativePortGroup.Member);
+        assertThat(lineRequests).hasSize(1);
+
+        var request = lineRequests.getFirst();
+        assertThat(request.offsets()).containsExactly(1, 2, 3, 4);
+        assertThat(request.config().flags()).isEqualTo(PinFlag.OUTPUT.value);
+        assertThat(request.config().attributes()).containsExactly(new LineConfigAttribute(
+                new LineAttribute(LineAttribute.Id.FLAGS, PinFlag.BIAS_PULL_UP.value | PinFlag.INPUT.value),
+                0b0110
+        ));
+    }
+
+    @Test
+    void membersMapToTheirLines() {
+        var ports = provider.createGroup(List.of(
+                GpioPortConfig.builder().pin(1).portMode(GpioPortMode.OUTPUT).build(),
+                GpioPortConfig.builder().pin(2, 3).portMode(GpioPortMode.OUTPUT).build()
+        ));
+
+        ports.get(1).writeInt(0b10);
+        assertThat(setValues.getLast()).isEqualTo(new LineValues(0b100, 0b110));
+
+        ports.get(0).writeInt(1);
+        assertThat(setValues.getLast()).isEqualTo(new LineValues(0b001, 0b001));
+
+        assertThat(ports.get(0).readInt()).isEqualTo(1);
+        assertThat(ports.get(1).readInt()).isEqualTo(0b10);
+
+        ports.get(1).writeMasked(0b01, 0b01);
+        assertThat(setValues.getLast()).isEqualTo(new LineValues(0b010, 0b010));
+        assertThat(ports.get(1).readInt()).isEqualTo(0b11);
+    }
+
+    @Test
+    void cycleReadsOnceAndWritesOnce() {
+        var ports = provider.createGroup(List.of(
+                GpioPortConfig.builder().pin(1).portMode(GpioPortMode.OUTPUT).build(),
+                GpioPortConfig.builder().pin(2).portMode(GpioPortMode.OUTPUT).build(),
+                GpioPortConfig.builder().pin(3).portMode(GpioPortMode.INPUT).build()
+        ));
+        lineState = 0b100;
+        var group = NativePortGroup.groupOf(ports.getFirst()).orElseThrow();
+
+        try (var _ = group.cycle()) {
+            assertThat(ports.get(2).readInt()).isEqualTo(1);
+            assertThat(ports.get(0).readInt()).isZero();
+            ports.get(0).writeInt(1);
+            ports.get(1).writeInt(1);
+            assertThat(ports.get(0).readInt()).as("Pending writes are visible").isEqualTo(1);
+            assertThat(setValues).isEmpty();
+        }
+
+        assertThat(getValuesCount).isEqualTo(1);
+        assertThat(setValues).containsExactly(new LineValues(0b011, 0b011));
+    }
+
+    @Test
+    void cycleBelongsToItsThread() throws Exception {
+        var ports = provider.createGroup(List.of(
+                GpioPortConfig.builder().pin(1).portMode(GpioPortMode.OUTPUT).build(),
+                GpioPortConfig.builder().pin(2).portMode(GpioPortMode.OUTPUT).build()
+        ));
+        var group = NativePortGroup.groupOf(ports.getFirst()).orElseThrow();
+
+        Thread writer;
+        try (var cycle = group.cycle()) {
+            ports.get(0).writeInt(1);
+
+            writer = Thread.ofPlatform().start(() -> ports.get(1).writeInt(1));
+            writer.join(Duration.ofMillis(100));
+            assertThat(writer.isAlive()).as("Writes on another thread wait for the cycle").isTrue();
+
+            var failure = new AtomicReference<Throwable>();
+            var closer = Thread.ofPlatform().start(() -> {
+                try {
+                    cycle.close();
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            });
+            closer.join();
+            assertThat(failure.get()).isInstanceOf(IllegalStateException.class);
+            assertThat(setValues).isEmpty();
+        }
+        writer.join(Duration.ofSeconds(1));
+
+        assertThat(writer.isAlive()).isFalse();
+        assertThat(setValues).containsExactly(new LineValues(0b01, 0b01), new LineValues(0b10, 0b10));
+    }
+
+    @Test
+    void batchUsesOneIoctlPerGroup() {
+        var ports = provider.createGroup(List.of(
+                GpioPortConfig.builder().pin(1).portMode(GpioPortMode.OUTPUT).build(),
+                GpioPortConfig.builder().pin(2, 3).portMode(GpioPortMode.OUTPUT).build(),
+                GpioPortConfig.builder().pin(4).portMode(GpioPortMode.INPUT).build()
+        ));
+        lineState = 0b1000;
+
+        var reads = provider.batch(List.of(ports.get(2), ports.get(1), ports.get(0)));
+        var values = new int[3];
+        reads.readInto(values);
+        assertThat(values).containsExactly(1, 0, 0);
+        assertThat(getValuesCount).isEqualTo(1);
+
+        var writes = provider.batch(List.of(ports.get(0), ports.get(1)));
+        writes.write(new int[] { 1, 0b10 });
+        assertThat(setValues).containsExactly(new LineValues(0b101, 0b111));
+
+        assertThat(reads.read()).containsExactly(1, 0b10, 1);
+        assertThat(getValuesCount).isEqualTo(2);
+    }
+
+    @Test
+    void concurrentBatchesWriteWholeGroups() throws Exception {
+        var first = provider.createGroup(List.of(
+                GpioPortConfig.builder().pin(1).portMode(GpioPortMode.OUTPUT).build(),
+                GpioPortConfig.builder().pin(2).portMode(GpioPortMode.OUTPUT).build()
+        ));
+        var second = provider.createGroup(List.of(
+                GpioPortConfig.builder().pin(3).portMode(GpioPortMode.OUTPUT).build(),
+                GpioPortConfig.builder().pin(4).portMode(GpioPortMode.OUTPUT).build()
+        ));
+        // the groups are listed in opposite orders
+        var ones = provider.batch(List.of(first.get(0), second.get(0), first.get(1), second.get(1)));
+        var zeros = provider.batch(List.of(second.get(1), first.get(1), second.get(0), first.get(0)));
+        var iterations = 1_000;
+        setValues.clear();
+
+        var executor = Executors.newFixedThreadPool(2);
+        try {
+            var writingOnes = executor.submit(() -> {
+                for (int i = 0; i < iterations; i++) {
+                    ones.write(new int[] { 1, 1, 1, 1 });
+                }
+            });
+            var writingZeros = executor.submit(() -> {
+                for (int i = 0; i < iterations; i++) {
+                    zeros.write(new int[] { 0, 0, 0, 0 });
+                }
+            });
+            writingOnes.get(10, TimeUnit.SECONDS);
+            writingZeros.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(setValues).hasSize(iterations * 4);
+        assertThat(setValues).allMatch(values -> values.mask() == 0b11 && (values.bits() == 0b11 || values.bits() == 0));
+    }
+
+    @Test
+    void defaultValuesAreWrittenTogether() {
+        provider.createGroup(List.of(
+                GpioPortConfig.builder().pin(1).portMode(GpioPortMode.OUTPUT).defaultValue(1).build(),
+                GpioPortConfig.builder().pin(2).portMode(GpioPortMode.OUTPUT).defaultValue(0).build()
+        ));
+
+        assertThat(setValues).containsExactly(new LineValues(0b01, 0b11));
+    }
+
+    @Test
+    void directionChangeKeepsOutputValues() {
+        var ports = provider.createGroup(List.of(
+                GpioPortConfig.builder().pin(1).portMode(GpioPortMode.OUTPUT).build(),
+                GpioPortConfig.builder().pin(2).portMode(GpioPortMode.INPUT).build()
+        ));
+        ports.get(0).writeInt(1);
+
+        ports.get(1).setDirection(GpioPortMode.OUTPUT);
+
+        assertThat(setConfigs).hasSize(1);
+        var config = setConfigs.getFirst();
+        assertThat(config.flags()).isEqualTo(PinFlag.OUTPUT.value);
+        assertThat(config.attributes()).containsExactly(
+                new LineConfigAttribute(new LineAttribute(LineAttribute.Id.VALUES, 0b01), 0b11)
+        );
+
+        ports.get(1).setDirection(GpioPortMode.OUTPUT);
+        assertThat(setConfigs).as("Unchanged direction is not reconfigured").hasSize(1);
+    }
+
+    @Test
+    void eventConfigsAreCreatedIndividually() {
+        var ports = provider.createGroup(List.of(
+                GpioPortConfig.builder().pin(1).portMode(GpioPortMode.OUTPUT).build(),
+                GpioPortConfig.builder().pin(2).portMode(GpioPortMode.INPUT).eventMode(GpioEventMode.BOTH).build(),
+                GpioPortConfig.builder().pin(3).portMode(GpioPortMode.OUTPUT).build()
+        ));
+
+        assertThat(ports.get(0)).isInstanceOf(NativePortGroup.Member.class);
+        assertThat(ports.get(1)).isInstanceOf(NativePort.class);
+        assertThat(ports.get(2)).isInstanceOf(NativePortGroup.Member.class);
+        assertThat(lineRequests).hasSize(2);
+        assertThat(lineRequests.get(1).offsets()).containsExactly(1, 3);
+    }
+
+    @Test
+    void membersAcceptListenersLikePortsWithoutEvents() {
+        var ports = provider.createGroup(List.of(
+                GpioPortConfig.builder().pin(1).portMode(GpioPortMode.INPUT).build(),
+                GpioPortConfig.builder().pin(2).portMode(GpioPortMode.INPUT).build()
+        ));
+        GpioEventListener<GpioPort> listener = _ -> {};
+
+        ports.getFirst().addListener(listener);
+        ports.getFirst().removeListener(listener);
+
+        assertThat(setConfigs).isEmpty();
+    }
+
+    @Test
+    void rejectsSharedPins() {
+        assertThatThrownBy(() -> provider.createGroup(List.of(
+                GpioPortConfig.builder().pin(1, 2).build(),
+                GpioPortConfig.builder().pin(2).build()
+        ))).isInstanceOf(IllegalArgumentException.class);
+        assertThat(lineRequests).isEmpty();
+    }
+
+    @Test
+    void requestIsReleasedWithLastMember() {
+        var closed = new ArrayList<Integer>();
+        var closingFileOperations = new AbstractFileOperations() {
+            @Override
+            public FileDescriptor openFd(String pathname, int flags) {
+                return this.createFileDescriptor(1);
+            }
+
+            @Override
+            public int close(int fd) {
+                closed.add(fd);
+                return 0;
+            }
+        };
+        var closingProvider = new NativePortProvider(
+                new ChipInfo("test", "test", 8),
+                closingFileOperations,
+                ioctlOperations,
+                EventPoller.NOOP_FACTORY
+        );
+        var ports = closingProvider.createGroup(List.of(
+                GpioPortConfig.builder().pin(1).portMode(GpioPortMode.OUTPUT).build(),
+                GpioPortConfig.builder().pin(2).portMode(GpioPortMode.OUTPUT).build()
+        ));
+
+        ((NativePortGroup.Member) ports.get(0)).close();
+        assertThat(closed).doesNotContain(REQUEST_FD);
+        ((NativePortGroup.Member) ports.get(1)).close();
+        assertThat(closed).containsExactly(REQUEST_FD);
+    }
+}
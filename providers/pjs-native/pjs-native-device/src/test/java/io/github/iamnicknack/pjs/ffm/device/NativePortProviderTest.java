@@ -1,10 +1,15 @@
 package io.github.iamnicknack.pjs.ffm.device;
 
+import io.github.iamnicknack.pjs.device.gpio.GpioEventClock;
+import io.github.iamnicknack.pjs.device.gpio.GpioEventMode;
 import io.github.iamnicknack.pjs.device.gpio.GpioPortConfig;
+import io.github.iamnicknack.pjs.ffm.context.method.CapturedStateWrapper;
 import io.github.iamnicknack.pjs.ffm.device.context.AbstractFileOperations;
 import io.github.iamnicknack.pjs.ffm.device.context.AbstractIoctlOperations;
 import io.github.iamnicknack.pjs.ffm.device.context.FileDescriptor;
 import io.github.iamnicknack.pjs.ffm.device.context.FileOperations;
+import io.github.iamnicknack.pjs.ffm.device.context.LineInfoCache;
+import io.github.iamnicknack.pjs.ffm.device.context.NativeDeviceScope;
 import io.github.iamnicknack.pjs.ffm.device.context.gpio.ChipInfo;
 import io.github.iamnicknack.pjs.ffm.device.context.gpio.GpioConstants;
 import io.github.iamnicknack.pjs.ffm.device.context.gpio.LineInfo;
@@ -12,10 +17,12 @@ import io.github.iamnicknack.pjs.ffm.device.context.gpio.LineRequest;
 import io.github.iamnicknack.pjs.ffm.device.context.gpio.PinFlag;
 import io.github.iamnicknack.pjs.ffm.event.EventPoller;
 import io.github.iamnicknack.pjs.ffm.event.EventPollerFactoryImpl;
+import io.github.iamnicknack.pjs.ffm.event.debounce.TimerWheel;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.foreign.MemorySegment;
 import java.time.Duration;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -68,6 +75,34 @@ class NativePortProviderTest {
         }
     }
 
+    @Test
+    public void requestsSelectedEventClock() {
+        var ioctlOperations = AbstractIoctlOperations.builder()
+                .addHandler(GpioConstants.GPIO_V2_GET_LINEINFO_IOCTL)
+                .addHandler(GpioConstants.GPIO_V2_GET_LINE_IOCTL, (_, _, data) -> {
+                    var lineRequest = (LineRequest)data;
+                    assertThat(lineRequest.config().flags()).as("Realtime clock is set").isEqualTo(
+                            PinFlag.INPUT.value | PinFlag.EDGE_RISING.value | PinFlag.EVENT_CLOCK_REALTIME.value
+                    );
+                    return data;
+                })
+                .build();
+
+        try (var provider = new NativePortProvider(
+                new ChipInfo("test", "test", 1),
+                fileOperations,
+                ioctlOperations,
+                eventPollerFactory
+        )) {
+            var config = GpioPortConfig.builder()
+                    .pin(1)
+                    .eventMode(GpioEventMode.RISING)
+                    .eventClock(GpioEventClock.REALTIME)
+                    .build();
+            assertThat(provider.create(config)).isNotNull();
+        }
+    }
+
     @Test
     public void failsIfLineIsInUse() {
         var invocationCount = new AtomicInteger(0);
@@ -100,6 +135,102 @@ class NativePortProviderTest {
         }
     }
 
+    @Test
+    public void sharesChipDescriptorAndWatchedLineInfo() {
+        var openCount = new AtomicInteger(0);
+        var watchCount = new AtomicInteger(0);
+        var countingFileOperations = new AbstractFileOperations() {
+            @Override
+            public FileDescriptor openFd(String pathname, int flags) {
+                openCount.incrementAndGet();
+                return this.createFileDescriptor(1);
+            }
+
+            @Override
+            public int read(int fd, MemorySegment buffer, int length) {
+                throw new CapturedStateWrapper.CapturedStateException(11);
+            }
+        };
+        var ioctlOperations = AbstractIoctlOperations.builder()
+                .addHandler(GpioConstants.GPIO_V2_GET_LINEINFO_WATCH_IOCTL, (_, _, data) -> {
+                    watchCount.incrementAndGet();
+                    return data;
+                })
+                .addHandler(GpioConstants.GPIO_V2_GET_LINE_IOCTL)
+                .build();
+
+        try (var provider = new NativePortProvider(
+                new LineInfoCache(new ChipInfo("test", "test", 4), countingFileOperations, ioctlOperations, true),
+                countingFileOperations,
+                ioctlOperations,
+                eventPollerFactory,
+                () -> NativeDeviceScope.shared(ioctlOperations),
+                new TimerWheel()
+        )) {
+            provider.create(GpioPortConfig.builder().pin(1, 2).build());
+            provider.create(GpioPortConfig.builder().pin(2, 3).build());
+
+            assertThat(openCount.get()).as("Chip is opened once").isEqualTo(1);
+            assertThat(watchCount.get()).as("Each line is read once").isEqualTo(3);
+        }
+    }
+
+    @Test
+    public void refreshesWatchedLineInfoWhenLineIsBusy() {
+        var unwatchedCount = new AtomicInteger(0);
+        var watchingFileOperations = new AbstractFileOperations() {
+            @Override
+            public FileDescriptor openFd(String pathname, int flags) {
+                return this.createFileDescriptor(1);
+            }
+
+            @Override
+            public int read(int fd, MemorySegment buffer, int length) {
+                throw new CapturedStateWrapper.CapturedStateException(11);
+            }
+        };
+        var ioctlOperations = AbstractIoctlOperations.builder()
+                .addHandler(GpioConstants.GPIO_V2_GET_LINEINFO_WATCH_IOCTL, (_, _, data) -> data)
+                .addHandler(GpioConstants.GPIO_V2_GET_LINEINFO_IOCTL, (_, _, data) -> {
+                    // the request from another process was not reported by a change event
+                    unwatchedCount.incrementAndGet();
+                    var lineInfo = (LineInfo)data;
+                    return new LineInfo(
+                            lineInfo.name(),
+                            "other",
+                            lineInfo.offset(),
+                            PinFlag.USED.value,
+                            lineInfo.attrs()
+                    );
+                })
+                .addHandler(GpioConstants.GPIO_V2_GET_LINE_IOCTL, (_, _, _) -> {
+                    throw new CapturedStateWrapper.CapturedStateException(16);
+                })
+                .build();
+        var lineInfoCache = new LineInfoCache(
+                new ChipInfo("test", "test", 4),
+                watchingFileOperations,
+                ioctlOperations,
+                true
+        );
+
+        try (var provider = new NativePortProvider(
+                lineInfoCache,
+                watchingFileOperations,
+                ioctlOperations,
+                eventPollerFactory,
+                () -> NativeDeviceScope.shared(ioctlOperations),
+                new TimerWheel()
+        )) {
+            assertThatThrownBy(() -> provider.create(GpioPortConfig.builder().pin(1, 2).build()))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasCauseInstanceOf(CapturedStateWrapper.CapturedStateException.class);
+
+            assertThat(unwatchedCount.get()).as("Stale line is re-read").isEqualTo(1);
+            assertThat(PinFlag.USED.isSet(lineInfoCache.lineInfo(1).flags())).isTrue();
+        }
+    }
+
     @Test
     public void doesNotEnableEventSupport() {
         var ioctlOperations = AbstractIoctlOperations.builder()
@@ -3,10 +3,14 @@ package io.github.iamnicknack.pjs.ffm.device;
 import io.github.iamnicknack.pjs.device.gpio.GpioPort;
 import io.github.iamnicknack.pjs.device.gpio.GpioPortConfig;
 import io.github.iamnicknack.pjs.device.gpio.GpioPortMode;
+import io.github.iamnicknack.pjs.ffm.context.ScratchNativeContext;
+import io.github.iamnicknack.pjs.ffm.context.segment.ScratchSegmentAllocator;
 import io.github.iamnicknack.pjs.ffm.device.context.AbstractFileOperations;
 import io.github.iamnicknack.pjs.ffm.device.context.AbstractIoctlOperations;
+import io.github.iamnicknack.pjs.ffm.device.context.FakeMethodCallerFactory;
 import io.github.iamnicknack.pjs.ffm.device.context.FileDescriptor;
 import io.github.iamnicknack.pjs.ffm.device.context.IoctlOperations;
+import io.github.iamnicknack.pjs.ffm.device.context.NativeDeviceScope;
 import io.github.iamnicknack.pjs.ffm.device.context.gpio.GpioConstants;
 import io.github.iamnicknack.pjs.ffm.device.context.gpio.LineConfig;
 import io.github.iamnicknack.pjs.ffm.device.context.gpio.LineConfigAttribute;
@@ -17,18 +21,33 @@ import io.github.iamnicknack.pjs.ffm.event.EventPoller;
 import io.github.iamnicknack.pjs.ffm.event.PollEvent;
 import io.github.iamnicknack.pjs.ffm.event.PollEventType;
 import io.github.iamnicknack.pjs.ffm.event.PollEventsCallback;
+import io.github.iamnicknack.pjs.model.event.GpioChangeEvent;
+import io.github.iamnicknack.pjs.model.event.GpioChangeEventType;
 import io.github.iamnicknack.pjs.model.event.GpioEventListener;
 import org.junit.jupiter.api.Test;
 
+import java.lang.foreign.Arena;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
 class NativePortTest {
 
+    private static final FunctionDescriptor IOCTL_INT_BY_REFERENCE = FunctionDescriptor.of(
+            ValueLayout.JAVA_INT,
+            ValueLayout.JAVA_INT,
+            ValueLayout.JAVA_LONG,
+            ValueLayout.ADDRESS
+    );
+
     private final FileDescriptor fileDescriptor = new AbstractFileOperations() {}.createFileDescriptor(1);
     private final IoctlOperations ioctlOperations = AbstractIoctlOperations.builder()
             .addHandler(GpioConstants.GPIO_V2_LINE_GET_VALUES_IOCTL)
@@ -88,6 +107,29 @@ class NativePortTest {
         assertThat(eventCount.get()).isEqualTo(2);
     }
 
+    @Test
+    void kernelEventDataIsPassedToListeners() {
+        System.setProperty(DebounceStrategy.PROPERTY_KEY, DebounceStrategy.HARDWARE.name());
+        var pollerFactory = new FakeEventPollerFactory();
+        var config = GpioPortConfig.builder()
+                .pin(5)
+                .build();
+
+        var received = new AtomicReference<GpioChangeEvent<GpioPort>>();
+
+        var port = createPort(config, fileDescriptor, ioctlOperations, pollerFactory);
+        port.addListener(received::set);
+
+        pollerFactory.poke(new PollEvent(PollEventType.FALLING, 123_456_789L, 5, 42, 7));
+        assertThat(received.get()).isNotNull();
+        assertThat(received.get().port()).isSameAs(port);
+        assertThat(received.get().eventType()).isEqualTo(GpioChangeEventType.FALLING);
+        assertThat(received.get().timestampNanos()).isEqualTo(123_456_789L);
+        assertThat(received.get().lineOffset()).isEqualTo(5);
+        assertThat(received.get().seqno()).isEqualTo(42);
+        assertThat(received.get().lineSeqno()).isEqualTo(7);
+    }
+
     @Test
     void canAddAndRemoveListeners() {
         var pollerFactory = new FakeEventPollerFactory();
@@ -120,12 +162,18 @@ class NativePortTest {
 
     @Test
     void canReadWriteValues() {
-        var lineValues = new AtomicReference<LineValues>();
+        var lineBits = new AtomicLong();
         var ioctlOperations = AbstractIoctlOperations.builder()
-                .addHandler(GpioConstants.GPIO_V2_LINE_GET_VALUES_IOCTL, (_, _, _) -> lineValues.get())
+                .addHandler(GpioConstants.GPIO_V2_LINE_GET_VALUES_IOCTL, (_, _, values) -> {
+                    var segment = (MemorySegment) values;
+                    LineValues.set(segment, lineBits.get(), 0);
+                    return segment;
+                })
                 .addHandler(GpioConstants.GPIO_V2_LINE_SET_VALUES_IOCTL, (_, _, values) -> {
-                    lineValues.set((LineValues) values);
-                    return values;
+                    var segment = (MemorySegment) values;
+                    var mask = segment.get(ValueLayout.JAVA_LONG, 8);
+                    lineBits.set((lineBits.get() & ~mask) | (LineValues.bits(segment) & mask));
+                    return segment;
                 })
                 .build();
         var config = GpioPortConfig.builder()
@@ -135,6 +183,45 @@ class NativePortTest {
         var port = createPort(config, fileDescriptor, ioctlOperations, EventPoller.NOOP_FACTORY);
         port.write(0x55);
         assertThat(port.read()).isEqualTo(0x55);
+
+        port.writeInt(0x0f);
+        assertThat(port.readInt()).isEqualTo(0x0f);
+
+        port.writeMasked(0xf0, 0x30);
+        assertThat(port.readInt()).isEqualTo(0x3f);
+    }
+
+    @Test
+    void scratchScopeDoesNotAllocateInSteadyState() {
+        var bits = new AtomicLong();
+        var segmentAddresses = new HashSet<Long>();
+        var methodCallerFactory = FakeMethodCallerFactory.builder()
+                .add("ioctl", IOCTL_INT_BY_REFERENCE, args -> {
+                    var segment = (MemorySegment) args[2];
+                    segmentAddresses.add(segment.address());
+                    if ((long) args[1] == GpioConstants.GPIO_V2_LINE_SET_VALUES_IOCTL) {
+                        bits.set(segment.get(ValueLayout.JAVA_LONG, 0));
+                    } else {
+                        segment.set(ValueLayout.JAVA_LONG, 0, bits.get());
+                    }
+                    return 0;
+                })
+                .build();
+        var segmentAllocator = new ScratchSegmentAllocator(Arena.ofConfined(), ScratchSegmentAllocator.DEFAULT_BLOCK_SIZE);
+        var scope = NativeDeviceScope.scratch(new ScratchNativeContext(segmentAllocator, methodCallerFactory));
+        var config = GpioPortConfig.builder()
+                .pin(1)
+                .build();
+
+        try (var port = createPort(config, fileDescriptor, scope, EventPoller.NOOP_FACTORY)) {
+            for (int i = 0; i < 10_000; i++) {
+                port.write(i & 0xff);
+                assertThat(port.read()).isEqualTo(i & 0xff);
+            }
+        }
+
+        assertThat(segmentAllocator.blockCount()).isEqualTo(1);
+        assertThat(segmentAddresses).hasSize(1);
     }
 
     @Test
@@ -236,6 +323,15 @@ class NativePortTest {
             FileDescriptor fileDescriptor,
             IoctlOperations ioctlOperations,
             EventPoller.Factory eventPollerFactory
+    ) {
+        return createPort(config, fileDescriptor, NativeDeviceScope.shared(ioctlOperations), eventPollerFactory);
+    }
+
+    static NativePort createPort(
+            GpioPortConfig config,
+            FileDescriptor fileDescriptor,
+            NativeDeviceScope scope,
+            EventPoller.Factory eventPollerFactory
     ) {
         return new NativePort(
                 config,
@@ -245,7 +341,7 @@ class NativePortTest {
                         new LineConfig(PinFlag.OUTPUT.value, new LineConfigAttribute[0])
                 ),
                 fileDescriptor,
-                ioctlOperations,
+                scope,
                 eventPollerFactory
         );
     }
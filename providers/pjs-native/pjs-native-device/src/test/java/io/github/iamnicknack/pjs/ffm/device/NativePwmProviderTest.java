@@ -14,6 +14,7 @@ import java.util.List;
 
 import static io.github.iamnicknack.pjs.ffm.device.NativePwmProviderTest.FakePwmSysfsOperations.createChipSysfsFilesystem;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 class NativePwmProviderTest {
 
@@ -35,6 +36,36 @@ class NativePwmProviderTest {
         }
     }
 
+    @Test
+    void dutyCycleUpdateIsSingleWrite() throws Exception {
+        var fileOperations = new VirtualFileOperations();
+        SysfsOperationsFactory factory = devicePath -> new FakePwmSysfsOperations(fileOperations, devicePath);
+        createChipSysfsFilesystem(fileOperations, "/sys/class/pwm/pwmchip0", 1);
+
+        try (var provider = new NativePwmProvider(factory);
+             var device = provider.create(PwmConfig.builder().chip(0).channel(0).build())) {
+            device.setPeriod(1_000_000);
+            device.setDutyCycle(250_000);
+            device.on();
+
+            fileOperations.clearWrites();
+            device.setDutyCycle(500_000);
+
+            assertThat(fileOperations.writes())
+                    .extracting(VirtualFileOperations.Write::fileName, VirtualFileOperations.Write::value)
+                    .containsExactly(tuple(NativePwm.DUTY_CYCLE_PATH, "500000"));
+
+            // unchanged values are not written again
+            fileOperations.clearWrites();
+            device.setDutyCycle(500_000);
+            device.setPolarity(Pwm.Polarity.NORMAL);
+            assertThat(fileOperations.writes())
+                    .extracting(VirtualFileOperations.Write::fileName)
+                    .doesNotContain(NativePwm.DUTY_CYCLE_PATH, NativePwm.PERIOD_PATH, NativePwm.POLARITY_PATH);
+            assertThat(device.read()).isTrue();
+        }
+    }
+
     /**
      * Sysfs operations for PWM testing purposes
      */
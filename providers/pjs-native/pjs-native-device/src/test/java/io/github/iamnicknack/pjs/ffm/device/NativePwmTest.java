@@ -0,0 +1,195 @@
+package io.github.iamnicknack.pjs.ffm.device;
+
+import io.github.iamnicknack.pjs.device.pwm.Pwm;
+import io.github.iamnicknack.pjs.device.pwm.PwmConfig;
+import io.github.iamnicknack.pjs.ffm.device.context.FileDescriptor;
+import io.github.iamnicknack.pjs.ffm.device.context.SysfsOperationsImpl;
+import io.github.iamnicknack.pjs.ffm.device.context.VirtualFileOperations;
+import org.assertj.core.groups.Tuple;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class NativePwmTest {
+
+    private static final String CHANNEL_PATH = "/sys/class/pwm/pwmchip0/pwm0";
+
+    private final InvariantCheckingFileOperations fileOperations = new InvariantCheckingFileOperations();
+    private NativePwm pwm;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // state of a freshly exported channel
+        var root = fileOperations.root().resolve(CHANNEL_PATH);
+        Files.createDirectories(root);
+        Files.writeString(root.resolve(NativePwm.ENABLE_PATH), "0\n");
+        Files.writeString(root.resolve(NativePwm.PERIOD_PATH), "0\n");
+        Files.writeString(root.resolve(NativePwm.DUTY_CYCLE_PATH), "0\n");
+        Files.writeString(root.resolve(NativePwm.POLARITY_PATH), "normal\n");
+
+        pwm = new NativePwm(
+                PwmConfig.builder().period(1_000_000).dutyCycle(250_000).build(),
+                new SysfsOperationsImpl(root, fileOperations)
+        );
+    }
+
+    @AfterEach
+    void tearDown() {
+        pwm.close();
+    }
+
+    @Test
+    void enableWritesOnlyChangedAttributes() {
+        pwm.on();
+
+        assertWrites(
+                tuple(NativePwm.PERIOD_PATH, "1000000"),
+                tuple(NativePwm.DUTY_CYCLE_PATH, "250000"),
+                tuple(NativePwm.ENABLE_PATH, "1")
+        );
+        assertThat(pwm.read()).isTrue();
+    }
+
+    @Test
+    void dutyCycleChangeOnlyWritesDutyCycle() {
+        pwm.on();
+        fileOperations.clearWrites();
+
+        pwm.setDutyCycle(600_000);
+        assertWrites(tuple(NativePwm.DUTY_CYCLE_PATH, "600000"));
+
+        // same duty cycle as a ratio, so nothing further is written
+        pwm.setDutyRatio(0.6);
+        assertWrites(tuple(NativePwm.DUTY_CYCLE_PATH, "600000"));
+    }
+
+    @Test
+    void growingPeriodIsWrittenBeforeDutyCycle() {
+        pwm.on();
+        fileOperations.clearWrites();
+
+        pwm.setPeriod(2_000_000);
+        assertWrites(tuple(NativePwm.PERIOD_PATH, "2000000"));
+
+        fileOperations.clearWrites();
+        pwm.setDutyCycle(1_500_000);
+        pwm.setPeriod(4_000_000);
+        assertWrites(
+                tuple(NativePwm.DUTY_CYCLE_PATH, "1500000"),
+                tuple(NativePwm.PERIOD_PATH, "4000000")
+        );
+    }
+
+    @Test
+    void shrinkingPeriodIsWrittenAfterDutyCycle() {
+        pwm.on();
+        pwm.setDutyCycle(800_000);
+        fileOperations.clearWrites();
+
+        pwm.setPeriod(500_000);
+        assertWrites(
+                tuple(NativePwm.DUTY_CYCLE_PATH, "500000"),
+                tuple(NativePwm.PERIOD_PATH, "500000")
+        );
+        assertThat(pwm.getDutyCycle()).isEqualTo(500_000);
+    }
+
+    @Test
+    void polarityIsWrittenWhileDisabled() {
+        pwm.on();
+        fileOperations.clearWrites();
+
+        pwm.setPolarity(Pwm.Polarity.INVERTED);
+        assertWrites(
+                tuple(NativePwm.ENABLE_PATH, "0"),
+                tuple(NativePwm.POLARITY_PATH, "inversed"),
+                tuple(NativePwm.ENABLE_PATH, "1")
+        );
+
+        fileOperations.clearWrites();
+        pwm.off();
+        pwm.setPolarity(Pwm.Polarity.NORMAL);
+        assertWrites(
+                tuple(NativePwm.ENABLE_PATH, "0"),
+                tuple(NativePwm.POLARITY_PATH, "normal")
+        );
+    }
+
+    @Test
+    void unchangedStateIsNotWritten() {
+        pwm.on();
+        fileOperations.clearWrites();
+
+        pwm.on();
+        pwm.setDutyCycle(250_000);
+        pwm.setPeriod(1_000_000);
+        pwm.setPolarity(Pwm.Polarity.NORMAL);
+        assertWrites();
+
+        pwm.off();
+        pwm.off();
+        assertWrites(tuple(NativePwm.ENABLE_PATH, "0"));
+    }
+
+    @Test
+    void failedOpenClosesOpenedAttributes() {
+        var failing = new AtomicBoolean(true);
+        var failingOperations = new VirtualFileOperations() {
+            @Override
+            public FileDescriptor openFd(String pathname, int flags) {
+                if (failing.get() && pathname.endsWith(NativePwm.POLARITY_PATH)) {
+                    throw new IllegalStateException("Cannot open " + pathname);
+                }
+                return super.openFd(pathname, flags);
+            }
+        };
+        var channelOperations = new SysfsOperationsImpl(
+                failingOperations.root().resolve(CHANNEL_PATH),
+                failingOperations
+        );
+
+        assertThatThrownBy(() -> new PwmChannel(channelOperations)).isInstanceOf(IllegalStateException.class);
+
+        // attributes left open would fail to open again
+        failing.set(false);
+        new PwmChannel(channelOperations).close();
+    }
+
+    private void assertWrites(Tuple... expected) {
+        assertThat(fileOperations.writes())
+                .extracting(VirtualFileOperations.Write::fileName, VirtualFileOperations.Write::value)
+                .containsExactly(expected);
+    }
+
+    /**
+     * Checks that the duty cycle does not exceed the period after each write
+     */
+    static class InvariantCheckingFileOperations extends VirtualFileOperations {
+        @Override
+        public int pwrite(int fd, MemorySegment buffer, int length, long offset) {
+            var result = super.pwrite(fd, buffer, length, offset);
+            var channel = root().resolve(CHANNEL_PATH);
+            assertThat(read(channel.resolve(NativePwm.DUTY_CYCLE_PATH)))
+                    .as("duty_cycle <= period")
+                    .isLessThanOrEqualTo(read(channel.resolve(NativePwm.PERIOD_PATH)));
+            return result;
+        }
+
+        private static long read(Path path) {
+            try {
+                return Long.parseLong(Files.readString(path).trim());
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package io.github.iamnicknack.pjs.ffm.device;
 
+import io.github.iamnicknack.pjs.device.spi.PreparedSpiTransaction;
 import io.github.iamnicknack.pjs.device.spi.Spi;
+import io.github.iamnicknack.pjs.device.spi.SpiBufferMessage;
 import io.github.iamnicknack.pjs.device.spi.SpiConfig;
 import io.github.iamnicknack.pjs.device.spi.SpiProvider;
 import io.github.iamnicknack.pjs.device.spi.SpiTransfer;
@@ -11,6 +13,10 @@ import io.github.iamnicknack.pjs.ffm.device.context.spi.SpiConstants;
 import org.junit.jupiter.api.Test;
 
 import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.function.BiConsumer;
 import java.util.function.UnaryOperator;
 
@@ -22,6 +28,7 @@ import static io.github.iamnicknack.pjs.ffm.device.context.spi.SpiConstants.SPI_
 import static io.github.iamnicknack.pjs.ffm.device.context.spi.SpiConstants.SPI_IOC_WR_LSB_FIRST;
 import static io.github.iamnicknack.pjs.ffm.device.context.spi.SpiConstants.SPI_IOC_WR_MAX_SPEED_HZ;
 import static io.github.iamnicknack.pjs.ffm.device.context.spi.SpiConstants.SPI_IOC_WR_MODE;
+import static org.assertj.core.api.Assertions.assertThat;
 
 class NativeSpiTest {
     public static final UnaryOperator<AbstractIoctlOperations.Builder> DEFAULT_IOCTL_HANDLERS = builder -> builder
@@ -34,6 +41,23 @@ class NativeSpiTest {
             .addHandler(SPI_IOC_RD_LSB_FIRST)
             .addHandler(SPI_IOC_WR_LSB_FIRST);
 
+    /**
+     * Copies the transmit buffer of each message into its receive buffer
+     */
+    private static AbstractIoctlOperations.Handler loopback(int messageCount) {
+        var deserializer = new io.github.iamnicknack.pjs.ffm.device.context.spi.SpiTransfer.Deserializer();
+        var structSize = io.github.iamnicknack.pjs.ffm.device.context.spi.SpiTransfer.LAYOUT.byteSize();
+        return (_, _, data) -> {
+            var segment = (MemorySegment) data;
+            for (int i = 0; i < messageCount; i++) {
+                var transfer = deserializer.deserialize(segment.asSlice(i * structSize, structSize));
+                transfer.rxBuf().reinterpret(transfer.length())
+                        .copyFrom(transfer.txBuf().reinterpret(transfer.length()));
+            }
+            return data;
+        };
+    }
+
     @Test
     void canTransfer() {
         performTest(
@@ -53,6 +77,162 @@ class NativeSpiTest {
         );
     }
 
+    @Test
+    void transfersOnlyTheRequestedSlice() {
+        performTest(
+                builder -> builder.addHandler(SpiConstants.SPI_IOC_MESSAGE(1), loopback(1)),
+                (spi, _) -> {
+                    var read = new byte[5];
+                    spi.transfer(new byte[] { 0, 1, 2, 3, 4 }, 1, read, 2, 3);
+                    assertThat(read).containsExactly(0, 0, 1, 2, 3);
+
+                    // a shorter transfer reuses the larger buffers
+                    var shortRead = new byte[1];
+                    spi.transfer(new byte[] { 9 }, 0, shortRead, 0, 1);
+                    assertThat(shortRead).containsExactly(9);
+                }
+        );
+    }
+
+    @Test
+    void canTransferDirectBuffers() {
+        performTest(
+                builder -> builder.addHandler(SpiConstants.SPI_IOC_MESSAGE(1), loopback(1)),
+                (spi, _) -> {
+                    var write = ByteBuffer.allocateDirect(4).put(new byte[] { 1, 2, 3, 4 }).flip();
+                    var read = ByteBuffer.allocateDirect(4);
+
+                    assertThat(((NativeSpi) spi).transfer(write, read)).isEqualTo(4);
+                    assertThat(write.remaining()).isZero();
+                    assertThat(read.flip().get(3)).isEqualTo((byte) 4);
+                }
+        );
+    }
+
+    @Test
+    void canTransferHeapSegments() {
+        performTest(
+                builder -> builder.addHandler(SpiConstants.SPI_IOC_MESSAGE(1), loopback(1)),
+                (spi, _) -> {
+                    var read = new byte[3];
+                    ((NativeSpi) spi).transfer(
+                            MemorySegment.ofArray(new byte[] { 5, 6, 7 }),
+                            MemorySegment.ofArray(read),
+                            3
+                    );
+                    assertThat(read).containsExactly(5, 6, 7);
+                }
+        );
+    }
+
+    @Test
+    void canTransferMultipleMessages() {
+        performTest(
+                builder -> builder.addHandler(SpiConstants.SPI_IOC_MESSAGE(2), loopback(2)),
+                (spi, provider) -> {
+                    var first = new byte[2];
+                    var second = new byte[3];
+                    var count = provider.createTransfer(spi).transfer(
+                            new SpiTransfer.DefaultMessage(new byte[] { 1, 2 }, 0, first, 0, 2, 0, false),
+                            new SpiTransfer.DefaultMessage(new byte[] { 0, 3, 4, 5 }, 1, second, 0, 3, 0, false)
+                    );
+                    assertThat(count).isEqualTo(5);
+                    assertThat(first).containsExactly(1, 2);
+                    assertThat(second).containsExactly(3, 4, 5);
+                }
+        );
+    }
+
+    @Test
+    void passesNativeAndAbsentBuffersToKernel() {
+        var deserializer = new io.github.iamnicknack.pjs.ffm.device.context.spi.SpiTransfer.Deserializer();
+        var structSize = io.github.iamnicknack.pjs.ffm.device.context.spi.SpiTransfer.LAYOUT.byteSize();
+        var transfers = new ArrayList<io.github.iamnicknack.pjs.ffm.device.context.spi.SpiTransfer>();
+
+        try (var arena = Arena.ofConfined()) {
+            var command = arena.allocate(1).fill((byte) 0x03);
+            var payload = arena.allocate(4);
+            var heapRead = new byte[] { -1, -1, -1 };
+
+            performTest(
+                    builder -> builder.addHandler(SpiConstants.SPI_IOC_MESSAGE(3), (_, _, data) -> {
+                        var segment = (MemorySegment) data;
+                        for (int i = 0; i < 3; i++) {
+                            var transfer = deserializer.deserialize(segment.asSlice(i * structSize, structSize));
+                            transfers.add(transfer);
+                            if (!transfer.rxBuf().equals(MemorySegment.NULL)) {
+                                transfer.rxBuf().reinterpret(transfer.length()).fill((byte) (i + 1));
+                            }
+                        }
+                        return data;
+                    }),
+                    (spi, provider) -> provider.createTransfer(spi).transfer(
+                            SpiBufferMessage.write(command),
+                            SpiBufferMessage.read(payload),
+                            SpiTransfer.Message.read(heapRead, 1, 2)
+                    )
+            );
+
+            assertThat(transfers).hasSize(3);
+            assertThat(transfers.get(0).txBuf().address()).isEqualTo(command.address());
+            assertThat(transfers.get(0).rxBuf()).isEqualTo(MemorySegment.NULL);
+            assertThat(transfers.get(1).txBuf()).isEqualTo(MemorySegment.NULL);
+            assertThat(transfers.get(1).rxBuf().address()).isEqualTo(payload.address());
+            assertThat(transfers.get(2).txBuf()).isEqualTo(MemorySegment.NULL);
+            assertThat(payload.toArray(ValueLayout.JAVA_BYTE)).containsExactly(2, 2, 2, 2);
+            assertThat(heapRead).containsExactly(-1, 3, 3);
+        }
+    }
+
+    @Test
+    void preparedTransactionReusesCompiledStructs() {
+        var deserializer = new io.github.iamnicknack.pjs.ffm.device.context.spi.SpiTransfer.Deserializer();
+        var structSize = io.github.iamnicknack.pjs.ffm.device.context.spi.SpiTransfer.LAYOUT.byteSize();
+        var structs = new ArrayList<MemorySegment>();
+        var transfers = new ArrayList<io.github.iamnicknack.pjs.ffm.device.context.spi.SpiTransfer>();
+        var template = PreparedSpiTransaction.template()
+                .fixed((byte) 0x03)
+                .field(2)
+                .read(8).csChange()
+                .build();
+
+        performTest(
+                builder -> builder.addHandler(SpiConstants.SPI_IOC_MESSAGE(3), (_, _, data) -> {
+                    var segment = (MemorySegment) data;
+                    structs.add(segment);
+                    for (int i = 0; i < 3; i++) {
+                        var transfer = deserializer.deserialize(segment.asSlice(i * structSize, structSize));
+                        transfers.add(transfer);
+                        if (!transfer.rxBuf().equals(MemorySegment.NULL)) {
+                            transfer.rxBuf().reinterpret(transfer.length()).fill((byte) 7);
+                        }
+                    }
+                    return data;
+                }),
+                (spi, provider) -> {
+                    var transaction = provider.createTransfer(spi).prepare(template);
+                    var read = new byte[4];
+
+                    assertThat(transaction.field(0, 0x0102).payload(0, read, 1, 2).execute()).isEqualTo(5);
+                    assertThat(read).containsExactly(0, 7, 7, 0);
+
+                    transaction.field(0, 0x0304).payload(0, read).execute();
+                    assertThat(read).containsExactly(7, 7, 7, 7);
+                }
+        );
+
+        assertThat(structs).hasSize(2);
+        assertThat(structs.getLast().address()).isEqualTo(structs.getFirst().address());
+
+        var field = transfers.get(4).txBuf().reinterpret(2).toArray(ValueLayout.JAVA_BYTE);
+        assertThat(field).containsExactly(0x03, 0x04);
+        assertThat(transfers.get(0).txBuf().reinterpret(1).get(ValueLayout.JAVA_BYTE, 0)).isEqualTo((byte) 0x03);
+        assertThat(transfers.get(2).length()).isEqualTo(2);
+        assertThat(transfers.get(5).length()).isEqualTo(4);
+        assertThat(transfers.get(5).txBuf()).isEqualTo(MemorySegment.NULL);
+        assertThat(transfers.get(5).csChange()).isEqualTo((byte) 1);
+    }
+
     private void performTest(
             UnaryOperator<AbstractIoctlOperations.Builder> ioctlHandlers,
             BiConsumer<Spi, SpiProvider> verifier
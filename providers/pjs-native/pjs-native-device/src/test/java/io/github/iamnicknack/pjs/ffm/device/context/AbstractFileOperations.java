@@ -36,6 +36,16 @@ public class AbstractFileOperations implements FileOperations {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public int pread(int fd, MemorySegment buffer, int length, long offset) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int pwrite(int fd, MemorySegment buffer, int length, long offset) {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public int access(String pathname, int mode) {
         throw new UnsupportedOperationException();
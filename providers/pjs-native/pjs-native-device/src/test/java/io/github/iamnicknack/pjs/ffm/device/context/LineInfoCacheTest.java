@@ -0,0 +1,191 @@
+package io.github.iamnicknack.pjs.ffm.device.context;
+
+import io.github.iamnicknack.pjs.ffm.context.method.CapturedStateWrapper;
+import io.github.iamnicknack.pjs.ffm.device.context.gpio.ChipInfo;
+import io.github.iamnicknack.pjs.ffm.device.context.gpio.GpioConstants;
+import io.github.iamnicknack.pjs.ffm.device.context.gpio.LineAttribute;
+import io.github.iamnicknack.pjs.ffm.device.context.gpio.LineInfo;
+import io.github.iamnicknack.pjs.ffm.device.context.gpio.LineInfoChanged;
+import io.github.iamnicknack.pjs.ffm.device.context.gpio.PinFlag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LineInfoCacheTest {
+
+    private static final int EAGAIN = 11;
+
+    private final ChipInfo chipInfo = new ChipInfo("gpiochip0", "test", 4);
+    private final FakeChip chip = new FakeChip();
+
+    @Test
+    void watchedLinesAreReadOnce() {
+        try (var cache = new LineInfoCache(chipInfo, chip, chip.ioctlOperations(), true)) {
+            assertThat(cache.lineInfo(3).offset()).isEqualTo(3);
+            assertThat(cache.lineInfo(3).offset()).isEqualTo(3);
+            assertThat(cache.lines()).extracting(LineInfo::offset).containsExactly(0, 1, 2, 3);
+            assertThat(cache.lines()).hasSize(4);
+
+            assertThat(chip.watched).containsExactly(3, 0, 1, 2);
+            assertThat(chip.unwatchedReads).isZero();
+            assertThat(chip.openFlags).containsExactly(
+                    FileOperations.Flags.O_RDWR | FileOperations.Flags.O_CLOEXEC | FileOperations.Flags.O_NONBLOCK
+            );
+        }
+    }
+
+    @Test
+    void changeEventsUpdateEntries() {
+        try (var cache = new LineInfoCache(chipInfo, chip, chip.ioctlOperations(), true)) {
+            assertThat(PinFlag.USED.isSet(cache.lineInfo(1).flags())).isFalse();
+
+            chip.push(new LineInfoChanged(
+                    new LineInfo("line 1", "other", 1, PinFlag.USED.value, new LineAttribute[0]),
+                    1000,
+                    LineInfoChanged.Type.REQUESTED.value
+            ));
+            assertThat(PinFlag.USED.isSet(cache.lineInfo(1).flags())).isTrue();
+
+            chip.push(new LineInfoChanged(
+                    new LineInfo("line 1", "", 1, 0, new LineAttribute[0]),
+                    2000,
+                    LineInfoChanged.Type.RELEASED.value
+            ));
+            assertThat(PinFlag.USED.isSet(cache.lineInfo(1).flags())).isFalse();
+
+            assertThat(chip.watched).containsExactly(1);
+        }
+    }
+
+    @Test
+    void refreshReadsWatchedLineWithoutWatchingAgain() {
+        try (var cache = new LineInfoCache(chipInfo, chip, chip.ioctlOperations(), true)) {
+            cache.lineInfo(1);
+            assertThat(cache.refresh(1).offset()).isEqualTo(1);
+            assertThat(cache.refresh(2).offset()).isEqualTo(2);
+            cache.lineInfo(1);
+            cache.lineInfo(2);
+
+            assertThat(chip.watched).containsExactly(1, 2);
+            assertThat(chip.unwatchedReads).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void possibleFifoOverflowRereadsEntries() {
+        try (var cache = new LineInfoCache(chipInfo, chip, chip.ioctlOperations(), true)) {
+            cache.lines();
+            // enough events to fill the kernel FIFO, so later changes may have been dropped
+            for (int i = 0; i < 32; i++) {
+                chip.push(new LineInfoChanged(
+                        new LineInfo("line 0", "other", 0, PinFlag.USED.value, new LineAttribute[0]),
+                        i,
+                        LineInfoChanged.Type.REQUESTED.value
+                ));
+            }
+            cache.lineInfo(0);
+
+            assertThat(chip.watched).containsExactly(0, 1, 2, 3);
+            assertThat(chip.unwatchedReads).isEqualTo(4);
+        }
+    }
+
+    @Test
+    void unwatchedLinesAreReadOnEachCall() {
+        try (var cache = new LineInfoCache(chipInfo, chip, chip.ioctlOperations(), false)) {
+            cache.lineInfo(1);
+            cache.lineInfo(1);
+            cache.lines();
+
+            assertThat(chip.watched).isEmpty();
+            assertThat(chip.unwatchedReads).isEqualTo(6);
+            assertThat(chip.openFlags).containsExactly(FileOperations.Flags.O_RDWR | FileOperations.Flags.O_CLOEXEC);
+        }
+    }
+
+    @Test
+    void closeDiscardsEntriesAndReopensChip() {
+        var cache = new LineInfoCache(chipInfo, chip, chip.ioctlOperations(), true);
+        var first = cache.chipFd();
+        cache.lineInfo(2);
+        cache.close();
+        assertThat(chip.closed).containsExactly(first.fd());
+
+        var second = cache.chipFd();
+        cache.lineInfo(2);
+        cache.close();
+
+        assertThat(second.fd()).isNotEqualTo(first.fd());
+        assertThat(chip.watched).containsExactly(2, 2);
+    }
+
+    /**
+     * Chip which serves line info and queued change events
+     */
+    private static class FakeChip extends AbstractFileOperations {
+
+        private final List<Integer> watched = new ArrayList<>();
+        private final List<Integer> openFlags = new ArrayList<>();
+        private final List<Integer> closed = new ArrayList<>();
+        private final Queue<LineInfoChanged> changes = new ArrayDeque<>();
+        private final LineInfoChanged.Serializer serializer = new LineInfoChanged.Serializer(Arena.ofAuto());
+        private int unwatchedReads;
+        private int nextFd = 10;
+
+        void push(LineInfoChanged change) {
+            changes.add(change);
+        }
+
+        IoctlOperations ioctlOperations() {
+            return AbstractIoctlOperations.builder()
+                    .addHandler(GpioConstants.GPIO_V2_GET_LINEINFO_WATCH_IOCTL, (_, _, data) -> {
+                        var offset = ((LineInfo) data).offset();
+                        watched.add(offset);
+                        return lineInfo(offset);
+                    })
+                    .addHandler(GpioConstants.GPIO_V2_GET_LINEINFO_IOCTL, (_, _, data) -> {
+                        unwatchedReads++;
+                        return lineInfo(((LineInfo) data).offset());
+                    })
+                    .build();
+        }
+
+        private static LineInfo lineInfo(int offset) {
+            return new LineInfo("line " + offset, "", offset, PinFlag.INPUT.value, new LineAttribute[0]);
+        }
+
+        @Override
+        public FileDescriptor openFd(String pathname, int flags) {
+            assertThat(pathname).isEqualTo("/dev/gpiochip0");
+            openFlags.add(flags);
+            return createFileDescriptor(nextFd++);
+        }
+
+        @Override
+        public int close(int fd) {
+            closed.add(fd);
+            return 0;
+        }
+
+        @Override
+        public int read(int fd, MemorySegment buffer, int length) {
+            var eventSize = (int) LineInfoChanged.LAYOUT.byteSize();
+            var count = 0;
+            while (!changes.isEmpty() && (count + 1) * eventSize <= length) {
+                serializer.serializeInto(changes.poll(), buffer.asSlice((long) count * eventSize, eventSize));
+                count++;
+            }
+            if (count == 0) {
+                throw new CapturedStateWrapper.CapturedStateException(EAGAIN);
+            }
+            return count * eventSize;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package io.github.iamnicknack.pjs.ffm.device.context;
 
 import io.github.iamnicknack.pjs.ffm.context.segment.MemorySegmentMapper;
 import io.github.iamnicknack.pjs.ffm.context.segment.MemorySegmentMapperImpl;
+import io.github.iamnicknack.pjs.ffm.device.context.gpio.EpollEvent;
 import io.github.iamnicknack.pjs.ffm.device.context.gpio.Poll;
 import org.junit.jupiter.api.Test;
 
@@ -35,6 +36,47 @@ class PollingOperationsImplTest {
         );
     }
 
+    @Test
+    void epollCtlPassesEventStruct() {
+        performTest(
+                builder -> builder
+                        .addMethodCaller("epoll_ctl", PollingOperationsImpl.Descriptors.EPOLL_CTL, args -> {
+                            assertThat(args[0]).isEqualTo(7);
+                            assertThat(args[1]).isEqualTo(PollingOperations.EPOLL_CTL_ADD);
+                            assertThat(args[2]).isEqualTo(12);
+                            var event = mapper.value((MemorySegment) args[3], EpollEvent.class);
+                            assertThat(event).isEqualTo(new EpollEvent(EpollEvent.Flags.EPOLLIN.value, 12));
+                            return 0;
+                        }),
+                pollingOperations -> pollingOperations.epollCtl(7, PollingOperations.EPOLL_CTL_ADD, 12, EpollEvent.Flags.EPOLLIN.value)
+        );
+    }
+
+    @Test
+    void epollWaitPopulatesEvents() {
+        var events = Arena.ofAuto().allocate(EpollEvent.LAYOUT, 4);
+        performTest(
+                builder -> builder
+                        .addMethodCaller("epoll_wait", PollingOperationsImpl.Descriptors.EPOLL_WAIT, args -> {
+                            assertThat(args[0]).isEqualTo(7);
+                            assertThat(args[2]).isEqualTo(4);
+                            assertThat(args[3]).isEqualTo(-1);
+                            var segment = (MemorySegment) args[1];
+                            segment.asSlice(0, EpollEvent.LAYOUT.byteSize())
+                                    .copyFrom(mapper.segment(new EpollEvent(EpollEvent.Flags.EPOLLIN.value, 12)));
+                            segment.asSlice(EpollEvent.LAYOUT.byteSize(), EpollEvent.LAYOUT.byteSize())
+                                    .copyFrom(mapper.segment(new EpollEvent(EpollEvent.Flags.EPOLLIN.value, 13)));
+                            return 2;
+                        }),
+                pollingOperations -> {
+                    assertThat(pollingOperations.epollWait(7, events, 4, -1)).isEqualTo(2);
+                    assertThat(EpollEvent.fd(events, 0)).isEqualTo(12);
+                    assertThat(EpollEvent.fd(events, 1)).isEqualTo(13);
+                    assertThat(EpollEvent.events(events, 1)).isEqualTo(EpollEvent.Flags.EPOLLIN.value);
+                }
+        );
+    }
+
     private void performTest(
             UnaryOperator<FakeNativeContext.Builder> configurer,
             Consumer<PollingOperations> verifier
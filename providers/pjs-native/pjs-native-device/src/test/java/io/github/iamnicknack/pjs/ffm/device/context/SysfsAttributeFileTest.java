@@ -0,0 +1,58 @@
+package io.github.iamnicknack.pjs.ffm.device.context;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SysfsAttributeFileTest {
+
+    @Test
+    void formatsWithoutStrings() {
+        try (var arena = Arena.ofConfined()) {
+            var segment = arena.allocate(SysfsAttributeFile.BUFFER_SIZE);
+            for (var value : new long[] { 0, 7, 10, 999, 1_000_000, -42, Long.MAX_VALUE, Long.MIN_VALUE }) {
+                var length = SysfsAttributeFile.format(segment, value);
+                var text = new String(segment.asSlice(0, length).toArray(ValueLayout.JAVA_BYTE), StandardCharsets.US_ASCII);
+                assertThat(text).isEqualTo(Long.toString(value));
+                assertThat(SysfsAttributeFile.parse(segment, length)).isEqualTo(value);
+            }
+        }
+    }
+
+    @Test
+    void parsesSurroundingWhitespace() {
+        try (var arena = Arena.ofConfined()) {
+            var segment = arena.allocateFrom(" 2272727\n", StandardCharsets.US_ASCII);
+            assertThat(SysfsAttributeFile.parse(segment, 9)).isEqualTo(2_272_727L);
+
+            var invalid = arena.allocateFrom("12a", StandardCharsets.US_ASCII);
+            assertThatThrownBy(() -> SysfsAttributeFile.parse(invalid, 3)).isInstanceOf(NumberFormatException.class);
+        }
+    }
+
+    @Test
+    void rewritesOpenFile() throws Exception {
+        var fileOperations = new VirtualFileOperations();
+        var path = fileOperations.root().resolve("/sys/class/pwm/pwmchip0/pwm0/duty_cycle");
+        Files.createDirectories(path.getParent());
+        Files.createFile(path);
+
+        try (var attribute = new SysfsAttributeFile(fileOperations, path.toString())) {
+            attribute.writeLong(1_000_000);
+            attribute.writeLong(250);
+            assertThat(Files.readString(path)).isEqualTo("250");
+            assertThat(attribute.readLong()).isEqualTo(250);
+
+            attribute.writeString("normal");
+            assertThat(attribute.readString()).isEqualTo("normal");
+        }
+        assertThat(fileOperations.writes()).extracting(VirtualFileOperations.Write::value)
+                .containsExactly("1000000", "250", "normal");
+    }
+}
@@ -3,10 +3,14 @@ package io.github.iamnicknack.pjs.ffm.device.context;
 import com.google.common.jimfs.Configuration;
 
 import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystem;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.BiFunction;
 
@@ -16,6 +20,8 @@ public class VirtualFileOperations implements FileOperations {
 
     private final Map<Integer, FileDescriptorWithPath> fileDescriptorMap = new HashMap<>();
     private final Map<String, FileDescriptorWithPath> pathNameMap = new HashMap<>();
+    private final List<Write> writes = new ArrayList<>();
+    private int nextFd = 1;
 
     private final Path root = fileSystem.getPath("");
 
@@ -23,6 +29,17 @@ public class VirtualFileOperations implements FileOperations {
         return root;
     }
 
+    /**
+     * Writes performed through this instance, in order
+     */
+    public List<Write> writes() {
+        return List.copyOf(writes);
+    }
+
+    public void clearWrites() {
+        writes.clear();
+    }
+
     @Override
     public int open(String pathname, int flags) {
         return openFd(pathname, flags).fd();
@@ -35,7 +52,7 @@ public class VirtualFileOperations implements FileOperations {
         }
 
         var path = fileSystem.getPath(pathname);
-        var fd = new FileDescriptorWithPath(path, pathNameMap.size() + 1);
+        var fd = new FileDescriptorWithPath(path, nextFd++);
         pathNameMap.put(path.toAbsolutePath().toString(), fd);
         fileDescriptorMap.put(fd.fd(), fd);
 
@@ -82,6 +99,22 @@ public class VirtualFileOperations implements FileOperations {
         if (fileDescriptorMap.containsKey(fd)) {
             try (var stream = Files.newOutputStream(fileDescriptorMap.get(fd).path)) {
                 stream.write(buffer, offset, count);
+                writes.add(new Write(fileDescriptorMap.get(fd).path, new String(buffer, offset, count, StandardCharsets.US_ASCII)));
+                return count;
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int pread(int fd, MemorySegment buffer, int length, long offset) {
+        if (fileDescriptorMap.containsKey(fd)) {
+            try {
+                var bytes = Files.readAllBytes(fileDescriptorMap.get(fd).path);
+                var count = (int) Math.max(0, Math.min(length, bytes.length - offset));
+                MemorySegment.copy(bytes, (int) offset, buffer, ValueLayout.JAVA_BYTE, 0, count);
                 return count;
             } catch (Exception e) {
                 throw new RuntimeException(e);
@@ -90,6 +123,24 @@ public class VirtualFileOperations implements FileOperations {
         return -1;
     }
 
+    /**
+     * Replaces the file content, which matches sysfs attribute semantics for writes at offset 0
+     */
+    @Override
+    public int pwrite(int fd, MemorySegment buffer, int length, long offset) {
+        if (fileDescriptorMap.containsKey(fd)) {
+            var bytes = buffer.asSlice(0, length).toArray(ValueLayout.JAVA_BYTE);
+            try {
+                Files.write(fileDescriptorMap.get(fd).path, bytes);
+                writes.add(new Write(fileDescriptorMap.get(fd).path, new String(bytes, StandardCharsets.US_ASCII)));
+                return length;
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+        return -1;
+    }
+
     @Override
     public int access(String pathname, int mode) {
         return 0;
@@ -110,6 +161,17 @@ public class VirtualFileOperations implements FileOperations {
         return new FileDescriptor(this, fd);
     }
 
+    /**
+     * A recorded write
+     * @param path the file written
+     * @param value the bytes written, as ASCII
+     */
+    public record Write(Path path, String value) {
+        public String fileName() {
+            return path.getFileName().toString();
+        }
+    }
+
     class FileDescriptorWithPath extends FileDescriptor {
         private final Path path;
 
@@ -20,4 +20,20 @@ class LineConfigTest {
         var deserialisedConfig = mapper.value(segment, LineConfig.class);
         Assertions.assertThat(deserialisedConfig).isEqualTo(config);
     }
-}
\ No newline at end of file
+
+    @Test
+    void viewUpdatesConfigInPlace() {
+        var config = new LineConfig(1, new LineConfigAttribute[0]);
+        var segment = mapper.segment(config);
+
+        new LineConfig.View(segment)
+                .flags(2)
+                .attribute(0, LineAttribute.Id.DEBOUNCE_PERIOD_US, 1_000, 0b11)
+                .numAttributes(1);
+
+        var expected = new LineConfig(2, new LineConfigAttribute[] {
+                new LineConfigAttribute(new LineAttribute(LineAttribute.Id.DEBOUNCE_PERIOD_US, 1_000), 0b11)
+        });
+        Assertions.assertThat(mapper.value(segment, LineConfig.class)).isEqualTo(expected);
+    }
+}
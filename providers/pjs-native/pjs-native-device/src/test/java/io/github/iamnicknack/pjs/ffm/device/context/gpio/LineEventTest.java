@@ -39,4 +39,18 @@ class LineEventTest {
         assertThat(deserialisedLineEvent).isEqualTo(lineEvent);
     }
 
-}
\ No newline at end of file
+    @Test
+    void viewReadsEventsInPlace() {
+        var segment = allocator.allocate(LineEvent.LAYOUT, 2);
+        var view = new LineEvent.View();
+        view.wrap(segment, 0).set(10, 1, 4, 1, 1);
+        view.wrap(segment, LineEvent.LAYOUT.byteSize()).set(20, 2, 5, 2, 1);
+
+        assertThat(view.wrap(segment, 0).toRecord()).isEqualTo(new LineEvent(10, 1, 4, 1, 1));
+        assertThat(view.wrap(segment, LineEvent.LAYOUT.byteSize()).timestampNs()).isEqualTo(20);
+        assertThat(view.id()).isEqualTo(2);
+        assertThat(view.offset()).isEqualTo(5);
+        assertThat(mapper.value(segment.asSlice(LineEvent.LAYOUT.byteSize()), LineEvent.class))
+                .isEqualTo(new LineEvent(20, 2, 5, 2, 1));
+    }
+}
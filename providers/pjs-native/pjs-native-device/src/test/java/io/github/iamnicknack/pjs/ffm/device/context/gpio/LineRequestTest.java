@@ -7,6 +7,8 @@ import org.junit.jupiter.api.Test;
 
 import java.lang.foreign.Arena;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 class LineRequestTest {
 
     private final MemorySegmentMapper mapper = new MemorySegmentMapperImpl(Arena.ofAuto());
@@ -31,6 +33,31 @@ class LineRequestTest {
         Assertions.assertThat(restored.fd()).isEqualTo(original.fd());
     }
 
+    @Test
+    void codecCanSerializeIntoProvidedSegment() {
+        var codec = mapper.codec(LineRequest.class);
+        assertThat(mapper.codec(LineRequest.class)).isSameAs(codec);
+
+        var original = new LineRequest(
+                new int[]{4, 5},
+                "consumer",
+                new LineConfig(5, new LineConfigAttribute[] {
+                        new LineConfigAttribute(new LineAttribute(LineAttribute.Id.DEBOUNCE_PERIOD_US, 10), 3)
+                }),
+                16,
+                42
+        );
+
+        var segment = Arena.ofAuto().allocate(codec.layout());
+        codec.serializeInto(original, segment);
+        var restored = codec.deserialize(segment);
+
+        assertThat(restored.offsets()).containsExactly(original.offsets());
+        assertThat(restored.consumer()).isEqualTo(original.consumer());
+        assertThat(restored.config()).isEqualTo(original.config());
+        assertThat(restored.fd()).isEqualTo(original.fd());
+    }
+
     @Test
     void testInvalidConsumerLength() {
         var original = new LineRequest(
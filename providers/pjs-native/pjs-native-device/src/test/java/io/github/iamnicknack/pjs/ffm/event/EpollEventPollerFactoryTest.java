@@ -0,0 +1,321 @@
+package io.github.iamnicknack.pjs.ffm.event;
+
+import io.github.iamnicknack.pjs.ffm.device.context.FileDescriptor;
+import io.github.iamnicknack.pjs.ffm.device.context.FileOperations;
+import io.github.iamnicknack.pjs.ffm.device.context.PollingOperations;
+import io.github.iamnicknack.pjs.ffm.device.context.gpio.EpollEvent;
+import io.github.iamnicknack.pjs.ffm.device.context.gpio.LineEvent;
+import io.github.iamnicknack.pjs.ffm.device.context.gpio.Poll;
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EpollEventPollerFactoryTest {
+
+    private final FakeEpoll epoll = new FakeEpoll();
+
+    @Test
+    void dispatchesAllRegisteredFdsFromSingleThread() throws InterruptedException {
+        var portCount = 8;
+        var eventsPerPort = 3;
+        var latch = new CountDownLatch(portCount * eventsPerPort);
+        var threadNames = ConcurrentHashMap.<String>newKeySet();
+        var eventsPerFd = new ConcurrentHashMap<Integer, AtomicInteger>();
+
+        try (var factory = new EpollEventPollerFactory(Duration.ofMillis(50), epoll, epoll)) {
+            for (int fd = 10; fd < 10 + portCount; fd++) {
+                var lineFd = fd;
+                var poller = factory.createBatched(epoll.createFileDescriptor(fd), (_, batch) -> {
+                    threadNames.add(Thread.currentThread().getName());
+                    eventsPerFd.computeIfAbsent(lineFd, _ -> new AtomicInteger()).addAndGet(batch.size());
+                    for (int i = 0; i < batch.size(); i++) {
+                        latch.countDown();
+                    }
+                });
+                poller.start();
+                assertThat(poller.isRunning()).isTrue();
+            }
+
+            for (int fd = 10; fd < 10 + portCount; fd++) {
+                for (int i = 1; i <= eventsPerPort; i++) {
+                    epoll.push(fd, new LineEvent(i, 1, 0, i, i));
+                }
+            }
+
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(threadNames).containsExactly("gpio-event-loop");
+            assertThat(eventsPerFd).hasSize(portCount);
+            eventsPerFd.values().forEach(count -> assertThat(count.get()).isEqualTo(eventsPerPort));
+        }
+    }
+
+    @Test
+    void stopUnregistersFd() throws InterruptedException {
+        var received = new AtomicInteger();
+        var first = new CountDownLatch(1);
+
+        try (var factory = new EpollEventPollerFactory(Duration.ofMillis(50), epoll, epoll)) {
+            var poller = factory.create(epoll.createFileDescriptor(10), (_, events) -> {
+                received.addAndGet(events.size());
+                first.countDown();
+            });
+            poller.start();
+            assertThat(epoll.registered).containsExactly(10);
+
+            epoll.push(10, new LineEvent(1, 1, 0, 1, 1));
+            assertThat(first.await(5, TimeUnit.SECONDS)).isTrue();
+
+            poller.stop();
+            assertThat(poller.isRunning()).isFalse();
+            assertThat(epoll.registered).isEmpty();
+
+            epoll.push(10, new LineEvent(2, 1, 0, 2, 2));
+            Thread.sleep(150);
+            assertThat(received.get()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void restartsAfterStop() throws InterruptedException {
+        var latch = new CountDownLatch(2);
+
+        try (var factory = new EpollEventPollerFactory(Duration.ofMillis(50), epoll, epoll)) {
+            var poller = factory.createBatched(epoll.createFileDescriptor(10), (_, batch) -> {
+                for (int i = 0; i < batch.size(); i++) {
+                    latch.countDown();
+                }
+            });
+            poller.start();
+            epoll.push(10, new LineEvent(1, 1, 0, 1, 1));
+            poller.stop();
+            poller.start();
+            epoll.push(10, new LineEvent(2, 1, 0, 2, 2));
+
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+    }
+
+    @Test
+    void closeWakesLoopImmediately() throws InterruptedException {
+        var epoll = new FakeEpoll(true);
+        var latch = new CountDownLatch(1);
+
+        var factory = new EpollEventPollerFactory(Duration.ofSeconds(10), epoll, epoll);
+        var poller = factory.create(epoll.createFileDescriptor(10), (_, _) -> latch.countDown());
+        poller.start();
+        assertThat(epoll.registered).containsExactlyInAnyOrder(FakeEpoll.WAKEUP_FD, 10);
+
+        epoll.push(10, new LineEvent(1, 1, 0, 1, 1));
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+
+        var start = System.nanoTime();
+        factory.close();
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+        assertThat(epoll.waitTimeouts).containsOnly(-1);
+    }
+
+    @Test
+    void stopWaitsForDispatchInProgress() throws Exception {
+        var dispatching = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+
+        try (var factory = new EpollEventPollerFactory(Duration.ofMillis(50), epoll, epoll)) {
+            var poller = factory.create(epoll.createFileDescriptor(10), (_, _) -> {
+                dispatching.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            poller.start();
+            epoll.push(10, new LineEvent(1, 1, 0, 1, 1));
+            assertThat(dispatching.await(5, TimeUnit.SECONDS)).isTrue();
+
+            var stopped = new CountDownLatch(1);
+            Thread.ofPlatform().start(() -> {
+                poller.stop();
+                stopped.countDown();
+            });
+            assertThat(stopped.await(100, TimeUnit.MILLISECONDS)).isFalse();
+
+            release.countDown();
+            assertThat(stopped.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(epoll.registered).isEmpty();
+        }
+    }
+
+    @Test
+    void closeLeavesEpollFdOpenUntilLoopExits() throws Exception {
+        var dispatching = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+
+        var factory = new EpollEventPollerFactory(Duration.ofMillis(10), epoll, epoll);
+        var poller = factory.create(epoll.createFileDescriptor(10), (_, _) -> {
+            dispatching.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        poller.start();
+        epoll.push(10, new LineEvent(1, 1, 0, 1, 1));
+        assertThat(dispatching.await(5, TimeUnit.SECONDS)).isTrue();
+
+        factory.close();
+        assertThat(epoll.closed).doesNotContain(FakeEpoll.EPOLL_FD);
+
+        release.countDown();
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!epoll.closed.contains(FakeEpoll.EPOLL_FD) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(epoll.closed).contains(FakeEpoll.EPOLL_FD);
+    }
+
+    /**
+     * In-memory epoll instance over queues of line events
+     */
+    static class FakeEpoll extends FileOperations.AbstractFileOperations implements PollingOperations {
+
+        private static final int EPOLL_FD = 99;
+        private static final int WAKEUP_FD = 98;
+
+        private final boolean eventFdSupported;
+        private final AtomicLong wakeupCounter = new AtomicLong();
+        private final Set<Integer> waitTimeouts = ConcurrentHashMap.newKeySet();
+
+        private final Map<Integer, Queue<LineEvent>> queues = new ConcurrentHashMap<>();
+        private final Set<Integer> registered = ConcurrentHashMap.newKeySet();
+        private final Set<Integer> closed = ConcurrentHashMap.newKeySet();
+        private final EpollEvent.Serializer serializer = new EpollEvent.Serializer(Arena.ofAuto());
+
+        FakeEpoll() {
+            this(false);
+        }
+
+        FakeEpoll(boolean eventFdSupported) {
+            this.eventFdSupported = eventFdSupported;
+        }
+
+        void push(int fd, LineEvent event) {
+            queues.computeIfAbsent(fd, _ -> new ConcurrentLinkedQueue<>()).add(event);
+        }
+
+        @Override
+        public FileDescriptor createFileDescriptor(int fd) {
+            return new FileDescriptor(this, fd);
+        }
+
+        @Override
+        public int close(int fd) {
+            closed.add(fd);
+            return 0;
+        }
+
+        @Override
+        public Poll poll(Poll poll, int timeout) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Set<Capability> capabilities() {
+            return eventFdSupported ? Set.of(Capability.EPOLL, Capability.EVENT_FD) : Set.of(Capability.EPOLL);
+        }
+
+        @Override
+        public int eventFd() {
+            return WAKEUP_FD;
+        }
+
+        @Override
+        public int write(int fd, byte[] buffer, int offset, int count) {
+            assertThat(fd).isEqualTo(WAKEUP_FD);
+            wakeupCounter.incrementAndGet();
+            return count;
+        }
+
+        @Override
+        public int read(int fd, byte[] buffer, int offset, int count) {
+            assertThat(fd).isEqualTo(WAKEUP_FD);
+            wakeupCounter.set(0);
+            return count;
+        }
+
+        @Override
+        public int epollCreate() {
+            return EPOLL_FD;
+        }
+
+        @Override
+        public void epollCtl(int epollFd, int op, int fd, int events) {
+            assertThat(epollFd).isEqualTo(EPOLL_FD);
+            switch (op) {
+                case EPOLL_CTL_ADD -> assertThat(registered.add(fd)).isTrue();
+                case EPOLL_CTL_DEL -> assertThat(registered.remove(fd)).isTrue();
+                default -> throw new IllegalArgumentException("Unexpected op: " + op);
+            }
+        }
+
+        @Override
+        public int epollWait(int epollFd, MemorySegment events, int maxEvents, int timeout) {
+            waitTimeouts.add(timeout);
+            var deadline = (timeout < 0) ? Long.MAX_VALUE : System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+            do {
+                var count = 0;
+                if (registered.contains(WAKEUP_FD) && wakeupCounter.get() > 0) {
+                    serializer.serializeInto(new EpollEvent(EpollEvent.Flags.EPOLLIN.value, WAKEUP_FD), events);
+                    count++;
+                }
+                for (var fd : registered) {
+                    if (fd == WAKEUP_FD) {
+                        continue;
+                    }
+                    var queue = queues.get(fd);
+                    if (queue != null && !queue.isEmpty() && count < maxEvents) {
+                        serializer.serializeInto(
+                                new EpollEvent(EpollEvent.Flags.EPOLLIN.value, fd),
+                                events.asSlice(count * EpollEvent.LAYOUT.byteSize(), EpollEvent.LAYOUT.byteSize())
+                        );
+                        count++;
+                    }
+                }
+                if (count > 0) {
+                    return count;
+                }
+                LockSupport.parkNanos(100_000);
+            } while (System.nanoTime() < deadline);
+            return 0;
+        }
+
+        @Override
+        public int read(int fd, MemorySegment buffer, int length) {
+            var view = new LineEvent.View();
+            var eventSize = (int) LineEvent.LAYOUT.byteSize();
+            var queue = queues.get(fd);
+            var count = 0;
+            LineEvent event;
+            while (queue != null && (count + 1) * eventSize <= length && (event = queue.poll()) != null) {
+                view.wrap(buffer, (long) count * eventSize)
+                        .set(event.timestampNs(), event.id(), event.offset(), event.seqno(), event.lineSeqno());
+                count++;
+            }
+            return count * eventSize;
+        }
+    }
+}
@@ -7,6 +7,7 @@ import io.github.iamnicknack.pjs.ffm.device.context.gpio.LineEvent;
 import io.github.iamnicknack.pjs.ffm.device.context.gpio.Poll;
 import org.jspecify.annotations.NonNull;
 import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestFactory;
 
 import java.lang.foreign.Arena;
@@ -14,7 +15,15 @@ import java.lang.foreign.MemorySegment;
 import java.lang.foreign.SegmentAllocator;
 import java.time.Duration;
 import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.stream.Stream;
@@ -82,6 +91,277 @@ class EventPollerFactoryImplTest {
     }
 
 
+    @Test
+    void drainsSustainedEventStreamInBatches() throws InterruptedException {
+        var totalEvents = 50_000;
+        var eventsPerTick = 1_000;
+        var fileOperations = new QueuedLineEventsFileOperations();
+
+        // fake poll blocks until events are queued or the timeout expires
+        PollingOperations queuePolling = (poll, timeout) -> {
+            var deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+            while (fileOperations.queue.isEmpty() && System.nanoTime() < deadline) {
+                LockSupport.parkNanos(100_000);
+            }
+            var revents = fileOperations.queue.isEmpty() ? 0 : Poll.Flags.POLLIN.value;
+            return new Poll(poll.fd(), Poll.Flags.POLLIN.value, revents);
+        };
+
+        var received = new AtomicInteger();
+        var outOfOrder = new AtomicInteger();
+        var largestBatch = new AtomicInteger();
+        var done = new CountDownLatch(1);
+
+        PollEventBatchCallback callback = (poller, batch) -> {
+            largestBatch.accumulateAndGet(batch.size(), Math::max);
+            for (int i = 0; i < batch.size(); i++) {
+                if (batch.seqno(i) != received.get() + 1) {
+                    outOfOrder.incrementAndGet();
+                }
+                received.incrementAndGet();
+            }
+            if (received.get() >= totalEvents) {
+                poller.stop();
+                done.countDown();
+            }
+        };
+
+        try (var pollerFactory = new EventPollerFactoryImpl(Duration.ofMillis(100), queuePolling, fileOperations)) {
+            var poller = pollerFactory.createBatched(fileOperations.createFileDescriptor(1), callback);
+            poller.start();
+
+            // ~100k events/s: 1000 events every 10ms
+            var producer = Thread.ofPlatform().start(() -> {
+                var seqno = 0;
+                while (seqno < totalEvents) {
+                    for (int i = 0; i < eventsPerTick; i++) {
+                        seqno++;
+                        fileOperations.queue.add(new LineEvent(seqno, 1, 0, seqno, seqno));
+                    }
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+                }
+            });
+
+            assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+            producer.join();
+
+            assertThat(received.get()).isEqualTo(totalEvents);
+            assertThat(outOfOrder.get()).isZero();
+            assertThat(largestBatch.get()).isEqualTo(EventPollerFactoryImpl.DEFAULT_EVENT_BUFFER_SIZE);
+        }
+    }
+
+    @Test
+    void stopWakesPollerImmediately() throws InterruptedException {
+        var wakeup = new WakeupPollingOperations();
+        var fileOperations = new QueuedLineEventsFileOperations() {
+            @Override
+            public int write(int fd, byte[] buffer, int offset, int count) {
+                assertThat(fd).isEqualTo(WakeupPollingOperations.WAKEUP_FD);
+                wakeup.counter.incrementAndGet();
+                return count;
+            }
+
+            @Override
+            public int read(int fd, byte[] buffer, int offset, int count) {
+                wakeup.counter.set(0);
+                return count;
+            }
+
+            @Override
+            public int close(int fd) {
+                return 0;
+            }
+        };
+
+        try (var pollerFactory = new EventPollerFactoryImpl(Duration.ofSeconds(10), wakeup, fileOperations)) {
+            var poller = pollerFactory.create(fileOperations.createFileDescriptor(1), (_, _) -> {});
+            var thread = Thread.ofPlatform().start(poller);
+            while (!poller.isRunning() || wakeup.timeouts.isEmpty()) {
+                Thread.onSpinWait();
+            }
+
+            var start = System.nanoTime();
+            poller.stop();
+            thread.join(Duration.ofSeconds(5));
+
+            assertThat(thread.isAlive()).isFalse();
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+            assertThat(wakeup.timeouts).containsOnly(-1);
+        }
+    }
+
+    @Test
+    void stopWhileQueuedPreventsPolling() throws InterruptedException {
+        var polled = new ConcurrentLinkedQueue<Integer>();
+        var firstPolling = new CountDownLatch(1);
+        var releaseFirst = new CountDownLatch(1);
+        var lastPolled = new CountDownLatch(1);
+
+        // each poller ends on an invalid descriptor, the first only once released
+        PollingOperations invalidPolling = (poll, _) -> {
+            polled.add(poll.fd());
+            if (poll.fd() == 1) {
+                firstPolling.countDown();
+                try {
+                    releaseFirst.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (poll.fd() == 3) {
+                lastPolled.countDown();
+            }
+            return new Poll(poll.fd(), poll.events(), Poll.Flags.POLLNVAL.value);
+        };
+        var fileOperations = new QueuedLineEventsFileOperations();
+
+        try (var pollerFactory = new EventPollerFactoryImpl(Duration.ofMillis(100), invalidPolling, fileOperations, 1)) {
+            var first = pollerFactory.create(fileOperations.createFileDescriptor(1), (_, _) -> {});
+            var queued = pollerFactory.create(fileOperations.createFileDescriptor(2), (_, _) -> {});
+            var last = pollerFactory.create(fileOperations.createFileDescriptor(3), (_, _) -> {});
+
+            first.start();
+            assertThat(firstPolling.await(1, TimeUnit.SECONDS)).isTrue();
+            queued.start();
+            assertThat(queued.isStarted()).isTrue();
+            assertThat(queued.isRunning()).isFalse();
+            queued.stop();
+            assertThat(queued.isStarted()).isFalse();
+            last.start();
+            releaseFirst.countDown();
+
+            assertThat(lastPolled.await(1, TimeUnit.SECONDS)).isTrue();
+            assertThat(polled).containsExactly(1, 3);
+            assertThat(queued.isRunning()).isFalse();
+        }
+    }
+
+    @Test
+    void stopWaitsForDispatchInProgress() throws Exception {
+        var fileOperations = new QueuedLineEventsFileOperations();
+        fileOperations.queue.add(new LineEvent(1, 1, 0, 1, 1));
+        PollingOperations queuePolling = (poll, _) -> new Poll(
+                poll.fd(),
+                poll.events(),
+                fileOperations.queue.isEmpty() ? 0 : Poll.Flags.POLLIN.value
+        );
+
+        var inCallback = new CountDownLatch(1);
+        var releaseCallback = new CountDownLatch(1);
+        PollEventBatchCallback callback = (_, _) -> {
+            inCallback.countDown();
+            try {
+                releaseCallback.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        try (var pollerFactory = new EventPollerFactoryImpl(Duration.ofMillis(10), queuePolling, fileOperations)) {
+            var poller = pollerFactory.createBatched(fileOperations.createFileDescriptor(1), callback);
+            poller.start();
+            assertThat(inCallback.await(1, TimeUnit.SECONDS)).isTrue();
+
+            var stopping = Thread.ofPlatform().start(poller::stop);
+            stopping.join(Duration.ofMillis(100));
+            assertThat(stopping.isAlive()).isTrue();
+
+            releaseCallback.countDown();
+            stopping.join(Duration.ofSeconds(1));
+            assertThat(stopping.isAlive()).isFalse();
+            assertThat(poller.isStarted()).isFalse();
+        }
+    }
+
+    @Test
+    void terminalReventsStopPoller() {
+        var polls = new AtomicInteger();
+        PollingOperations hangupPolling = (poll, _) -> {
+            polls.incrementAndGet();
+            return new Poll(poll.fd(), poll.events(), Poll.Flags.POLLIN.value | Poll.Flags.POLLHUP.value);
+        };
+        var fileOperations = new QueuedLineEventsFileOperations();
+
+        try (var pollerFactory = new EventPollerFactoryImpl(Duration.ofMillis(100), hangupPolling, fileOperations)) {
+            var poller = pollerFactory.create(fileOperations.createFileDescriptor(1), (_, _) -> {});
+            poller.run();
+
+            assertThat(polls.get()).isEqualTo(1);
+            assertThat(poller.isRunning()).isFalse();
+        }
+    }
+
+    /**
+     * Multi-fd polling where only the wakeup eventfd ever becomes ready
+     */
+    static class WakeupPollingOperations implements PollingOperations {
+
+        private static final int WAKEUP_FD = 98;
+
+        private final AtomicLong counter = new AtomicLong();
+        private final Queue<Integer> timeouts = new ConcurrentLinkedQueue<>();
+        private final Poll.Serializer serializer = new Poll.Serializer(Arena.ofAuto());
+        private final Poll.Deserializer deserializer = new Poll.Deserializer();
+
+        @Override
+        public Poll poll(Poll poll, int timeout) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Set<Capability> capabilities() {
+            return Set.of(Capability.POLL_MULTIPLE, Capability.EVENT_FD);
+        }
+
+        @Override
+        public int eventFd() {
+            return WAKEUP_FD;
+        }
+
+        @Override
+        public int poll(MemorySegment pollFds, int count, int timeout) {
+            timeouts.add(timeout);
+            var deadline = (timeout < 0) ? Long.MAX_VALUE : System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+            while (counter.get() == 0 && System.nanoTime() < deadline) {
+                LockSupport.parkNanos(100_000);
+            }
+            var ready = 0;
+            for (int i = 0; i < count; i++) {
+                var slice = pollFds.asSlice(i * Poll.LAYOUT.byteSize(), Poll.LAYOUT.byteSize());
+                var poll = deserializer.deserialize(slice);
+                var revents = (poll.fd() == WAKEUP_FD && counter.get() > 0) ? Poll.Flags.POLLIN.value : 0;
+                serializer.serializeInto(new Poll(poll.fd(), poll.events(), revents), slice);
+                ready += (revents != 0) ? 1 : 0;
+            }
+            return ready;
+        }
+    }
+
+    class QueuedLineEventsFileOperations extends FileOperations.AbstractFileOperations {
+
+        private final Queue<LineEvent> queue = new ConcurrentLinkedQueue<>();
+
+        @Override
+        public FileDescriptor createFileDescriptor(int fd) {
+            return new FileDescriptor(this, fd);
+        }
+
+        @Override
+        public int read(int fd, MemorySegment buffer, int length) {
+            var view = new LineEvent.View();
+            var eventSize = (int) LineEvent.LAYOUT.byteSize();
+            var count = 0;
+            LineEvent event;
+            while ((count + 1) * eventSize <= length && (event = queue.poll()) != null) {
+                view.wrap(buffer, (long) count * eventSize)
+                        .set(event.timestampNs(), event.id(), event.offset(), event.seqno(), event.lineSeqno());
+                count++;
+            }
+            return count * eventSize;
+        }
+    }
+
     class LineEventsFileOperations extends FileOperations.AbstractFileOperations {
 
         private final LineEvent.Serializer serializer = new LineEvent.Serializer(segmentAllocator);
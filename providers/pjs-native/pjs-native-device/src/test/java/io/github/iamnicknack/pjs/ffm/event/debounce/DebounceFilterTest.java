@@ -0,0 +1,71 @@
+package io.github.iamnicknack.pjs.ffm.event.debounce;
+
+import io.github.iamnicknack.pjs.ffm.event.EventPoller;
+import io.github.iamnicknack.pjs.ffm.event.PollEvent;
+import io.github.iamnicknack.pjs.ffm.event.PollEventBatch;
+import io.github.iamnicknack.pjs.ffm.event.PollEventType;
+import io.github.iamnicknack.pjs.ffm.event.PollEventsCallback;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DebounceFilterTest {
+
+    private static final long DEBOUNCE = 100;
+
+    @Test
+    void debouncesLinesIndependently() {
+        var filter = new DebounceFilter(DEBOUNCE);
+
+        assertThat(filter.test(0, 1_000)).isTrue();
+        assertThat(filter.test(5, 1_010)).isTrue();
+        assertThat(filter.test(0, 1_050)).isFalse();
+        assertThat(filter.test(5, 1_060)).isFalse();
+        assertThat(filter.test(0, 1_101)).isTrue();
+        assertThat(filter.test(5, 1_111)).isTrue();
+    }
+
+    @Test
+    void filtersBatchInPlace() {
+        var filter = new DebounceFilter(DEBOUNCE);
+        var batch = new PollEventBatch(8);
+        batch.add(1_000, PollEventType.RISING.value, 0, 1, 1);
+        batch.add(1_010, PollEventType.RISING.value, 1, 2, 1);
+        batch.add(1_020, PollEventType.FALLING.value, 0, 3, 2);
+        batch.add(1_030, PollEventType.FALLING.value, 1, 4, 2);
+        batch.add(1_200, PollEventType.RISING.value, 0, 5, 3);
+
+        assertThat(batch.retainIf(filter)).isEqualTo(2);
+        assertThat(batch.toList()).containsExactly(
+                new PollEvent(PollEventType.RISING, 1_000, 0),
+                new PollEvent(PollEventType.RISING, 1_010, 1),
+                new PollEvent(PollEventType.RISING, 1_200, 0)
+        );
+        assertThat(batch.seqno(2)).isEqualTo(5);
+    }
+
+    @Test
+    void leadingEdgeCallbackDeliversFilteredBatch() {
+        var delivered = new ArrayList<PollEvent>();
+        PollEventsCallback delegate = (_, events) -> delivered.addAll(events);
+        var callback = new LeadingEdgeDebounceCallback(delegate, DEBOUNCE);
+
+        var batch = new PollEventBatch(4);
+        batch.add(1_000, PollEventType.RISING.value, 2, 1, 1);
+        batch.add(1_001, PollEventType.FALLING.value, 2, 2, 2);
+        batch.add(1_002, PollEventType.RISING.value, 3, 3, 1);
+        callback.callback(EventPoller.NOOP, batch);
+
+        assertThat(delivered).containsExactly(
+                new PollEvent(PollEventType.RISING, 1_000, 2),
+                new PollEvent(PollEventType.RISING, 1_002, 3)
+        );
+
+        delivered.clear();
+        callback.callback(EventPoller.NOOP, List.of(new PollEvent(PollEventType.FALLING, 1_003, 3)));
+        assertThat(delivered).isEmpty();
+    }
+}
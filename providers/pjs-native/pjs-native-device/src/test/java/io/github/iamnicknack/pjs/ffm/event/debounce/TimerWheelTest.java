@@ -0,0 +1,264 @@
+package io.github.iamnicknack.pjs.ffm.event.debounce;
+
+import io.github.iamnicknack.pjs.ffm.event.EventPoller;
+import io.github.iamnicknack.pjs.ffm.event.PollEvent;
+import io.github.iamnicknack.pjs.ffm.event.PollEventBatch;
+import io.github.iamnicknack.pjs.ffm.event.PollEventType;
+import io.github.iamnicknack.pjs.ffm.event.PollEventsCallback;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimerWheelTest {
+
+    private final TimerWheel timerWheel = new TimerWheel();
+
+    @AfterEach
+    void tearDown() {
+        timerWheel.close();
+    }
+
+    @Test
+    void expiresAfterDelay() throws InterruptedException {
+        var latch = new CountDownLatch(1);
+        var firedAt = new AtomicLong();
+        var timeout = timerWheel.newTimeout(() -> {
+            firedAt.set(System.nanoTime());
+            latch.countDown();
+        });
+
+        var start = System.nanoTime();
+        timeout.schedule(TimeUnit.MILLISECONDS.toNanos(20));
+        assertThat(timeout.isArmed()).isTrue();
+
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(firedAt.get() - start).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(20));
+        assertThat(timeout.isArmed()).isFalse();
+        assertThat(timerWheel.pending()).isZero();
+    }
+
+    @Test
+    void rescheduleReplacesDeadline() throws InterruptedException {
+        var count = new AtomicInteger();
+        var latch = new CountDownLatch(1);
+        var timeout = timerWheel.newTimeout(() -> {
+            count.incrementAndGet();
+            latch.countDown();
+        });
+
+        for (int i = 0; i < 10; i++) {
+            timeout.schedule(TimeUnit.MILLISECONDS.toNanos(30));
+            Thread.sleep(5);
+        }
+        assertThat(timerWheel.pending()).isEqualTo(1);
+
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(50);
+        assertThat(count.get()).isEqualTo(1);
+    }
+
+    @Test
+    void cancelPreventsExpiry() throws InterruptedException {
+        var count = new AtomicInteger();
+        var timeout = timerWheel.newTimeout(count::incrementAndGet);
+
+        timeout.schedule(TimeUnit.MILLISECONDS.toNanos(10));
+        assertThat(timeout.cancel()).isTrue();
+        assertThat(timeout.cancel()).isFalse();
+
+        Thread.sleep(50);
+        assertThat(count.get()).isZero();
+    }
+
+    @Test
+    void expiresManyTimeoutsFromOneThread() throws InterruptedException {
+        var timeoutCount = 200;
+        var latch = new CountDownLatch(timeoutCount);
+        var threadNames = ConcurrentHashMap.<String>newKeySet();
+
+        for (int i = 0; i < timeoutCount; i++) {
+            // delays beyond one wheel revolution exercise remaining rounds
+            var delay = Duration.ofMillis(1 + (i * 7L) % 700);
+            timerWheel.newTimeout(() -> {
+                threadNames.add(Thread.currentThread().getName());
+                latch.countDown();
+            }).schedule(delay.toNanos());
+        }
+
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(threadNames).hasSize(1);
+        assertThat(timerWheel.pending()).isZero();
+    }
+
+    @Test
+    void trailingEdgeCallbackEmitsLastEventsOnce() throws InterruptedException {
+        var delivered = new RecordingCallback();
+        var debounce = TimeUnit.MILLISECONDS.toNanos(20);
+        var callback = new TrailingEdgeDebounceCallback(delivered, debounce, timerWheel);
+
+        var timestamp = debounce;
+        for (int i = 0; i < 5; i++) {
+            timestamp += debounce * 2;
+            callback.callback(EventPoller.NOOP, List.of(new PollEvent(PollEventType.RISING, timestamp)));
+            Thread.sleep(2);
+        }
+
+        assertThat(delivered.latch.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(50);
+        assertThat(delivered.events).containsExactly(new PollEvent(PollEventType.RISING, timestamp));
+        callback.close();
+    }
+
+    @Test
+    void trailingEdgeCallbackEmitsEachLine() throws InterruptedException {
+        var delivered = new RecordingCallback(2);
+        var debounce = TimeUnit.MILLISECONDS.toNanos(20);
+        var callback = new TrailingEdgeDebounceCallback(delivered, debounce, timerWheel);
+
+        var timestamp = debounce * 2;
+        callback.callback(EventPoller.NOOP, List.of(
+                new PollEvent(PollEventType.RISING, timestamp, 0),
+                new PollEvent(PollEventType.FALLING, timestamp + 1, 7)
+        ));
+
+        assertThat(delivered.latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(delivered.events).containsExactlyInAnyOrder(
+                new PollEvent(PollEventType.RISING, timestamp, 0),
+                new PollEvent(PollEventType.FALLING, timestamp + 1, 7)
+        );
+        callback.close();
+    }
+
+    @Test
+    void trailingEdgeCallbackDeliversOffTheWheelThread() throws InterruptedException {
+        var thread = new AtomicReference<Thread>();
+        var latch = new CountDownLatch(1);
+        var debounce = TimeUnit.MILLISECONDS.toNanos(5);
+        var callback = new TrailingEdgeDebounceCallback((_, _) -> {
+            thread.set(Thread.currentThread());
+            latch.countDown();
+        }, debounce, timerWheel);
+
+        callback.callback(EventPoller.NOOP, List.of(new PollEvent(PollEventType.RISING, debounce * 2)));
+
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(thread.get().getName()).doesNotStartWith("debounce-timer-wheel");
+        callback.close();
+    }
+
+    @Test
+    void slowTrailingEdgeDelegateDoesNotDelayWheelOrIsolatedCallbacks() throws InterruptedException {
+        var release = new CountDownLatch(1);
+        var blocked = new CountDownLatch(1);
+        var debounce = TimeUnit.MILLISECONDS.toNanos(5);
+        var slow = new TrailingEdgeDebounceCallback((_, _) -> {
+            blocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, debounce, timerWheel);
+        var delivered = new RecordingCallback();
+        var isolatedDelivery = Executors.newSingleThreadExecutor();
+        var isolated = new TrailingEdgeDebounceCallback(delivered, debounce, timerWheel, isolatedDelivery);
+        var expired = new CountDownLatch(1);
+
+        try {
+            slow.callback(EventPoller.NOOP, List.of(new PollEvent(PollEventType.RISING, debounce * 2)));
+            assertThat(blocked.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // the slow delegate is still running on the shared delivery thread, and must not hold up the wheel
+            slow.callback(EventPoller.NOOP, List.of(new PollEvent(PollEventType.FALLING, debounce * 4)));
+            timerWheel.newTimeout(expired::countDown).schedule(debounce);
+            isolated.callback(EventPoller.NOOP, List.of(new PollEvent(PollEventType.RISING, debounce * 2)));
+
+            assertThat(expired.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(delivered.latch.await(5, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            release.countDown();
+            slow.close();
+            isolated.close();
+            isolatedDelivery.shutdownNow();
+        }
+    }
+
+    @Test
+    void trailingEdgeEventsElapsingTogetherAreDeliveredAsOneBatch() throws InterruptedException {
+        var batches = new CopyOnWriteArrayList<Integer>();
+        var latch = new CountDownLatch(3);
+        var debounce = TimeUnit.MILLISECONDS.toNanos(5);
+        var holdDelivery = new CountDownLatch(1);
+        Executor heldDelivery = task -> Thread.ofPlatform().start(() -> {
+            try {
+                holdDelivery.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            task.run();
+        });
+        var callback = new TrailingEdgeDebounceCallback(new PollEventsCallback() {
+            @Override
+            public void callback(EventPoller poller, List<PollEvent> pollEvents) {
+                throw new AssertionError("Batches are delivered without copying");
+            }
+
+            @Override
+            public void callback(EventPoller poller, PollEventBatch batch) {
+                batches.add(batch.size());
+                for (int index = 0; index < batch.size(); index++) {
+                    latch.countDown();
+                }
+            }
+        }, debounce, timerWheel, heldDelivery);
+
+        callback.callback(EventPoller.NOOP, List.of(
+                new PollEvent(PollEventType.RISING, debounce * 2, 0),
+                new PollEvent(PollEventType.RISING, debounce * 2, 1),
+                new PollEvent(PollEventType.RISING, debounce * 2, 2)
+        ));
+        // wait for every window to elapse before the delivery task runs
+        while (timerWheel.pending() > 0) {
+            Thread.sleep(1);
+        }
+        // the expiry tasks may still be running once disarmed
+        Thread.sleep(20);
+        holdDelivery.countDown();
+
+        assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(batches).containsExactly(3);
+        callback.close();
+    }
+
+    private static class RecordingCallback implements PollEventsCallback {
+        private final List<PollEvent> events = new CopyOnWriteArrayList<>();
+        private final CountDownLatch latch;
+
+        RecordingCallback() {
+            this(1);
+        }
+
+        RecordingCallback(int expected) {
+            this.latch = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void callback(EventPoller poller, List<PollEvent> pollEvents) {
+            events.addAll(pollEvents);
+            pollEvents.forEach(_ -> latch.countDown());
+        }
+    }
+}
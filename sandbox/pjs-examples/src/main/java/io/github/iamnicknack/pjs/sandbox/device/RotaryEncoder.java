@@ -6,6 +6,8 @@ import io.github.iamnicknack.pjs.model.event.GpioChangeEvent;
 import io.github.iamnicknack.pjs.model.event.GpioChangeEventType;
 import io.github.iamnicknack.pjs.model.event.GpioEventEmitterDelegate;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * Basic implementation of a rotary encoder.
  * <p>
@@ -20,10 +22,14 @@ import io.github.iamnicknack.pjs.model.event.GpioEventEmitterDelegate;
  * A clockwise change event increments the current value and is indicated with an event type of
  * {@link GpioChangeEventType#RISING}. An anti-clockwise change event decrements the current value and is
  * indicated with an event type of {@link GpioChangeEventType#FALLING}.
+ * <p>
+ * Rotation speed is measured from the event timestamps, so it is unaffected by delays in delivering the events.
  */
 public class RotaryEncoder extends GpioEventEmitterDelegate<RotaryEncoder> implements ReadOperation<Integer> {
+    private static final long FAST_ROTATION_NANOS = TimeUnit.MILLISECONDS.toNanos(30);
+
     private volatile int value = 0;   // written on callback thread, read elsewhere
-    private long lastEventTime = 0L;  // callback-thread only
+    private long lastEventNanos = 0L; // callback-thread only
 
     public RotaryEncoder(GpioPort rotaryPort) {
         rotaryPort.addListener(this::onEncoderEvent);
@@ -35,24 +41,32 @@ public class RotaryEncoder extends GpioEventEmitterDelegate<RotaryEncoder> imple
     }
 
     private void onEncoderEvent(GpioChangeEvent<GpioPort> event) {
-        var now = System.currentTimeMillis();
-        var diff = now - lastEventTime;
-        lastEventTime = now;
+        var diff = event.timestampNanos() - lastEventNanos;
+        lastEventNanos = event.timestampNanos();
 
         // larger delta value depending on how fast the encoder is spinning
-        var delta = (diff < 30) ? 3 : 1;
+        var delta = (diff < FAST_ROTATION_NANOS) ? 3 : 1;
 
         var portValue = event.port().read();
         if (portValue == 1) {
             // clockwise
             var v = value;
             value = (Math.floorDiv(v, delta) * delta) + delta;
-            onEvent(new GpioChangeEvent<>(this, GpioChangeEventType.RISING));
+            onEvent(derivedEvent(event, GpioChangeEventType.RISING));
         } else if (portValue == 2) {
             // anti-clockwise
             var v = value;
             value = (Math.floorDiv(v, delta) * delta) - delta;
-            onEvent(new GpioChangeEvent<>(this, GpioChangeEventType.FALLING));
+            onEvent(derivedEvent(event, GpioChangeEventType.FALLING));
         }
     }
+
+    /**
+     * Create an encoder event carrying the timing and sequence data of the triggering port event
+     */
+    private GpioChangeEvent<RotaryEncoder> derivedEvent(GpioChangeEvent<GpioPort> event, GpioChangeEventType eventType) {
+        return new GpioChangeEvent<>(
+                this, eventType, event.timestampNanos(), event.lineOffset(), event.seqno(), event.lineSeqno()
+        );
+    }
 }
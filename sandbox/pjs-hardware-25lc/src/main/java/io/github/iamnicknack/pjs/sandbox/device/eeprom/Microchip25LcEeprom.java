@@ -1,22 +1,39 @@
 package io.github.iamnicknack.pjs.sandbox.device.eeprom;
 
+import io.github.iamnicknack.pjs.device.spi.PreparedSpiTransaction;
 import io.github.iamnicknack.pjs.device.spi.SpiTransfer;
 import io.github.iamnicknack.pjs.model.SerialReadOperation;
 import io.github.iamnicknack.pjs.model.SerialWriteOperation;
 import io.github.iamnicknack.pjs.model.pin.Pin;
 import io.github.iamnicknack.pjs.model.port.Port;
 import io.github.iamnicknack.pjs.model.port.SerialPort;
+import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Arrays;
 
-public class Microchip25LcEeprom implements Eeprom {
+/**
+ * Driver for the Microchip 25LC family of SPI EEPROMs.
+ * <p>
+ * Data and status register accesses use transactions prepared on the {@link SpiTransfer}, which are released by
+ * {@link #close()}.
+ * </p>
+ */
+public class Microchip25LcEeprom implements Eeprom, AutoCloseable {
+
+    /**
+     * The largest payload of a single data transaction. Longer reads and writes are split into several transactions.
+     */
+    static final int MAX_PAYLOAD_LENGTH = 256;
 
     private final Logger logger = LoggerFactory.getLogger(Microchip25LcEeprom.class);
 
     private final SpiTransfer delegate;
+    private final PreparedSpiTransaction readTransaction;
+    private final PreparedSpiTransaction writeTransaction;
     private final Pin writeEnableLatch;
+    private final DeviceRegister statusRegister;
     private final Port<Integer> readStatusRegister;
     private final Port<Integer> writeStatusRegister;
 
@@ -176,9 +193,12 @@ public class Microchip25LcEeprom implements Eeprom {
 
     public Microchip25LcEeprom(SpiTransfer delegate, Pin holdPin, PageFunction pageFunction) {
         this.delegate = delegate;
+        this.readTransaction = delegate.prepare(dataTemplate(Register.READ).read(MAX_PAYLOAD_LENGTH).build());
+        this.writeTransaction = delegate.prepare(dataTemplate(Register.WRITE).write(MAX_PAYLOAD_LENGTH).build());
         this.writeEnableLatch = delegate.pin(Register.WRDI.value, Register.WREN.value);
-        this.readStatusRegister = new DeviceRegister(this.delegate, Register.RDSR).input();
-        this.writeStatusRegister = new DeviceRegister(this.delegate, Register.WRSR).output();
+        this.statusRegister = new DeviceRegister(this.delegate, Register.RDSR, Register.WRSR);
+        this.readStatusRegister = statusRegister.input();
+        this.writeStatusRegister = statusRegister.output();
 
         this.holdPin = holdPin;
         this.pageFunction = pageFunction;
@@ -231,6 +251,16 @@ public class Microchip25LcEeprom implements Eeprom {
         return value;
     }
 
+    /**
+     * Release the transactions prepared for the EEPROM.
+     */
+    @Override
+    public void close() {
+        readTransaction.close();
+        writeTransaction.close();
+        statusRegister.close();
+    }
+
     /**
      * Create a serial write operation for the specified address.
      * @param address The base address for the write operation.
@@ -253,20 +283,25 @@ public class Microchip25LcEeprom implements Eeprom {
                         logger.debug("Writing to page at address 0x{}", String.format("%04X", page.address()));
                     }
 
-                    var delegate = new DataRegister(this.delegate, Register.WRITE, page.address());
-
-                    writeEnableLatch.low();
-                    delegate.writeBytes(page.data(), 0, page.data().length);
-                    for (int i = 0; i < 100; i++) {
-                        if ((readStatusRegister.read() & StatusFlags.WIP.mask) == 0) {
-                            break;
-                        }
-                        if (logger.isDebugEnabled()) {
-                            logger.debug("Waiting for write to complete ({})", i);
+                    for (int written = 0; written < page.data().length; written += MAX_PAYLOAD_LENGTH) {
+                        writeEnableLatch.low();
+                        transferData(
+                                writeTransaction,
+                                page.address() + written,
+                                page.data(),
+                                written,
+                                Math.min(MAX_PAYLOAD_LENGTH, page.data().length - written)
+                        );
+                        for (int i = 0; i < 100; i++) {
+                            if ((readStatusRegister.read() & StatusFlags.WIP.mask) == 0) {
+                                break;
+                            }
+                            if (logger.isDebugEnabled()) {
+                                logger.debug("Waiting for write to complete ({})", i);
+                            }
                         }
+                        writeEnableLatch.high();
                     }
-
-                    writeEnableLatch.high();
                 }
                 holdPin.low();
             }
@@ -279,79 +314,109 @@ public class Microchip25LcEeprom implements Eeprom {
      * @return The serial read operation.
      */
     private SerialReadOperation readRegister(int address) {
-        var delegate = new DataRegister(this.delegate, Register.READ, address);
-        return (buffer, offset,len) -> {
+        return (buffer, offset, len) -> {
             holdPin.high();
-            var result = delegate.readBytes(buffer, offset, len);
+            var result = 0;
+            for (int read = 0; read < len; read += MAX_PAYLOAD_LENGTH) {
+                result += transferData(
+                        readTransaction,
+                        address + read,
+                        buffer,
+                        offset + read,
+                        Math.min(MAX_PAYLOAD_LENGTH, len - read)
+                );
+            }
             holdPin.low();
             return result;
         };
     }
 
     /**
-     * A {@link SerialPort} that reads and writes to a specific device register.
+     * Execute a data transaction for a single payload at the specified address.
+     * @param transaction The prepared read or write transaction.
+     * @param address The memory address of the payload.
+     * @param buffer The buffer to write from or read into.
+     * @param offset The offset of the payload in the buffer.
+     * @param length The length of the payload, at most {@link #MAX_PAYLOAD_LENGTH}.
+     * @return The number of bytes transferred.
      */
-    private static class DeviceRegister implements SerialPort {
-
-        private final SpiTransfer delegate;
-        private final Register register;
-
-        public DeviceRegister(SpiTransfer delegate, Register register) {
-            this.delegate = delegate;
-            this.register = register;
-        }
-
-        @Override
-        public int readBytes(byte[] buffer, int offset, int length) {
-            var messages = new SpiTransfer.Message[] {
-                    SpiTransfer.Message.write(new byte[] { (byte) register.value }),
-                    SpiTransfer.Message.read(buffer, offset, length)
-            };
-            return delegate.transfer(messages);
+    private int transferData(PreparedSpiTransaction transaction, int address, byte[] buffer, int offset, int length) {
+        synchronized (transaction) {
+            return transaction.field(0, address)
+                    .payload(0, buffer, offset, length)
+                    .execute();
         }
+    }
 
-        @Override
-        public void writeBytes(byte[] buffer, int offset, int length) {
-            var messages = new SpiTransfer.Message[] {
-                    SpiTransfer.Message.write(new byte[] { (byte) register.value }),
-                    SpiTransfer.Message.write(buffer, offset, length)
-            };
-            delegate.transfer(messages);
-        }
+    /**
+     * Start a template for a data transaction: the command followed by a 16-bit memory address.
+     * @param register The command register.
+     * @return The template builder.
+     */
+    private static PreparedSpiTransaction.Template.Builder dataTemplate(Register register) {
+        return PreparedSpiTransaction.template()
+                .fixed((byte) register.value)
+                .field(2);
     }
 
     /**
-     * A {@link SerialPort} that reads and writes to a specific memory address.
+     * A {@link SerialPort} that reads from and writes to a device register through separate read and write commands.
+     * Each transaction is prepared on first use.
      */
-    private static class DataRegister implements SerialPort {
+    private static class DeviceRegister implements SerialPort, AutoCloseable {
+
+        /**
+         * The length of the registers accessed, which are all a single byte
+         */
+        private static final int REGISTER_LENGTH = 1;
+
         private final SpiTransfer delegate;
-        private final Register register;
-        private final int address;
+        private final Register readCommand;
+        private final Register writeCommand;
 
-        public DataRegister(SpiTransfer delegate, Register register, int address) {
+        @Nullable
+        private PreparedSpiTransaction read;
+        @Nullable
+        private PreparedSpiTransaction write;
+
+        public DeviceRegister(SpiTransfer delegate, Register readCommand, Register writeCommand) {
             this.delegate = delegate;
-            this.register = register;
-            this.address = address;
+            this.readCommand = readCommand;
+            this.writeCommand = writeCommand;
         }
 
         @Override
-        public int readBytes(byte[] buffer, int offset, int length) {
-            var messages = new SpiTransfer.Message[] {
-                    SpiTransfer.Message.write(new byte[] { (byte) register.value }),
-                    SpiTransfer.Message.write(new byte[] { (byte) (address >> 8), (byte) address }),
-                    SpiTransfer.Message.read(buffer, offset, length)
-            };
-            return delegate.transfer(messages);
+        public synchronized int readBytes(byte[] buffer, int offset, int length) {
+            if (read == null) {
+                read = delegate.prepare(PreparedSpiTransaction.template()
+                        .fixed((byte) readCommand.value)
+                        .read(REGISTER_LENGTH)
+                        .build());
+            }
+            return read.payload(0, buffer, offset, length).execute();
         }
 
         @Override
-        public void writeBytes(byte[] buffer, int offset, int length) {
-            var messages = new SpiTransfer.Message[] {
-                    SpiTransfer.Message.write(new byte[] { (byte) register.value }),
-                    SpiTransfer.Message.write(new byte[] { (byte) (address >> 8), (byte) address }),
-                    SpiTransfer.Message.write(buffer, offset, length)
-            };
-            delegate.transfer(messages);
+        public synchronized void writeBytes(byte[] buffer, int offset, int length) {
+            if (write == null) {
+                write = delegate.prepare(PreparedSpiTransaction.template()
+                        .fixed((byte) writeCommand.value)
+                        .write(REGISTER_LENGTH)
+                        .build());
+            }
+            write.payload(0, buffer, offset, length).execute();
+        }
+
+        @Override
+        public synchronized void close() {
+            if (read != null) {
+                read.close();
+                read = null;
+            }
+            if (write != null) {
+                write.close();
+                write = null;
+            }
         }
     }
 }
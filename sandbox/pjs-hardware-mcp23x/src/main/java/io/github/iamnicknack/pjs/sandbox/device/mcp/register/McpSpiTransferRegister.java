@@ -1,45 +1,120 @@
 package io.github.iamnicknack.pjs.sandbox.device.mcp.register;
 
+import io.github.iamnicknack.pjs.device.spi.PreparedSpiTransaction;
 import io.github.iamnicknack.pjs.device.spi.SpiTransfer;
 import io.github.iamnicknack.pjs.model.port.SerialPort;
+import org.jspecify.annotations.Nullable;
 
-public class McpSpiTransferRegister implements SerialPort {
-    private final SpiTransfer delegate;
+/**
+ * A register accessed through prepared transactions, with the register address bound as a field.
+ * <p>
+ * Registers created by a {@link Factory} share the factory's read and write transactions, so a device holds two
+ * prepared transactions however many registers it uses. Transactions are prepared on first use and released when the
+ * factory, or a register created on its own, is closed.
+ * </p>
+ */
+public class McpSpiTransferRegister implements SerialPort, AutoCloseable {
+
+    /**
+     * The largest payload of a register access, allowing the register pairs of the MCP23x17 to be accessed together
+     */
+    private static final int MAX_REGISTER_LENGTH = 2;
+
+    private final Transactions transactions;
     private final int register;
-    private final int address;
+    private final boolean ownsTransactions;
 
     public McpSpiTransferRegister(SpiTransfer delegate, int register, int address) {
-        this.delegate = delegate;
+        this(new Transactions(delegate, address), register, true);
+    }
+
+    private McpSpiTransferRegister(Transactions transactions, int register, boolean ownsTransactions) {
+        this.transactions = transactions;
         this.register = register;
-        this.address = address;
+        this.ownsTransactions = ownsTransactions;
     }
 
     @Override
     public int readBytes(byte[] buffer, int offset, int length) {
-        delegate.transfer(
-                SpiTransfer.Message.write(new byte[] { (byte) (0b0100_0001 | (address << 1)) }),
-                SpiTransfer.Message.write(new byte[] { (byte) register }),
-                SpiTransfer.Message.read(buffer)
-        );
+        transactions.read(register, buffer, offset, length);
         return length;
     }
 
     @Override
     public void writeBytes(byte[] buffer, int offset, int length) {
-        delegate.transfer(
-                SpiTransfer.Message.write(new byte[] { (byte) (0b0100_0000 | (address << 1)) }),
-                SpiTransfer.Message.write(new byte[] { (byte) register }),
-                SpiTransfer.Message.write(buffer)
-        );
+        transactions.write(register, buffer, offset, length);
     }
 
     /**
-     * Factory to create registers for MCP23008/MCP23017 SPI devices.
+     * Release the transactions of a register created on its own. Registers created by a {@link Factory} are released
+     * with the factory.
      */
-    public static class Factory implements Mcp23xxxRegisterFactory {
+    @Override
+    public void close() {
+        if (ownsTransactions) {
+            transactions.close();
+        }
+    }
+
+    /**
+     * The read and write transactions of a device, prepared on first use
+     */
+    private static final class Transactions implements AutoCloseable {
         private final SpiTransfer delegate;
         private final int address;
 
+        @Nullable
+        private PreparedSpiTransaction read;
+        @Nullable
+        private PreparedSpiTransaction write;
+
+        Transactions(SpiTransfer delegate, int address) {
+            this.delegate = delegate;
+            this.address = address;
+        }
+
+        synchronized void read(int register, byte[] buffer, int offset, int length) {
+            if (read == null) {
+                read = delegate.prepare(template(0b0100_0001).read(MAX_REGISTER_LENGTH).build());
+            }
+            read.field(0, register).payload(0, buffer, offset, length).execute();
+        }
+
+        synchronized void write(int register, byte[] buffer, int offset, int length) {
+            if (write == null) {
+                write = delegate.prepare(template(0b0100_0000).write(MAX_REGISTER_LENGTH).build());
+            }
+            write.field(0, register).payload(0, buffer, offset, length).execute();
+        }
+
+        @Override
+        public synchronized void close() {
+            if (read != null) {
+                read.close();
+                read = null;
+            }
+            if (write != null) {
+                write.close();
+                write = null;
+            }
+        }
+
+        /**
+         * Start a template for a register access: the device opcode followed by the register address
+         */
+        private PreparedSpiTransaction.Template.Builder template(int opcode) {
+            return PreparedSpiTransaction.template()
+                    .fixed((byte) (opcode | (address << 1)))
+                    .field(1);
+        }
+    }
+
+    /**
+     * Factory to create registers for MCP23008/MCP23017 SPI devices.
+     */
+    public static class Factory implements Mcp23xxxRegisterFactory, AutoCloseable {
+        private final Transactions transactions;
+
         /**
          * Construct a factory for the given SPI device.
          * @param delegate the SPI transfer delegate.
@@ -54,8 +129,7 @@ public class McpSpiTransferRegister implements SerialPort {
          * @param address the hardware address of the device.
          */
         public Factory(SpiTransfer delegate, int address) {
-            this.delegate = delegate;
-            this.address = address;
+            this.transactions = new Transactions(delegate, address);
         }
 
         /**
@@ -65,7 +139,15 @@ public class McpSpiTransferRegister implements SerialPort {
          */
         @Override
         public SerialPort register(int register) {
-            return new McpSpiTransferRegister(delegate, register, address);
+            return new McpSpiTransferRegister(transactions, register, false);
+        }
+
+        /**
+         * Release the transactions shared by the registers of this factory.
+         */
+        @Override
+        public void close() {
+            transactions.close();
         }
     }
 }